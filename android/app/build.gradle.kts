@@ -23,6 +23,11 @@ android {
     }
     kotlinOptions { jvmTarget = JavaVersion.VERSION_11.toString() }
 
+    // libuhfring: ring record tag bersama Dart (dart:ffi)
+    externalNativeBuild {
+        cmake { path = file("src/main/cpp/CMakeLists.txt") }
+    }
+
     buildTypes {
            buildTypes {
         getByName("release") {
@@ -36,6 +41,11 @@ android {
     }
     }
 
+    // unit test JVM (strategi/simulator) tidak menyentuh Android API
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+
     // Tambahkan hanya jika nanti ada konflik resource .so (boleh dibiarkan)
     packaging {
         resources {
@@ -53,6 +63,8 @@ dependencies {
     // cara paling aman: refer langsung ke file
     implementation(files("lib/UHFJar_V1.4.06.aar"))
 
+    testImplementation("junit:junit:4.13.2")
+
 }
 
 flutter { source = "../.." }
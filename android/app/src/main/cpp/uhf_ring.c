@@ -0,0 +1,73 @@
+/*
+ * Ring record tag yang dipakai bersama:
+ * - Java menulis record lewat direct ByteBuffer (TagRing.java)
+ * - Dart membaca record langsung dari memori yang sama lewat dart:ffi
+ * Index tulis/baca di header di-load/store atomik (release/acquire) di sini,
+ * karena ByteBuffer maupun Pointer Dart tidak punya jaminan ordering.
+ * Buffer dialokasikan sekali dan hidup selama proses (Dart bisa memegang
+ * pointernya kapan saja), jadi tidak pernah di-free.
+ */
+#include <jni.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+
+#define OFF_WRITE 64
+#define OFF_READ 128
+
+#define EXPORT __attribute__((visibility("default"))) __attribute__((used))
+
+static uint8_t *g_base = NULL;
+static jint g_size = 0;
+
+static int64_t *slot(int off) { return (int64_t *) (g_base + off); }
+
+JNIEXPORT jobject JNICALL
+Java_com_example_rfid_103_TagRing_nativeAlloc(JNIEnv *env, jclass clz, jint bytes) {
+  (void) clz;
+  if (g_base == NULL) {
+    void *p = NULL;
+    if (bytes <= 0 || posix_memalign(&p, 64, (size_t) bytes) != 0)
+      return NULL;
+    memset(p, 0, (size_t) bytes);
+    g_base = (uint8_t *) p;
+    g_size = bytes;
+  }
+  return (*env)->NewDirectByteBuffer(env, g_base, g_size);
+}
+
+JNIEXPORT void JNICALL
+Java_com_example_rfid_103_TagRing_nativePublish(JNIEnv *env, jclass clz, jlong writeIdx) {
+  (void) env;
+  (void) clz;
+  if (g_base != NULL)
+    __atomic_store_n(slot(OFF_WRITE), (int64_t) writeIdx, __ATOMIC_RELEASE);
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_example_rfid_103_TagRing_nativeReadIdx(JNIEnv *env, jclass clz) {
+  (void) env;
+  (void) clz;
+  return g_base == NULL ? 0 : (jlong) __atomic_load_n(slot(OFF_READ), __ATOMIC_ACQUIRE);
+}
+
+JNIEXPORT void JNICALL
+Java_com_example_rfid_103_TagRing_nativeSetReadIdx(JNIEnv *env, jclass clz, jlong readIdx) {
+  (void) env;
+  (void) clz;
+  if (g_base != NULL)
+    __atomic_store_n(slot(OFF_READ), (int64_t) readIdx, __ATOMIC_RELEASE);
+}
+
+/* ===================== dart:ffi ===================== */
+
+EXPORT uint8_t *uhf_ring_base(void) { return g_base; }
+
+EXPORT int64_t uhf_ring_write_idx(void) {
+  return g_base == NULL ? 0 : __atomic_load_n(slot(OFF_WRITE), __ATOMIC_ACQUIRE);
+}
+
+EXPORT void uhf_ring_commit_read(int64_t readIdx) {
+  if (g_base != NULL)
+    __atomic_store_n(slot(OFF_READ), readIdx, __ATOMIC_RELEASE);
+}
@@ -0,0 +1,277 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Statistik yield per kanal frekuensi (region 1, 920-925 MHz, step 250 kHz).
+ * Read dihitung ke kanal:
+ * - yang dilaporkan SDK di info tag (getChannel/getFrequency) bila ada
+ * - kanal yang sedang di-pin (bootstrap single channel) bila SDK diam
+ * Yield = read per detik dwell. Dipakai untuk memilih kanal bootstrap
+ * (UCB: kanal yang jarang dicoba tetap dapat giliran) dan membuang kanal
+ * yang konsisten buruk dari hop table. Counter di-halve saat dwell kanal
+ * lewat DWELL_CAP_MS, jadi kondisi RF baru tetap terbaca.
+ */
+final class ChannelStats {
+
+  static final int CHANNELS = 16;
+  static final int BASE_KHZ = 921125, STEP_KHZ = 250; // ch6 = 922.625 MHz (default lama)
+  static final int DEFAULT_CHANNEL = 6;
+
+  private static final long MIN_DWELL_MS = 2000; // minimal data sebelum kanal boleh dibuang
+  private static final long DWELL_CAP_MS = 60_000;
+  private static final double EXCLUDE_RATIO = 0.4; // < 40% median = buruk
+  private static final double EXPLORE = 0.5;
+
+  private final double[] reads = new double[CHANNELS];
+  private final double[] fresh = new double[CHANNELS];
+  private final double[] rssiSum = new double[CHANNELS];
+  private final double[] dwellMs = new double[CHANNELS];
+  private final boolean[] excluded = new boolean[CHANNELS];
+
+  private int pinned = -1;
+  private long modeSince = 0L;
+  private boolean hopping = false, hopReported = false;
+  private long unattributed = 0L;
+
+  /**
+   * Nilai channel/frekuensi dari SDK -> indeks kanal; -1 bila di luar plan.
+   * Terima indeks, kHz, MHz, atau Hz.
+   */
+  static int channelOf(long v) {
+    if (v >= 0 && v < CHANNELS)
+      return (int) v;
+    long khz;
+    if (v >= 800 && v < 1000)
+      khz = v * 1000;
+    else if (v >= 800_000 && v < 1_000_000)
+      khz = v;
+    else if (v >= 800_000_000L && v < 1_000_000_000L)
+      khz = v / 1000;
+    else
+      return -1;
+    long d = khz - BASE_KHZ;
+    if (d < -STEP_KHZ / 2)
+      return -1;
+    long ch = (d + STEP_KHZ / 2) / STEP_KHZ;
+    return ch < CHANNELS ? (int) ch : -1;
+  }
+
+  static int freqKHz(int ch) {
+    return BASE_KHZ + ch * STEP_KHZ;
+  }
+
+  /** Radio dikunci ke satu kanal mulai now. */
+  synchronized void pin(int ch, long now) {
+    close(now);
+    pinned = ch;
+    hopping = false;
+    modeSince = now;
+  }
+
+  /** Hopping normal mulai now. */
+  synchronized void startHopping(long now) {
+    close(now);
+    pinned = -1;
+    hopping = true;
+    hopReported = false;
+    modeSince = now;
+  }
+
+  /** Inventory berhenti: tutup dwell berjalan. */
+  synchronized void stop(long now) {
+    close(now);
+    pinned = -1;
+    hopping = false;
+  }
+
+  /** @param reported kanal dari SDK, -1 bila tidak ada */
+  synchronized void onRead(int reported, int rssiDbm, boolean isNew) {
+    int ch = reported >= 0 ? reported : pinned;
+    if (ch < 0) {
+      unattributed++;
+      return;
+    }
+    if (reported >= 0 && hopping)
+      hopReported = true;
+    reads[ch]++;
+    if (isNew)
+      fresh[ch]++;
+    rssiSum[ch] += rssiDbm;
+  }
+
+  private void close(long now) {
+    long span = now - modeSince;
+    if (span <= 0)
+      return;
+    if (pinned >= 0) {
+      addDwell(pinned, span);
+    } else if (hopping && hopReported) {
+      // dwell hopping dibagi rata ke kanal aktif (hanya bila SDK melaporkan kanal)
+      int on = 0;
+      for (boolean x : excluded)
+        if (!x)
+          on++;
+      for (int c = 0; c < CHANNELS; c++)
+        if (!excluded[c])
+          addDwell(c, (double) span / Math.max(1, on));
+    }
+    modeSince = now;
+  }
+
+  private void addDwell(int ch, double ms) {
+    dwellMs[ch] += ms;
+    if (dwellMs[ch] > DWELL_CAP_MS) {
+      reads[ch] /= 2;
+      fresh[ch] /= 2;
+      rssiSum[ch] /= 2;
+      dwellMs[ch] /= 2;
+    }
+  }
+
+  private double yieldOf(int ch) {
+    return dwellMs[ch] <= 0 ? 0.0 : reads[ch] * 1000.0 / dwellMs[ch];
+  }
+
+  /**
+   * Kanal bootstrap: yield historis + bonus eksplorasi (UCB), kanal tanpa data
+   * sama sekali dicoba dulu setelah kanal default. Tanpa riwayat -> default.
+   */
+  synchronized int bootstrapChannel() {
+    double total = 0, best = 0;
+    for (int c = 0; c < CHANNELS; c++) {
+      total += dwellMs[c];
+      best = Math.max(best, yieldOf(c));
+    }
+    if (total <= 0)
+      return DEFAULT_CHANNEL;
+    if (dwellMs[DEFAULT_CHANNEL] > 0 && best <= 0)
+      return DEFAULT_CHANNEL; // belum ada read sama sekali: jangan lompat-lompat
+    int pick = DEFAULT_CHANNEL;
+    double pickScore = -1;
+    for (int c = 0; c < CHANNELS; c++) {
+      if (excluded[c])
+        continue;
+      double score = dwellMs[c] <= 0
+          ? Double.MAX_VALUE
+          : yieldOf(c) + EXPLORE * best * Math.sqrt(Math.log1p(total / 1000.0) / (dwellMs[c] / 1000.0));
+      if (score > pickScore) {
+        pickScore = score;
+        pick = c;
+      }
+    }
+    return pick;
+  }
+
+  /**
+   * Frekuensi (kHz) hop table tanpa kanal buruk, atau null bila data belum
+   * cukup / tidak ada yang perlu dibuang (pakai hop table bawaan radio).
+   * Paling banyak separuh kanal dibuang.
+   */
+  synchronized int[] hopTable() {
+    Arrays.fill(excluded, false);
+    List<Integer> known = new ArrayList<>();
+    for (int c = 0; c < CHANNELS; c++)
+      if (dwellMs[c] >= MIN_DWELL_MS)
+        known.add(c);
+    if (known.size() < CHANNELS / 2)
+      return null;
+    double[] ys = new double[known.size()];
+    for (int i = 0; i < ys.length; i++)
+      ys[i] = yieldOf(known.get(i));
+    Arrays.sort(ys);
+    double median = ys[ys.length / 2];
+    if (median <= 0)
+      return null;
+
+    // buang dari yang terburuk
+    known.sort((a, b) -> Double.compare(yieldOf(a), yieldOf(b)));
+    int dropped = 0;
+    for (int c : known) {
+      if (dropped >= CHANNELS / 2 || yieldOf(c) >= median * EXCLUDE_RATIO)
+        break;
+      excluded[c] = true;
+      dropped++;
+    }
+    if (dropped == 0)
+      return null;
+    int[] out = new int[CHANNELS - dropped];
+    int k = 0;
+    for (int c = 0; c < CHANNELS; c++)
+      if (!excluded[c])
+        out[k++] = freqKHz(c);
+    return out;
+  }
+
+  synchronized void reset() {
+    Arrays.fill(reads, 0);
+    Arrays.fill(fresh, 0);
+    Arrays.fill(rssiSum, 0);
+    Arrays.fill(dwellMs, 0);
+    Arrays.fill(excluded, false);
+    unattributed = 0L;
+  }
+
+  /** "ch:reads:fresh:rssiSum:dwellMs;..." untuk SharedPreferences. */
+  synchronized String encode() {
+    StringBuilder sb = new StringBuilder();
+    for (int c = 0; c < CHANNELS; c++) {
+      if (dwellMs[c] <= 0 && reads[c] <= 0)
+        continue;
+      if (sb.length() > 0)
+        sb.append(';');
+      sb.append(c).append(':').append(Math.round(reads[c])).append(':').append(Math.round(fresh[c]))
+          .append(':').append(Math.round(rssiSum[c])).append(':').append(Math.round(dwellMs[c]));
+    }
+    return sb.toString();
+  }
+
+  synchronized void decode(String v) {
+    reset();
+    if (v == null || v.isEmpty())
+      return;
+    for (String it : v.split(";")) {
+      String[] p = it.split(":");
+      if (p.length != 5)
+        continue;
+      try {
+        int c = Integer.parseInt(p[0]);
+        if (c < 0 || c >= CHANNELS)
+          continue;
+        reads[c] = Long.parseLong(p[1]);
+        fresh[c] = Long.parseLong(p[2]);
+        rssiSum[c] = Long.parseLong(p[3]);
+        dwellMs[c] = Long.parseLong(p[4]);
+      } catch (NumberFormatException ignore) {
+      }
+    }
+  }
+
+  synchronized Map<String, Object> snapshot() {
+    List<Map<String, Object>> rows = new ArrayList<>(CHANNELS);
+    for (int c = 0; c < CHANNELS; c++) {
+      Map<String, Object> r = new HashMap<>();
+      r.put("channel", c);
+      r.put("freqKHz", freqKHz(c));
+      r.put("reads", Math.round(reads[c]));
+      r.put("newEpcs", Math.round(fresh[c]));
+      r.put("avgRssi", reads[c] > 0 ? Math.round(rssiSum[c] / reads[c]) : null);
+      r.put("dwellMs", Math.round(dwellMs[c]));
+      r.put("yieldPerSec", Math.round(yieldOf(c) * 10.0) / 10.0);
+      r.put("excluded", excluded[c]);
+      rows.add(r);
+    }
+    Map<String, Object> m = new HashMap<>();
+    m.put("channels", rows);
+    m.put("pinned", pinned);
+    m.put("hopping", hopping);
+    m.put("unattributed", unattributed);
+    m.put("plan", String.format(Locale.ROOT, "%.3f+%dx%.3fMHz", BASE_KHZ / 1000.0, CHANNELS, STEP_KHZ / 1000.0));
+    return m;
+  }
+}
@@ -0,0 +1,190 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deret waktu per EPC: jumlah read + jumlah RSSI per detik dalam ring
+ * {@code seconds} detik, semua di array primitif (slot x detik).
+ * - jumlah tag dibatasi memoryBytes / byte per tag; tag penuh -> slot yang
+ *   paling lama tidak terlihat (LRU) dipakai ulang
+ * - kunjungan baru bila tag hilang > VISIT_GAP_MS (konveyor/pallet lewat lagi)
+ * Waktu = wall clock ms, sama dengan lastSeen di {@link TagTable}.
+ */
+final class DwellSeries {
+
+  static final long VISIT_GAP_MS = 3000;
+
+  // per detik: count (char, 2 B) + rssiSum (int, 4 B); per slot: metadata
+  private static final int SLOT_OVERHEAD_BYTES = 96;
+
+  final int seconds;
+  final int capacity;
+
+  private final HashMap<String, Integer> index = new HashMap<>();
+  private final String[] epc;
+  private final char[] cnt;
+  private final int[] rssiSum;
+  private final long[] headSec, firstSeen, lastSeen, visitStart, reads;
+  private final int[] visits;
+  private final int[] prev, next; // LRU, head = terbaru
+  private int head = -1, tail = -1, size = 0;
+  private long evictions = 0L;
+
+  DwellSeries(int memoryBytes, int seconds) {
+    this.seconds = Math.max(2, seconds);
+    this.capacity = Math.max(1, memoryBytes / (this.seconds * 6 + SLOT_OVERHEAD_BYTES));
+    epc = new String[capacity];
+    cnt = new char[capacity * this.seconds];
+    rssiSum = new int[capacity * this.seconds];
+    headSec = new long[capacity];
+    firstSeen = new long[capacity];
+    lastSeen = new long[capacity];
+    visitStart = new long[capacity];
+    reads = new long[capacity];
+    visits = new int[capacity];
+    prev = new int[capacity];
+    next = new int[capacity];
+  }
+
+  synchronized void hit(String e, int rssiDbm, long wallMs) {
+    Integer id = index.get(e);
+    int s;
+    if (id == null) {
+      s = size < capacity ? size++ : evict();
+      index.put(e, s);
+      epc[s] = e;
+      headSec[s] = wallMs / 1000L;
+      firstSeen[s] = visitStart[s] = lastSeen[s] = wallMs;
+      reads[s] = 0L;
+      visits[s] = 1;
+      Arrays.fill(cnt, s * seconds, (s + 1) * seconds, (char) 0);
+      Arrays.fill(rssiSum, s * seconds, (s + 1) * seconds, 0);
+      pushHead(s);
+    } else {
+      s = id;
+      if (s != head) {
+        unlink(s);
+        pushHead(s);
+      }
+      if (wallMs - lastSeen[s] > VISIT_GAP_MS) {
+        visits[s]++;
+        visitStart[s] = wallMs;
+      }
+    }
+
+    long sec = wallMs / 1000L;
+    if (sec > headSec[s]) {
+      // kosongkan detik yang terlewat (paling banyak satu putaran ring)
+      long from = Math.max(headSec[s] + 1, sec - seconds + 1);
+      for (long t = from; t <= sec; t++) {
+        int p = s * seconds + (int) (t % seconds);
+        cnt[p] = 0;
+        rssiSum[p] = 0;
+      }
+      headSec[s] = sec;
+    } else if (sec <= headSec[s] - seconds) {
+      return; // lebih tua dari ring
+    }
+    int p = s * seconds + (int) (sec % seconds);
+    if (cnt[p] < Character.MAX_VALUE) {
+      cnt[p]++;
+      rssiSum[p] += rssiDbm;
+    }
+    reads[s]++;
+    if (wallMs > lastSeen[s])
+      lastSeen[s] = wallMs;
+  }
+
+  /**
+   * Deret untuk satu EPC (null bila tidak/tidak lagi dilacak): counts[i] dan
+   * meanRssi[i] = detik startSec + i, sampai detik terakhir terlihat.
+   */
+  synchronized Map<String, Object> query(String e) {
+    Integer id = index.get(e);
+    if (id == null)
+      return null;
+    int s = id;
+    long end = headSec[s];
+    long start = Math.max(end - seconds + 1, firstSeen[s] / 1000L);
+    int n = (int) (end - start + 1);
+    List<Integer> counts = new ArrayList<>(n);
+    List<Integer> mean = new ArrayList<>(n);
+    int peak = 0, active = 0;
+    for (long t = start; t <= end; t++) {
+      int p = s * seconds + (int) (t % seconds);
+      int c = cnt[p];
+      counts.add(c);
+      mean.add(c == 0 ? null : Math.round((float) rssiSum[p] / c));
+      if (c > peak)
+        peak = c;
+      if (c > 0)
+        active++;
+    }
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", e);
+    m.put("firstSeen", firstSeen[s]);
+    m.put("lastSeen", lastSeen[s]);
+    m.put("totalReads", reads[s]);
+    m.put("visits", visits[s]);
+    m.put("visitStart", visitStart[s]);
+    m.put("dwellMs", lastSeen[s] - visitStart[s]); // kunjungan terakhir
+    m.put("startSec", start);
+    m.put("counts", counts);
+    m.put("meanRssi", mean);
+    m.put("peakRate", peak);
+    m.put("activeSeconds", active);
+    return m;
+  }
+
+  synchronized void clear() {
+    index.clear();
+    Arrays.fill(epc, 0, size, null);
+    head = tail = -1;
+    size = 0;
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("tags", size);
+    m.put("capacity", capacity);
+    m.put("seconds", seconds);
+    m.put("evictions", evictions);
+    m.put("bytes", (long) capacity * (seconds * 6 + SLOT_OVERHEAD_BYTES));
+    return m;
+  }
+
+  /** Ambil slot tag paling dingin. */
+  private int evict() {
+    int s = tail;
+    unlink(s);
+    index.remove(epc[s]);
+    evictions++;
+    return s;
+  }
+
+  private void pushHead(int s) {
+    prev[s] = -1;
+    next[s] = head;
+    if (head != -1)
+      prev[head] = s;
+    head = s;
+    if (tail == -1)
+      tail = s;
+  }
+
+  private void unlink(int s) {
+    int p = prev[s], n = next[s];
+    if (p != -1)
+      next[p] = n;
+    else
+      head = n;
+    if (n != -1)
+      prev[n] = p;
+    else
+      tail = p;
+  }
+}
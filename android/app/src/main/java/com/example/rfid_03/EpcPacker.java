@@ -0,0 +1,82 @@
+package com.example.rfid_03;
+
+/**
+ * EPC hex -> kunci biner tetap 128 bit (dua long) untuk tabel
+ * {@link SeenIndex}:
+ * - sampai 32 nibble (EPC 96/128 bit): dikemas apa adanya, tanpa tabrakan
+ * - lebih panjang / bukan hex: hash 128 bit (flag HASHED)
+ * Panjang (nibble) ikut disimpan supaya "0A" dan "000A" beda kunci.
+ */
+final class EpcPacker {
+
+  static final int FLAG_HASHED = 0x100;
+
+  /** Hasil packing; dipakai ulang per thread (tanpa alokasi per read). */
+  static final class Key {
+    long hi, lo;
+    int meta; // nibble (0..255) | FLAG_HASHED
+
+    int hash() {
+      long h = hi * 0x9E3779B97F4A7C15L ^ lo * 0xC2B2AE3D27D4EB4FL ^ meta;
+      h ^= h >>> 29;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  private EpcPacker() {
+  }
+
+  /** false bila epc kosong. */
+  static boolean pack(String epc, Key out) {
+    int n = epc == null ? 0 : epc.length();
+    if (n == 0)
+      return false;
+    if (n <= 32) {
+      long hi = 0L, lo = 0L;
+      boolean hex = true;
+      for (int i = 0; i < n; i++) {
+        int d = Character.digit(epc.charAt(i), 16);
+        if (d < 0) {
+          hex = false;
+          break;
+        }
+        // nibble ke-i dari kiri; 16 nibble pertama di hi
+        if (i < 16)
+          hi |= (long) d << (60 - i * 4);
+        else
+          lo |= (long) d << (60 - (i - 16) * 4);
+      }
+      if (hex) {
+        out.hi = hi;
+        out.lo = lo;
+        out.meta = n;
+        return true;
+      }
+    }
+    // FNV-1a 64 dua seed, case-insensitive seperti hex
+    long h1 = 0xcbf29ce484222325L, h2 = 0x84222325cbf29ce4L;
+    for (int i = 0; i < n; i++) {
+      int c = Character.toUpperCase(epc.charAt(i));
+      h1 = (h1 ^ c) * 0x100000001b3L;
+      h2 = (h2 ^ c) * 0x100000001b3L + 0x9E3779B9L;
+    }
+    out.hi = h1;
+    out.lo = h2;
+    out.meta = (Math.min(n, 255)) | FLAG_HASHED;
+    return true;
+  }
+
+  /** Kebalikan pack() untuk kunci yang tidak di-hash. */
+  static String unpack(long hi, long lo, int meta) {
+    if ((meta & FLAG_HASHED) != 0)
+      return null;
+    int n = meta & 0xFF;
+    char[] c = new char[n];
+    for (int i = 0; i < n; i++) {
+      long w = i < 16 ? hi : lo;
+      int shift = 60 - (i % 16) * 4;
+      c[i] = Character.toUpperCase(Character.forDigit((int) ((w >>> shift) & 0xF), 16));
+    }
+    return new String(c);
+  }
+}
@@ -0,0 +1,211 @@
+package com.example.rfid_03;
+
+/**
+ * Index EPC -> slot berkapasitas tetap:
+ * - open addressing (linear probing), tanpa alokasi per read
+ * - slot = indeks ke array primitif milik pemanggil
+ * - urutan LRU; slot paling lama di-recycle saat penuh
+ *
+ * Tidak thread-safe; pemanggil yang mengunci.
+ */
+final class EpcSlotIndex {
+
+  interface EvictListener {
+    void onEvict(int slot);
+  }
+
+  private final int capacity;
+  private final int mask;
+  private final int[] table; // slot + 1, 0 = kosong
+  private final String[] keys;
+  private final int[] hashes;
+  private final int[] prev, next; // LRU, head = paling baru
+  private int head = -1, tail = -1;
+  private int size = 0;
+  private int freeTop = 0; // slot belum pernah dipakai: [freeTop, capacity)
+  private final int[] freeList;
+  private int freeCount = 0;
+  private boolean lastNew = false;
+  private EvictListener evictListener;
+
+  EpcSlotIndex(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    int t = Integer.highestOneBit(this.capacity * 2 - 1) << 1;
+    this.mask = t - 1;
+    this.table = new int[t];
+    this.keys = new String[this.capacity];
+    this.hashes = new int[this.capacity];
+    this.prev = new int[this.capacity];
+    this.next = new int[this.capacity];
+    this.freeList = new int[this.capacity];
+  }
+
+  void setEvictListener(EvictListener l) {
+    evictListener = l;
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  int size() {
+    return size;
+  }
+
+  String key(int slot) {
+    return keys[slot];
+  }
+
+  /** Slot untuk EPC, atau -1 bila belum ada. Tidak mengubah urutan LRU. */
+  int find(String epc) {
+    int h = mix(epc.hashCode());
+    for (int i = h & mask;; i = (i + 1) & mask) {
+      int e = table[i];
+      if (e == 0)
+        return -1;
+      int s = e - 1;
+      if (hashes[s] == h && epc.equals(keys[s]))
+        return s;
+    }
+  }
+
+  /**
+   * Slot untuk EPC (dibuat bila belum ada, evict LRU bila penuh) dan jadikan
+   * paling baru. {@link #wasNew()} menandai slot baru.
+   */
+  int acquire(String epc) {
+    int h = mix(epc.hashCode());
+    int i = h & mask;
+    for (;; i = (i + 1) & mask) {
+      int e = table[i];
+      if (e == 0)
+        break;
+      int s = e - 1;
+      if (hashes[s] == h && epc.equals(keys[s])) {
+        touch(s);
+        lastNew = false;
+        return s;
+      }
+    }
+
+    int s;
+    if (freeCount > 0) {
+      s = freeList[--freeCount];
+    } else if (freeTop < capacity) {
+      s = freeTop++;
+    } else {
+      s = tail;
+      if (evictListener != null)
+        evictListener.onEvict(s);
+      removeSlot(s);
+      freeCount--; // removeSlot mendorong s ke freeList, ambil lagi
+      // posisi kosong bisa bergeser setelah backward-shift, cari ulang
+      i = h & mask;
+      while (table[i] != 0)
+        i = (i + 1) & mask;
+    }
+    keys[s] = epc;
+    hashes[s] = h;
+    table[i] = s + 1;
+    linkHead(s);
+    size++;
+    lastNew = true;
+    return s;
+  }
+
+  boolean wasNew() {
+    return lastNew;
+  }
+
+  void touch(int slot) {
+    if (slot == head)
+      return;
+    unlink(slot);
+    linkHead(slot);
+  }
+
+  /** Slot paling lama tidak disentuh, atau -1 bila kosong. */
+  int oldest() {
+    return tail;
+  }
+
+  /** Slot berikutnya (lebih lama) dalam urutan LRU, atau -1. */
+  int older(int slot) {
+    return next[slot];
+  }
+
+  /** Slot paling baru, atau -1 bila kosong. */
+  int newest() {
+    return head;
+  }
+
+  void remove(int slot) {
+    if (slot < 0 || slot >= capacity || keys[slot] == null)
+      return;
+    removeSlot(slot);
+  }
+
+  void clear() {
+    java.util.Arrays.fill(table, 0);
+    java.util.Arrays.fill(keys, null);
+    head = tail = -1;
+    size = 0;
+    freeTop = 0;
+    freeCount = 0;
+  }
+
+  private void removeSlot(int s) {
+    int h = hashes[s];
+    int i = h & mask;
+    while (table[i] != s + 1)
+      i = (i + 1) & mask;
+    // backward-shift deletion (tanpa tombstone)
+    table[i] = 0;
+    for (int j = (i + 1) & mask;; j = (j + 1) & mask) {
+      int e = table[j];
+      if (e == 0)
+        break;
+      int k = hashes[e - 1] & mask;
+      boolean inRange = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+      if (!inRange) {
+        table[i] = e;
+        table[j] = 0;
+        i = j;
+      }
+    }
+    unlink(s);
+    keys[s] = null;
+    size--;
+    freeList[freeCount++] = s;
+  }
+
+  private void linkHead(int s) {
+    prev[s] = -1;
+    next[s] = head;
+    if (head >= 0)
+      prev[head] = s;
+    head = s;
+    if (tail < 0)
+      tail = s;
+  }
+
+  private void unlink(int s) {
+    int p = prev[s], n = next[s];
+    if (p >= 0)
+      next[p] = n;
+    else
+      head = n;
+    if (n >= 0)
+      prev[n] = p;
+    else
+      tail = p;
+    prev[s] = next[s] = -1;
+  }
+
+  private static int mix(int h) {
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    return h;
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.rfid_03;
+
+import android.os.Handler;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * EventChannel tambahan (selain "uhf/tags") dengan sink yang aman dipanggil
+ * dari thread mana pun; kirim selalu lewat main looper. Port hidup selama
+ * engine; channel-nya dipasang ulang tiap activity baru (attach/detach).
+ */
+final class EventPort implements EventChannel.StreamHandler {
+
+  private final String name;
+  private EventChannel channel;
+  private volatile EventChannel.EventSink sink;
+
+  EventPort(String name) {
+    this.name = name;
+  }
+
+  void attach(BinaryMessenger messenger) {
+    detach();
+    channel = new EventChannel(messenger, name);
+    channel.setStreamHandler(this);
+  }
+
+  /** Event selama tidak ada client dibuang (seperti tanpa listener). */
+  void detach() {
+    if (channel == null)
+      return;
+    channel.setStreamHandler(null);
+    channel = null;
+    sink = null;
+  }
+
+  boolean hasListener() {
+    return sink != null;
+  }
+
+  void send(Handler main, Object payload) {
+    if (sink == null || payload == null)
+      return;
+    main.post(() -> {
+      EventChannel.EventSink s = sink;
+      if (s == null)
+        return;
+      try {
+        s.success(payload);
+      } catch (Throwable ignore) {
+      }
+    });
+  }
+
+  /** Untuk pemanggil yang sudah di main thread. */
+  void sendNow(Object payload) {
+    EventChannel.EventSink s = sink;
+    if (s == null || payload == null)
+      return;
+    try {
+      s.success(payload);
+    } catch (Throwable ignore) {
+    }
+  }
+
+  @Override
+  public void onListen(Object args, EventChannel.EventSink es) {
+    sink = es;
+  }
+
+  @Override
+  public void onCancel(Object args) {
+    sink = null;
+  }
+}
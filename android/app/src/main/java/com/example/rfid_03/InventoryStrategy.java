@@ -0,0 +1,152 @@
+package com.example.rfid_03;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Strategi inventory Gen2: pilih session, dan (opsional) balik target A/B saat
+ * penemuan EPC baru macet.
+ * - rate EPC baru dihitung per jendela stallWindowMs
+ * - macet = rate di bawah max(stallMinRate, puncak dwell ini x stallRatio)
+ * - balik target bila macet dan sudah minDwellMs, atau paksa di maxDwellMs
+ * Tag yang sudah dibaca di S1/S2 pindah flag ke B dan diam; target B
+ * menjemput tag yang flag-nya masih B dari inventory sebelumnya.
+ * Tidak bergantung Android (dipakai juga oleh simulator di test).
+ */
+final class InventoryStrategy {
+
+  static final int TARGET_A = 0, TARGET_B = 1;
+
+  static final class Preset {
+    final String name;
+    int session;
+    boolean dualTarget;
+    int startQ;
+    int stallWindowMs;
+    double stallRatio;
+    double stallMinRate; // EPC baru / detik
+    int minDwellMs;
+    int maxDwellMs; // 0 = tanpa batas
+
+    Preset(String name, int session, boolean dualTarget, int startQ, int stallWindowMs,
+        double stallRatio, double stallMinRate, int minDwellMs, int maxDwellMs) {
+      this.name = name;
+      this.session = session;
+      this.dualTarget = dualTarget;
+      this.startQ = startQ;
+      this.stallWindowMs = stallWindowMs;
+      this.stallRatio = stallRatio;
+      this.stallMinRate = stallMinRate;
+      this.minDwellMs = minDwellMs;
+      this.maxDwellMs = maxDwellMs;
+    }
+  }
+
+  /** Populasi kecil, hasil secepatnya: S0, target A saja (perilaku lama). */
+  static Preset fastSmall() {
+    return new Preset("fast-small", 0, false, 0, 250, 0.0, 0.0, 0, 0);
+  }
+
+  /** Ribuan tag diam: S2, A->B->A saat penemuan macet. */
+  static Preset denseStocktake() {
+    return new Preset("dense-stocktake", 2, true, 6, 200, 0.08, 2.0, 600, 0);
+  }
+
+  /** Tag lewat (gerbang/konveyor): S1, balik target cepat & berkala. */
+  static Preset portal() {
+    return new Preset("portal", 1, true, 4, 100, 0.25, 5.0, 200, 800);
+  }
+
+  static Preset preset(String name) {
+    String n = name == null ? "" : name.toLowerCase(Locale.ROOT);
+    switch (n) {
+      case "dense-stocktake":
+      case "dense":
+        return denseStocktake();
+      case "portal":
+        return portal();
+      default:
+        return fastSmall();
+    }
+  }
+
+  final Preset preset;
+
+  private int target = TARGET_A;
+  private long targetSince, windowStart;
+  private int newInWindow = 0;
+  private double peakRate = 0.0, lastRate = 0.0;
+  private int flips = 0;
+  private long newTotal = 0L;
+
+  InventoryStrategy(Preset preset) {
+    this.preset = preset;
+  }
+
+  synchronized void start(long now) {
+    target = TARGET_A;
+    targetSince = windowStart = now;
+    newInWindow = 0;
+    peakRate = lastRate = 0.0;
+    flips = 0;
+    newTotal = 0L;
+  }
+
+  synchronized int target() {
+    return target;
+  }
+
+  /** EPC yang belum pernah terlihat di sesi ini. */
+  synchronized void onNewEpc() {
+    newInWindow++;
+    newTotal++;
+  }
+
+  /**
+   * Dipanggil berkala; return target baru yang harus dipasang ke radio, atau
+   * -1 bila tidak berubah.
+   */
+  synchronized int tick(long now) {
+    long span = now - windowStart;
+    if (span < preset.stallWindowMs)
+      return -1;
+    lastRate = newInWindow * 1000.0 / span;
+    newInWindow = 0;
+    windowStart = now;
+    if (lastRate > peakRate)
+      peakRate = lastRate;
+    if (!preset.dualTarget)
+      return -1;
+
+    long dwell = now - targetSince;
+    boolean stalled = lastRate <= Math.max(preset.stallMinRate, peakRate * preset.stallRatio);
+    boolean expired = preset.maxDwellMs > 0 && dwell >= preset.maxDwellMs;
+    if ((stalled && dwell >= preset.minDwellMs) || expired) {
+      target ^= 1;
+      targetSince = now;
+      peakRate = 0.0;
+      flips++;
+      return target;
+    }
+    return -1;
+  }
+
+  synchronized Map<String, Object> describe() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("preset", preset.name);
+    m.put("session", preset.session);
+    m.put("dualTarget", preset.dualTarget);
+    m.put("startQ", preset.startQ);
+    m.put("stallWindowMs", preset.stallWindowMs);
+    m.put("stallRatio", preset.stallRatio);
+    m.put("stallMinRate", preset.stallMinRate);
+    m.put("minDwellMs", preset.minDwellMs);
+    m.put("maxDwellMs", preset.maxDwellMs);
+    m.put("target", target == TARGET_A ? "A" : "B");
+    m.put("flips", flips);
+    m.put("newRate", Math.round(lastRate * 10.0) / 10.0);
+    m.put("newTotal", newTotal);
+    return m;
+  }
+}
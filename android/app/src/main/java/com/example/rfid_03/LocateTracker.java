@@ -0,0 +1,67 @@
+package com.example.rfid_03;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mode locate (Geiger) untuk satu EPC:
+ * - Kalman 1D atas RSSI (dBm), lebih stabil dari read tunggal
+ * - sample() dipanggil dengan laju tetap, isi = read terakhir + nilai halus
+ */
+final class LocateTracker {
+
+  private static final float Q = 0.6f; // process noise (tag/antena bergerak)
+  private static final float R = 9f; // measurement noise (~3 dB)
+  private static final int FLOOR_DBM = -90, CEIL_DBM = -30;
+
+  final String epc;
+
+  private float x; // estimasi RSSI
+  private float p = 100f; // varian estimasi
+  private boolean primed = false;
+  private int lastRaw = FLOOR_DBM;
+  private long lastHitAt = 0L;
+  private int readsSinceSample = 0;
+  private int totalReads = 0;
+
+  LocateTracker(String epc) {
+    this.epc = epc;
+  }
+
+  synchronized void update(int rssiDbm, long now) {
+    if (!primed) {
+      x = rssiDbm;
+      p = R;
+      primed = true;
+    } else {
+      p += Q;
+      float k = p / (p + R);
+      x += k * (rssiDbm - x);
+      p *= (1f - k);
+    }
+    lastRaw = rssiDbm;
+    lastHitAt = now;
+    readsSinceSample++;
+    totalReads++;
+  }
+
+  synchronized Map<String, Object> sample(long now) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", epc);
+    m.put("hit", readsSinceSample > 0);
+    m.put("reads", readsSinceSample);
+    m.put("totalReads", totalReads);
+    m.put("rssi", lastRaw);
+    m.put("smooth", primed ? Math.round(x * 10f) / 10.0 : (double) FLOOR_DBM);
+    m.put("proximity", primed ? proximity(x) : 0);
+    m.put("ageMs", primed ? (int) Math.min(Integer.MAX_VALUE, now - lastHitAt) : -1);
+    readsSinceSample = 0;
+    return m;
+  }
+
+  /** 0..100 dari estimasi RSSI (linear antara lantai & plafon dBm). */
+  private static int proximity(float dbm) {
+    float v = (dbm - FLOOR_DBM) * 100f / (CEIL_DBM - FLOOR_DBM);
+    return Math.max(0, Math.min(100, Math.round(v)));
+  }
+}
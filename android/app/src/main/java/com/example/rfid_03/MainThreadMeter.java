@@ -0,0 +1,144 @@
+package com.example.rfid_03;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Printer;
+import android.view.Choreographer;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ukur beban main thread selama inventory:
+ * - interval frame (Choreographer), frame janky = lebih dari 1.5x vsync
+ * - jumlah & durasi message main looper (via message logging Looper)
+ * - push bridge ke Flutter (berapa kali sink.success, berapa tag)
+ * Semua callback jalan di main thread; snapshot() dipanggil dari thread mana pun.
+ * Opt-in (mahal: callback tiap vsync + log tiap message). Printer Looper yang
+ * sudah terpasang (StrictMode, library ANR, dll.) tetap diteruskan dan
+ * dipasang kembali saat stop.
+ */
+final class MainThreadMeter implements Choreographer.FrameCallback, Printer {
+
+  private static final long VSYNC_NS = 16_666_667L;
+
+  private final Choreographer choreographer;
+  private volatile boolean active = false;
+  private Printer previous; // Printer main looper sebelum meter dipasang
+
+  private long lastFrameNs = 0L;
+  private long frames, frameSumNs, frameMaxNs, janky;
+
+  private long msgStartNs = 0L;
+  private long msgs, msgSumNs, msgMaxNs;
+
+  private long pushes, pushedTags;
+  private long startedAt = 0L;
+
+  MainThreadMeter(Choreographer choreographer) {
+    this.choreographer = choreographer;
+  }
+
+  /** Mulai (ulang) pengukuran; panggil dari main thread. */
+  void start() {
+    synchronized (this) {
+      frames = frameSumNs = frameMaxNs = janky = 0;
+      msgs = msgSumNs = msgMaxNs = 0;
+      pushes = pushedTags = 0;
+      lastFrameNs = 0L;
+      startedAt = SystemClock.uptimeMillis();
+    }
+    if (active)
+      return;
+    active = true;
+    previous = currentPrinter(Looper.getMainLooper());
+    Looper.getMainLooper().setMessageLogging(this);
+    choreographer.postFrameCallback(this);
+  }
+
+  void stop() {
+    if (!active)
+      return;
+    active = false;
+    Looper.getMainLooper().setMessageLogging(previous);
+    previous = null;
+    choreographer.removeFrameCallback(this);
+  }
+
+  /** Looper tidak punya getter; field privat, null bila tidak bisa dibaca. */
+  private static Printer currentPrinter(Looper looper) {
+    try {
+      Field f = Looper.class.getDeclaredField("mLogging");
+      f.setAccessible(true);
+      Object v = f.get(looper);
+      return v instanceof Printer ? (Printer) v : null;
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  synchronized void onPush(int tags) {
+    pushes++;
+    pushedTags += tags;
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    if (!active)
+      return;
+    synchronized (this) {
+      if (lastFrameNs != 0L) {
+        long d = frameTimeNanos - lastFrameNs;
+        frames++;
+        frameSumNs += d;
+        if (d > frameMaxNs)
+          frameMaxNs = d;
+        if (d > VSYNC_NS * 3 / 2)
+          janky++;
+      }
+      lastFrameNs = frameTimeNanos;
+    }
+    choreographer.postFrameCallback(this);
+  }
+
+  @Override
+  public void println(String x) {
+    Printer p = previous;
+    if (p != null)
+      p.println(x);
+    // Looper: ">>>>> Dispatching to ..." sebelum, "<<<<< Finished to ..." sesudah message
+    if (x == null || x.isEmpty())
+      return;
+    if (x.charAt(0) == '>') {
+      msgStartNs = System.nanoTime();
+    } else if (x.charAt(0) == '<' && msgStartNs != 0L) {
+      long d = System.nanoTime() - msgStartNs;
+      msgStartNs = 0L;
+      synchronized (this) {
+        msgs++;
+        msgSumNs += d;
+        if (d > msgMaxNs)
+          msgMaxNs = d;
+      }
+    }
+  }
+
+  synchronized Map<String, Object> snapshot() {
+    Map<String, Object> m = new HashMap<>();
+    long ms = Math.max(1, SystemClock.uptimeMillis() - startedAt);
+    m.put("active", active);
+    m.put("frames", frames);
+    m.put("avgFrameMs", frames == 0 ? 0.0 : frameSumNs / 1e6 / frames);
+    m.put("maxFrameMs", frameMaxNs / 1e6);
+    m.put("jankyFrames", janky);
+    m.put("mainMessages", msgs);
+    m.put("mainMessagesPerSec", msgs * 1000.0 / ms);
+    m.put("mainBusyMs", msgSumNs / 1_000_000L);
+    m.put("maxMessageMs", msgMaxNs / 1e6);
+    m.put("pushes", pushes);
+    m.put("pushesPerSec", pushes * 1000.0 / ms);
+    m.put("tagsPerPush", pushes == 0 ? 0.0 : (double) pushedTags / pushes);
+    return m;
+  }
+}
@@ -0,0 +1,171 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mode portal (dock door): lintasan RSSI per EPC per sisi pintu, satu event
+ * per tag saat lintasan selesai (tidak terbaca exitGapMs):
+ * - passed-in / passed-out: dua reader (luar + dalam); arah = sisi yang
+ *   puncak RSSI-nya (EWMA) lebih dulu
+ * - passed: hanya satu sisi yang melihat tag, arah tidak bisa ditentukan
+ * - stayed: masih terbaca setelah stayMs (dikirim sekali, tanpa event lagi
+ *   saat hilang)
+ * State di array primitif lewat {@link EpcSlotIndex} (kapasitas tetap);
+ * per read O(1). Tag yang tergusur LRU langsung diklasifikasi.
+ */
+final class PortalTracker {
+
+  static final int OUTSIDE = 0, INSIDE = 1;
+
+  private static final int MIN_READS = 3;
+  private static final int MIN_SIDE_READS = 2;
+  private static final float ALPHA = 0.4f;
+  private static final int MAX_PENDING = 4096;
+
+  final int outsideReader, insideReader;
+  final long exitGapMs, stayMs;
+
+  private final EpcSlotIndex index;
+  private final long[] firstSeen, lastSeen;
+  private final int[] reads;
+  private final boolean[] stayed;
+  // per sisi: [slot * 2 + side]
+  private final int[] sideReads;
+  private final float[] ewma, peak;
+  private final long[] peakAt;
+
+  private final List<Map<String, Object>> pending = new ArrayList<>();
+  private long emitted = 0L, dropped = 0L;
+  private final long[] counts = new long[4]; // in, out, passed, stayed
+
+  PortalTracker(int capacity, int outsideReader, int insideReader, long exitGapMs, long stayMs) {
+    this.index = new EpcSlotIndex(capacity);
+    int cap = index.capacity();
+    this.outsideReader = outsideReader;
+    this.insideReader = insideReader;
+    this.exitGapMs = Math.max(100, exitGapMs);
+    this.stayMs = Math.max(this.exitGapMs, stayMs);
+    firstSeen = new long[cap];
+    lastSeen = new long[cap];
+    reads = new int[cap];
+    stayed = new boolean[cap];
+    sideReads = new int[cap * 2];
+    ewma = new float[cap * 2];
+    peak = new float[cap * 2];
+    peakAt = new long[cap * 2];
+    index.setEvictListener(slot -> complete(slot, lastSeen[slot]));
+  }
+
+  private int sideOf(int reader) {
+    return reader == insideReader && insideReader != outsideReader ? INSIDE : OUTSIDE;
+  }
+
+  synchronized void hit(String epc, int rssiDbm, int reader, long now) {
+    int s = index.acquire(epc);
+    if (index.wasNew()) {
+      firstSeen[s] = now;
+      reads[s] = 0;
+      stayed[s] = false;
+      for (int i = s * 2; i < s * 2 + 2; i++) {
+        sideReads[i] = 0;
+        peak[i] = -200f;
+      }
+    }
+    reads[s]++;
+    lastSeen[s] = now;
+
+    int i = s * 2 + sideOf(reader);
+    if (sideReads[i]++ == 0)
+      ewma[i] = rssiDbm;
+    else
+      ewma[i] += ALPHA * (rssiDbm - ewma[i]);
+    if (ewma[i] > peak[i]) {
+      peak[i] = ewma[i];
+      peakAt[i] = now;
+    }
+
+    if (!stayed[s] && now - firstSeen[s] >= stayMs) {
+      stayed[s] = true;
+      emit(s, "stayed", now, 0f);
+      counts[3]++;
+    }
+  }
+
+  /**
+   * Klasifikasi tag yang sudah hilang exitGapMs; return event baru + event
+   * stayed sejak panggilan sebelumnya (kosong bila tidak ada).
+   */
+  synchronized List<Map<String, Object>> sweep(long now) {
+    // urutan LRU = urutan lastSeen: berhenti di tag pertama yang masih terlihat
+    for (int s = index.oldest(); s != -1 && now - lastSeen[s] > exitGapMs; s = index.oldest()) {
+      complete(s, lastSeen[s]);
+      index.remove(s);
+    }
+    if (pending.isEmpty())
+      return pending;
+    List<Map<String, Object>> out = new ArrayList<>(pending);
+    pending.clear();
+    return out;
+  }
+
+  private void complete(int s, long end) {
+    if (stayed[s] || reads[s] < MIN_READS)
+      return;
+    int o = s * 2 + OUTSIDE, in = s * 2 + INSIDE;
+    if (sideReads[o] >= MIN_SIDE_READS && sideReads[in] >= MIN_SIDE_READS) {
+      long dt = peakAt[in] - peakAt[o];
+      long span = Math.max(1L, end - firstSeen[s]);
+      float conf = Math.min(1f, Math.abs(dt) / (float) span * 2f);
+      if (dt >= 0) {
+        emit(s, "passed-in", end, conf);
+        counts[0]++;
+      } else {
+        emit(s, "passed-out", end, conf);
+        counts[1]++;
+      }
+    } else {
+      emit(s, "passed", end, 0f);
+      counts[2]++;
+    }
+  }
+
+  private void emit(int s, String event, long at, float confidence) {
+    if (pending.size() >= MAX_PENDING) {
+      pending.remove(0);
+      dropped++;
+    }
+    int o = s * 2 + OUTSIDE, in = s * 2 + INSIDE;
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", index.key(s));
+    m.put("event", event);
+    m.put("atMs", at);
+    m.put("spanMs", lastSeen[s] - firstSeen[s]);
+    m.put("reads", reads[s]);
+    m.put("outsideReads", sideReads[o]);
+    m.put("insideReads", sideReads[in]);
+    m.put("outsidePeak", sideReads[o] > 0 ? Math.round(peak[o]) : null);
+    m.put("insidePeak", sideReads[in] > 0 ? Math.round(peak[in]) : null);
+    // waktu puncak relatif terhadap read pertama (naik = sebelum, turun = sesudah)
+    m.put("outsidePeakAtMs", sideReads[o] > 0 ? peakAt[o] - firstSeen[s] : null);
+    m.put("insidePeakAtMs", sideReads[in] > 0 ? peakAt[in] - firstSeen[s] : null);
+    m.put("confidence", Math.round(confidence * 100f) / 100.0);
+    pending.add(m);
+    emitted++;
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("tracking", index.size());
+    m.put("capacity", index.capacity());
+    m.put("passedIn", counts[0]);
+    m.put("passedOut", counts[1]);
+    m.put("passed", counts[2]);
+    m.put("stayed", counts[3]);
+    m.put("emitted", emitted);
+    m.put("dropped", dropped);
+    return m;
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.rfid_03;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Auto power: cari power terendah yang masih memenuhi target, diukur per
+ * jendela windowMs:
+ * - MODE_RATE: EPC unik per detik dalam satu jendela
+ * - MODE_COVERAGE: porsi manifest yang terbaca dalam satu jendela
+ * Satu power dinilai dari stableWindows jendela berturut-turut (jendela
+ * pertama setelah ganti power dibuang); lolos = semua jendela memenuhi.
+ * Pencarian biner 5..30 dBm mulai dari 30; setelah terkunci, gagal
+ * stableWindows jendela berturut-turut = naik 2 dBm.
+ * Ukuran per jendela mengandalkan tag menjawab ulang (S0); di S1/S2 tag
+ * yang sudah terbaca diam dan rate turun sendiri.
+ */
+final class PowerTuner {
+
+  static final int MIN_DBM = 5, MAX_DBM = 30;
+  static final int MODE_RATE = 0, MODE_COVERAGE = 1;
+
+  private static final int STEP_UP_DBM = 2;
+
+  private static final int SEARCH = 0, LOCKED = 1, UNREACHABLE = 2;
+
+  final int mode;
+  final double target;
+  final int windowMs;
+  final int stableWindows;
+  private final Set<String> manifest;
+
+  private int state = SEARCH;
+  private int lo = MIN_DBM, hi = MAX_DBM, power = MAX_DBM;
+  private boolean maxChecked = false;
+
+  private long windowStart;
+  private final Set<String> windowSeen = new HashSet<>();
+  private long windowReads = 0L;
+  private int skip = 1; // jendela settle setelah ganti power
+  private int judged = 0, passed = 0, failStreak = 0;
+  private double lastMetric = 0.0, lastReadRate = 0.0;
+
+  private int chosenPower = -1;
+  private double chosenMetric = 0.0, chosenReadRate = 0.0;
+  private int changes = 0;
+
+  PowerTuner(int mode, double target, int windowMs, int stableWindows, Set<String> manifest) {
+    this.mode = mode;
+    this.target = target;
+    this.windowMs = Math.max(100, windowMs);
+    this.stableWindows = Math.max(1, stableWindows);
+    Set<String> m = new HashSet<>();
+    if (manifest != null)
+      for (String e : manifest)
+        m.add(e.toUpperCase(Locale.ROOT));
+    this.manifest = m;
+  }
+
+  static int parseMode(Object v) {
+    return "coverage".equals(v) ? MODE_COVERAGE : MODE_RATE;
+  }
+
+  /** Mulai inventory; return power awal yang harus dipasang. */
+  synchronized int start(long now) {
+    if (state == LOCKED) {
+      // sudah pernah terkunci: mulai dari situ, tetap dipantau
+      power = chosenPower;
+    } else {
+      state = SEARCH;
+      lo = MIN_DBM;
+      hi = MAX_DBM;
+      power = MAX_DBM;
+      maxChecked = false;
+    }
+    resetWindow(now);
+    return power;
+  }
+
+  synchronized void onRead(String epc) {
+    windowReads++;
+    if (mode == MODE_COVERAGE && !manifest.contains(epc.toUpperCase(Locale.ROOT)))
+      return;
+    windowSeen.add(mode == MODE_COVERAGE ? epc.toUpperCase(Locale.ROOT) : epc);
+  }
+
+  /** Dipanggil berkala; return power baru, atau -1 bila tidak berubah. */
+  synchronized int tick(long now) {
+    long span = now - windowStart;
+    if (span < windowMs)
+      return -1;
+    double metric = mode == MODE_COVERAGE
+        ? (manifest.isEmpty() ? 0.0 : (double) windowSeen.size() / manifest.size())
+        : windowSeen.size() * 1000.0 / span;
+    double readRate = windowReads * 1000.0 / span;
+    windowSeen.clear();
+    windowReads = 0L;
+    windowStart = now;
+    if (skip > 0) {
+      skip--;
+      return -1;
+    }
+    lastMetric = metric;
+    lastReadRate = readRate;
+    boolean ok = metric >= target;
+
+    if (state == LOCKED) {
+      failStreak = ok ? 0 : failStreak + 1;
+      if (failStreak < stableWindows)
+        return -1;
+      if (power >= MAX_DBM) {
+        state = UNREACHABLE;
+        return -1;
+      }
+      // populasi berubah: naik bertahap, pencarian biner di atas power lama
+      state = SEARCH;
+      lo = power + 1;
+      hi = MAX_DBM;
+      return setPower(Math.min(MAX_DBM, power + STEP_UP_DBM));
+    }
+
+    if (state == UNREACHABLE) {
+      if (!ok)
+        return -1;
+      state = SEARCH; // target tercapai lagi di 30 dBm: cari ulang ke bawah
+      lo = MIN_DBM;
+      hi = MAX_DBM;
+      maxChecked = true;
+      return setPower((lo + hi) / 2);
+    }
+
+    judged++;
+    if (ok)
+      passed++;
+    if (judged < stableWindows)
+      return -1;
+    boolean pass = passed == judged;
+    if (!maxChecked && power == MAX_DBM) {
+      maxChecked = true;
+      if (!pass) {
+        state = UNREACHABLE;
+        resetJudge();
+        return -1;
+      }
+    }
+    if (pass) {
+      hi = power;
+      chosenMetric = metric;
+      chosenReadRate = readRate;
+    } else {
+      lo = power + 1;
+    }
+    if (lo >= hi) {
+      state = LOCKED;
+      chosenPower = hi;
+      failStreak = 0;
+      resetJudge();
+      return hi == power ? -1 : setPower(hi);
+    }
+    return setPower((lo + hi) / 2);
+  }
+
+  private int setPower(int p) {
+    power = p;
+    changes++;
+    skip = 1;
+    resetJudge();
+    return p;
+  }
+
+  private void resetJudge() {
+    judged = 0;
+    passed = 0;
+  }
+
+  private void resetWindow(long now) {
+    windowStart = now;
+    windowSeen.clear();
+    windowReads = 0L;
+    skip = 1;
+    failStreak = 0;
+    resetJudge();
+  }
+
+  synchronized int power() {
+    return power;
+  }
+
+  synchronized boolean locked() {
+    return state == LOCKED;
+  }
+
+  synchronized Map<String, Object> describe() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("mode", mode == MODE_COVERAGE ? "coverage" : "rate");
+    m.put("target", target);
+    m.put("windowMs", windowMs);
+    m.put("stableWindows", stableWindows);
+    m.put("state", state == LOCKED ? "locked" : state == UNREACHABLE ? "unreachable" : "searching");
+    m.put("power", power);
+    m.put("range", lo + ".." + hi);
+    m.put("metric", Math.round(lastMetric * 100.0) / 100.0);
+    m.put("readRate", Math.round(lastReadRate * 10.0) / 10.0);
+    m.put("chosenPower", chosenPower);
+    m.put("chosenMetric", Math.round(chosenMetric * 100.0) / 100.0);
+    m.put("chosenReadRate", Math.round(chosenReadRate * 10.0) / 10.0);
+    m.put("changes", changes);
+    if (mode == MODE_COVERAGE)
+      m.put("manifestSize", manifest.size());
+    return m;
+  }
+}
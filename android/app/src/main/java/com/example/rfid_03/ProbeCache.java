@@ -0,0 +1,128 @@
+package com.example.rfid_03;
+
+import android.content.SharedPreferences;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hasil probing hardware yang berhasil, disimpan per (model device, versi AAR):
+ * - node + baud serial yang terbuka
+ * - method SDK yang ada / tidak ada per kelas host ("name/argc")
+ * - strategi drain yang menghasilkan tag
+ * - statistik yield per kanal frekuensi ({@link ChannelStats})
+ * Launch berikutnya langsung pakai konfigurasi ini; gagal -> probing penuh.
+ * {@link #known}/{@link #note} dipanggil di tiap panggilan reflektif (hot path),
+ * jadi tanpa lock: map konkuren, tulis hanya bila nilainya berubah.
+ */
+final class ProbeCache {
+
+  private final SharedPreferences prefs;
+  private final String key;
+
+  private final Map<String, Map<String, Boolean>> methods = new ConcurrentHashMap<>();
+  private final Set<String> dirtyClasses = ConcurrentHashMap.newKeySet();
+
+  ProbeCache(SharedPreferences prefs, String deviceKey) {
+    this.prefs = prefs;
+    this.key = deviceKey;
+  }
+
+  String serialNode() {
+    String v = prefs.getString(key + ":serial", null);
+    return (v == null || v.indexOf('@') < 0) ? null : v.substring(0, v.indexOf('@'));
+  }
+
+  int serialBaud() {
+    String v = prefs.getString(key + ":serial", null);
+    if (v == null || v.indexOf('@') < 0)
+      return 0;
+    try {
+      return Integer.parseInt(v.substring(v.indexOf('@') + 1));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  void saveSerial(String node, int baud) {
+    prefs.edit().putString(key + ":serial", (node == null ? "" : node) + "@" + baud).apply();
+  }
+
+  void clearSerial() {
+    prefs.edit().remove(key + ":serial").apply();
+  }
+
+  String drain() {
+    return prefs.getString(key + ":drain", null);
+  }
+
+  void saveDrain(String strategy) {
+    if (strategy == null)
+      prefs.edit().remove(key + ":drain").apply();
+    else
+      prefs.edit().putString(key + ":drain", strategy).apply();
+  }
+
+  String channels() {
+    return prefs.getString(key + ":channels", null);
+  }
+
+  void saveChannels(String encoded) {
+    prefs.edit().putString(key + ":channels", encoded).apply();
+  }
+
+  /**
+   * TRUE/FALSE bila method "name/argc" di kelas ini sudah pernah di-probe di
+   * device ini, null bila belum.
+   */
+  Boolean known(String className, String nameArgc) {
+    return load(className).get(nameArgc);
+  }
+
+  void note(String className, String nameArgc, boolean present) {
+    Map<String, Boolean> m = load(className);
+    if (Boolean.valueOf(present).equals(m.get(nameArgc)))
+      return;
+    m.put(nameArgc, present);
+    dirtyClasses.add(className);
+  }
+
+  /** Cache method untuk kelas ini tidak cocok lagi (SDK berubah); probe ulang. */
+  synchronized void forgetMethods(String className) {
+    methods.put(className, new ConcurrentHashMap<>());
+    dirtyClasses.remove(className);
+    prefs.edit().remove(key + ":m:" + className).apply();
+  }
+
+  /** Map method per kelas; dibaca dari prefs sekali (kosong bila belum pernah). */
+  private Map<String, Boolean> load(String className) {
+    Map<String, Boolean> m = methods.get(className);
+    return m != null ? m : methods.computeIfAbsent(className, c -> {
+      Map<String, Boolean> r = new ConcurrentHashMap<>();
+      String v = prefs.getString(key + ":m:" + c, null);
+      if (v != null)
+        for (String it : v.split(","))
+          if (it.length() > 1)
+            r.put(it.substring(1), it.charAt(0) == '+');
+      return r;
+    });
+  }
+
+  synchronized void flush() {
+    if (dirtyClasses.isEmpty())
+      return;
+    SharedPreferences.Editor e = prefs.edit();
+    for (String c : dirtyClasses) {
+      dirtyClasses.remove(c); // note() sesudah ini menandai ulang
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<String, Boolean> it : methods.get(c).entrySet()) {
+        if (sb.length() > 0)
+          sb.append(',');
+        sb.append(it.getValue() ? '+' : '-').append(it.getKey());
+      }
+      e.putString(key + ":m:" + c, sb.toString());
+    }
+    e.apply();
+  }
+}
@@ -0,0 +1,162 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K "tag terdekat" berdasarkan RSSI yang dihaluskan (EWMA):
+ * - state per EPC di array primitif (lewat {@link EpcSlotIndex})
+ * - min-heap berukuran K, update per read O(log K)
+ * - tidak bergantung jumlah total tag yang pernah terlihat
+ * Tag di luar heap masuk lagi saat read berikutnya melampaui minimum heap.
+ */
+final class ProximityRanker {
+
+  private final EpcSlotIndex index;
+  private final float[] smooth;
+  private final long[] lastSeen;
+  private final int[] reads;
+  private final int[] heapPos; // -1 = di luar heap
+
+  private final int[] heap;
+  private int heapSize = 0;
+
+  private final float alpha;
+  private final long staleMs;
+
+  ProximityRanker(int capacity, int k, float alpha, long staleMs) {
+    this.index = new EpcSlotIndex(capacity);
+    int cap = index.capacity();
+    this.smooth = new float[cap];
+    this.lastSeen = new long[cap];
+    this.reads = new int[cap];
+    this.heapPos = new int[cap];
+    java.util.Arrays.fill(heapPos, -1);
+    this.heap = new int[Math.max(1, k)];
+    this.alpha = Math.max(0.01f, Math.min(1f, alpha));
+    this.staleMs = staleMs;
+    index.setEvictListener(slot -> {
+      if (heapPos[slot] >= 0)
+        heapRemove(heapPos[slot]);
+    });
+  }
+
+  synchronized void update(String epc, int rssiDbm, long now) {
+    int s = index.acquire(epc);
+    if (index.wasNew()) {
+      smooth[s] = rssiDbm;
+      reads[s] = 0;
+      heapPos[s] = -1;
+    } else {
+      smooth[s] += alpha * (rssiDbm - smooth[s]);
+    }
+    reads[s]++;
+    lastSeen[s] = now;
+
+    int p = heapPos[s];
+    if (p >= 0) {
+      siftUp(p);
+      siftDown(heapPos[s]);
+    } else if (heapSize < heap.length) {
+      heap[heapSize] = s;
+      heapPos[s] = heapSize;
+      siftUp(heapSize++);
+    } else if (smooth[s] > smooth[heap[0]]) {
+      heapPos[heap[0]] = -1;
+      heap[0] = s;
+      heapPos[s] = 0;
+      siftDown(0);
+    }
+  }
+
+  /** Daftar top-K terurut (RSSI tertinggi dulu); entri basi dibuang dari heap. */
+  synchronized List<Map<String, Object>> snapshot(long now) {
+    int stale = 0;
+    int[] drop = new int[heapSize];
+    for (int i = 0; i < heapSize; i++)
+      if (now - lastSeen[heap[i]] > staleMs)
+        drop[stale++] = heap[i];
+    for (int i = 0; i < stale; i++)
+      heapRemove(heapPos[drop[i]]);
+    int[] order = new int[heapSize];
+    System.arraycopy(heap, 0, order, 0, heapSize);
+    // K kecil: insertion sort cukup
+    for (int i = 1; i < order.length; i++) {
+      int v = order[i], j = i - 1;
+      while (j >= 0 && smooth[order[j]] < smooth[v]) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = v;
+    }
+    List<Map<String, Object>> out = new ArrayList<>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      int s = order[i];
+      Map<String, Object> m = new HashMap<>();
+      m.put("epc", index.key(s));
+      m.put("rssi", Math.round(smooth[s] * 10f) / 10.0);
+      m.put("reads", reads[s]);
+      m.put("ageMs", (int) (now - lastSeen[s]));
+      m.put("rank", i + 1);
+      out.add(m);
+    }
+    return out;
+  }
+
+  synchronized void reset() {
+    for (int i = 0; i < heapSize; i++)
+      heapPos[heap[i]] = -1;
+    heapSize = 0;
+    index.clear();
+  }
+
+  private void heapRemove(int p) {
+    int s = heap[p];
+    heapPos[s] = -1;
+    int last = --heapSize;
+    if (p == last)
+      return;
+    int moved = heap[last];
+    heap[p] = moved;
+    heapPos[moved] = p;
+    siftUp(p);
+    siftDown(heapPos[moved]);
+  }
+
+  private void siftUp(int p) {
+    int s = heap[p];
+    float v = smooth[s];
+    while (p > 0) {
+      int parent = (p - 1) >>> 1;
+      int ps = heap[parent];
+      if (smooth[ps] <= v)
+        break;
+      heap[p] = ps;
+      heapPos[ps] = p;
+      p = parent;
+    }
+    heap[p] = s;
+    heapPos[s] = p;
+  }
+
+  private void siftDown(int p) {
+    int s = heap[p];
+    float v = smooth[s];
+    int half = heapSize >>> 1;
+    while (p < half) {
+      int c = 2 * p + 1;
+      int r = c + 1;
+      if (r < heapSize && smooth[heap[r]] < smooth[heap[c]])
+        c = r;
+      if (smooth[heap[c]] >= v)
+        break;
+      heap[p] = heap[c];
+      heapPos[heap[p]] = p;
+      p = c;
+    }
+    heap[p] = s;
+    heapPos[s] = p;
+  }
+}
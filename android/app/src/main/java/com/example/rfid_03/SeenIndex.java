@@ -0,0 +1,216 @@
+package com.example.rfid_03;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index EPC yang pernah dihitung, lintas hari & sesi, di file yang
+ * di-memory-map (page cache, bukan heap):
+ * - header 64 byte: magic, versi, kapasitas, jumlah, sesi berjalan
+ * - slot 32 byte: kunci {@link EpcPacker} (hi, lo, meta), hari pertama
+ *   (epoch day lokal), sesi pertama; meta 0 = kosong
+ * - open addressing linear probing, kapasitas pangkat dua, load <= 0.7
+ * Tabel hanya digandakan di {@link #open} (thread rpc, sebelum dipakai) bila
+ * load sudah > 0.35, jadi tiap launch punya ruang >= 35% kapasitas. Di jalur
+ * read tidak pernah ada rehash: lewat load 0.7 insert ditolak ({@code full})
+ * sampai open berikutnya.
+ * Sesi = satu sesi inventory di app (clearSession / launch).
+ */
+final class SeenIndex {
+
+  static final int MAGIC = 0x5345454E; // "SEEN"
+  static final int VERSION = 1;
+  static final int HEADER = 64, SLOT = 32;
+  static final int MAX_CAPACITY = 1 << 24; // 512 MB
+
+  private static final int H_MAGIC = 0, H_VERSION = 4, H_CAPACITY = 8, H_COUNT = 12, H_SESSION = 16;
+  private static final int S_HI = 0, S_LO = 8, S_META = 16, S_DAY = 20, S_SESSION = 24;
+  private static final double MAX_LOAD = 0.7;
+  private static final double OPEN_LOAD = 0.35;
+
+  private final File file;
+  private RandomAccessFile raf;
+  private MappedByteBuffer buf;
+  private int capacity, mask, count, session;
+  private boolean full = false;
+  private long lookups = 0L, inserts = 0L, probes = 0L;
+  private final EpcPacker.Key key = new EpcPacker.Key();
+
+  private SeenIndex(File file) {
+    this.file = file;
+  }
+
+  static SeenIndex open(File file, int initialCapacity) throws IOException {
+    SeenIndex s = new SeenIndex(file);
+    File dir = file.getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs())
+      throw new IOException("cannot create " + dir);
+    if (file.exists() && file.length() >= HEADER) {
+      s.map(file, -1);
+      if (s.buf.getInt(H_MAGIC) != MAGIC || s.buf.getInt(H_VERSION) != VERSION) {
+        s.raf.close();
+        throw new IOException("bad seen index " + file);
+      }
+    } else {
+      int cap = Integer.highestOneBit(Math.max(1024, Math.min(MAX_CAPACITY, initialCapacity)) * 2 - 1);
+      s.map(file, cap);
+    }
+    while (s.count > s.capacity * OPEN_LOAD && s.capacity < MAX_CAPACITY)
+      if (!s.grow())
+        break;
+    s.full = s.count > s.capacity * MAX_LOAD;
+    return s;
+  }
+
+  /** cap < 0 = pakai kapasitas dari header file yang ada. */
+  private void map(File f, int cap) throws IOException {
+    raf = new RandomAccessFile(f, "rw");
+    if (cap > 0) {
+      raf.setLength(HEADER + (long) cap * SLOT); // sparse: halaman kosong tidak dialokasi
+      buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+      buf.putInt(H_MAGIC, MAGIC);
+      buf.putInt(H_VERSION, VERSION);
+      buf.putInt(H_CAPACITY, cap);
+      buf.putInt(H_COUNT, 0);
+      buf.putInt(H_SESSION, 0);
+    } else {
+      buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+      cap = buf.getInt(H_CAPACITY);
+      if (Integer.bitCount(cap) != 1 || raf.length() < HEADER + (long) cap * SLOT)
+        throw new IOException("corrupt seen index " + f);
+    }
+    capacity = cap;
+    mask = cap - 1;
+    count = buf.getInt(H_COUNT);
+    session = buf.getInt(H_SESSION);
+  }
+
+  /** Mulai sesi baru; EPC dari sesi sebelumnya jadi "sudah dihitung". */
+  synchronized int beginSession() {
+    session++;
+    buf.putInt(H_SESSION, session);
+    return session;
+  }
+
+  synchronized int session() {
+    return session;
+  }
+
+  /**
+   * Cari EPC; bila belum ada, catat dengan hari {@code today} dan sesi
+   * berjalan. Return -1 = baru, selain itu (hariPertama << 32) | sesiPertama.
+   */
+  synchronized long check(String epc, int today) {
+    if (!EpcPacker.pack(epc, key))
+      return -1L;
+    lookups++;
+    for (int i = key.hash() & mask;; i = (i + 1) & mask) {
+      probes++;
+      int at = HEADER + i * SLOT;
+      int meta = buf.getInt(at + S_META);
+      if (meta == 0) {
+        if (full)
+          return -1L; // tidak dicatat lagi, tetap dianggap baru
+        buf.putLong(at + S_HI, key.hi);
+        buf.putLong(at + S_LO, key.lo);
+        buf.putInt(at + S_DAY, today);
+        buf.putInt(at + S_SESSION, session);
+        buf.putInt(at + S_META, key.meta); // terakhir: slot valid setelah isi lengkap
+        buf.putInt(H_COUNT, ++count);
+        inserts++;
+        if (count > capacity * MAX_LOAD)
+          full = true; // digandakan di open berikutnya
+        return -1L;
+      }
+      if (meta == key.meta && buf.getLong(at + S_HI) == key.hi && buf.getLong(at + S_LO) == key.lo)
+        return ((long) buf.getInt(at + S_DAY) << 32) | (buf.getInt(at + S_SESSION) & 0xFFFFFFFFL);
+    }
+  }
+
+  /** Hanya dari {@link #open}; false = gagal, tabel lama tetap dipakai. */
+  private boolean grow() {
+    File tmp = new File(file.getPath() + ".grow");
+    try {
+      int cap = capacity * 2;
+      RandomAccessFile nraf = new RandomAccessFile(tmp, "rw");
+      nraf.setLength(HEADER + (long) cap * SLOT);
+      MappedByteBuffer nb = nraf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, nraf.length());
+      int nmask = cap - 1;
+      EpcPacker.Key k = new EpcPacker.Key();
+      for (int i = 0; i < capacity; i++) {
+        int at = HEADER + i * SLOT;
+        int meta = buf.getInt(at + S_META);
+        if (meta == 0)
+          continue;
+        k.hi = buf.getLong(at + S_HI);
+        k.lo = buf.getLong(at + S_LO);
+        k.meta = meta;
+        int j = k.hash() & nmask;
+        while (nb.getInt(HEADER + j * SLOT + S_META) != 0)
+          j = (j + 1) & nmask;
+        int to = HEADER + j * SLOT;
+        nb.putLong(to + S_HI, k.hi);
+        nb.putLong(to + S_LO, k.lo);
+        nb.putInt(to + S_DAY, buf.getInt(at + S_DAY));
+        nb.putInt(to + S_SESSION, buf.getInt(at + S_SESSION));
+        nb.putInt(to + S_META, meta);
+      }
+      nb.putInt(H_MAGIC, MAGIC);
+      nb.putInt(H_VERSION, VERSION);
+      nb.putInt(H_CAPACITY, cap);
+      nb.putInt(H_COUNT, count);
+      nb.putInt(H_SESSION, session);
+      nb.force();
+      nraf.close();
+      raf.close();
+      if (!tmp.renameTo(file))
+        throw new IOException("rename failed " + tmp);
+      map(file, -1);
+      return true;
+    } catch (IOException e) {
+      tmp.delete();
+      return false;
+    }
+  }
+
+  /** Tulis halaman kotor ke disk (msync). */
+  synchronized void flush() {
+    buf.force();
+  }
+
+  synchronized void close() {
+    try {
+      buf.force();
+      raf.close();
+    } catch (IOException ignore) {
+    }
+  }
+
+  /** Kosongkan index (semua EPC jadi baru lagi). */
+  synchronized void reset() throws IOException {
+    raf.close();
+    if (!file.delete())
+      throw new IOException("cannot delete " + file);
+    map(file, capacity);
+    full = false;
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("path", file.getAbsolutePath());
+    m.put("count", count);
+    m.put("capacity", capacity);
+    m.put("fileBytes", HEADER + (long) capacity * SLOT);
+    m.put("session", session);
+    m.put("full", full);
+    m.put("lookups", lookups);
+    m.put("inserts", inserts);
+    m.put("avgProbes", lookups == 0 ? 0.0 : Math.round(probes * 100.0 / lookups) / 100.0);
+    return m;
+  }
+}
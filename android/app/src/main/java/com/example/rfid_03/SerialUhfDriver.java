@@ -0,0 +1,341 @@
+package com.example.rfid_03;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend alternatif tanpa AAR vendor: protokol serial modul (M100/QM100,
+ * frame BB .. 7E) langsung ke node /dev/ttyS*.
+ * - satu thread "uhf-serial": read blocking dari port ke buffer tetap,
+ *   parse lewat {@link TagFrameParser}
+ * - timer "uhf-serial-rearm": pasang ulang multi-poll bila modul diam
+ *   (putaran habis / frame hilang)
+ * - perintah (power, query, versi) ditulis dari thread pemanggil ke frame
+ *   yang sudah dialokasi, lalu menunggu jawaban dengan timeout. Modul
+ *   mengabaikan perintah selama multi-poll, jadi saat inventory: stop
+ *   (0x28, ditunggu jawabannya), perintah, lalu pasang ulang
+ * Baud diatur lewat stty (best effort; sebagian device sudah dikonfigurasi
+ * service vendor). Stream bisa diganti untuk tes (emulator modul).
+ */
+final class SerialUhfDriver {
+
+  static final int CMD_VERSION = 0x03, CMD_SINGLE_POLL = 0x22, CMD_MULTI_POLL = 0x27, CMD_STOP_POLL = 0x28;
+  static final int CMD_SET_QUERY = 0x0E, CMD_SET_POWER = 0xB6, CMD_ERROR = 0xFF;
+  static final int TYPE_COMMAND = 0x00, TYPE_RESPONSE = 0x01;
+  static final int ERR_NO_TAG = 0x15;
+
+  private static final int POLL_ROUNDS = 10_000;
+  private static final long REARM_MS = 300L;
+  private static final long ACK_TIMEOUT_MS = 300L;
+  private static final long REARM_CHECK_MS = 100L;
+
+  final String node;
+  private final InputStream in;
+  private final OutputStream out;
+  private final TagFrameParser parser = new TagFrameParser();
+  private final TagFrameParser.Sink sink;
+  private final byte[] rbuf = new byte[4096];
+  private final byte[] cmd = new byte[64]; // frame perintah (dijaga lock out)
+  private final byte[] ackPayload = new byte[64];
+
+  private Thread io;
+  private ScheduledExecutorService rearmTimer;
+  private volatile boolean open = false, inventory = false;
+  private volatile boolean holding = false; // perintah sedang jalan, multi-poll dihentikan sementara
+  private final Object rf = new Object(); // urutkan start/stop/perintah
+  private volatile long lastFrameAt = 0L, lastPollAt = 0L;
+
+  // jawaban perintah terakhir (dijaga lock ack)
+  private final Object ack = new Object();
+  private int waitingCmd = -1, ackCmd = -1, ackLen = 0;
+
+  private long polls = 0L, rearms = 0L, errors = 0L, noTagRounds = 0L, ackTimeouts = 0L, bytesIn = 0L;
+  private long stopFails = 0L;
+  private boolean baudSet = false;
+
+  SerialUhfDriver(String node, InputStream in, OutputStream out, TagFrameParser.Sink sink) {
+    this.node = node;
+    this.in = in;
+    this.out = out;
+    this.sink = sink;
+    parser.setFrameSink(this::onFrame);
+  }
+
+  /** Buka node tty; baud lewat stty bila tersedia. */
+  static SerialUhfDriver open(String node, int baud, TagFrameParser.Sink sink) throws IOException {
+    File f = new File(node);
+    if (!f.exists())
+      throw new IOException("no such node " + node);
+    if (!f.canRead() || !f.canWrite())
+      throw new IOException("no access to " + node);
+    boolean baudOk = stty(node, baud);
+    SerialUhfDriver d = new SerialUhfDriver(node, new FileInputStream(f), new FileOutputStream(f), sink);
+    d.baudSet = baudOk;
+    return d;
+  }
+
+  private static boolean stty(String node, int baud) {
+    try {
+      Process p = new ProcessBuilder("stty", "-F", node, String.valueOf(baud), "raw", "-echo")
+          .redirectErrorStream(true).start();
+      return p.waitFor(1, TimeUnit.SECONDS) && p.exitValue() == 0;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  void start() {
+    if (open)
+      return;
+    open = true;
+    io = new Thread(this::loop, "uhf-serial");
+    io.setPriority(Thread.MAX_PRIORITY - 1);
+    io.start();
+    rearmTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "uhf-serial-rearm");
+      t.setDaemon(true);
+      return t;
+    });
+    rearmTimer.scheduleWithFixedDelay(this::rearmIfIdle, REARM_CHECK_MS, REARM_CHECK_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void loop() {
+    while (open) {
+      try {
+        int r = in.read(rbuf, 0, rbuf.length); // blocking; close() melepas
+        if (r < 0)
+          break;
+        bytesIn += r;
+        lastFrameAt = now();
+        parser.feed(rbuf, 0, r, sink);
+      } catch (IOException e) {
+        errors++;
+        if (!open)
+          break;
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException ie) {
+          break;
+        }
+      }
+    }
+  }
+
+  /** Timer: putaran multi-poll habis / frame hilang -> pasang ulang. */
+  private void rearmIfIdle() {
+    synchronized (rf) {
+      if (!inventory || holding || now() - Math.max(lastFrameAt, lastPollAt) <= REARM_MS)
+        return;
+      rearms++;
+      poll();
+    }
+  }
+
+  private static long now() {
+    return System.nanoTime() / 1_000_000L;
+  }
+
+  private void onFrame(int type, int cmdCode, byte[] b, int off, int len) {
+    if (type != TYPE_RESPONSE)
+      return;
+    if (cmdCode == CMD_ERROR && len > 0 && (b[off] & 0xFF) == ERR_NO_TAG) {
+      noTagRounds++; // satu putaran tanpa tag, bukan error perintah
+      return;
+    }
+    synchronized (ack) {
+      if (cmdCode == CMD_ERROR)
+        errors++;
+      if (waitingCmd < 0 || (cmdCode != waitingCmd && cmdCode != CMD_ERROR))
+        return;
+      ackCmd = cmdCode;
+      ackLen = Math.min(len, ackPayload.length);
+      System.arraycopy(b, off, ackPayload, 0, ackLen);
+      ack.notifyAll();
+    }
+  }
+
+  /* ===================== perintah ===================== */
+
+  /** Tulis frame perintah dari cmd[]; payload sudah di cmd[5..]. */
+  private void send(int code, int pl) throws IOException {
+    synchronized (out) {
+      cmd[0] = (byte) TagFrameParser.HEAD;
+      cmd[1] = TYPE_COMMAND;
+      cmd[2] = (byte) code;
+      cmd[3] = (byte) (pl >>> 8);
+      cmd[4] = (byte) pl;
+      int sum = 0;
+      for (int i = 1; i < 5 + pl; i++)
+        sum += cmd[i] & 0xFF;
+      cmd[5 + pl] = (byte) sum;
+      cmd[6 + pl] = (byte) TagFrameParser.END;
+      out.write(cmd, 0, 7 + pl);
+      out.flush();
+    }
+  }
+
+  /** Kirim lalu tunggu jawaban cmd yang sama; null = timeout / error. */
+  private byte[] request(int code, byte[] payload) {
+    synchronized (ack) {
+      waitingCmd = code;
+      ackCmd = -1;
+    }
+    try {
+      synchronized (out) {
+        if (payload != null)
+          System.arraycopy(payload, 0, cmd, 5, payload.length);
+        send(code, payload == null ? 0 : payload.length);
+      }
+      long end = now() + ACK_TIMEOUT_MS;
+      synchronized (ack) {
+        while (ackCmd < 0 && now() < end)
+          ack.wait(Math.max(1L, end - now()));
+        if (ackCmd < 0) {
+          ackTimeouts++;
+          return null;
+        }
+        if (ackCmd == CMD_ERROR)
+          return null;
+        byte[] r = new byte[ackLen];
+        System.arraycopy(ackPayload, 0, r, 0, ackLen);
+        return r;
+      }
+    } catch (IOException e) {
+      errors++;
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } finally {
+      synchronized (ack) {
+        waitingCmd = -1;
+      }
+    }
+  }
+
+  private void poll() {
+    try {
+      synchronized (out) {
+        cmd[5] = 0x22; // reserved
+        cmd[6] = (byte) (POLL_ROUNDS >>> 8);
+        cmd[7] = (byte) POLL_ROUNDS;
+        send(CMD_MULTI_POLL, 3);
+      }
+      polls++;
+      lastPollAt = now();
+    } catch (IOException e) {
+      errors++;
+    }
+  }
+
+  void startInventory() {
+    synchronized (rf) {
+      inventory = true;
+      poll();
+    }
+  }
+
+  void stopInventory() {
+    synchronized (rf) {
+      inventory = false;
+      request(CMD_STOP_POLL, null);
+    }
+  }
+
+  /**
+   * Perintah yang harus dijawab modul: saat inventory, multi-poll dihentikan
+   * dulu (jawaban stop ditunggu), lalu perintah dikirim dan dicek
+   * jawabannya, lalu multi-poll dipasang ulang. null = tidak dijawab / error.
+   */
+  private byte[] exclusive(int code, byte[] payload) {
+    synchronized (rf) {
+      if (!inventory)
+        return request(code, payload);
+      holding = true;
+      try {
+        if (request(CMD_STOP_POLL, null) == null)
+          stopFails++; // tetap coba; jawaban perintah yang menentukan
+        return request(code, payload);
+      } finally {
+        holding = false;
+        poll();
+      }
+    }
+  }
+
+  /** Jawaban perintah set: status 0x00 = diterima. */
+  private static boolean accepted(byte[] r) {
+    return r != null && (r.length == 0 || r[0] == 0);
+  }
+
+  boolean inventorying() {
+    return inventory;
+  }
+
+  /** Power dalam dBm (modul memakai satuan 0.01 dBm). */
+  boolean setPower(int dbm) {
+    int v = dbm * 100;
+    return accepted(exclusive(CMD_SET_POWER, new byte[] { (byte) (v >>> 8), (byte) v }));
+  }
+
+  /** Parameter Query Gen2: TRext=1, Sel=ALL, session, target A/B, Q. */
+  boolean setQuery(int session, int target, int q) {
+    int v = 0x1000 | ((session & 3) << 8) | ((target & 1) << 7) | ((q & 0xF) << 3);
+    return accepted(exclusive(CMD_SET_QUERY, new byte[] { (byte) (v >>> 8), (byte) v }));
+  }
+
+  /** Versi hardware modul (juga dipakai sebagai cek koneksi); null bila tidak menjawab. */
+  String version() {
+    byte[] r = exclusive(CMD_VERSION, new byte[] { 0x00 });
+    if (r == null || r.length < 1)
+      return null;
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i < r.length; i++) {
+      int c = r[i] & 0xFF;
+      if (c >= 0x20 && c < 0x7F)
+        sb.append((char) c);
+    }
+    return sb.toString();
+  }
+
+  void close() {
+    inventory = false;
+    open = false;
+    if (rearmTimer != null)
+      rearmTimer.shutdownNow();
+    if (io != null)
+      io.interrupt();
+    try {
+      in.close();
+    } catch (IOException ignore) {
+    }
+    try {
+      out.close();
+    } catch (IOException ignore) {
+    }
+  }
+
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>(parser.stats());
+    m.put("node", node);
+    m.put("baudSet", baudSet);
+    m.put("inventory", inventory);
+    m.put("polls", polls);
+    m.put("rearms", rearms);
+    m.put("noTagRounds", noTagRounds);
+    m.put("errors", errors);
+    m.put("ackTimeouts", ackTimeouts);
+    m.put("stopFails", stopFails);
+    m.put("bytesIn", bytesIn);
+    return m;
+  }
+}
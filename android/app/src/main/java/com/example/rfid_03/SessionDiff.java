@@ -0,0 +1,100 @@
+package com.example.rfid_03;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bandingkan dua file sesi ({@link SessionFile}, sama-sama urut kunci) dengan
+ * satu merge streaming: memori konstan, satu lintasan per file.
+ * Hasil di outDir, masing-masing file sesi yang bisa di-page:
+ * - added.uhfs: ada di B, tidak di A
+ * - removed.uhfs: ada di A, tidak di B
+ * - changed.uhfs (kind PAIR): ada di keduanya, selisih RSSI puncak >=
+ *   rssiDelta atau selisih count >= countDelta (&lt;= 0 = tidak dicek)
+ */
+final class SessionDiff {
+
+  interface Progress {
+    /** done/total dalam record (A + B). */
+    void onProgress(long done, long total);
+  }
+
+  static final String ADDED = "added", REMOVED = "removed", CHANGED = "changed";
+  static final String EXT = ".uhfs";
+
+  private static final long PROGRESS_EVERY = 1L << 16;
+
+  private SessionDiff() {
+  }
+
+  static File output(File outDir, String kind) {
+    return new File(outDir, kind + EXT);
+  }
+
+  static Map<String, Object> run(File a, File b, File outDir, int rssiDelta, int countDelta, Progress p)
+      throws IOException {
+    long t0 = System.currentTimeMillis();
+    if (!outDir.isDirectory() && !outDir.mkdirs())
+      throw new IOException("cannot create " + outDir);
+    File fAdd = output(outDir, ADDED), fRem = output(outDir, REMOVED), fChg = output(outDir, CHANGED);
+    long added = 0L, removed = 0L, changed = 0L, same = 0L;
+    long total;
+    try (SessionFile.Cursor ca = new SessionFile.Cursor(a); SessionFile.Cursor cb = new SessionFile.Cursor(b)) {
+      total = ca.records + cb.records;
+      DataOutputStream add = SessionFile.create(fAdd, SessionFile.KIND_SESSION);
+      DataOutputStream rem = SessionFile.create(fRem, SessionFile.KIND_SESSION);
+      DataOutputStream chg = SessionFile.create(fChg, SessionFile.KIND_PAIR);
+      try {
+        boolean ha = ca.next(), hb = cb.next();
+        long nextReport = PROGRESS_EVERY;
+        while (ha || hb) {
+          int c = !ha ? 1 : !hb ? -1 : SessionFile.compare(ca.hi, ca.lo, ca.meta, cb.hi, cb.lo, cb.meta);
+          if (c < 0) {
+            SessionFile.writeRecord(rem, ca.hi, ca.lo, ca.meta, ca.rssi, ca.count);
+            removed++;
+            ha = ca.next();
+          } else if (c > 0) {
+            SessionFile.writeRecord(add, cb.hi, cb.lo, cb.meta, cb.rssi, cb.count);
+            added++;
+            hb = cb.next();
+          } else {
+            boolean rssiChanged = rssiDelta > 0 && Math.abs(ca.rssi - cb.rssi) >= rssiDelta;
+            boolean countChanged = countDelta > 0 && Math.abs(ca.count - cb.count) >= countDelta;
+            if (rssiChanged || countChanged) {
+              SessionFile.writeRecord(chg, ca.hi, ca.lo, ca.meta, ca.rssi, ca.count);
+              SessionFile.writeRecord(chg, cb.hi, cb.lo, cb.meta, cb.rssi, cb.count);
+              changed++;
+            } else {
+              same++;
+            }
+            ha = ca.next();
+            hb = cb.next();
+          }
+          long done = ca.position() + cb.position();
+          if (p != null && done >= nextReport) {
+            p.onProgress(done, total);
+            nextReport = done + PROGRESS_EVERY;
+          }
+        }
+      } finally {
+        SessionFile.seal(add, fAdd, added);
+        SessionFile.seal(rem, fRem, removed);
+        SessionFile.seal(chg, fChg, changed * 2);
+      }
+    }
+    if (p != null)
+      p.onProgress(total, total);
+
+    Map<String, Object> m = new HashMap<>();
+    m.put("added", added);
+    m.put("removed", removed);
+    m.put("changed", changed);
+    m.put("same", same);
+    m.put("dir", outDir.getAbsolutePath());
+    m.put("ms", System.currentTimeMillis() - t0);
+    return m;
+  }
+}
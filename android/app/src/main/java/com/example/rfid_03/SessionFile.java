@@ -0,0 +1,545 @@
+package com.example.rfid_03;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * File sesi inventory di disk: satu record per EPC, urut menurut kunci
+ * {@link EpcPacker} (hi, lo, meta; unsigned), supaya dua sesi bisa
+ * dibandingkan dengan merge streaming ({@link SessionDiff}).
+ * Format: header 16 B (magic "UHFS", versi, kind, jumlah record) lalu record
+ * tetap 24 B: hi(8) lo(8) meta(2) rssi puncak(1) pad(1) count(4).
+ * kind PAIR = dua record (sesi A lalu B) per baris, untuk hasil "changed".
+ * Writer = external sort: read diagregasi per EPC di tabel hash berukuran
+ * tetap, ditumpahkan sebagai run urut saat penuh (di executor, bukan di
+ * thread reader), lalu run di-merge (fan-in terbatas) ke file akhir.
+ * Memori konstan berapa pun jumlah tag.
+ */
+final class SessionFile {
+
+  static final int MAGIC = 0x55484653; // "UHFS"
+  static final int VERSION = 1;
+  static final int KIND_SESSION = 0, KIND_PAIR = 1;
+  static final int HEADER = 16, RECORD = 24;
+
+  private static final int IO_BUF = 64 * 1024;
+  private static final int MERGE_FANIN = 32;
+
+  private SessionFile() {
+  }
+
+  /** Urutan kunci; sama untuk writer, cursor, dan diff. */
+  static int compare(long hi1, long lo1, int meta1, long hi2, long lo2, int meta2) {
+    int c = Long.compareUnsigned(hi1, hi2);
+    if (c != 0)
+      return c;
+    c = Long.compareUnsigned(lo1, lo2);
+    return c != 0 ? c : Integer.compare(meta1, meta2);
+  }
+
+  /** EPC teks; kunci hash (EPC > 128 bit) jadi "#" + 32 hex kunci. */
+  static String epc(long hi, long lo, int meta) {
+    String s = EpcPacker.unpack(hi, lo, meta);
+    return s != null ? s : String.format("#%016X%016X", hi, lo);
+  }
+
+  /* ===================== tulis ===================== */
+
+  static DataOutputStream create(File f, int kind) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), IO_BUF));
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeShort(kind);
+    out.writeLong(0L); // diisi saat selesai
+    return out;
+  }
+
+  static void writeRecord(DataOutputStream out, long hi, long lo, int meta, int rssi, int count) throws IOException {
+    out.writeLong(hi);
+    out.writeLong(lo);
+    out.writeShort(meta);
+    out.writeByte(rssi);
+    out.writeByte(0);
+    out.writeInt(count);
+  }
+
+  /** Tutup stream lalu tulis jumlah record ke header. */
+  static void seal(DataOutputStream out, File f, long records) throws IOException {
+    out.close();
+    try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+      raf.seek(8);
+      raf.writeLong(records);
+    }
+  }
+
+  /**
+   * Kumpulkan read satu sesi (thread-safe). Double buffer: tabel penuh
+   * diserahkan ke executor untuk diurut dan ditulis sebagai run, add()
+   * lanjut di tabel cadangan; add() hanya menunggu bila tabel berikutnya
+   * juga penuh sebelum run sebelumnya selesai. Error tulis run di-latch:
+   * dilaporkan sekali lewat {@link #takeError()} dan membuat finish() gagal.
+   */
+  static final class Writer {
+    private final File tmpDir;
+    private final int capacity;
+    private final Executor spiller;
+    private final EpcPacker.Key key = new EpcPacker.Key();
+    private final List<File> runs = new ArrayList<>();
+    private Table active, spare, spilling; // spilling = run yang sedang ditulis
+    private boolean spillTaken = false;
+    private int gen = 0, spillGen = 0; // discard() di tengah spill -> run dibuang
+    private long reads = 0L, spills = 0L, spillWaits = 0L;
+    private volatile IOException error;
+    private boolean errorTaken = false, closed = false;
+
+    /** capacity = EPC unik per run (memori ~50 B per EPC, x2 untuk double buffer). */
+    Writer(File tmpDir, int capacity) {
+      this(tmpDir, capacity, Runnable::run);
+    }
+
+    Writer(File tmpDir, int capacity, Executor spiller) {
+      this.tmpDir = tmpDir;
+      this.capacity = capacity;
+      this.spiller = spiller;
+      active = new Table(capacity);
+    }
+
+    synchronized void add(String epc, int rssiDbm) {
+      if (!EpcPacker.pack(epc, key))
+        return;
+      add(key.hi, key.lo, key.meta, rssiDbm, 1);
+    }
+
+    synchronized void add(long h, long l, int m, int rssiDbm, int n) {
+      if (closed)
+        return;
+      reads += n;
+      if (active.add(h, l, m, Math.max(-128, Math.min(127, rssiDbm)), n) >= capacity)
+        handOff();
+    }
+
+    /** Error tulis pertama, sekali saja per writer; null bila tidak ada / sudah diambil. */
+    IOException takeError() {
+      IOException e = error;
+      if (e == null)
+        return null;
+      synchronized (this) {
+        if (errorTaken)
+          return null;
+        errorTaken = true;
+        return e;
+      }
+    }
+
+    synchronized long reads() {
+      return reads;
+    }
+
+    synchronized int runs() {
+      return runs.size();
+    }
+
+    /** Tabel penuh -> executor; tunggu hanya bila run sebelumnya belum selesai. */
+    private void handOff() {
+      if (spilling != null) {
+        spillWaits++;
+        if (!spillTaken)
+          writeSpill(spilling); // executor masih sibuk (mis. diff): tulis sendiri, jangan antre
+        while (spilling != null)
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // tetap di tabel aktif; dicoba lagi di add berikutnya
+          }
+      }
+      final Table t = active;
+      spilling = t;
+      spillTaken = false;
+      spillGen = gen;
+      active = spare != null ? spare : new Table(capacity);
+      spare = null;
+      try {
+        spiller.execute(() -> writeSpill(t));
+      } catch (RejectedExecutionException e) {
+        writeSpill(t); // executor sudah mati (shutdown)
+      }
+    }
+
+    /** Urut + tulis satu run di luar lock; dari executor atau inline dari finish(). */
+    private void writeSpill(Table t) {
+      String name;
+      synchronized (this) {
+        if (spilling != t || spillTaken)
+          return;
+        spillTaken = true;
+        name = "run-" + System.nanoTime() + "-" + runs.size() + ".tmp";
+      }
+      File f = new File(tmpDir, name);
+      IOException err = null;
+      try {
+        t.write(f);
+      } catch (IOException e) {
+        err = e;
+        f.delete();
+      }
+      synchronized (this) {
+        if (err != null) {
+          if (error == null)
+            error = err;
+        } else if (spillGen != gen)
+          f.delete();
+        else {
+          runs.add(f);
+          spills++;
+        }
+        t.clear();
+        spare = t;
+        spilling = null;
+        notifyAll();
+      }
+    }
+
+    /** Tulis file sesi akhir (tmp + rename); return jumlah EPC. Writer kosong lagi. */
+    long finish(File out) throws IOException {
+      Table t;
+      synchronized (this) {
+        t = spilling;
+      }
+      if (t != null)
+        writeSpill(t); // belum diambil executor: tulis di sini (no-op bila sudah)
+      synchronized (this) {
+        while (spilling != null)
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+          }
+        try {
+          if (error != null)
+            throw new IOException("session capture incomplete: " + error.getMessage(), error);
+          if (active.size > 0) {
+            File f = new File(tmpDir, "run-" + System.nanoTime() + "-" + runs.size() + ".tmp");
+            active.write(f);
+            runs.add(f);
+            spills++;
+          }
+          while (runs.size() > MERGE_FANIN) {
+            List<File> next = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MERGE_FANIN) {
+              List<File> group = runs.subList(i, Math.min(runs.size(), i + MERGE_FANIN));
+              File f = new File(tmpDir, "run-" + System.nanoTime() + "-m" + i + ".tmp");
+              merge(group, f);
+              for (File g : group)
+                g.delete();
+              next.add(f);
+            }
+            runs.clear();
+            runs.addAll(next);
+          }
+          File tmp = new File(out.getPath() + ".tmp");
+          long n = merge(runs, tmp);
+          if (!tmp.renameTo(out)) {
+            out.delete();
+            if (!tmp.renameTo(out))
+              throw new IOException("rename failed: " + out);
+          }
+          return n;
+        } finally {
+          discard();
+        }
+      }
+    }
+
+    /** Buang run yang belum di-merge (mis. clearSession); run yang sedang ditulis ikut dibuang. */
+    synchronized void discard() {
+      for (File f : runs)
+        f.delete();
+      runs.clear();
+      active.clear();
+      reads = 0L;
+      gen++;
+      error = null;
+      errorTaken = false;
+    }
+
+    /** Buang semua run; add() berikutnya diabaikan. */
+    synchronized void close() {
+      closed = true;
+      discard();
+    }
+
+    synchronized Map<String, Object> stats() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("reads", reads);
+      m.put("pending", active.size + (spilling != null ? spilling.size : 0));
+      m.put("runs", runs.size());
+      m.put("spills", spills);
+      m.put("spillWaits", spillWaits);
+      IOException e = error;
+      if (e != null)
+        m.put("error", e.getMessage());
+      return m;
+    }
+  }
+
+  /** Tabel hash agregasi satu run (satu buffer dari double buffer Writer). */
+  private static final class Table {
+    final int mask;
+    final long[] hi, lo;
+    final int[] meta, count;
+    final byte[] rssi;
+    final int[] order;
+    int size = 0;
+
+    Table(int capacity) {
+      int slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+      mask = slots - 1;
+      hi = new long[slots];
+      lo = new long[slots];
+      meta = new int[slots];
+      count = new int[slots];
+      rssi = new byte[slots];
+      order = new int[capacity];
+    }
+
+    /** Return jumlah EPC unik setelah add. */
+    int add(long h, long l, int m, int r, int n) {
+      int s = (int) ((h * 0x9E3779B97F4A7C15L ^ l * 0xC2B2AE3D27D4EB4FL ^ m) >>> 40) & mask;
+      while (meta[s] != 0) {
+        if (hi[s] == h && lo[s] == l && meta[s] == m) {
+          count[s] += n;
+          if (r > rssi[s])
+            rssi[s] = (byte) r;
+          return size;
+        }
+        s = (s + 1) & mask;
+      }
+      hi[s] = h;
+      lo[s] = l;
+      meta[s] = m; // meta selalu > 0 (panjang EPC >= 1)
+      count[s] = n;
+      rssi[s] = (byte) r;
+      return ++size;
+    }
+
+    void clear() {
+      Arrays.fill(meta, 0);
+      size = 0;
+    }
+
+    /** Slot terisi -> order[], urut kunci, tulis sebagai run. */
+    void write(File f) throws IOException {
+      int n = 0;
+      for (int s = 0; s <= mask && n < size; s++)
+        if (meta[s] != 0)
+          order[n++] = s;
+      sort(0, n - 1);
+      DataOutputStream out = create(f, KIND_SESSION);
+      try {
+        for (int i = 0; i < n; i++) {
+          int s = order[i];
+          writeRecord(out, hi[s], lo[s], meta[s], rssi[s], count[s]);
+        }
+      } finally {
+        seal(out, f, n);
+      }
+    }
+
+    private int cmp(int a, int b) {
+      return compare(hi[a], lo[a], meta[a], hi[b], lo[b], meta[b]);
+    }
+
+    /** Quicksort slot index di order[] (kunci unik per run). */
+    private void sort(int from, int to) {
+      while (from < to) {
+        int mid = (from + to) >>> 1;
+        int p = order[mid];
+        int i = from, j = to;
+        while (i <= j) {
+          while (cmp(order[i], p) < 0)
+            i++;
+          while (cmp(order[j], p) > 0)
+            j--;
+          if (i <= j) {
+            int t = order[i];
+            order[i++] = order[j];
+            order[j--] = t;
+          }
+        }
+        // rekursi ke bagian kecil, ulangi bagian besar (stack O(log n))
+        if (j - from < to - i) {
+          sort(from, j);
+          from = i;
+        } else {
+          sort(i, to);
+          to = j;
+        }
+      }
+    }
+  }
+
+  /** K-way merge run urut; kunci sama digabung (count dijumlah, RSSI puncak). */
+  static long merge(List<File> inputs, File out) throws IOException {
+    PriorityQueue<Cursor> pq = new PriorityQueue<>(Math.max(1, inputs.size()),
+        (x, y) -> compare(x.hi, x.lo, x.meta, y.hi, y.lo, y.meta));
+    List<Cursor> open = new ArrayList<>();
+    DataOutputStream dos = null;
+    long n = 0L;
+    try {
+      for (File f : inputs) {
+        Cursor c = new Cursor(f);
+        open.add(c);
+        if (c.next())
+          pq.add(c);
+      }
+      dos = create(out, KIND_SESSION);
+      while (!pq.isEmpty()) {
+        Cursor c = pq.poll();
+        long h = c.hi, l = c.lo;
+        int m = c.meta, r = c.rssi, cnt = c.count;
+        if (c.next())
+          pq.add(c);
+        while (!pq.isEmpty()) {
+          Cursor d = pq.peek();
+          if (d.hi != h || d.lo != l || d.meta != m)
+            break;
+          pq.poll();
+          cnt += d.count;
+          r = Math.max(r, d.rssi);
+          if (d.next())
+            pq.add(d);
+        }
+        writeRecord(dos, h, l, m, r, cnt);
+        n++;
+      }
+    } finally {
+      for (Cursor c : open)
+        c.close();
+      if (dos != null)
+        seal(dos, out, n);
+    }
+    return n;
+  }
+
+  /* ===================== baca ===================== */
+
+  /** Baca record berurutan; field berisi record terakhir dari next(). */
+  static final class Cursor implements Closeable {
+    final long records;
+    final int kind;
+    long hi, lo;
+    int meta, rssi, count;
+    private final DataInputStream in;
+    private long read = 0L;
+
+    Cursor(File f) throws IOException {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), IO_BUF));
+      try {
+        if (in.readInt() != MAGIC)
+          throw new IOException("not a session file: " + f);
+        if (in.readUnsignedShort() != VERSION)
+          throw new IOException("unsupported session version: " + f);
+        kind = in.readUnsignedShort();
+        records = in.readLong();
+      } catch (IOException e) {
+        in.close();
+        throw e instanceof EOFException ? new IOException("truncated session file: " + f) : e;
+      }
+    }
+
+    boolean next() throws IOException {
+      if (read >= records)
+        return false;
+      hi = in.readLong();
+      lo = in.readLong();
+      meta = in.readUnsignedShort();
+      rssi = in.readByte();
+      in.readByte();
+      count = in.readInt();
+      read++;
+      return true;
+    }
+
+    long position() {
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /** Jumlah baris (record atau pasangan) tanpa membaca isi. */
+  static long rows(File f) throws IOException {
+    try (Cursor c = new Cursor(f)) {
+      return c.kind == KIND_PAIR ? c.records / 2 : c.records;
+    }
+  }
+
+  /** Satu halaman baris mulai {@code offset} (seek langsung, tanpa scan). */
+  static List<Map<String, Object>> page(File f, long offset, int limit) throws IOException {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+      if (raf.readInt() != MAGIC)
+        throw new IOException("not a session file: " + f);
+      raf.readUnsignedShort();
+      int kind = raf.readUnsignedShort();
+      long records = raf.readLong();
+      int per = kind == KIND_PAIR ? 2 : 1;
+      long total = records / per;
+      long from = Math.max(0L, offset);
+      int n = (int) Math.max(0L, Math.min(limit, total - from));
+      if (n == 0)
+        return rows;
+      byte[] b = new byte[n * per * RECORD];
+      raf.seek(HEADER + from * per * RECORD);
+      raf.readFully(b);
+      ByteBuffer bb = ByteBuffer.wrap(b);
+      for (int i = 0; i < n; i++) {
+        Map<String, Object> m = new HashMap<>();
+        long h = bb.getLong(), l = bb.getLong();
+        int meta = bb.getShort() & 0xFFFF;
+        int r = bb.get();
+        bb.get();
+        int c = bb.getInt();
+        m.put("epc", epc(h, l, meta));
+        if (per == 1) {
+          m.put("rssi", r);
+          m.put("count", c);
+        } else {
+          bb.position(bb.position() + 18);
+          int r2 = bb.get();
+          bb.get();
+          int c2 = bb.getInt();
+          m.put("rssiA", r);
+          m.put("countA", c);
+          m.put("rssiB", r2);
+          m.put("countB", c2);
+        }
+        rows.add(m);
+      }
+    }
+    return rows;
+  }
+}
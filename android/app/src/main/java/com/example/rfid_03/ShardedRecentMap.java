@@ -0,0 +1,58 @@
+package com.example.rfid_03;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Peredam duplikat EPC (waktu read terakhir per EPC) yang di-shard per hash
+ * EPC, supaya beberapa thread reader tidak berebut satu lock.
+ * Tiap shard LRU dengan batas ukuran sendiri.
+ */
+final class ShardedRecentMap {
+
+  private final Shard[] shards;
+  private final int mask;
+
+  ShardedRecentMap(int shardCount, int perShardLimit) {
+    int n = Integer.highestOneBit(Math.max(1, shardCount * 2 - 1));
+    shards = new Shard[n];
+    for (int i = 0; i < n; i++)
+      shards[i] = new Shard(perShardLimit);
+    mask = n - 1;
+  }
+
+  /** true bila read ini diteruskan (bukan duplikat dalam {@code suppressMs}). */
+  boolean admit(String epc, long now, long suppressMs) {
+    int h = epc.hashCode();
+    Shard s = shards[(h ^ (h >>> 16)) & mask];
+    synchronized (s) {
+      Long last = s.get(epc);
+      if (last != null && (now - last) < suppressMs)
+        return false;
+      s.put(epc, now);
+      return true;
+    }
+  }
+
+  void clear() {
+    for (Shard s : shards)
+      synchronized (s) {
+        s.clear();
+      }
+  }
+
+  private static final class Shard extends LinkedHashMap<String, Long> {
+    private static final long serialVersionUID = 1L;
+    private final int limit;
+
+    Shard(int limit) {
+      super(64, 0.75f, true);
+      this.limit = limit;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Long> e) {
+      return size() > limit;
+    }
+  }
+}
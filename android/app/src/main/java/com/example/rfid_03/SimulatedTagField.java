@@ -0,0 +1,168 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Backend tiruan untuk {@link TagCommissioner}: conveyor yang membawa tag
+ * kosong ke depan antena, untuk uji throughput tanpa hardware.
+ * - field berisi maksimal fieldSize tag; tag keluar setelah dwellRounds ronde
+ *   singulasi (atau segera setelah ter-commission) dan diganti tag kosong baru
+ * - biaya air-time per operasi; realTime=false -> jam virtual (tanpa sleep),
+ *   true -> sleep sungguhan (mode simulasi dari Dart)
+ * - tag butuh commitMs setelah write sebelum EPC baru terbaca; sebagian write
+ *   gagal, sebagian tag cacat (write selalu gagal), sebagian read tidak dijawab,
+ *   sebagian write masuk tapi ack-nya hilang
+ * - tiap tag punya TID tetap; write/verify/lock select pada TID
+ */
+final class SimulatedTagField implements TagCommissioner.Air, TagCommissioner.Clock {
+
+  static final String BLANK_PREFIX = "E200";
+
+  int fieldSize = 6;
+  int dwellRounds = 4;
+  double singulateMs = 20, perTagMs = 1, writeMs = 12, readMs = 4, lockMs = 8, commitMs = 10;
+  double writeFail = 0.02, defective = 0.01, readMiss = 0.05, ackLoss = 0.01;
+
+  private static final class Tag {
+    String epc, tid;
+    long committedAtNs; // EPC baru valid sejak
+    int rounds;
+    boolean defective, locked, commissioned;
+  }
+
+  private final boolean realTime;
+  private final Random rnd;
+  private final List<Tag> field = new ArrayList<>();
+  private long virtualNs = 0L;
+  private long conveyed = 0L, lockedCount = 0L;
+
+  SimulatedTagField(boolean realTime, long seed) {
+    this.realTime = realTime;
+    this.rnd = new Random(seed);
+  }
+
+  /* ===================== jam ===================== */
+
+  @Override
+  public synchronized long nanoTime() {
+    return realTime ? System.nanoTime() : virtualNs;
+  }
+
+  @Override
+  public void sleep(long ms) throws InterruptedException {
+    if (realTime)
+      Thread.sleep(ms);
+    else
+      synchronized (this) {
+        virtualNs += ms * 1_000_000L;
+      }
+  }
+
+  private void spend(double ms) throws InterruptedException {
+    if (realTime)
+      Thread.sleep((long) ms, (int) ((ms - (long) ms) * 1e6));
+    else
+      virtualNs += (long) (ms * 1e6);
+  }
+
+  /* ===================== air ===================== */
+
+  @Override
+  public synchronized List<String> singulate(int max) throws InterruptedException {
+    // conveyor bergerak: keluarkan tag selesai / lama, isi dengan tag kosong baru
+    for (int i = field.size() - 1; i >= 0; i--) {
+      Tag t = field.get(i);
+      if (t.commissioned || ++t.rounds > dwellRounds)
+        field.remove(i);
+    }
+    while (field.size() < fieldSize) {
+      Tag t = new Tag();
+      t.epc = String.format("%s%020X", BLANK_PREFIX, rnd.nextLong() & 0xFFFFFFFFFFFFFFFL);
+      t.tid = String.format("E2801130%016X", rnd.nextLong());
+      t.defective = rnd.nextDouble() < defective;
+      field.add(t);
+      conveyed++;
+    }
+    List<String> out = new ArrayList<>();
+    for (Tag t : field)
+      if (out.size() < max && rnd.nextDouble() >= readMiss)
+        out.add(t.epc);
+    spend(singulateMs + perTagMs * out.size());
+    return out;
+  }
+
+  private Tag find(String epc) {
+    long now = nanoTime();
+    for (Tag t : field)
+      if (t.epc.equalsIgnoreCase(epc) && now >= t.committedAtNs)
+        return t;
+    return null;
+  }
+
+  /** Select TID; tag yang masih commit NVM tidak menjawab. */
+  private Tag byTid(String tid) {
+    long now = nanoTime();
+    for (Tag t : field)
+      if (t.tid.equalsIgnoreCase(tid) && now >= t.committedAtNs)
+        return t;
+    return null;
+  }
+
+  @Override
+  public synchronized String readTid(String epc) throws Exception {
+    spend(readMs);
+    Tag t = find(epc);
+    if (t == null || rnd.nextDouble() < readMiss)
+      throw new IllegalStateException("no response");
+    return t.tid;
+  }
+
+  @Override
+  public synchronized void writeEpc(String tid, String next, String accessPwd) throws Exception {
+    spend(writeMs);
+    Tag t = byTid(tid);
+    if (t == null)
+      throw new IllegalStateException("no tag");
+    if (t.defective || t.locked || rnd.nextDouble() < writeFail)
+      throw new IllegalStateException("write error");
+    t.epc = next;
+    t.committedAtNs = nanoTime() + (long) (commitMs * 1e6);
+    if (rnd.nextDouble() < ackLoss)
+      throw new IllegalStateException("no ack"); // write masuk, jawaban hilang
+  }
+
+  @Override
+  public synchronized String readPcEpc(String tid, int words) throws Exception {
+    spend(readMs);
+    Tag t = byTid(tid);
+    if (t == null || rnd.nextDouble() < readMiss)
+      throw new IllegalStateException("no response");
+    if (!t.epc.startsWith(BLANK_PREFIX))
+      t.commissioned = true; // terverifikasi: keluar dari field di ronde berikut
+    StringBuilder sb = new StringBuilder(TagCommissioner.pcEpc(t.epc));
+    while (sb.length() < words * 4)
+      sb.append('0');
+    sb.setLength(words * 4);
+    return sb.toString();
+  }
+
+  @Override
+  public synchronized void lock(String tid, String accessPwd) throws Exception {
+    spend(lockMs);
+    Tag t = byTid(tid);
+    if (t == null)
+      throw new IllegalStateException("no tag");
+    t.locked = true;
+    lockedCount++;
+  }
+
+  synchronized long conveyed() {
+    return conveyed;
+  }
+
+  synchronized long locked() {
+    return lockedCount;
+  }
+}
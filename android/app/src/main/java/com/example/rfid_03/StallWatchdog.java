@@ -0,0 +1,224 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watchdog stall selama inventory: bandingkan jeda sejak read terakhir
+ * dengan laju read yang diharapkan (EWMA per detik). Modul yang diam
+ * padahal tadinya lancar -> pemulihan bertingkat, satu langkah per
+ * stepMs sampai read datang lagi:
+ *   1 flip target, 2 inventoryReset, 3 stop/start, 4 buka ulang serial,
+ *   5 power cycle UHF
+ * Hanya aktif setelah laju sempat >= minRate (field kosong sejak awal
+ * bukan stall). Tangga habis tanpa read -> dianggap field kosong, diam
+ * sampai read berikutnya. Tiap stall dicatat: langkah yang memulihkan,
+ * lama hilang baca (lostMs).
+ */
+final class StallWatchdog {
+
+  static final int NONE = -1;
+  static final int TARGET_FLIP = 1, INVENTORY_RESET = 2, RESTART = 3, SERIAL_REOPEN = 4, POWER_CYCLE = 5;
+  static final String[] STEP_NAMES = { "none", "target-flip", "inventory-reset", "restart", "serial-reopen",
+      "power-cycle" };
+
+  // waktu tunggu efek tiap langkah sebelum naik tingkat
+  private static final long[] STEP_MS = { 0, 600, 800, 1500, 2500, 4000 };
+  private static final float ALPHA = 0.3f;
+  private static final int MAX_HISTORY = 32;
+
+  final double minRate; // read/detik minimal supaya watchdog aktif
+  final long minStallMs, maxStallMs;
+  final int gapFactor; // stall = jeda > gapFactor x jeda rata-rata
+
+  private double rate = 0.0; // EWMA read/detik
+  private long secStart = 0L;
+  private int secReads = 0;
+  private long lastReadAt = 0L;
+  private boolean active = false, armed = false, exhausted = false, stalled = false;
+
+  private int level = 0;
+  private long stallAt = 0L, stepAt = 0L;
+
+  private long stalls = 0L, recovered = 0L, unresolved = 0L;
+  private long lostMs = 0L, maxRecoverMs = 0L, activeMs = 0L, activeSince = 0L;
+  private final long[] attempts = new long[STEP_NAMES.length];
+  private final long[] fixes = new long[STEP_NAMES.length];
+  private final long[] tookMs = new long[STEP_NAMES.length]; // lama eksekusi langkah
+  private final List<Map<String, Object>> history = new ArrayList<>();
+
+  StallWatchdog(double minRate, long minStallMs, long maxStallMs, int gapFactor) {
+    this.minRate = Math.max(0.1, minRate);
+    this.minStallMs = Math.max(200L, minStallMs);
+    this.maxStallMs = Math.max(this.minStallMs, maxStallMs);
+    this.gapFactor = Math.max(2, gapFactor);
+  }
+
+  /** Inventory mulai: mulai hitung waktu aktif, buang laju lama. */
+  synchronized void start(long now) {
+    rate = 0.0;
+    secStart = now;
+    secReads = 0;
+    lastReadAt = now;
+    armed = false;
+    exhausted = false;
+    level = 0;
+    stalled = false;
+    activeSince = now;
+    active = true;
+  }
+
+  synchronized void stop(long now) {
+    if (stalled)
+      finishStall(now, false);
+    if (active)
+      activeMs += now - activeSince;
+    active = false;
+    level = 0;
+  }
+
+  synchronized void onRead(long now) {
+    lastReadAt = now;
+    exhausted = false;
+    secReads++;
+    if (stalled)
+      finishStall(now, true);
+  }
+
+  /** RF sengaja dijeda (akses memori tag): jeda ini bukan stall. */
+  synchronized void hold(long now) {
+    lastReadAt = Math.max(lastReadAt, now);
+    secStart = now;
+    secReads = 0;
+    if (stalled)
+      stepAt = now;
+  }
+
+  /** Lama eksekusi satu langkah pemulihan (di thread rpc). */
+  synchronized void stepTook(int step, long ms) {
+    if (step > 0 && step < tookMs.length)
+      tookMs[step] += ms;
+  }
+
+  private void rollRate(long now) {
+    // jendela 1 detik; detik kosong ikut menurunkan laju
+    while (now - secStart >= 1000) {
+      rate = rate == 0.0 ? secReads : rate + ALPHA * (secReads - rate);
+      secReads = 0;
+      secStart += 1000;
+      if (rate >= minRate)
+        armed = true;
+      if (now - secStart > 60_000) // lama tidak di-tick
+        secStart = now;
+    }
+  }
+
+  /** Jeda yang dianggap stall untuk laju sekarang. */
+  synchronized long stallThresholdMs() {
+    if (rate <= 0)
+      return maxStallMs;
+    long gap = (long) (gapFactor * 1000.0 / rate);
+    return Math.max(minStallMs, Math.min(maxStallMs, gap));
+  }
+
+  /** Dipanggil periodik; return langkah pemulihan yang harus dijalankan atau NONE. */
+  synchronized int tick(long now) {
+    if (!active)
+      return NONE;
+    if (!stalled) {
+      rollRate(now);
+      if (!armed || exhausted || now - lastReadAt < stallThresholdMs())
+        return NONE;
+      stalls++;
+      stalled = true;
+      stallAt = lastReadAt; // hilang baca dihitung sejak read terakhir
+      return step(now, TARGET_FLIP);
+    }
+    if (now - stepAt < STEP_MS[level])
+      return NONE;
+    if (level >= POWER_CYCLE) {
+      finishStall(now, false);
+      exhausted = true; // kemungkinan besar memang tidak ada tag
+      return NONE;
+    }
+    return step(now, level + 1);
+  }
+
+  private int step(long now, int l) {
+    level = l;
+    stepAt = now;
+    attempts[l]++;
+    return l;
+  }
+
+  private void finishStall(long now, boolean ok) {
+    long lost = now - stallAt;
+    if (ok) {
+      recovered++;
+      fixes[level]++;
+      lostMs += lost;
+      maxRecoverMs = Math.max(maxRecoverMs, lost);
+    } else {
+      unresolved++;
+    }
+    if (history.size() >= MAX_HISTORY)
+      history.remove(0);
+    Map<String, Object> h = new HashMap<>();
+    h.put("atMs", stallAt);
+    h.put("lostMs", lost);
+    h.put("step", STEP_NAMES[level]);
+    h.put("recovered", ok);
+    history.add(h);
+    stalled = false;
+    level = 0;
+    // laju ulang dari awal supaya burst pasca-recovery tidak memicu stall palsu
+    secStart = now;
+    secReads = ok ? 1 : 0;
+  }
+
+  synchronized Map<String, Object> stats(long now) {
+    Map<String, Object> m = new HashMap<>();
+    long activeNow = activeMs + (active ? now - activeSince : 0L);
+    long lostNow = lostMs + (stalled ? now - stallAt : 0L);
+    m.put("rate", Math.round(rate * 10.0) / 10.0);
+    m.put("armed", armed);
+    m.put("stalled", stalled);
+    m.put("level", STEP_NAMES[level]);
+    m.put("thresholdMs", stallThresholdMs());
+    m.put("stalls", stalls);
+    m.put("recovered", recovered);
+    m.put("unresolved", unresolved);
+    m.put("lostMs", lostNow);
+    m.put("maxRecoverMs", maxRecoverMs);
+    m.put("activeMs", activeNow);
+    m.put("lostRatio", activeNow == 0 ? 0.0 : Math.round(lostNow * 10000.0 / activeNow) / 10000.0);
+    Map<String, Object> steps = new HashMap<>();
+    for (int i = 1; i < STEP_NAMES.length; i++) {
+      Map<String, Object> s = new HashMap<>();
+      s.put("attempts", attempts[i]);
+      s.put("fixed", fixes[i]);
+      s.put("tookMs", tookMs[i]);
+      steps.put(STEP_NAMES[i], s);
+    }
+    m.put("steps", steps);
+    m.put("history", new ArrayList<>(history));
+    return m;
+  }
+
+  /** Mulai hitungan baru (mis. awal shift); state stall berjalan tetap. */
+  synchronized void resetStats(long now) {
+    stalls = recovered = unresolved = 0L;
+    lostMs = maxRecoverMs = activeMs = 0L;
+    if (active)
+      activeSince = now;
+    if (stalled)
+      stallAt = now;
+    Arrays.fill(attempts, 0L);
+    Arrays.fill(fixes, 0L);
+    Arrays.fill(tookMs, 0L);
+    history.clear();
+  }
+}
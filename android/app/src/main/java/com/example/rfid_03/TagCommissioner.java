@@ -0,0 +1,413 @@
+package com.example.rfid_03;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stasiun commissioning: tulis EPC dari antrian ke tag kosong, baca balik
+ * untuk verifikasi, opsional lock. Pipeline per "window":
+ * - satu ronde singulasi memberi sampai window tag kosong sekaligus
+ * - tahap write untuk semua tag window, lalu verify, lalu lock; verify tag i
+ *   jalan setelah write tag berikutnya, jadi waktu commit NVM tag sudah
+ *   tertutup air-time tag lain (tunggu settleMs hanya bila sisa)
+ * - tag diikat lewat TID (dibaca sekali saat singulasi): write, verify dan
+ *   lock select pada TID, jadi retry setelah ack hilang tetap mengenai tag
+ *   yang sama walau EPC-nya sudah berganti
+ * - verify membaca PC + EPC (bank 1 mulai word 1); field panjang di PC ikut dicek
+ * - EPC gagal kembali ke depan antrian hanya bila tag terbukti masih memegang
+ *   EPC asal; bila tidak pasti (write mungkin masuk) EPC ditandai
+ *   "indeterminate" dan tidak pernah dipakai lagi (tidak ada seri ganda).
+ *   Tag-nya ditandai reject dan tidak disentuh lagi
+ * Satu worker "uhf-commission"; hasil per tag lewat {@link Listener}.
+ */
+final class TagCommissioner {
+
+  interface Air {
+    /** Satu ronde inventory singkat: EPC yang menjawab (maks max). */
+    List<String> singulate(int max) throws Exception;
+
+    /** TID (bank 2) tag ber-EPC epc: identitas yang tidak berubah saat EPC ditulis. */
+    String readTid(String epc) throws Exception;
+
+    /** Tulis PC + EPC baru (bank 1 mulai word 1) ke tag ber-TID tid. */
+    void writeEpc(String tid, String next, String accessPwd) throws Exception;
+
+    /** PC + EPC (bank 1 mulai word 1, words word) dari tag ber-TID tid. */
+    String readPcEpc(String tid, int words) throws Exception;
+
+    /** Set access password lalu lock EPC + password (write butuh password), tag ber-TID tid. */
+    void lock(String tid, String accessPwd) throws Exception;
+  }
+
+  interface Clock {
+    long nanoTime();
+
+    void sleep(long ms) throws InterruptedException;
+  }
+
+  static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long ms) throws InterruptedException {
+      Thread.sleep(ms);
+    }
+  };
+
+  interface Listener {
+    void onBatch(int jobId, List<Map<String, Object>> results);
+
+    void onDone(int jobId, Map<String, Object> summary);
+  }
+
+  static final class Job {
+    List<String> epcs;
+    Air air;
+    Clock clock = SYSTEM_CLOCK;
+    String blankPrefix = ""; // hanya EPC berawalan ini yang dianggap kosong (wajib untuk hardware)
+    boolean lock = false;
+    String accessPwd = "00000000";
+    int retries = 2;
+    int window = 8; // tag per ronde singulasi
+    int settleMs = 10; // jeda minimum write -> verify tag yang sama
+    int maxEmptyRounds = 100; // ronde beruntun tanpa tag kosong -> berhenti
+    int maxFailures = 50; // total tag gagal -> berhenti (roll label rusak / antena lepas)
+    int batchSize = 16;
+  }
+
+  static final String STAGE_WRITE = "write", STAGE_VERIFY = "verify", STAGE_LOCK = "lock";
+  static final String DEFAULT_PWD = "00000000";
+
+  // isi bank 1 yang terbaca dari tag
+  private static final int HOLDS_UNKNOWN = 0, HOLDS_FROM = 1, HOLDS_TO = 2;
+
+  /** Satu tag dalam window. */
+  private static final class Slot {
+    String from, to, tid, stage, error;
+    int attempts;
+    long t0, writtenAt;
+    boolean ok = true, indeterminate = false;
+  }
+
+  /** PC word (hanya field panjang, dalam word) + EPC, seperti yang ditulis writeEpc. */
+  static String pcEpc(String epc) {
+    return String.format("%04X", (epc.length() / 4) << 11) + epc;
+  }
+
+  private final Listener listener;
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "uhf-commission"));
+  private final AtomicInteger nextJob = new AtomicInteger(1);
+  private volatile int cancelJob = 0;
+
+  // statistik kumulatif
+  private long okCount, failCount, attempts, rounds, busyNs;
+  private final Map<String, Long> failedByStage = new HashMap<>();
+
+  TagCommissioner(Listener listener) {
+    this.listener = listener;
+  }
+
+  int submit(Job job) {
+    final int id = nextJob.getAndIncrement();
+    worker.execute(() -> run(id, job));
+    return id;
+  }
+
+  void cancel(int jobId) {
+    cancelJob = jobId;
+  }
+
+  void shutdown() {
+    cancelJob = Integer.MAX_VALUE;
+    worker.shutdownNow();
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("ok", okCount);
+    m.put("failed", failCount);
+    m.put("attempts", attempts);
+    m.put("rounds", rounds);
+    m.put("failedByStage", new HashMap<>(failedByStage));
+    m.put("tagsPerMin", busyNs == 0 ? 0.0 : okCount * 60e9 / busyNs);
+    return m;
+  }
+
+  private void run(int id, Job job) {
+    Clock clock = job.clock;
+    long t0 = clock.nanoTime();
+    ArrayDeque<String> queue = new ArrayDeque<>();
+    for (String e : job.epcs)
+      queue.add(e.toUpperCase(Locale.ROOT));
+    String prefix = job.blankPrefix == null ? "" : job.blankPrefix.toUpperCase(Locale.ROOT);
+    Set<String> touched = new HashSet<>(); // EPC asal yang sudah diproses / reject
+    Set<String> written = new HashSet<>();
+    List<String> indeterminate = new ArrayList<>(); // seri yang mungkin sudah di tag: tidak dipakai lagi
+    List<Map<String, Object>> pending = new ArrayList<>();
+    int ok = 0, fail = 0, empty = 0, roundCount = 0, noTid = 0;
+    String stop = "done";
+
+    while (!queue.isEmpty()) {
+      if (cancelJob == id || Thread.currentThread().isInterrupted()) {
+        stop = "cancelled";
+        break;
+      }
+      List<Slot> window = new ArrayList<>();
+      try {
+        roundCount++;
+        for (String e : job.air.singulate(Math.max(job.window * 2, 4))) {
+          String u = e.toUpperCase(Locale.ROOT);
+          if (window.size() >= job.window || queue.isEmpty())
+            break;
+          if (!u.startsWith(prefix) || touched.contains(u) || written.contains(u))
+            continue;
+          touched.add(u);
+          String tid = readTid(u, job);
+          if (tid == null) {
+            noTid++; // tanpa TID tag tidak bisa diikat dengan aman; seri tidak dipakai
+            continue;
+          }
+          Slot s = new Slot();
+          s.from = u;
+          s.tid = tid;
+          s.to = queue.poll();
+          s.t0 = clock.nanoTime();
+          window.add(s);
+        }
+      } catch (Exception e) {
+        stop = "singulate: " + describe(e);
+        break;
+      }
+      if (window.isEmpty()) {
+        if (++empty >= job.maxEmptyRounds) {
+          stop = "no blank tags";
+          break;
+        }
+        continue;
+      }
+      empty = 0;
+
+      for (Slot s : window)
+        write(s, job);
+      for (Slot s : window)
+        if (s.ok)
+          verify(s, job);
+      if (job.lock)
+        for (Slot s : window)
+          if (s.ok)
+            lock(s, job);
+
+      List<String> requeue = new ArrayList<>();
+      for (Slot s : window) {
+        if (s.ok) {
+          ok++;
+          written.add(s.to);
+        } else {
+          fail++;
+          if (s.indeterminate)
+            indeterminate.add(s.to);
+          else if (!STAGE_LOCK.equals(s.stage))
+            requeue.add(s.to); // tag terbukti masih ber-EPC asal: seri belum terpakai
+        }
+        pending.add(result(s, clock));
+      }
+      for (int i = requeue.size() - 1; i >= 0; i--)
+        queue.addFirst(requeue.get(i));
+      if (pending.size() >= job.batchSize) {
+        listener.onBatch(id, pending);
+        pending = new ArrayList<>();
+      }
+      if (fail >= job.maxFailures) {
+        stop = "too many failures";
+        break;
+      }
+    }
+    if (!pending.isEmpty())
+      listener.onBatch(id, pending);
+
+    long ns = Math.max(1L, clock.nanoTime() - t0);
+    synchronized (this) {
+      okCount += ok;
+      failCount += fail;
+      rounds += roundCount;
+      busyNs += ns;
+    }
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("ok", ok);
+    summary.put("failed", fail);
+    summary.put("total", job.epcs.size());
+    summary.put("remaining", queue.size());
+    summary.put("indeterminate", indeterminate);
+    summary.put("noTid", noTid);
+    summary.put("rounds", roundCount);
+    summary.put("stop", stop);
+    summary.put("cancelled", "cancelled".equals(stop));
+    summary.put("elapsedMs", ns / 1_000_000L);
+    summary.put("tagsPerMin", ok * 60e9 / ns);
+    listener.onDone(id, summary);
+  }
+
+  /* ===================== tahap ===================== */
+
+  private static String readTid(String epc, Job job) {
+    for (int i = 0; i <= job.retries; i++) {
+      try {
+        String tid = job.air.readTid(epc);
+        if (tid != null && !tid.isEmpty())
+          return tid.toUpperCase(Locale.ROOT);
+      } catch (Exception ignore) {
+      }
+    }
+    return null;
+  }
+
+  /** Write select TID, jadi retry setelah ack hilang mengenai tag yang sama (idempoten). */
+  private void write(Slot s, Job job) {
+    for (int i = 0; i <= job.retries; i++) {
+      s.attempts++;
+      try {
+        job.air.writeEpc(s.tid, s.to, job.accessPwd);
+        s.writtenAt = job.clock.nanoTime();
+        return;
+      } catch (Exception e) {
+        s.error = describe(e);
+      }
+    }
+    // semua percobaan gagal: cek isi tag sebelum memutuskan nasib seri
+    switch (probe(s, job)) {
+      case HOLDS_TO:
+        s.writtenAt = job.clock.nanoTime(); // write masuk, ack yang hilang
+        return;
+      case HOLDS_FROM:
+        break;
+      default:
+        s.indeterminate = true;
+    }
+    fail(s, STAGE_WRITE);
+  }
+
+  private void verify(Slot s, Job job) {
+    try {
+      long waitMs = job.settleMs - (job.clock.nanoTime() - s.writtenAt) / 1_000_000L;
+      if (waitMs > 0)
+        job.clock.sleep(waitMs); // hanya bila window kecil (tidak ada tag lain di antaranya)
+      for (int i = 0; i <= job.retries; i++) {
+        s.attempts++;
+        try {
+          String got = job.air.readPcEpc(s.tid, 1 + s.to.length() / 4);
+          if (holds(got, s.to))
+            return;
+          s.error = "mismatch " + got;
+        } catch (Exception e) {
+          s.error = describe(e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      s.error = "interrupted";
+    }
+    // seri hanya boleh dipakai ulang bila tag terbukti masih ber-EPC asal
+    switch (probe(s, job)) {
+      case HOLDS_TO:
+        return; // commit NVM terlambat, sekarang terbaca benar
+      case HOLDS_FROM:
+        break;
+      default:
+        s.indeterminate = true;
+    }
+    fail(s, STAGE_VERIFY);
+  }
+
+  /** Baca PC + EPC lewat TID: tag memegang EPC asal, EPC baru, atau tidak pasti. */
+  private static int probe(Slot s, Job job) {
+    try {
+      job.clock.sleep(job.settleMs); // write yang mungkin masuk perlu waktu commit sebelum terbaca
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return HOLDS_UNKNOWN;
+    }
+    for (int i = 0; i <= job.retries; i++) {
+      try {
+        String got = job.air.readPcEpc(s.tid, 1 + s.to.length() / 4);
+        if (holds(got, s.to))
+          return HOLDS_TO;
+        if (s.from.length() != s.to.length())
+          got = job.air.readPcEpc(s.tid, 1 + s.from.length() / 4);
+        return holds(got, s.from) ? HOLDS_FROM : HOLDS_UNKNOWN;
+      } catch (Exception ignore) {
+      }
+    }
+    return HOLDS_UNKNOWN;
+  }
+
+  /** PC + EPC terbaca cocok dengan epc: field panjang PC dan isi EPC (bit UMI/XI diabaikan). */
+  static boolean holds(String pcEpc, String epc) {
+    if (pcEpc == null || pcEpc.length() != 4 + epc.length())
+      return false;
+    int pc;
+    try {
+      pc = Integer.parseInt(pcEpc.substring(0, 4), 16);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    return (pc >>> 11) == epc.length() / 4 && pcEpc.regionMatches(true, 4, epc, 0, epc.length());
+  }
+
+  private void lock(Slot s, Job job) {
+    for (int i = 0; i <= job.retries; i++) {
+      s.attempts++;
+      try {
+        job.air.lock(s.tid, job.accessPwd);
+        return;
+      } catch (Exception e) {
+        s.error = describe(e);
+      }
+    }
+    fail(s, STAGE_LOCK);
+  }
+
+  private void fail(Slot s, String stage) {
+    s.ok = false;
+    s.stage = stage;
+    synchronized (this) {
+      failedByStage.merge(stage, 1L, Long::sum);
+    }
+  }
+
+  private Map<String, Object> result(Slot s, Clock clock) {
+    synchronized (this) {
+      attempts += s.attempts;
+    }
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", s.to);
+    m.put("from", s.from);
+    m.put("ok", s.ok);
+    m.put("attempts", s.attempts);
+    m.put("ms", (int) ((clock.nanoTime() - s.t0) / 1_000_000L));
+    if (s.tid != null)
+      m.put("tid", s.tid);
+    if (!s.ok) {
+      m.put("stage", s.stage);
+      m.put("error", s.error);
+      m.put("indeterminate", s.indeterminate);
+    }
+    return m;
+  }
+
+  private static String describe(Exception e) {
+    Throwable c = e.getCause() != null ? e.getCause() : e;
+    return c.getClass().getSimpleName() + (c.getMessage() == null ? "" : ": " + c.getMessage());
+  }
+}
@@ -0,0 +1,252 @@
+package com.example.rfid_03;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser streaming untuk buffer mentah reader (readBuffer/getBuffer dst).
+ * Semua record dalam satu buffer diambil, bukan hanya satu:
+ * - biner M100/QM100: BB type cmd PL(2) payload CS 7E; notifikasi inventory
+ *   (type 02, cmd 22) = RSSI (signed dBm), PC(2), EPC, CRC(2). Frame yang
+ *   terpotong di akhir buffer disimpan dan disambung di panggilan berikutnya;
+ *   checksum salah -> geser satu byte dan cari BB berikutnya
+ * - teks (log SDK): tiap run hex >= 20 karakter = satu EPC, RSSI = angka
+ *   negatif pertama setelahnya (atau angka positif pertama bila tidak ada)
+ *   sebelum EPC berikutnya. Teks dianggap lengkap per buffer (tidak ada carry)
+ * Langsung di byte, tanpa String per buffer / regex. Satu instance per
+ * sumber (host + method), tidak thread-safe.
+ */
+final class TagFrameParser {
+
+  interface Sink {
+    /** rssiRaw apa adanya (dBm untuk frame biner); hasRssi false = tidak ada. */
+    void onTag(String epc, int rssiRaw, boolean hasRssi);
+  }
+
+  /** Frame biner selain notifikasi inventory (jawaban perintah, error). */
+  interface FrameSink {
+    void onFrame(int type, int cmd, byte[] b, int payloadOff, int payloadLen);
+  }
+
+  static final int HEAD = 0xBB, END = 0x7E;
+  static final int TYPE_NOTICE = 0x02, CMD_INVENTORY = 0x22;
+  static final int MIN_HEX_RUN = 20;
+
+  private static final int MAX_PAYLOAD = 255;
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private byte[] buf = new byte[1024];
+  private int carry = 0; // byte sisa frame terpotong di awal buf
+  private boolean binary = false;
+  private FrameSink frameSink;
+  private final char[] hex = new char[MAX_PAYLOAD * 2];
+
+  private long tags = 0L, frames = 0L, otherFrames = 0L, badFrames = 0L, bytes = 0L;
+
+  void setFrameSink(FrameSink s) {
+    frameSink = s;
+  }
+
+  /** Buffer byte[] dari SDK; return jumlah tag. */
+  int feed(byte[] b, int off, int len, Sink sink) {
+    if (len <= 0)
+      return 0;
+    ensure(carry + len);
+    System.arraycopy(b, off, buf, carry, len);
+    return parse(carry + len, sink);
+  }
+
+  int feed(byte[] b, Sink sink) {
+    return feed(b, 0, b.length, sink);
+  }
+
+  /** Buffer List&lt;Number&gt; (SDK lama): di-unbox ke array kerja yang dipakai ulang. */
+  int feed(List<?> list, Sink sink) {
+    int n = list.size();
+    if (n == 0)
+      return 0;
+    ensure(carry + n);
+    int at = carry;
+    for (int i = 0; i < n; i++) {
+      Object o = list.get(i);
+      buf[at++] = o instanceof Number ? ((Number) o).byteValue() : 0;
+    }
+    return parse(carry + n, sink);
+  }
+
+  private void ensure(int n) {
+    if (n <= buf.length)
+      return;
+    byte[] nb = new byte[Math.max(n, buf.length * 2)];
+    System.arraycopy(buf, 0, nb, 0, carry);
+    buf = nb;
+  }
+
+  private int parse(int n, Sink sink) {
+    bytes += n - carry;
+    if (!binary && carry == 0 && !looksBinary(n))
+      return parseText(n, sink);
+    int count = 0, i = 0;
+    while (i < n) {
+      if ((buf[i] & 0xFF) != HEAD) {
+        i++;
+        continue;
+      }
+      if (n - i < 7)
+        break; // header belum lengkap
+      int pl = ((buf[i + 3] & 0xFF) << 8) | (buf[i + 4] & 0xFF);
+      if (pl > MAX_PAYLOAD) {
+        badFrames++;
+        i++;
+        continue;
+      }
+      int total = 7 + pl;
+      if (n - i < total)
+        break; // frame terpotong: simpan untuk panggilan berikutnya
+      if (!valid(i, pl)) {
+        badFrames++;
+        i++;
+        continue;
+      }
+      binary = true;
+      frames++;
+      if ((buf[i + 1] & 0xFF) == TYPE_NOTICE && (buf[i + 2] & 0xFF) == CMD_INVENTORY && pl >= 5) {
+        if (emitInventory(i + 5, pl, sink))
+          count++;
+      } else {
+        otherFrames++;
+        if (frameSink != null)
+          frameSink.onFrame(buf[i + 1] & 0xFF, buf[i + 2] & 0xFF, buf, i + 5, pl);
+      }
+      i += total;
+    }
+    // sisa (frame terpotong / sampah) geser ke depan; dibatasi satu frame maksimum
+    int rest = n - i;
+    if (rest > 7 + MAX_PAYLOAD) {
+      i = n - (7 + MAX_PAYLOAD);
+      rest = 7 + MAX_PAYLOAD;
+    }
+    if (rest > 0 && i > 0)
+      System.arraycopy(buf, i, buf, 0, rest);
+    carry = rest;
+    tags += count;
+    return count;
+  }
+
+  /** Log teks SDK selalu ASCII: satu byte 0xBB saja cukup untuk mode biner. */
+  private boolean looksBinary(int n) {
+    for (int i = 0; i < n; i++)
+      if ((buf[i] & 0xFF) == HEAD)
+        return true;
+    return false;
+  }
+
+  private boolean valid(int i, int pl) {
+    int end = i + 5 + pl; // posisi checksum
+    if ((buf[end + 1] & 0xFF) != END)
+      return false;
+    int sum = 0;
+    for (int k = i + 1; k < end; k++)
+      sum += buf[k] & 0xFF;
+    return (sum & 0xFF) == (buf[end] & 0xFF);
+  }
+
+  /** Payload notifikasi: RSSI(1) PC(2) EPC CRC(2). */
+  private boolean emitInventory(int p, int pl, Sink sink) {
+    int rssi = buf[p]; // signed: dBm
+    int pc = ((buf[p + 1] & 0xFF) << 8) | (buf[p + 2] & 0xFF);
+    int epcLen = ((pc >>> 11) & 0x1F) * 2;
+    int avail = pl - 5;
+    if (epcLen == 0 || epcLen > avail)
+      epcLen = avail; // PC tidak cocok dengan panjang frame: percaya frame
+    if (epcLen <= 0)
+      return false;
+    int s = p + 3;
+    for (int k = 0; k < epcLen; k++) {
+      int v = buf[s + k] & 0xFF;
+      hex[k * 2] = HEX[v >>> 4];
+      hex[k * 2 + 1] = HEX[v & 0xF];
+    }
+    sink.onTag(new String(hex, 0, epcLen * 2), rssi, true);
+    return true;
+  }
+
+  private static int hexVal(int c) {
+    if (c >= '0' && c <= '9')
+      return c - '0';
+    c |= 0x20;
+    return c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+  }
+
+  private int parseText(int n, Sink sink) {
+    int count = 0, i = 0;
+    String epc = null;
+    int pos = -1; // angka positif pertama setelah EPC (skala mentah)
+    while (i < n) {
+      int c = buf[i] & 0xFF;
+      if (hexVal(c) < 0) {
+        i++;
+        continue;
+      }
+      int j = i;
+      while (j < n && hexVal(buf[j] & 0xFF) >= 0)
+        j++;
+      if (j - i >= MIN_HEX_RUN && j - i <= hex.length) {
+        if (epc != null) {
+          sink.onTag(epc, Math.max(pos, 0), pos >= 0); // EPC sebelumnya tanpa RSSI negatif
+          count++;
+        }
+        for (int k = i; k < j; k++) {
+          int v = buf[k];
+          hex[k - i] = (char) (v >= 'a' ? v - 0x20 : v);
+        }
+        epc = new String(hex, 0, j - i);
+        pos = -1;
+      } else if (epc != null && j - i <= 3 && isDigits(i, j)) {
+        int v = 0;
+        for (int k = i; k < j; k++)
+          v = v * 10 + (buf[k] - '0');
+        if (i > 0 && buf[i - 1] == '-') {
+          sink.onTag(epc, -v, true);
+          count++;
+          epc = null;
+        } else if (pos < 0) {
+          pos = v;
+        }
+      }
+      i = j;
+    }
+    if (epc != null) {
+      sink.onTag(epc, Math.max(pos, 0), pos >= 0);
+      count++;
+    }
+    carry = 0;
+    tags += count;
+    return count;
+  }
+
+  private boolean isDigits(int from, int to) {
+    for (int k = from; k < to; k++)
+      if (buf[k] < '0' || buf[k] > '9')
+        return false;
+    return true;
+  }
+
+  /** Buang frame terpotong (mis. setelah stop/start inventory). */
+  void reset() {
+    carry = 0;
+  }
+
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("binary", binary);
+    m.put("bytes", bytes);
+    m.put("tags", tags);
+    m.put("frames", frames);
+    m.put("otherFrames", otherFrames);
+    m.put("badFrames", badFrames);
+    m.put("carry", carry);
+    return m;
+  }
+}
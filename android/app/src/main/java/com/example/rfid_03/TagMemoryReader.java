@@ -0,0 +1,235 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Baca memori (TID/User/...) banyak tag secara berantai:
+ * - satu job = daftar EPC, dikerjakan per "slice" di antara ronde inventory
+ * - per tag: retry + timeout (panggilan SDK di thread io terpisah); thread io
+ *   yang macet di panggilan SDK ditinggal dan diganti, job berikutnya jalan terus
+ * - SDK tanpa fungsi baca (UnsupportedOperationException) dicatat sekali per job,
+ *   sisa tag langsung gagal tanpa dicoba lagi
+ * - hasil dikirim per batch lewat {@link Listener}
+ */
+final class TagMemoryReader {
+
+  interface ReadOp {
+    /** Data hex, atau exception bila gagal. */
+    String read(String epc, int bank, int wordPtr, int words) throws Exception;
+  }
+
+  interface RfControl {
+    void pauseInventory();
+
+    void resumeInventory();
+  }
+
+  interface Listener {
+    void onBatch(int jobId, List<Map<String, Object>> results);
+
+    void onDone(int jobId, Map<String, Object> summary);
+  }
+
+  static final class Job {
+    List<String> epcs;
+    int bank = 2; // TID
+    int wordPtr = 0;
+    int words = 6;
+    int retries = 2;
+    int timeoutMs = 300;
+    int sliceTags = 16; // tag per jeda RF
+    int inventoryMs = 150; // ronde inventory di antara slice
+    int batchSize = 32;
+  }
+
+  private final ReadOp op;
+  private final RfControl rf;
+  private final Listener listener;
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "uhf-mem"));
+  private volatile ExecutorService io = newIo();
+  private static final long IO_GRACE_MS = 50;
+
+  private final AtomicInteger nextJob = new AtomicInteger(1);
+  private volatile int cancelJob = 0;
+
+  // statistik kumulatif
+  private long okCount, failCount, attempts, busyMs, ioReplaced;
+  private long lastJobOk, lastJobMs;
+
+  TagMemoryReader(ReadOp op, RfControl rf, Listener listener) {
+    this.op = op;
+    this.rf = rf;
+    this.listener = listener;
+  }
+
+  int submit(Job job) {
+    final int id = nextJob.getAndIncrement();
+    worker.execute(() -> run(id, job));
+    return id;
+  }
+
+  void cancel(int jobId) {
+    cancelJob = jobId;
+  }
+
+  void shutdown() {
+    cancelJob = Integer.MAX_VALUE;
+    worker.shutdownNow();
+    io.shutdownNow();
+  }
+
+  private static ExecutorService newIo() {
+    return Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "uhf-mem-io");
+      t.setDaemon(true); // thread yang ditinggal (macet di SDK) tidak menahan proses
+      return t;
+    });
+  }
+
+  /** Panggilan timeout tidak lepas setelah cancel: thread io diganti baru. */
+  private void replaceIfWedged() {
+    ExecutorService cur = io;
+    try {
+      cur.submit(() -> {
+      }).get(IO_GRACE_MS, TimeUnit.MILLISECONDS);
+      return; // thread io sudah bebas lagi
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (Exception ignore) {
+    }
+    io = newIo();
+    cur.shutdownNow();
+    synchronized (this) {
+      ioReplaced++;
+    }
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    long done = okCount + failCount;
+    m.put("ok", okCount);
+    m.put("failed", failCount);
+    m.put("attempts", attempts);
+    m.put("ioReplaced", ioReplaced);
+    m.put("failureRate", done == 0 ? 0.0 : (double) failCount / done);
+    m.put("tagsPerSec", busyMs == 0 ? 0.0 : okCount * 1000.0 / busyMs);
+    m.put("lastJobTagsPerSec", lastJobMs == 0 ? 0.0 : lastJobOk * 1000.0 / lastJobMs);
+    return m;
+  }
+
+  private void run(int id, Job job) {
+    long t0 = System.nanoTime();
+    int ok = 0, fail = 0;
+    List<Map<String, Object>> pending = new ArrayList<>();
+    List<String> epcs = job.epcs;
+    boolean cancelled = false;
+    String[] unsupported = new String[1]; // di-set sekali, sisa job tidak memanggil SDK
+
+    for (int start = 0; start < epcs.size() && !cancelled; start += job.sliceTags) {
+      int end = Math.min(epcs.size(), start + job.sliceTags);
+      rf.pauseInventory();
+      try {
+        for (int i = start; i < end; i++) {
+          if (cancelJob == id || Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+            break;
+          }
+          Map<String, Object> r = readOne(epcs.get(i), job, unsupported);
+          if (Boolean.TRUE.equals(r.get("ok")))
+            ok++;
+          else
+            fail++;
+          pending.add(r);
+          if (pending.size() >= job.batchSize) {
+            listener.onBatch(id, pending);
+            pending = new ArrayList<>();
+          }
+        }
+      } finally {
+        rf.resumeInventory();
+      }
+      if (!cancelled && end < epcs.size() && job.inventoryMs > 0) {
+        try {
+          Thread.sleep(job.inventoryMs); // beri waktu ronde inventory
+        } catch (InterruptedException e) {
+          cancelled = true;
+        }
+      }
+    }
+    if (!pending.isEmpty())
+      listener.onBatch(id, pending);
+
+    long ms = Math.max(1, (System.nanoTime() - t0) / 1_000_000L);
+    synchronized (this) {
+      okCount += ok;
+      failCount += fail;
+      busyMs += ms;
+      lastJobOk = ok;
+      lastJobMs = ms;
+    }
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("ok", ok);
+    summary.put("failed", fail);
+    summary.put("total", epcs.size());
+    summary.put("cancelled", cancelled);
+    summary.put("elapsedMs", ms);
+    summary.put("tagsPerSec", ok * 1000.0 / ms);
+    summary.put("failureRate", (ok + fail) == 0 ? 0.0 : (double) fail / (ok + fail));
+    if (unsupported[0] != null)
+      summary.put("error", unsupported[0]);
+    listener.onDone(id, summary);
+  }
+
+  private Map<String, Object> readOne(String epc, Job job, String[] unsupported) {
+    long t0 = System.nanoTime();
+    String data = null, err = unsupported[0];
+    int tries = 0;
+    while (tries <= job.retries && data == null && unsupported[0] == null) {
+      tries++;
+      Future<String> f = io.submit(() -> op.read(epc, job.bank, job.wordPtr, job.words));
+      try {
+        data = f.get(job.timeoutMs, TimeUnit.MILLISECONDS);
+        if (data != null && data.isEmpty())
+          data = null;
+        if (data == null)
+          err = "empty";
+      } catch (TimeoutException e) {
+        f.cancel(true);
+        replaceIfWedged();
+        err = "timeout";
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        err = "interrupted";
+        break;
+      } catch (Exception e) {
+        Throwable c = e.getCause() != null ? e.getCause() : e;
+        err = c.getClass().getSimpleName() + (c.getMessage() == null ? "" : ": " + c.getMessage());
+        if (c instanceof UnsupportedOperationException)
+          unsupported[0] = err;
+      }
+    }
+    synchronized (this) {
+      attempts += tries;
+    }
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", epc);
+    m.put("ok", data != null);
+    m.put("attempts", tries);
+    m.put("ms", (int) ((System.nanoTime() - t0) / 1_000_000L));
+    if (data != null)
+      m.put("data", data);
+    else
+      m.put("error", err);
+    return m;
+  }
+}
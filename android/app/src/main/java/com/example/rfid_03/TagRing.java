@@ -0,0 +1,151 @@
+package com.example.rfid_03;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport opsional tanpa codec: record tag ukuran tetap ditulis ke ring
+ * (direct ByteBuffer dari libuhfring) yang dibaca Dart di tempat via dart:ffi.
+ * Satu penulis (thread uhf-push), satu pembaca (isolate Dart).
+ *
+ * Layout (little endian, sama dengan lib/uhf/tag_ring.dart):
+ * header 192 byte: magic@0, version@4, capacity@8, recordSize@12,
+ * writeIdx@64 (i64), readIdx@128 (i64) -- beda cache line.
+ * record 48 byte: epcBytes u8@0, reader u8@1, rssiDbm i16@2, seq u32@4,
+ * tMs i64@8, epc[32]@16.
+ */
+final class TagRing {
+
+  static final int MAGIC = 0x52464855; // "UHFR"
+  static final int VERSION = 1;
+  static final int HEADER = 192;
+  static final int RECORD = 48;
+  static final int EPC_MAX_BYTES = 32;
+
+  private static final boolean LOADED;
+  private static TagRing instance;
+
+  static {
+    boolean ok;
+    try {
+      System.loadLibrary("uhfring");
+      ok = true;
+    } catch (Throwable t) {
+      ok = false;
+    }
+    LOADED = ok;
+  }
+
+  private static native ByteBuffer nativeAlloc(int bytes);
+
+  private static native void nativePublish(long writeIdx);
+
+  private static native long nativeReadIdx();
+
+  private static native void nativeSetReadIdx(long readIdx);
+
+  final int capacity;
+  private final ByteBuffer buf;
+  private long writeIdx = 0L;
+  private long fullStalls = 0L; // offer berhenti karena ring penuh (Dart tertinggal)
+
+  private TagRing(ByteBuffer buf, int capacity) {
+    this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+    this.capacity = capacity;
+    this.buf.putInt(0, MAGIC);
+    this.buf.putInt(4, VERSION);
+    this.buf.putInt(8, capacity);
+    this.buf.putInt(12, RECORD);
+  }
+
+  /**
+   * Ring satu-satunya di proses ini (memori tidak pernah dilepas karena Dart
+   * bisa masih memegang pointernya); kapasitas ditentukan pemanggilan pertama.
+   * null bila libuhfring tidak tersedia.
+   */
+  static synchronized TagRing obtain(int capacity) {
+    if (instance != null)
+      return instance;
+    if (!LOADED || capacity <= 0)
+      return null;
+    ByteBuffer b = nativeAlloc(HEADER + capacity * RECORD);
+    if (b == null)
+      return null;
+    instance = new TagRing(b, capacity);
+    return instance;
+  }
+
+  /**
+   * Pembaca baru (enable ulang, hot restart Dart, activity baru): record yang
+   * belum dibaca milik isolate lama, dibuang. Hanya dari thread penulis.
+   * Return jumlah record yang dibuang.
+   */
+  long reset() {
+    long dropped = writeIdx - nativeReadIdx();
+    nativeSetReadIdx(writeIdx);
+    nativePublish(writeIdx);
+    return Math.max(0L, dropped);
+  }
+
+  long writeIndex() {
+    return writeIdx;
+  }
+
+  long fullStalls() {
+    return fullStalls;
+  }
+
+  /**
+   * Tulis record sebanyak muat. EPC yang tidak bisa dikodekan (bukan hex /
+   * lebih dari 256 bit) masuk {@code rejects} untuk dikirim lewat channel.
+   * Return jumlah item batch yang sudah diproses (sisanya: ring penuh).
+   */
+  int offer(List<Map<String, Object>> batch, List<Map<String, Object>> rejects, long now) {
+    long read = nativeReadIdx();
+    int i = 0;
+    for (; i < batch.size(); i++) {
+      Map<String, Object> m = batch.get(i);
+      String epc = (String) m.get("epc");
+      if (!encodable(epc)) {
+        rejects.add(m);
+        continue;
+      }
+      if (writeIdx - read >= capacity) {
+        read = nativeReadIdx();
+        if (writeIdx - read >= capacity)
+          break;
+      }
+      int off = HEADER + (int) (writeIdx % capacity) * RECORD;
+      int n = epc.length() / 2;
+      Object r = m.get("reader");
+      Object rssi = m.get("rssiDbm");
+      buf.put(off, (byte) n);
+      buf.put(off + 1, (byte) (r instanceof Number ? ((Number) r).intValue() : 0));
+      buf.putShort(off + 2, (short) (rssi instanceof Number ? ((Number) rssi).intValue() : -90));
+      buf.putInt(off + 4, (int) writeIdx);
+      buf.putLong(off + 8, now);
+      for (int k = 0; k < n; k++)
+        buf.put(off + 16 + k, (byte) ((Character.digit(epc.charAt(2 * k), 16) << 4)
+            | Character.digit(epc.charAt(2 * k + 1), 16)));
+      writeIdx++;
+    }
+    if (i < batch.size())
+      fullStalls++; // sisa dikembalikan pemanggil ke antrean, tidak dibuang
+    nativePublish(writeIdx);
+    return i;
+  }
+
+  static boolean encodable(String epc) {
+    if (epc == null)
+      return false;
+    int len = epc.length();
+    if (len == 0 || (len & 1) != 0 || len > EPC_MAX_BYTES * 2)
+      return false;
+    for (int i = 0; i < len; i++)
+      if (Character.digit(epc.charAt(i), 16) < 0)
+        return false;
+    return true;
+  }
+}
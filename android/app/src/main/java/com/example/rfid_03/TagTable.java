@@ -0,0 +1,331 @@
+package com.example.rfid_03;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tabel per-EPC milik native (count, RSSI terakhir, lastSeen) dengan indeks
+ * urut yang dijaga per read, supaya Dart cukup minta satu halaman:
+ * - lastSeen: daftar MRU (pindah ke depan O(1))
+ * - count: array urut turun; +1 = tukar dengan elemen pertama ber-count sama
+ *   (binary search, O(log n))
+ * - RSSI: bucket per dBm (-100..0), tiap bucket daftar MRU
+ * - EPC: array urut, baris baru di-merge saat query EPC berikutnya
+ * Baris tidak pernah dihapus selain lewat clear(), jadi id baris = urutan
+ * pertama terlihat. EPC disimpan huruf besar, jadi filter query cukup
+ * dinormalkan sekali per query, bukan per baris.
+ */
+final class TagTable {
+
+  static final int SORT_LAST_SEEN = 0, SORT_COUNT = 1, SORT_RSSI = 2, SORT_EPC = 3;
+
+  private static final int RSSI_MIN = -100, RSSI_MAX = 0;
+  private static final int BUCKETS = RSSI_MAX - RSSI_MIN + 1;
+
+  private interface RowVisitor {
+    /** false = berhenti. */
+    boolean visit(int row);
+  }
+
+  private final int limit;
+  private final HashMap<String, Integer> index = new HashMap<>();
+
+  private String[] epc;
+  private int[] count, rssi;
+  private long[] lastSeen;
+
+  private int[] mruPrev, mruNext;
+  private int mruHead = -1;
+
+  private int[] byCount, countPos;
+
+  private int[] bPrev, bNext;
+  private final int[] bHead = new int[BUCKETS], bSize = new int[BUCKETS];
+
+  private int[] byEpc = new int[0];
+  private int byEpcLen = 0;
+
+  private int size = 0;
+  private long totalHits = 0L, version = 0L;
+
+  TagTable(int limit) {
+    this.limit = limit;
+    alloc(Math.min(limit, 1024));
+    Arrays.fill(bHead, -1);
+  }
+
+  static int parseSort(Object v) {
+    String s = v == null ? "" : v.toString().toLowerCase(Locale.ROOT);
+    switch (s) {
+      case "count":
+        return SORT_COUNT;
+      case "rssi":
+        return SORT_RSSI;
+      case "epc":
+        return SORT_EPC;
+      default:
+        return SORT_LAST_SEEN;
+    }
+  }
+
+  /** Satu read. true bila EPC baru di sesi ini (tabel penuh -> false, tidak dicatat). */
+  synchronized boolean hit(String epcIn, int rssiDbm, long wallMs) {
+    String e = upper(epcIn);
+    Integer id = index.get(e);
+    int r;
+    int b = bucket(rssiDbm);
+    if (id == null) {
+      if (size >= limit)
+        return false;
+      if (size == epc.length)
+        alloc(Math.min(limit, epc.length * 2));
+      r = size++;
+      index.put(e, r);
+      epc[r] = e;
+      count[r] = 0;
+      byCount[r] = r; // count 0 = paling kecil -> ekor
+      countPos[r] = r;
+      mruPrev[r] = mruNext[r] = -1;
+    } else {
+      r = id;
+      mruUnlink(r);
+      bucketUnlink(r);
+    }
+    rssi[r] = rssiDbm;
+    lastSeen[r] = wallMs;
+    mruPushHead(r);
+    bucketPushHead(r, b);
+    incrementCount(r);
+    totalHits++;
+    version++;
+    return id == null;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized long version() {
+    return version;
+  }
+
+  /** EPC urut pertama terlihat. */
+  synchronized List<String> epcs() {
+    return new ArrayList<>(Arrays.asList(epc).subList(0, size));
+  }
+
+  synchronized void clear() {
+    index.clear();
+    Arrays.fill(epc, 0, size, null);
+    Arrays.fill(bHead, -1);
+    Arrays.fill(bSize, 0);
+    mruHead = -1;
+    byEpcLen = 0;
+    size = 0;
+    totalHits = 0L;
+    version++;
+  }
+
+  /**
+   * Satu halaman baris menurut {@code sort}; {@code filter} = potongan EPC
+   * (tanpa beda huruf besar/kecil). total = jumlah baris yang cocok filter.
+   */
+  synchronized Map<String, Object> query(int offset, int lim, int sort, String filter) {
+    final int off = Math.max(0, offset);
+    final int max = Math.max(0, lim);
+    final String f = (filter == null || filter.isEmpty()) ? null : filter.toUpperCase(Locale.ROOT);
+    final List<Map<String, Object>> rows = new ArrayList<>(Math.min(max, size));
+    final int[] matched = new int[1];
+
+    if (f == null) {
+      matched[0] = size;
+      if (off < size && max > 0)
+        walk(sort, off, row -> {
+          rows.add(row(row));
+          return rows.size() < max;
+        });
+    } else {
+      walk(sort, 0, row -> {
+        if (epc[row].contains(f)) { // EPC disimpan huruf besar
+          int i = matched[0]++;
+          if (i >= off && rows.size() < max)
+            rows.add(row(row));
+        }
+        return true; // total butuh semua baris
+      });
+    }
+
+    Map<String, Object> m = new HashMap<>();
+    m.put("total", matched[0]);
+    m.put("offset", off);
+    m.put("version", version);
+    m.put("uniqueTags", size);
+    m.put("totalHits", totalHits);
+    m.put("rows", rows);
+    return m;
+  }
+
+  /** EPC huruf besar; tanpa alokasi bila sudah (kasus umum dari parser). */
+  static String upper(String e) {
+    for (int i = 0; i < e.length(); i++) {
+      char c = e.charAt(i);
+      if (c >= 'a' && c <= 'z')
+        return e.toUpperCase(Locale.ROOT);
+    }
+    return e;
+  }
+
+  private Map<String, Object> row(int r) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", epc[r]);
+    m.put("count", count[r]);
+    m.put("rssi", rssi[r]);
+    m.put("lastSeen", lastSeen[r]);
+    return m;
+  }
+
+  /** Kunjungi baris urut {@code sort} mulai posisi {@code skip}. */
+  private void walk(int sort, int skip, RowVisitor v) {
+    switch (sort) {
+      case SORT_COUNT:
+        for (int i = skip; i < size; i++)
+          if (!v.visit(byCount[i]))
+            return;
+        return;
+      case SORT_EPC:
+        mergeEpcIndex();
+        for (int i = skip; i < size; i++)
+          if (!v.visit(byEpc[i]))
+            return;
+        return;
+      case SORT_RSSI:
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+          if (skip >= bSize[b]) {
+            skip -= bSize[b]; // lewati satu bucket utuh
+            continue;
+          }
+          for (int r = bHead[b]; r != -1; r = bNext[r]) {
+            if (skip > 0) {
+              skip--;
+              continue;
+            }
+            if (!v.visit(r))
+              return;
+          }
+        }
+        return;
+      default:
+        for (int r = mruHead; r != -1; r = mruNext[r]) {
+          if (skip > 0) {
+            skip--;
+            continue;
+          }
+          if (!v.visit(r))
+            return;
+        }
+    }
+  }
+
+  /* ===================== indeks ===================== */
+
+  private void incrementCount(int r) {
+    int old = count[r];
+    // elemen pertama dengan count <= old (array urut turun)
+    int lo = 0, hi = countPos[r];
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (count[byCount[mid]] <= old)
+        hi = mid;
+      else
+        lo = mid + 1;
+    }
+    int p = countPos[r];
+    if (lo != p) {
+      int other = byCount[lo];
+      byCount[lo] = r;
+      countPos[r] = lo;
+      byCount[p] = other;
+      countPos[other] = p;
+    }
+    count[r] = old + 1;
+  }
+
+  private void mergeEpcIndex() {
+    if (byEpcLen == size)
+      return;
+    Integer[] fresh = new Integer[size - byEpcLen];
+    for (int i = 0; i < fresh.length; i++)
+      fresh[i] = byEpcLen + i;
+    Arrays.sort(fresh, (a, b) -> epc[a].compareTo(epc[b]));
+    int[] out = new int[epc.length];
+    int i = 0, j = 0, k = 0;
+    while (i < byEpcLen && j < fresh.length)
+      out[k++] = epc[byEpc[i]].compareTo(epc[fresh[j]]) <= 0 ? byEpc[i++] : fresh[j++];
+    while (i < byEpcLen)
+      out[k++] = byEpc[i++];
+    while (j < fresh.length)
+      out[k++] = fresh[j++];
+    byEpc = out;
+    byEpcLen = size;
+  }
+
+  private void mruPushHead(int r) {
+    mruPrev[r] = -1;
+    mruNext[r] = mruHead;
+    if (mruHead != -1)
+      mruPrev[mruHead] = r;
+    mruHead = r;
+  }
+
+  private void mruUnlink(int r) {
+    int p = mruPrev[r], n = mruNext[r];
+    if (p != -1)
+      mruNext[p] = n;
+    else
+      mruHead = n;
+    if (n != -1)
+      mruPrev[n] = p;
+  }
+
+  private static int bucket(int dbm) {
+    return Math.max(RSSI_MIN, Math.min(RSSI_MAX, dbm)) - RSSI_MIN;
+  }
+
+  private void bucketPushHead(int r, int b) {
+    bPrev[r] = -1;
+    bNext[r] = bHead[b];
+    if (bHead[b] != -1)
+      bPrev[bHead[b]] = r;
+    bHead[b] = r;
+    bSize[b]++;
+  }
+
+  private void bucketUnlink(int r) {
+    int b = bucket(rssi[r]);
+    int p = bPrev[r], n = bNext[r];
+    if (p != -1)
+      bNext[p] = n;
+    else
+      bHead[b] = n;
+    if (n != -1)
+      bPrev[n] = p;
+    bSize[b]--;
+  }
+
+  private void alloc(int cap) {
+    epc = epc == null ? new String[cap] : Arrays.copyOf(epc, cap);
+    count = count == null ? new int[cap] : Arrays.copyOf(count, cap);
+    rssi = rssi == null ? new int[cap] : Arrays.copyOf(rssi, cap);
+    lastSeen = lastSeen == null ? new long[cap] : Arrays.copyOf(lastSeen, cap);
+    mruPrev = mruPrev == null ? new int[cap] : Arrays.copyOf(mruPrev, cap);
+    mruNext = mruNext == null ? new int[cap] : Arrays.copyOf(mruNext, cap);
+    byCount = byCount == null ? new int[cap] : Arrays.copyOf(byCount, cap);
+    countPos = countPos == null ? new int[cap] : Arrays.copyOf(countPos, cap);
+    bPrev = bPrev == null ? new int[cap] : Arrays.copyOf(bPrev, cap);
+    bNext = bNext == null ? new int[cap] : Arrays.copyOf(bNext, cap);
+  }
+}
@@ -0,0 +1,182 @@
+package com.example.rfid_03;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rekam objek mentah yang diterima drain/callback ke file trace (.uhfr,
+ * gzip) untuk diputar ulang lewat {@link TraceReplayer}. Buffer byte mentah
+ * SDK disimpan apa adanya (KIND_RAW), jadi replay ikut melewati
+ * {@link TagFrameParser} seperti saat direkam.
+ *
+ * Format (DataOutput, big-endian), setelah gzip:
+ * - header: "UHFR", versi (byte), wall clock mulai (long)
+ * - record: kind (byte), delta sejak record sebelumnya dalam mikrodetik (int),
+ *   reader (byte), lalu
+ *   KIND_TEXT: teks (UTF)
+ *   KIND_OBJECT: epc (UTF, "" = tidak ada), flags (byte: 1 = rssi, 2 = channel),
+ *   rssi (int), channel (int), toString() (UTF)
+ *   KIND_RAW (versi 2): sumber (UTF, nama method drain), panjang (int), byte
+ * Record ditulis ke buffer memori di thread pemanggil; kompresi + tulis file
+ * di thread "uhf-trace" per 64 KB supaya drain tidak menunggu I/O.
+ */
+final class TraceRecorder {
+
+  static final int MAGIC = 0x55484652; // "UHFR"
+  static final int VERSION = 2; // 2: + KIND_RAW; versi 1 tetap bisa diputar
+  static final int KIND_TEXT = 1, KIND_OBJECT = 2, KIND_RAW = 3;
+  static final int FLAG_RSSI = 1, FLAG_CHANNEL = 2;
+
+  private static final int FLUSH_BYTES = 64 * 1024;
+  private static final int MAX_TEXT = 4096;
+  private static final int MAX_RAW = 1 << 20;
+
+  final File file;
+  private final OutputStream out;
+  private final ExecutorService io = Executors.newSingleThreadExecutor(r -> new Thread(r, "uhf-trace"));
+
+  private ByteArrayOutputStream buf = new ByteArrayOutputStream(FLUSH_BYTES + 4096);
+  private DataOutputStream data = new DataOutputStream(buf);
+  private long lastNanos;
+  private long records = 0L, bytes = 0L;
+  private volatile IOException failure;
+  private boolean closed = false;
+
+  TraceRecorder(File file) throws IOException {
+    this.file = file;
+    File dir = file.getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs())
+      throw new IOException("cannot create " + dir);
+    out = new GZIPOutputStream(new FileOutputStream(file), 8192);
+    DataOutputStream h = new DataOutputStream(out);
+    h.writeInt(MAGIC);
+    h.writeByte(VERSION);
+    h.writeLong(System.currentTimeMillis());
+    h.flush();
+    lastNanos = System.nanoTime();
+  }
+
+  synchronized void text(String text, int reader) {
+    if (closed)
+      return;
+    try {
+      head(KIND_TEXT, reader);
+      data.writeUTF(clip(text));
+      commit();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  synchronized void object(String epc, Integer rssi, Integer channel, String text, int reader) {
+    if (closed)
+      return;
+    try {
+      head(KIND_OBJECT, reader);
+      data.writeUTF(epc == null ? "" : clip(epc));
+      data.writeByte((rssi != null ? FLAG_RSSI : 0) | (channel != null ? FLAG_CHANNEL : 0));
+      data.writeInt(rssi == null ? 0 : rssi);
+      data.writeInt(channel == null ? 0 : channel);
+      data.writeUTF(clip(text));
+      commit();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  /** Buffer mentah dari drain {@code source} (byte[] utuh, belum di-parse). */
+  synchronized void raw(String source, byte[] bytes, int reader) {
+    if (closed || bytes == null)
+      return;
+    try {
+      int n = Math.min(bytes.length, MAX_RAW);
+      head(KIND_RAW, reader);
+      data.writeUTF(clip(source));
+      data.writeInt(n);
+      data.write(bytes, 0, n);
+      commit();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  private void head(int kind, int reader) throws IOException {
+    long now = System.nanoTime();
+    long deltaUs = (now - lastNanos) / 1000L;
+    lastNanos = now;
+    data.writeByte(kind);
+    data.writeInt((int) Math.min(Integer.MAX_VALUE, Math.max(0L, deltaUs)));
+    data.writeByte(reader);
+  }
+
+  private void commit() {
+    records++;
+    if (buf.size() >= FLUSH_BYTES)
+      handOff();
+  }
+
+  /** Lepas buffer penuh ke thread I/O. */
+  private void handOff() {
+    if (buf.size() == 0)
+      return;
+    final byte[] chunk = buf.toByteArray();
+    bytes += chunk.length;
+    buf = new ByteArrayOutputStream(FLUSH_BYTES + 4096);
+    data = new DataOutputStream(buf);
+    io.execute(() -> {
+      try {
+        out.write(chunk);
+      } catch (IOException e) {
+        failure = e;
+      }
+    });
+  }
+
+  synchronized long records() {
+    return records;
+  }
+
+  /** Tutup file; return jumlah record. IOException bila ada tulis yang gagal. */
+  long close() throws IOException {
+    synchronized (this) {
+      if (closed)
+        return records;
+      closed = true;
+      handOff();
+    }
+    io.execute(() -> {
+      try {
+        out.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    });
+    io.shutdown();
+    try {
+      io.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null)
+      throw failure;
+    return records;
+  }
+
+  synchronized long rawBytes() {
+    return bytes + buf.size();
+  }
+
+  private static String clip(String s) {
+    if (s == null)
+      return "";
+    return s.length() > MAX_TEXT ? s.substring(0, MAX_TEXT) : s;
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.rfid_03;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Putar ulang file {@link TraceRecorder} ke pipeline (publishTagFromInfo):
+ * speed 1 = waktu asli, N = N kali lebih cepat, 0 = secepatnya.
+ * Objek SDK direkonstruksi sebagai {@link RecordedInfo} dengan getter yang
+ * sama (getEpc/getRssi/getChannel/toString), jadi mapFromInfo menempuh
+ * jalur yang sama seperti saat direkam. Buffer mentah dikirim sebagai
+ * {@link RawBuffer}; pemanggil menyalurkannya ke parser frame.
+ */
+final class TraceReplayer {
+
+  interface Sink {
+    void publish(Object info, int reader);
+  }
+
+  /** Pengganti objek tag SDK saat replay. */
+  static final class RecordedInfo {
+    private final String epc, text;
+    private final Integer rssi, channel;
+
+    RecordedInfo(String epc, Integer rssi, Integer channel, String text) {
+      this.epc = epc;
+      this.rssi = rssi;
+      this.channel = channel;
+      this.text = text;
+    }
+
+    public String getEpc() {
+      return epc;
+    }
+
+    public Integer getRssi() {
+      return rssi;
+    }
+
+    public Integer getChannel() {
+      return channel;
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+  }
+
+  /** Buffer byte mentah SDK dari record KIND_RAW. */
+  static final class RawBuffer {
+    final String source;
+    final byte[] data;
+
+    RawBuffer(String source, byte[] data) {
+      this.source = source;
+      this.data = data;
+    }
+  }
+
+  private TraceReplayer() {
+  }
+
+  static Map<String, Object> replay(File file, double speed, Sink sink, AtomicBoolean cancel) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 8192), 64 * 1024))) {
+      if (in.readInt() != TraceRecorder.MAGIC)
+        throw new IOException("not a trace: " + file);
+      int version = in.readUnsignedByte();
+      if (version < 1 || version > TraceRecorder.VERSION)
+        throw new IOException("unsupported trace version " + version);
+      long recordedAt = in.readLong();
+
+      long startNs = System.nanoTime();
+      long traceUs = 0L, records = 0L, maxLagUs = 0L;
+      while (!cancel.get()) {
+        int kind;
+        try {
+          kind = in.readUnsignedByte();
+        } catch (EOFException eof) {
+          break;
+        }
+        traceUs += in.readInt();
+        int reader = in.readUnsignedByte();
+        Object info;
+        if (kind == TraceRecorder.KIND_TEXT) {
+          info = in.readUTF();
+        } else if (kind == TraceRecorder.KIND_OBJECT) {
+          String epc = in.readUTF();
+          int flags = in.readUnsignedByte();
+          int rssi = in.readInt(), channel = in.readInt();
+          String text = in.readUTF();
+          info = new RecordedInfo(epc.isEmpty() ? null : epc,
+              (flags & TraceRecorder.FLAG_RSSI) != 0 ? rssi : null,
+              (flags & TraceRecorder.FLAG_CHANNEL) != 0 ? channel : null,
+              text);
+        } else if (kind == TraceRecorder.KIND_RAW) {
+          String source = in.readUTF();
+          byte[] data = new byte[in.readInt()];
+          in.readFully(data);
+          info = new RawBuffer(source, data);
+        } else {
+          throw new IOException("bad record kind " + kind + " at #" + records);
+        }
+
+        if (speed > 0) {
+          long dueNs = startNs + (long) (traceUs * 1000.0 / speed);
+          long waitNs = dueNs - System.nanoTime();
+          if (waitNs > 0)
+            LockSupport.parkNanos(waitNs);
+          else
+            maxLagUs = Math.max(maxLagUs, -waitNs / 1000L);
+        }
+        sink.publish(info, reader);
+        records++;
+      }
+
+      long wallUs = Math.max(1L, (System.nanoTime() - startNs) / 1000L);
+      Map<String, Object> m = new HashMap<>();
+      m.put("records", records);
+      m.put("recordedAt", recordedAt);
+      m.put("traceMs", traceUs / 1000L);
+      m.put("wallMs", wallUs / 1000L);
+      m.put("recordsPerSec", Math.round(records * 1e6 / wallUs));
+      m.put("maxLagMs", maxLagUs / 1000L);
+      m.put("speed", speed);
+      m.put("cancelled", cancel.get());
+      return m;
+    }
+  }
+}
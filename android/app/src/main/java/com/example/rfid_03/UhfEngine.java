@@ -0,0 +1,4173 @@
+package com.example.rfid_03;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioManager;
+import android.media.ToneGenerator;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * UHF Native Bridge (high-speed):
+ * - Continuous read + adaptive Q
+ * - 1..4 Hz "burst snapshot" (EPC unik per jendela)
+ * - Fallback drains (text/raw/bruteforce) untuk berbagai SDK
+ * - Top-K proximity (RSSI EWMA) via "uhf/proximity"
+ * - Locate satu EPC (Select mask + S0) via "uhf/locate"
+ * - Batch baca memori (TID/User) diselingi ronde inventory via "uhf/mem"
+ * - Multi-reader: reader tambahan (GClient serial) dengan thread & config sendiri
+ * - Cache probing (serial, method SDK, strategi drain) per device untuk cold start cepat
+ * - Prewarm paralel saat launch; status kesiapan via "uhf/status"
+ * - Opsional: ring record bersama Dart (dart:ffi), channel "uhf/ring" hanya sinyal
+ * - Push ke Flutter maksimal sekali per frame (Choreographer); beep/vibrate di thread sendiri
+ * - Tabel tag sesi di native (urut lastSeen/count/RSSI/EPC), Dart query per halaman
+ * - Strategi session/target (preset fast-small, dense-stocktake, portal)
+ * - Yield per kanal frekuensi: kanal bootstrap dari riwayat, kanal buruk keluar dari hop table
+ * - Auto power: power terendah yang masih memenuhi target rate / coverage manifest
+ * - Rekam objek mentah drain/callback ke file trace, putar ulang 1x/Nx/maks
+ * - Deret read/detik + RSSI per EPC (ring 60 dtk, batas memori, LRU) untuk analitik dwell
+ * - Mode portal: event passed-in/passed-out/stayed per tag via "uhf/portal"
+ * - Index EPC persisten (mmap) lintas hari/sesi: tiap read ditandai "counted"
+ * - Upload hasil per EPC ke backend: chunk JSON gzip di disk sampai di-ack
+ * - Watchdog stall (default hidup): modul diam di tengah sesi -> pemulihan bertingkat
+ * - Backend serial langsung (tanpa AAR) bisa dipilih saat runtime: setBackend
+ * - Sesi disimpan ke file urut EPC; diff dua sesi (added/removed/changed) di background
+ * - Stasiun commissioning: antrian EPC -> tulis ke tag kosong, verify, lock (atau simulasi)
+ * - Hidup di {@link UhfService} (foreground), bukan di activity: activity hanya
+ *   attach/detach channel, inventory jalan terus saat UI dibuat ulang
+ */
+final class UhfEngine {
+
+  private static final String METHOD_CH = "uhf";
+  private static final String EVENT_CH = "uhf/tags";
+  private static final String PROXIMITY_CH = "uhf/proximity";
+  private static final String PORTAL_CH = "uhf/portal";
+  private static final String LOCATE_CH = "uhf/locate";
+  private static final String MEM_CH = "uhf/mem";
+  private static final String STATUS_CH = "uhf/status";
+  private static final String RING_CH = "uhf/ring";
+  private static final String DIFF_CH = "uhf/diff";
+  private static final String COMMISSION_CH = "uhf/commission";
+  private static final String TAG = "UHF";
+
+  // pacing & limits
+  private static final int CACHE_LIMIT = 12000;
+  private static final int SESSION_EPC_LIMIT = 100000;
+  private static final int PUSH_CHUNK = 256;
+  private static final int PUSH_GAP_MS = 3; // lebih rapat (mode ring)
+  private static final int FRAME_PUSH_MAX = PUSH_CHUNK * 8; // tag per frame, sisanya frame berikut
+  private static final int READER_IDLE_MS = 0;
+  private static final int BEEP_GAP_MS = 200;
+  private static final int VIB_GAP_MS = 240;
+  private static final int DUP_SUPPRESS_MS = 4; // redup duplikat lebih agresif
+  private static final int[] SERIAL_BAUD = new int[] { 921600, 460800, 230400, 115200 };
+  private static final String GCLIENT_CLASS = "com.idata.gg.reader.api.dal.GClient";
+  private static final int MAX_READERS = 8; // id 0 = reader bawaan
+  private static final long READER_JOIN_MS = 500; // tunggu thread reader tambahan berhenti
+  private static final String[] SERIAL_NODES = new String[] { "/dev/ttyS4", "/dev/ttyS3", "/dev/ttyHSL0", "/dev/ttyMT2" };
+
+  // probe cache (kunci: model device + versi AAR)
+  private static final String PROBE_PREFS = "uhf_probe";
+  private static final String AAR_VERSION = "UHFJar_V1.4.06";
+  private static final int DRAIN_HINT_GRACE_MS = 1000; // hint diam selama ini -> drain penuh
+
+  // upload: konfigurasi terakhir disimpan supaya chunk sisa terkirim di launch berikutnya
+  private static final String UPLOAD_PREFS = "uhf_upload";
+
+  // prewarm
+  private static final int PREWARM_THREADS = 3;
+  private static final String[] SDK_CLASSES = new String[] {
+      "com.uhf.base.UHFManager", "com.uhf.base.UHFFunction", GCLIENT_CLASS,
+      "com.idata.gg.reader.api.dal.HandlerTagEpcLog", "com.idata.gg.reader.api.dal.HandlerTagEpcOver" };
+
+  // fast start
+  private static final int FASTSTART_MS = 1500;
+  private static final int FIRST_HIT_DEADLINE_MS = 800;
+
+  // RSSI (dBm)
+  private static final int RSSI_FAST_DBM = -90; // longgar saat warmup
+  private static final int RSSI_STEADY_DBM = -62;
+
+  // burst config
+  private static final int BURST_MIN_MS = 220; // ~4.5 Hz maksimum
+  private static final int BURST_MAX_MS = 1000; // 1 Hz minimum
+  private static final float SNAPSHOT_WINDOW_RATIO = 0.86f; // porsi periode untuk kumpulkan EPC unik
+  private static final int SNAPSHOT_CHUNK = 256; // tag per pesan snapshot (latensi encode/decode terbatas)
+  private static final long AWAIT_CLIENT_MS = 1000; // tanpa awaitBatch selama ini = isolate decoder pergi
+
+  // proximity top-K
+  private static final int PROXIMITY_CAPACITY = 8192;
+  private static final long PROXIMITY_STALE_MS = 3000;
+
+  // locate
+  private static final double LOCATE_HZ_MIN = 20.0, LOCATE_HZ_MAX = 50.0;
+
+  private boolean isBeepEnabled = false;
+  private boolean isVibrateEnabled = false;
+
+  private final Context ctx; // application context (engine hidup lebih lama dari activity)
+  private final long createdAt = SystemClock.uptimeMillis();
+  private final Handler main = new Handler(Looper.getMainLooper());
+  private HandlerThread pushThread;
+  private Handler push;
+  private HandlerThread rpcThread;
+  private Handler rpc;
+  private HandlerThread feedbackThread;
+  private Handler feedback;
+  private volatile boolean feedbackPosted = false;
+
+  private Choreographer choreographer;
+  private MainThreadMeter meter;
+  private volatile boolean meterEnabled = false; // opt-in lewat setMainThreadMeter
+
+  // client Flutter saat ini (null selama activity tidak ada)
+  private BinaryMessenger client;
+  private MethodChannel methodChannel;
+  private EventChannel eventChannel;
+  private EventChannel.EventSink sink;
+  private EventPort[] ports;
+  private int attaches = 0;
+  private volatile boolean foreground = false;
+  private volatile String foregroundError;
+  private volatile Runnable stateListener;
+
+  private Object uhfMgr;
+  private Object uhfFunc;
+  private Object gClient;
+
+  private final List<Map<String, Object>> tagCache = new ArrayList<>();
+  private long lastPushAt = 0L;
+  private volatile boolean pushPosted = false;
+  private volatile boolean ringSignalPosted = false;
+  // long-poll "awaitBatch" dari isolate decoder Dart (main thread saja)
+  private volatile MethodChannel.Result batchWaiter;
+  private final Runnable batchWaiterTimeout = () -> replyBatchWaiter(new ArrayList<>());
+  private long lastAwaitAt = 0L; // awaitBatch terakhir (main thread)
+
+  // tabel tag sejak clearSession (halaman UI + "semua tag sesi ini" untuk readMemory)
+  private final TagTable tagTable = new TagTable(SESSION_EPC_LIMIT);
+
+  // dedup di-shard per hash EPC (16 x 256 = 4096 EPC terakhir)
+  private final ShardedRecentMap recentEpc = new ShardedRecentMap(16, 256);
+
+  private volatile boolean powered = false, opened = false, running = false;
+  private volatile boolean rfPaused = false; // RF dijeda untuk akses memori tag
+  private final Object rfPauseLock = new Object();
+  private int rfPauseCount = 0; // jumlah pemegang jeda; dijaga rfPauseLock
+  private boolean commissionHeld = false; // jeda milik commissioning (thread uhf-commission)
+
+  private Thread readerThread;
+
+  // multi-reader
+  private final List<ExtraReader> extraReaders = new CopyOnWriteArrayList<>();
+  private final AtomicLongArray readerReads = new AtomicLongArray(MAX_READERS);
+  private volatile int fixedQ = -1; // -1 = adaptive
+  private volatile int primarySession = 0; // sesi efektif reader 0
+  private volatile int userSession = -1; // configureReader(0, session); >= 0 menang atas preset strategi
+
+  // strategi session + target A/B
+  private static final int STRATEGY_TICK_MS = 50;
+
+  // watchdog stall (min 2 read/s, stall 1.5..5 dtk atau 5x jeda rata-rata)
+  private final StallWatchdog watchdog = new StallWatchdog(2.0, 1500, 5000, 5);
+  private volatile boolean watchdogEnabled = true; // setWatchdog(false) mematikan
+  private static final long POWER_OFF_MS = 300L;
+  private int recoverTarget = 0;
+  private volatile int appliedTarget = InventoryStrategy.TARGET_A;
+  private volatile int manualPower = 30; // setPower / configureReader, dipakai ulang setelah power cycle
+  private volatile InventoryStrategy strategy = new InventoryStrategy(InventoryStrategy.fastSmall());
+
+  // index EPC lintas hari/sesi (file mmap di filesDir/seen)
+  private static final int SEEN_INITIAL_CAPACITY = 1 << 20;
+  private volatile SeenIndex seen;
+  private volatile UploadQueue upload;
+
+  // backend serial langsung (SerialUhfDriver) menggantikan AAR untuk reader 0
+  private static final int SERIAL_DEFAULT_BAUD = 115200;
+  private volatile SerialUhfDriver serialDriver;
+  private volatile int serialTarget = 0, serialBaud = SERIAL_DEFAULT_BAUD;
+
+  // capture sesi -> file urut EPC (filesDir/sessions), diff di thread "uhf-session"
+  private static final int SESSION_RUN_EPCS = 1 << 16;
+  private static final int DIFF_RSSI_DELTA = 6;
+  private volatile SessionFile.Writer capture;
+  private final ExecutorService sessionPool = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "uhf-session");
+    t.setPriority(Thread.NORM_PRIORITY - 1);
+    return t;
+  });
+  private EventPort diffPort;
+  private int diffSeq = 0; // main thread
+
+  // parser buffer mentah per sumber (reader:host:method)
+  private final Map<String, TagFrameParser> rawParsers = new ConcurrentHashMap<>();
+  private volatile int seenSession = 0;
+  private volatile DayWindow dayWindow = new DayWindow(0L, 0L, 0);
+
+  // deret read per detik per EPC
+  private static final int DWELL_SECONDS = 60;
+  private static final int DWELL_MEMORY_BYTES = 4 * 1024 * 1024;
+  private final DwellSeries dwell = new DwellSeries(DWELL_MEMORY_BYTES, DWELL_SECONDS);
+
+  // rekam / putar ulang trace mentah
+  private volatile TraceRecorder recorder;
+  private volatile boolean replaying = false;
+  private final Object replayHost = new Object(); // kunci parser frame saat replay
+  private final AtomicBoolean replayCancel = new AtomicBoolean(false);
+
+  private static final String[] EPC_GETTERS = { "getEpc", "getEPC" };
+  private static final String[] RSSI_GETTERS = { "getRssi", "getRssiDbm", "getRssidBm", "getReadRssi", "getDbm" };
+  private static final String[] POWER_GETTERS = { "getReadWritePower", "powerGet", "getPower" };
+  private static final String[] CHANNEL_GETTERS = { "getChannel", "getChannelIndex", "getFreq", "getFrequency" };
+
+  // auto power (null = manual lewat setPower)
+  private volatile PowerTuner powerTuner;
+
+  // yield per kanal (persist lewat ProbeCache)
+  private final ChannelStats channels = new ChannelStats();
+
+  private ToneGenerator toneGen;
+  private long lastBeepAt = 0L, lastVibrateAt = 0L;
+
+  private long lastExpensivePollAt = 0L, lastQAdjustAt = 0L;
+  private int hitsSinceLastAdjust = 0, currentQ = 3;
+
+  private volatile boolean fastStart = false;
+  private long fastStartEndsAt = 0L;
+  private Thread targetThread;
+  private volatile boolean targetLoop = false;
+
+  private long lastNudgeAt = 0L;
+
+  private volatile boolean seenAny = false;
+  private long firstSeenAt = 0L;
+  private volatile int currentGateDbm = RSSI_FAST_DBM;
+
+  private volatile boolean firstPushDone = false;
+  private volatile long startRequestedAt = 0L; // untuk time-to-first-tag
+  private volatile boolean startedWarm = false;
+  private volatile long ttftColdMs = -1, ttftWarmMs = -1;
+
+  // shared ring (dart:ffi)
+  private volatile TagRing ring; // null = batch lewat EventChannel
+  private EventPort ringPort;
+
+  // prewarm
+  private EventPort statusPort;
+  private volatile Map<String, Object> readerStatus;
+  private volatile ExecutorService warmPool;
+  private volatile boolean callbacksWarm = false; // callback sudah dipasang oleh prewarm
+
+  // probe cache
+  private ProbeCache probe;
+  private volatile String drainHint; // "pop:<name>" | "list:<name>" | "callback"
+  private long drainHintMissSince = 0L;
+  private final ConcurrentHashMap<Class<?>, Map<String, Method>> methodIndex = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, Method[]> bruteIndex = new ConcurrentHashMap<>();
+
+  // snapshot / burst
+  private volatile boolean fullScanMode = false;
+  private long fullScanEndsAt = 0L;
+  private final LinkedHashMap<String, Map<String, Object>> primeSet = new LinkedHashMap<>();
+  private int snapshotSeq = 0; // main thread
+  private long snapshots = 0L, snapshotChunks = 0L, snapshotMaxSendUs = 0L, snapshotLastMs = 0L, snapshotsSuperseded = 0L;
+  private int snapshotLastTags = 0;
+  // isolate decoder: potongan snapshot yang menunggu awaitBatch berikut (main thread)
+  private Runnable parkedSnapshot;
+  private final Runnable parkedSnapshotExpire = () -> {
+    Runnable p = parkedSnapshot;
+    if (p != null) {
+      lastAwaitAt = 0L; // decoder tidak menarik lagi: sisanya lewat antrean biasa
+      p.run();
+    }
+  };
+
+  private volatile boolean burstEnabled = false;
+  private int burstMs = 1000;
+  private final Runnable burstTask = new Runnable() {
+    @Override
+    public void run() {
+      if (!running || !burstEnabled)
+        return;
+      if (!fullScanMode) {
+        int window = Math.max(180, (int) (burstMs * SNAPSHOT_WINDOW_RATIO));
+        beginFullScan(window);
+      }
+      main.postDelayed(this, burstMs);
+    }
+  };
+
+  // proximity
+  private EventPort proximityPort;
+  private volatile ProximityRanker proximity;
+  private int proximityPeriodMs = 200;
+  private final Runnable proximityTask = new Runnable() {
+    @Override
+    public void run() {
+      ProximityRanker pr = proximity;
+      if (pr == null)
+        return;
+      proximityPort.send(main, pr.snapshot(SystemClock.uptimeMillis()));
+      push.postDelayed(this, proximityPeriodMs);
+    }
+  };
+
+  // portal (arah masuk/keluar)
+  private static final int PORTAL_CAPACITY = 4096;
+  private static final int PORTAL_SWEEP_MS = 100;
+  private EventPort portalPort;
+  private volatile PortalTracker portal;
+  private final Runnable portalTask = new Runnable() {
+    @Override
+    public void run() {
+      PortalTracker pt = portal;
+      if (pt == null)
+        return;
+      List<Map<String, Object>> ev = pt.sweep(System.currentTimeMillis());
+      if (!ev.isEmpty())
+        portalPort.send(main, ev);
+      push.postDelayed(this, PORTAL_SWEEP_MS);
+    }
+  };
+
+  // batch memory read
+  private EventPort memPort;
+  private TagMemoryReader memReader;
+
+  // commissioning (write EPC + verify + lock); singulasi = ronde inventory singkat
+  private static final int COMMISSION_SINGULATE_MS = 60;
+  private static final int COMMISSION_TID_WORDS = 6; // TID 96 bit: cukup unik untuk select
+  private EventPort commissionPort;
+  private TagCommissioner commissioner;
+  private volatile Set<String> singulated;
+
+  // locate
+  private EventPort locatePort;
+  private volatile LocateTracker locate;
+  private boolean locateOwnsInventory = false;
+  private int locatePeriodMs = 33;
+  private final Runnable locateTask = new Runnable() {
+    @Override
+    public void run() {
+      LocateTracker lt = locate;
+      if (lt == null)
+        return;
+      locatePort.send(main, lt.sample(SystemClock.uptimeMillis()));
+      push.postDelayed(this, locatePeriodMs);
+    }
+  };
+
+  UhfEngine(Context context) {
+    ctx = context.getApplicationContext();
+
+    probe = new ProbeCache(ctx.getSharedPreferences(PROBE_PREFS, Context.MODE_PRIVATE),
+        Build.MANUFACTURER + "/" + Build.MODEL + "/" + Build.VERSION.SDK_INT + "|" + AAR_VERSION);
+    drainHint = probe.drain();
+    channels.decode(probe.channels());
+
+    proximityPort = new EventPort(PROXIMITY_CH);
+    portalPort = new EventPort(PORTAL_CH);
+    locatePort = new EventPort(LOCATE_CH);
+    memPort = new EventPort(MEM_CH);
+    statusPort = new EventPort(STATUS_CH);
+    ringPort = new EventPort(RING_CH);
+    diffPort = new EventPort(DIFF_CH);
+    commissionPort = new EventPort(COMMISSION_CH);
+    ports = new EventPort[] { proximityPort, portalPort, locatePort, memPort, statusPort, ringPort, diffPort,
+        commissionPort };
+
+    pushThread = new HandlerThread("uhf-push", android.os.Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    pushThread.start();
+    push = new Handler(pushThread.getLooper());
+
+    rpcThread = new HandlerThread("uhf-rpc", android.os.Process.THREAD_PRIORITY_DEFAULT);
+    rpcThread.start();
+    rpc = new Handler(rpcThread.getLooper());
+    rpc.post(this::openSeenIndex);
+    rpc.post(this::restoreUpload);
+    rpc.post(this::openSessionCapture);
+
+    feedbackThread = new HandlerThread("uhf-feedback", android.os.Process.THREAD_PRIORITY_BACKGROUND);
+    feedbackThread.start();
+    feedback = new Handler(feedbackThread.getLooper());
+
+    choreographer = Choreographer.getInstance(); // milik main thread
+    meter = new MainThreadMeter(choreographer);
+
+    memReader = new TagMemoryReader(this::readTagMemory, new TagMemoryReader.RfControl() {
+      @Override
+      public void pauseInventory() {
+        pauseRf();
+      }
+
+      @Override
+      public void resumeInventory() {
+        resumeRf();
+      }
+    }, new TagMemoryReader.Listener() {
+      @Override
+      public void onBatch(int jobId, List<Map<String, Object>> results) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("job", jobId);
+        m.put("results", results);
+        memPort.send(main, m);
+      }
+
+      @Override
+      public void onDone(int jobId, Map<String, Object> summary) {
+        Map<String, Object> m = new HashMap<>(summary);
+        m.put("job", jobId);
+        m.put("done", true);
+        memPort.send(main, m);
+      }
+    });
+
+    commissioner = new TagCommissioner(new TagCommissioner.Listener() {
+      @Override
+      public void onBatch(int jobId, List<Map<String, Object>> results) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("job", jobId);
+        m.put("results", results);
+        commissionPort.send(main, m);
+      }
+
+      @Override
+      public void onDone(int jobId, Map<String, Object> summary) {
+        releaseCommissionRf(); // ronde singulasi terakhir meninggalkan RF dijeda
+        Map<String, Object> m = new HashMap<>(summary);
+        m.put("job", jobId);
+        m.put("done", true);
+        commissionPort.send(main, m);
+      }
+    });
+
+    prewarm();
+  }
+
+  /* ===================== CLIENT (activity) ===================== */
+
+  /**
+   * Pasang channel Flutter milik activity / FlutterEngine baru (main thread).
+   * Reader, thread dan cache tidak disentuh: inventory yang sedang jalan
+   * langsung terlihat lagi, tanpa power-up / warm-up ulang.
+   */
+  void attach(BinaryMessenger messenger) {
+    detach();
+    client = messenger;
+    methodChannel = new MethodChannel(messenger, METHOD_CH);
+    methodChannel.setMethodCallHandler(this::onMethodCall);
+    eventChannel = new EventChannel(messenger, EVENT_CH);
+    eventChannel.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object args, EventChannel.EventSink es) {
+        sink = es;
+        schedulePush(); // read yang tertahan selama tidak ada client
+      }
+
+      @Override
+      public void onCancel(Object args) {
+        sink = null;
+      }
+    });
+    for (EventPort p : ports)
+      p.attach(messenger);
+    attaches++;
+    if (meterEnabled && running && meter != null)
+      meter.start(); // frame main thread hanya diukur selama ada UI
+    notifyState();
+  }
+
+  /**
+   * Lepas channel (activity / FlutterEngine dihancurkan). Inventory tetap
+   * jalan; read tertahan di tagCache (terbatas), tabel sesi dan capture.
+   */
+  void detach() {
+    if (client == null)
+      return;
+    client = null;
+    methodChannel.setMethodCallHandler(null);
+    eventChannel.setStreamHandler(null);
+    methodChannel = null;
+    eventChannel = null;
+    sink = null;
+    batchWaiter = null; // reply ke messenger lama tidak pernah sampai
+    main.removeCallbacks(batchWaiterTimeout);
+    lastAwaitAt = 0L;
+    Runnable parked = parkedSnapshot;
+    if (parked != null)
+      parked.run(); // tanpa client: sisa snapshot tertahan di tagCache
+    for (EventPort p : ports)
+      p.detach();
+    push.post(() -> ring = null); // ring milik isolate Dart client lama
+    if (meter != null)
+      meter.stop(); // tanpa activity tidak ada frame untuk diukur
+    notifyState();
+  }
+
+  /** Hanya bila messenger masih client aktif (activity lama bisa hancur setelah yang baru attach). */
+  void detach(BinaryMessenger messenger) {
+    if (messenger == client)
+      detach();
+  }
+
+  boolean isAttached() {
+    return client != null;
+  }
+
+  boolean isRunning() {
+    return running;
+  }
+
+  /** Dari UhfService: hasil startForeground terakhir (null = berhasil). */
+  void setForeground(boolean ok, String error) {
+    foreground = ok;
+    foregroundError = error;
+  }
+
+  /** Dipanggil di main thread saat inventory start/stop atau client attach/detach. */
+  void setStateListener(Runnable l) {
+    stateListener = l;
+  }
+
+  private void notifyState() {
+    Runnable l = stateListener;
+    if (l != null)
+      main.post(l);
+  }
+
+  private void onMethodCall(MethodCall call, MethodChannel.Result result) {
+    try {
+      switch (call.method) {
+        case "startInventory": {
+          if (replaying) {
+            result.error("TRACE_ERR", "replay running", null);
+            break;
+          }
+          startRequestedAt = SystemClock.uptimeMillis();
+          startedWarm = isWarm();
+          final Boolean full = call.argument("fullScan");
+          final Integer win = call.argument("windowMs");
+          final Number hz = call.argument("scanHz"); // boleh int/double
+
+          rpc.post(() -> {
+            try {
+              // burst config (optional)
+              if (Boolean.TRUE.equals(full)) {
+                double targetHz = (hz == null ? 1.0 : hz.doubleValue());
+                int period = (int) Math.round(1000.0 / Math.max(0.5, Math.min(4.5, targetHz)));
+                burstMs = Math.max(BURST_MIN_MS, Math.min(BURST_MAX_MS, period));
+                burstEnabled = true;
+                main.removeCallbacks(burstTask);
+                main.post(burstTask);
+
+                int w = (win != null) ? win : (int) (burstMs * SNAPSHOT_WINDOW_RATIO);
+                beginFullScan(w);
+              } else {
+                burstEnabled = false;
+                main.removeCallbacks(burstTask);
+              }
+
+              startInventoryCore();
+            } catch (Throwable t) {
+              Log.e(TAG, "startInventory error", t);
+            }
+          });
+          result.success(null);
+          break;
+        }
+
+        case "stopInventory":
+          burstEnabled = false;
+          main.removeCallbacks(burstTask);
+          stopInventoryCore();
+          result.success(null);
+          break;
+
+        case "pullBatch":
+          if (fullScanMode) {
+            result.success(new ArrayList<>());
+            break;
+          }
+          // lewat jalur ingest yang sama dengan reader loop (tabel sesi, strategi,
+          // watchdog, capture, ...); hasil pull = isi tagCache setelah dedupe
+          for (Map<String, Object> m : readBatchOnce())
+            publishTagFromMap(m, 0);
+          List<Map<String, Object>> out = drainTagCache();
+          if (!out.isEmpty())
+            feedback();
+          result.success(out);
+          break;
+
+        case "setPower": {
+          Integer p = call.argument("power");
+          powerTuner = null; // power manual mematikan auto power
+          manualPower = p == null ? 30 : Math.max(5, Math.min(30, p));
+          setPower(manualPower);
+          result.success(null);
+          break;
+        }
+
+        case "setAutoPower": {
+          if (!Boolean.TRUE.equals(call.argument("enabled"))) {
+            powerTuner = null;
+            result.success(null);
+            break;
+          }
+          Number target = call.argument("target");
+          Integer window = call.argument("windowMs");
+          Integer stable = call.argument("stableWindows");
+          List<String> manifest = call.argument("manifest");
+          PowerTuner pt = new PowerTuner(PowerTuner.parseMode(call.argument("mode")),
+              target == null ? 20.0 : target.doubleValue(),
+              window == null ? 500 : window,
+              stable == null ? 3 : stable,
+              manifest == null ? null : new HashSet<>(manifest));
+          powerTuner = pt;
+          if (running) {
+            final int p0 = pt.start(SystemClock.uptimeMillis());
+            rpc.post(() -> setPower(p0));
+          }
+          result.success(pt.describe());
+          break;
+        }
+
+        case "getAutoPower": {
+          PowerTuner pt = powerTuner;
+          result.success(pt == null ? null : pt.describe());
+          break;
+        }
+
+        case "setBeep":
+          isBeepEnabled = Boolean.TRUE.equals(call.argument("enabled"));
+          result.success(null);
+          break;
+
+        case "setVibrate":
+          isVibrateEnabled = Boolean.TRUE.equals(call.argument("enabled"));
+          result.success(null);
+          break;
+
+        case "startProximity": {
+          Integer k = call.argument("topK");
+          Number hz = call.argument("hz");
+          Number alpha = call.argument("alpha");
+          startProximity(k == null ? 10 : Math.max(1, Math.min(64, k)),
+              hz == null ? 5.0 : Math.max(1.0, Math.min(20.0, hz.doubleValue())),
+              alpha == null ? 0.3f : alpha.floatValue());
+          result.success(null);
+          break;
+        }
+
+        case "stopProximity":
+          stopProximity();
+          result.success(null);
+          break;
+
+        case "startPortal": {
+          Integer outside = call.argument("outsideReader");
+          Integer inside = call.argument("insideReader");
+          Integer gap = call.argument("exitGapMs");
+          Integer stay = call.argument("stayMs");
+          startPortal(outside == null ? 0 : outside, inside == null ? 1 : inside,
+              gap == null ? 1500 : gap, stay == null ? 8000 : stay);
+          result.success(null);
+          break;
+        }
+
+        case "stopPortal":
+          stopPortal();
+          result.success(null);
+          break;
+
+        case "locateTag": {
+          String epc = call.argument("epc");
+          Number hz = call.argument("hz");
+          if (epc == null || epc.trim().isEmpty()) {
+            result.error("UHF_ARG", "epc required", null);
+            break;
+          }
+          double h = hz == null ? 30.0 : hz.doubleValue();
+          startLocate(epc.trim().toUpperCase(), Math.max(LOCATE_HZ_MIN, Math.min(LOCATE_HZ_MAX, h)));
+          result.success(null);
+          break;
+        }
+
+        case "stopLocate":
+          stopLocate();
+          result.success(null);
+          break;
+
+        case "readMemory": {
+          List<String> epcs = call.argument("epcs");
+          Integer ptr = call.argument("wordPtr");
+          Integer words = call.argument("words");
+          Integer retries = call.argument("retries");
+          Integer timeout = call.argument("timeoutMs");
+          Integer slice = call.argument("sliceTags");
+          Integer invMs = call.argument("inventoryMs");
+          TagMemoryReader.Job job = new TagMemoryReader.Job();
+          job.epcs = (epcs != null) ? new ArrayList<>(epcs) : sessionEpcSnapshot();
+          job.bank = parseBank(call.argument("bank"));
+          if (ptr != null)
+            job.wordPtr = Math.max(0, ptr);
+          if (words != null)
+            job.words = Math.max(1, Math.min(64, words));
+          if (retries != null)
+            job.retries = Math.max(0, Math.min(10, retries));
+          if (timeout != null)
+            job.timeoutMs = Math.max(20, timeout);
+          if (slice != null)
+            job.sliceTags = Math.max(1, slice);
+          if (invMs != null)
+            job.inventoryMs = Math.max(0, invMs);
+          result.success(memReader.submit(job));
+          break;
+        }
+
+        case "cancelMemoryRead": {
+          Integer job = call.argument("job");
+          if (job != null)
+            memReader.cancel(job);
+          result.success(null);
+          break;
+        }
+
+        case "commission": {
+          List<String> epcs = call.argument("epcs");
+          if (epcs == null || epcs.isEmpty()) {
+            result.error("BAD_ARGS", "epcs required", null);
+            break;
+          }
+          String prefix = call.argument("blankPrefix");
+          String pwd = call.argument("accessPwd");
+          Integer retries = call.argument("retries");
+          Integer window = call.argument("window");
+          Integer settle = call.argument("settleMs");
+          TagCommissioner.Job job = new TagCommissioner.Job();
+          job.epcs = new ArrayList<>(epcs);
+          job.lock = Boolean.TRUE.equals(call.argument("lock"));
+          if (prefix != null)
+            job.blankPrefix = prefix;
+          if (pwd != null && pwd.matches("[0-9A-Fa-f]{8}"))
+            job.accessPwd = pwd;
+          if (retries != null)
+            job.retries = Math.max(0, Math.min(10, retries));
+          if (window != null)
+            job.window = Math.max(1, Math.min(32, window));
+          if (settle != null)
+            job.settleMs = Math.max(0, settle);
+          if (job.lock && TagCommissioner.DEFAULT_PWD.equals(job.accessPwd)) {
+            result.error("BAD_ARGS", "lock needs a non-default accessPwd", null);
+            break;
+          }
+          boolean simulate = Boolean.TRUE.equals(call.argument("simulate"));
+          if (!simulate && (prefix == null || !prefix.matches("[0-9A-Fa-f]{1,32}"))) {
+            // tanpa awalan kosong semua tag di field (termasuk yang sudah ber-seri) akan ditimpa
+            result.error("BAD_ARGS", "blankPrefix required (hex)", null);
+            break;
+          }
+          if (simulate) {
+            SimulatedTagField sim = new SimulatedTagField(true, System.nanoTime());
+            job.air = sim;
+            job.clock = sim;
+            if (prefix == null)
+              job.blankPrefix = SimulatedTagField.BLANK_PREFIX;
+          } else if (!running) {
+            result.error("UHF_IDLE", "start inventory first", null);
+            break;
+          } else {
+            job.air = rfAir;
+          }
+          result.success(commissioner.submit(job));
+          break;
+        }
+
+        case "cancelCommission": {
+          Integer job = call.argument("job");
+          if (job != null)
+            commissioner.cancel(job);
+          result.success(null);
+          break;
+        }
+
+        case "clearSession": {
+          tagTable.clear();
+          dwell.clear();
+          SessionFile.Writer cw = capture;
+          if (cw != null)
+            cw.discard();
+          SeenIndex si = seen;
+          if (si != null)
+            seenSession = si.beginSession();
+          result.success(null);
+          break;
+        }
+
+        case "seenIndexStats": {
+          SeenIndex si = seen;
+          result.success(si == null ? null : si.stats());
+          break;
+        }
+
+        case "resetSeenIndex": {
+          SeenIndex si = seen;
+          if (si == null) {
+            result.success(null);
+            break;
+          }
+          rpc.post(() -> {
+            try {
+              si.reset();
+              seenSession = si.beginSession();
+              main.post(() -> result.success(null));
+            } catch (IOException e) {
+              seen = null;
+              main.post(() -> result.error("SEEN_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "configureUpload": {
+          String url = call.argument("url");
+          Integer batchTags = call.argument("batchTags");
+          Integer maxAge = call.argument("maxAgeMs");
+          Integer conc = call.argument("concurrency");
+          Integer maxMb = call.argument("maxQueueMb");
+          Map<String, String> headers = call.argument("headers");
+          SharedPreferences.Editor ed = ctx.getSharedPreferences(UPLOAD_PREFS, Context.MODE_PRIVATE).edit();
+          if (url == null || url.isEmpty())
+            ed.remove("url");
+          else
+            ed.putString("url", url)
+                .putInt("batchTags", batchTags == null ? 500 : batchTags)
+                .putInt("maxAgeMs", maxAge == null ? 5000 : maxAge)
+                .putInt("concurrency", conc == null ? 2 : conc)
+                .putInt("maxQueueMb", maxMb == null ? 64 : maxMb)
+                .putString("headers", encodeHeaders(headers));
+          ed.apply();
+          rpc.post(() -> {
+            try {
+              UploadQueue q = url == null || url.isEmpty() ? null : openUpload(url, headers,
+                  batchTags == null ? 500 : batchTags, maxAge == null ? 5000 : maxAge,
+                  conc == null ? 2 : conc, maxMb == null ? 64 : maxMb);
+              UploadQueue old = upload;
+              upload = q;
+              if (old != null)
+                old.close();
+              main.post(() -> result.success(q == null ? null : q.stats()));
+            } catch (IOException e) {
+              main.post(() -> result.error("UPLOAD_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "flushUpload": {
+          UploadQueue q = upload;
+          if (q != null) {
+            q.flush();
+            q.retryNow();
+          }
+          result.success(null);
+          break;
+        }
+
+        case "uploadStats": {
+          UploadQueue q = upload;
+          result.success(q == null ? null : q.stats());
+          break;
+        }
+
+        case "saveSession": {
+          String name = call.argument("name");
+          if (!validSessionName(name)) {
+            result.error("BAD_ARGS", "name: [A-Za-z0-9_-]{1,64}", null);
+            break;
+          }
+          SessionFile.Writer cw = capture;
+          if (cw == null) {
+            result.error("SESSION_ERR", "session capture unavailable", null);
+            break;
+          }
+          // read berikutnya masuk writer baru; yang lama di-merge di background
+          capture = new SessionFile.Writer(sessionTmpDir(), SESSION_RUN_EPCS, sessionPool);
+          sessionPool.execute(() -> {
+            try {
+              long t0 = System.currentTimeMillis();
+              long reads = cw.reads();
+              long tags = cw.finish(sessionFile(name));
+              Map<String, Object> m = new HashMap<>();
+              m.put("name", name);
+              m.put("tags", tags);
+              m.put("reads", reads);
+              m.put("ms", System.currentTimeMillis() - t0);
+              main.post(() -> result.success(m));
+            } catch (IOException e) {
+              main.post(() -> result.error("SESSION_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "listSessions": {
+          List<Map<String, Object>> list = new ArrayList<>();
+          File[] fs = sessionDir().listFiles((d, n) -> n.endsWith(SessionDiff.EXT));
+          if (fs != null)
+            for (File f : fs) {
+              Map<String, Object> m = new HashMap<>();
+              String n = f.getName();
+              m.put("name", n.substring(0, n.length() - SessionDiff.EXT.length()));
+              m.put("bytes", f.length());
+              m.put("modified", f.lastModified());
+              m.put("tags", Math.max(0L, (f.length() - SessionFile.HEADER) / SessionFile.RECORD));
+              list.add(m);
+            }
+          result.success(list);
+          break;
+        }
+
+        case "deleteSession": {
+          String name = call.argument("name");
+          result.success(validSessionName(name) && sessionFile(name).delete());
+          break;
+        }
+
+        case "diffSessions": {
+          String a = call.argument("a");
+          String b = call.argument("b");
+          Integer rssiDelta = call.argument("rssiDelta");
+          Integer countDelta = call.argument("countDelta");
+          if (!validSessionName(a) || !validSessionName(b)) {
+            result.error("BAD_ARGS", "a, b: session names", null);
+            break;
+          }
+          int job = ++diffSeq;
+          result.success(job);
+          sessionPool.execute(() -> runDiff(job, a, b,
+              rssiDelta == null ? DIFF_RSSI_DELTA : rssiDelta, countDelta == null ? 0 : countDelta));
+          break;
+        }
+
+        case "diffPage": {
+          String a = call.argument("a");
+          String b = call.argument("b");
+          String kind = call.argument("kind");
+          Number offset = call.argument("offset");
+          Integer limit = call.argument("limit");
+          if (!validSessionName(a) || !validSessionName(b) || !(SessionDiff.ADDED.equals(kind)
+              || SessionDiff.REMOVED.equals(kind) || SessionDiff.CHANGED.equals(kind))) {
+            result.error("BAD_ARGS", "a, b, kind: added|removed|changed", null);
+            break;
+          }
+          File f = SessionDiff.output(diffDir(a, b), kind);
+          long off = offset == null ? 0L : offset.longValue();
+          int lim = limit == null ? 200 : Math.max(0, Math.min(5000, limit));
+          sessionPool.execute(() -> {
+            try {
+              Map<String, Object> m = new HashMap<>();
+              m.put("total", SessionFile.rows(f));
+              m.put("offset", off);
+              m.put("rows", SessionFile.page(f, off, lim));
+              main.post(() -> result.success(m));
+            } catch (IOException e) {
+              main.post(() -> result.error("SESSION_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "setMainThreadMeter":
+          meterEnabled = Boolean.TRUE.equals(call.argument("enabled"));
+          if (meterEnabled && running)
+            meter.start();
+          else if (!meterEnabled)
+            meter.stop();
+          result.success(null);
+          break;
+
+        case "setWatchdog":
+          watchdogEnabled = Boolean.TRUE.equals(call.argument("enabled"));
+          result.success(null);
+          break;
+
+        case "watchdogStats": {
+          Map<String, Object> ws = watchdog.stats(SystemClock.uptimeMillis());
+          ws.put("enabled", watchdogEnabled);
+          if (Boolean.TRUE.equals(call.argument("reset")))
+            watchdog.resetStats(SystemClock.uptimeMillis());
+          result.success(ws);
+          break;
+        }
+
+        case "setBackend": {
+          String backend = call.argument("backend");
+          String node = call.argument("node");
+          Integer baud = call.argument("baud");
+          if (running) {
+            result.error("UHF_BUSY", "stop inventory first", null);
+            break;
+          }
+          rpc.post(() -> {
+            try {
+              Map<String, Object> res = "serial".equals(backend)
+                  ? useSerialBackend(node, baud == null ? SERIAL_DEFAULT_BAUD : baud)
+                  : useAarBackend();
+              main.post(() -> result.success(res));
+            } catch (IOException e) {
+              main.post(() -> result.error("SERIAL_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "tagSeries": {
+          String e = call.argument("epc");
+          result.success(e == null ? null : dwell.query(e));
+          break;
+        }
+
+        case "getChannelStats": {
+          Map<String, Object> cs = channels.snapshot();
+          cs.put("bootstrapChannel", channels.bootstrapChannel());
+          result.success(cs);
+          break;
+        }
+
+        case "startRecording": {
+          String path = call.argument("path");
+          File f = path != null ? new File(path)
+              : new File(new File(ctx.getFilesDir(), "traces"), "trace-" + System.currentTimeMillis() + ".uhfr");
+          rpc.post(() -> {
+            try {
+              TraceRecorder old = recorder;
+              recorder = new TraceRecorder(f);
+              if (old != null)
+                old.close();
+              main.post(() -> result.success(f.getAbsolutePath()));
+            } catch (IOException e) {
+              main.post(() -> result.error("TRACE_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "stopRecording": {
+          final TraceRecorder tr = recorder;
+          recorder = null;
+          if (tr == null) {
+            result.success(null);
+            break;
+          }
+          rpc.post(() -> {
+            Map<String, Object> m = new HashMap<>();
+            m.put("path", tr.file.getAbsolutePath());
+            try {
+              m.put("records", tr.close());
+              m.put("rawBytes", tr.rawBytes());
+              m.put("fileBytes", tr.file.length());
+              main.post(() -> result.success(m));
+            } catch (IOException e) {
+              main.post(() -> result.error("TRACE_ERR", e.getMessage(), null));
+            }
+          });
+          break;
+        }
+
+        case "replayTrace": {
+          String path = call.argument("path");
+          Number speed = call.argument("speed");
+          if (path == null || replaying || running) {
+            // replay memakai tabel sesi, TTFT dan watchdog yang sama dengan inventory
+            result.error("TRACE_ERR", path == null ? "path required"
+                : replaying ? "replay already running" : "stop inventory before replay", null);
+            break;
+          }
+          replayTrace(new File(path), speed == null ? 1.0 : speed.doubleValue(), result);
+          break;
+        }
+
+        case "cancelReplay":
+          replayCancel.set(true);
+          result.success(null);
+          break;
+
+        case "resetChannelStats":
+          channels.reset();
+          if (probe != null)
+            probe.saveChannels("");
+          result.success(null);
+          break;
+
+        case "awaitBatch": {
+          // isolate background tidak bisa menerima EventChannel: tarik batch,
+          // dijawab segera bila ada, atau di frame berikutnya yang punya tag
+          Integer to = call.argument("timeoutMs");
+          lastAwaitAt = SystemClock.uptimeMillis();
+          Runnable parked = parkedSnapshot;
+          if (parked != null && batchWaiter == null) {
+            batchWaiter = result; // potongan snapshot berikut jadi reply ini
+            main.postDelayed(batchWaiterTimeout, to == null ? 250 : Math.max(10, to));
+            parked.run();
+            break;
+          }
+          List<Map<String, Object>> ready = takeFrameBatch();
+          if (!ready.isEmpty() || batchWaiter != null) {
+            hitsSinceLastAdjust += ready.size();
+            result.success(ready);
+            break;
+          }
+          batchWaiter = result;
+          main.postDelayed(batchWaiterTimeout, to == null ? 250 : Math.max(10, to));
+          schedulePush();
+          break;
+        }
+
+        case "queryRows": {
+          Integer off = call.argument("offset");
+          Integer lim = call.argument("limit");
+          final int sort = TagTable.parseSort(call.argument("sortKey"));
+          final String filter = call.argument("filter");
+          final int o = off == null ? 0 : off, l = lim == null ? 100 : lim;
+          // di uhf-push supaya main thread tidak ikut menunggu lock tabel
+          push.post(() -> {
+            Map<String, Object> page = tagTable.query(o, l, sort, filter);
+            main.post(() -> result.success(page));
+          });
+          break;
+        }
+
+        case "getStats":
+          result.success(collectStats());
+          break;
+
+        case "addReader": {
+          String node = call.argument("node");
+          Integer baud = call.argument("baud");
+          if (node == null || node.isEmpty()) {
+            result.error("UHF_ARG", "node required", null);
+            break;
+          }
+          int id = addReader(node, baud == null ? 0 : baud,
+              call.argument("power"), call.argument("q"), call.argument("session"));
+          if (id < 0)
+            result.error("UHF_ERR", "max readers reached", null);
+          else
+            result.success(id);
+          break;
+        }
+
+        case "removeReader": {
+          Integer id = call.argument("id");
+          if (id != null)
+            removeReader(id);
+          result.success(null);
+          break;
+        }
+
+        case "configureReader": {
+          Integer id = call.argument("id");
+          configureReader(id == null ? 0 : id,
+              call.argument("power"), call.argument("q"), call.argument("session"));
+          result.success(null);
+          break;
+        }
+
+        case "enableRing": {
+          Integer cap = call.argument("capacity");
+          // ganti ring di thread push (penulis satu-satunya), bukan di tengah pushToRing
+          push.post(() -> {
+            TagRing r = TagRing.obtain(cap == null ? 8192 : Math.max(256, cap));
+            Map<String, Object> res = new HashMap<>();
+            res.put("ok", r != null);
+            if (r != null) {
+              res.put("dropped", r.reset()); // sisa pembaca sebelumnya (hot restart)
+              res.put("capacity", r.capacity);
+              res.put("recordSize", TagRing.RECORD);
+              res.put("headerSize", TagRing.HEADER);
+            }
+            ring = r;
+            main.post(() -> result.success(res));
+            if (r != null)
+              schedulePush();
+          });
+          break;
+        }
+
+        case "disableRing":
+          push.post(() -> {
+            ring = null; // record terakhir sudah tertulis; Dart drain setelah reply
+            main.post(() -> result.success(null));
+            schedulePush();
+          });
+          break;
+
+        case "setStrategy": {
+          InventoryStrategy.Preset p = InventoryStrategy.preset(call.argument("preset"));
+          Integer session = call.argument("session");
+          Integer window = call.argument("stallWindowMs");
+          Integer minDwell = call.argument("minDwellMs");
+          Integer maxDwell = call.argument("maxDwellMs");
+          Number ratio = call.argument("stallRatio");
+          Boolean dual = call.argument("dualTarget");
+          if (session != null)
+            p.session = Math.max(0, Math.min(3, session));
+          if (window != null)
+            p.stallWindowMs = Math.max(20, window);
+          if (minDwell != null)
+            p.minDwellMs = Math.max(0, minDwell);
+          if (maxDwell != null)
+            p.maxDwellMs = Math.max(0, maxDwell);
+          if (ratio != null)
+            p.stallRatio = Math.max(0.0, Math.min(1.0, ratio.doubleValue()));
+          if (dual != null)
+            p.dualTarget = dual;
+          InventoryStrategy s = new InventoryStrategy(p);
+          strategy = s;
+          int us = userSession;
+          primarySession = us >= 0 ? us : p.session; // sesi dari configureReader tidak ditimpa
+          if (running)
+            rpc.post(() -> {
+              applySession(primarySession);
+              s.start(SystemClock.uptimeMillis());
+              applyTarget(InventoryStrategy.TARGET_A);
+            });
+          Map<String, Object> d = s.describe();
+          d.put("appliedSession", primarySession);
+          result.success(d);
+          break;
+        }
+
+        case "getReaderStatus":
+          result.success(readerStatus);
+          break;
+
+        case "engineState": {
+          Map<String, Object> m = new HashMap<>();
+          m.put("running", running);
+          m.put("powered", powered);
+          m.put("warm", isWarm());
+          m.put("uptimeMs", SystemClock.uptimeMillis() - createdAt);
+          m.put("attaches", attaches);
+          m.put("foreground", foreground);
+          if (foregroundError != null)
+            m.put("foregroundError", foregroundError);
+          m.put("sessionTags", tagTable.size());
+          synchronized (tagCache) {
+            m.put("backlog", tagCache.size());
+          }
+          result.success(m);
+          break;
+        }
+
+        case "ping":
+          result.success("pong:" + ctx.getPackageName());
+          break;
+
+        default:
+          result.notImplemented();
+      }
+    } catch (Throwable t) {
+      Log.e(TAG, "method error: " + call.method, t);
+      result.error("UHF_ERR", t.getMessage(), null);
+    }
+  }
+
+  /* ===================== TRACE ===================== */
+
+  /** Rekam objek mentah (bila perekaman aktif), lalu parse seperti biasa. */
+  private Map<String, Object> mapFromRaw(Object info, int reader) {
+    TraceRecorder tr = replaying ? null : recorder;
+    if (tr != null && info instanceof CharSequence)
+      tr.text(info.toString(), reader);
+    return mapFromInfo(info, info instanceof CharSequence ? null : tr, reader);
+  }
+
+  /** speed 1 = waktu asli, N = N kali, 0 = secepatnya; hasil dikirim saat selesai. */
+  private void replayTrace(File f, double speed, MethodChannel.Result result) {
+    replaying = true;
+    replayCancel.set(false);
+    String replayKey = ":" + System.identityHashCode(replayHost) + ":";
+    rawParsers.keySet().removeIf(k -> k.contains(replayKey)); // sisa frame replay sebelumnya
+    new Thread(() -> {
+      android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_DISPLAY);
+      long t0 = SystemClock.uptimeMillis();
+      startRequestedAt = t0;
+      seenAny = false;
+      firstPushDone = false;
+      try {
+        Map<String, Object> m = TraceReplayer.replay(f, speed, this::publishReplayed, replayCancel);
+        m.put("sessionTags", tagTable.size());
+        m.put("ttftMs", seenAny ? firstSeenAt - t0 : -1);
+        main.post(() -> result.success(m));
+      } catch (IOException e) {
+        main.post(() -> result.error("TRACE_ERR", e.getMessage(), null));
+      } finally {
+        replaying = false;
+      }
+    }, "uhf-replay").start();
+  }
+
+  /** Record replay: buffer mentah lewat parser frame (per sumber, seperti saat direkam). */
+  private void publishReplayed(Object info, int reader) {
+    if (!(info instanceof TraceReplayer.RawBuffer)) {
+      publishTagFromInfo(info, reader);
+      return;
+    }
+    TraceReplayer.RawBuffer rb = (TraceReplayer.RawBuffer) info;
+    List<Map<String, Object>> got = new ArrayList<>();
+    parseRawBuffer(replayHost, rb.source, rb.data, reader, got);
+    for (Map<String, Object> m : got)
+      publishTagFromMap(m, reader);
+  }
+
+  /* ===================== SESSION FILE / DIFF ===================== */
+
+  private File sessionDir() {
+    return new File(ctx.getFilesDir(), "sessions");
+  }
+
+  private File sessionTmpDir() {
+    return new File(sessionDir(), "tmp");
+  }
+
+  private File sessionFile(String name) {
+    return new File(sessionDir(), name + SessionDiff.EXT);
+  }
+
+  private File diffDir(String a, String b) {
+    return new File(new File(sessionDir(), "diff"), a + "__" + b);
+  }
+
+  private static boolean validSessionName(String n) {
+    return n != null && n.matches("[A-Za-z0-9_-]{1,64}");
+  }
+
+  private void openSessionCapture() {
+    File tmp = sessionTmpDir();
+    if (!tmp.isDirectory() && !tmp.mkdirs()) {
+      Log.w(TAG, "session capture disabled: cannot create " + tmp);
+      return;
+    }
+    File[] stale = tmp.listFiles(); // run sisa launch sebelumnya
+    if (stale != null)
+      for (File f : stale)
+        f.delete();
+    capture = new SessionFile.Writer(tmp, SESSION_RUN_EPCS, sessionPool);
+  }
+
+  /** Di thread "uhf-session"; progress + hasil lewat "uhf/diff". */
+  private void runDiff(int job, String a, String b, int rssiDelta, int countDelta) {
+    Map<String, Object> m;
+    try {
+      m = SessionDiff.run(sessionFile(a), sessionFile(b), diffDir(a, b), rssiDelta, countDelta, (done, total) -> {
+        Map<String, Object> p = new HashMap<>();
+        p.put("job", job);
+        p.put("processed", done);
+        p.put("total", total);
+        diffPort.send(main, p);
+      });
+      m.put("a", a);
+      m.put("b", b);
+    } catch (IOException e) {
+      m = new HashMap<>();
+      m.put("error", e.getMessage());
+    }
+    m.put("job", job);
+    m.put("done", true);
+    diffPort.send(main, m);
+  }
+
+  /* ===================== SEEN INDEX ===================== */
+
+  private void openSeenIndex() {
+    try {
+      SeenIndex si = SeenIndex.open(new File(new File(ctx.getFilesDir(), "seen"), "seen-epc.idx"), SEEN_INITIAL_CAPACITY);
+      seenSession = si.beginSession(); // tiap launch = sesi baru
+      seen = si;
+    } catch (IOException e) {
+      Log.w(TAG, "seen index disabled: " + e.getMessage());
+    }
+  }
+
+  /** Rentang satu hari lokal; immutable supaya aman dibaca banyak reader thread. */
+  private static final class DayWindow {
+    final long startMs, endMs;
+    final int day;
+
+    DayWindow(long startMs, long endMs, int day) {
+      this.startMs = startMs;
+      this.endMs = endMs;
+      this.day = day;
+    }
+  }
+
+  /** Epoch day lokal; dihitung ulang hanya saat lewat tengah malam. */
+  private int epochDay(long wallMs) {
+    DayWindow w = dayWindow;
+    if (wallMs < w.startMs || wallMs >= w.endMs) {
+      long offset = java.util.TimeZone.getDefault().getOffset(wallMs);
+      long d = Math.floorDiv(wallMs + offset, 86_400_000L);
+      long start = d * 86_400_000L - offset;
+      w = new DayWindow(start, start + 86_400_000L, (int) d);
+      dayWindow = w; // balapan antar thread hanya menghitung ulang nilai yang sama
+    }
+    return w.day;
+  }
+
+  /* ===================== SERIAL BACKEND ===================== */
+
+  /**
+   * Pindah ke driver serial langsung. GClient AAR ditutup supaya port tidak
+   * dipakai dua pihak; power modul tetap lewat UHFManager bila ada.
+   */
+  private Map<String, Object> useSerialBackend(String node, int baud) throws IOException {
+    useAarBackend();
+    try {
+      if (uhfMgr == null)
+        initManagerFunction();
+      if (!powered)
+        powerOn();
+    } catch (Throwable t) {
+      Log.w(TAG, "serial backend: module power via AAR unavailable: " + t.getMessage());
+    }
+    tryCall(gClient, "close");
+    opened = false;
+
+    String[] nodes = node != null ? new String[] { node } : SERIAL_NODES;
+    if (node == null && probe != null && probe.serialNode() != null && !probe.serialNode().isEmpty())
+      nodes = new String[] { probe.serialNode() };
+    IOException last = null;
+    for (String n : nodes) {
+      SerialUhfDriver d;
+      try {
+        d = SerialUhfDriver.open(n, baud, this::publishSerialTag);
+      } catch (IOException e) {
+        last = e;
+        continue;
+      }
+      d.start();
+      String version = d.version();
+      if (version == null && node == null) {
+        d.close(); // node ada tapi modul tidak menjawab
+        continue;
+      }
+      serialDriver = d;
+      serialBaud = baud;
+      Map<String, Object> m = d.stats();
+      m.put("backend", "serial");
+      m.put("version", version);
+      return m;
+    }
+    throw last != null ? last : new IOException("no module answered on " + String.join(",", nodes));
+  }
+
+  private Map<String, Object> useAarBackend() {
+    SerialUhfDriver d = serialDriver;
+    serialDriver = null;
+    if (d != null)
+      d.close();
+    Map<String, Object> m = new HashMap<>();
+    m.put("backend", "aar");
+    return m;
+  }
+
+  private void publishSerialTag(String epc, int rssiRaw, boolean hasRssi) {
+    TraceRecorder tr = recorder;
+    if (tr != null)
+      tr.object(epc, hasRssi ? rssiRaw : null, null, epc, 0);
+    Map<String, Object> m = mapFromParsed(epc, hasRssi ? rssiRaw : null, null);
+    if (m != null)
+      publishTagFromMap(m, 0);
+  }
+
+  /** Buka ulang node yang sama (langkah watchdog serial-reopen / power-cycle). */
+  private void reopenSerialDriver(SerialUhfDriver d) {
+    boolean inv = d.inventorying();
+    d.close();
+    try {
+      SerialUhfDriver nd = SerialUhfDriver.open(d.node, serialBaud, this::publishSerialTag);
+      nd.start();
+      serialDriver = nd;
+      nd.setQuery(primarySession, serialTarget, currentQ);
+      if (inv)
+        nd.startInventory();
+    } catch (IOException e) {
+      Log.w(TAG, "serial reopen failed: " + e.getMessage());
+    }
+  }
+
+  /* ===================== UPLOAD ===================== */
+
+  private void restoreUpload() {
+    SharedPreferences sp = ctx.getSharedPreferences(UPLOAD_PREFS, Context.MODE_PRIVATE);
+    String url = sp.getString("url", null);
+    if (url == null || upload != null)
+      return;
+    try {
+      upload = openUpload(url, decodeHeaders(sp.getString("headers", "")),
+          sp.getInt("batchTags", 500), sp.getInt("maxAgeMs", 5000),
+          sp.getInt("concurrency", 2), sp.getInt("maxQueueMb", 64));
+    } catch (IOException e) {
+      Log.w(TAG, "upload queue disabled: " + e.getMessage());
+    }
+  }
+
+  private UploadQueue openUpload(String url, Map<String, String> headers, int batchTags, int maxAgeMs,
+      int concurrency, int maxQueueMb) throws IOException {
+    return new UploadQueue(new File(ctx.getFilesDir(), "upload"), new UploadQueue.HttpTransport(url, headers),
+        uploadDeviceId(), batchTags, maxAgeMs, concurrency, maxQueueMb * 1024L * 1024L);
+  }
+
+  /** Id acak per instalasi (tanpa izin READ_PHONE_STATE). */
+  private String uploadDeviceId() {
+    SharedPreferences sp = ctx.getSharedPreferences(UPLOAD_PREFS, Context.MODE_PRIVATE);
+    String id = sp.getString("deviceId", null);
+    if (id == null) {
+      id = java.util.UUID.randomUUID().toString();
+      sp.edit().putString("deviceId", id).apply();
+    }
+    return id;
+  }
+
+  // header disimpan "nama\tnilai" per baris
+  private static String encodeHeaders(Map<String, String> h) {
+    if (h == null)
+      return "";
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> e : h.entrySet())
+      sb.append(e.getKey()).append('\t').append(e.getValue()).append('\n');
+    return sb.toString();
+  }
+
+  private static Map<String, String> decodeHeaders(String s) {
+    Map<String, String> h = new HashMap<>();
+    if (s == null)
+      return h;
+    for (String line : s.split("\n")) {
+      int tab = line.indexOf('\t');
+      if (tab > 0)
+        h.put(line.substring(0, tab), line.substring(tab + 1));
+    }
+    return h;
+  }
+
+  /* ===================== STRATEGY ===================== */
+
+  private final Runnable strategyTask = new Runnable() {
+    @Override
+    public void run() {
+      if (!running)
+        return;
+      long now = SystemClock.uptimeMillis();
+      final int t = strategy.tick(now);
+      if (t >= 0)
+        rpc.post(() -> applyTarget(t));
+      PowerTuner pt = powerTuner;
+      if (pt != null) {
+        final int p = pt.tick(now);
+        if (p >= 0)
+          rpc.post(() -> setPower(p));
+      }
+      if (rfPaused || replaying)
+        watchdog.hold(now);
+      else if (watchdogEnabled) {
+        final int step = watchdog.tick(now);
+        if (step != StallWatchdog.NONE)
+          rpc.post(() -> recoverStall(step));
+      }
+      push.postDelayed(this, STRATEGY_TICK_MS);
+    }
+  };
+
+  /** Satu langkah pemulihan watchdog (thread rpc). */
+  private void recoverStall(int step) {
+    if (!running || rfPaused)
+      return;
+    long t0 = SystemClock.uptimeMillis();
+    Log.w(TAG, "stall: " + StallWatchdog.STEP_NAMES[step]);
+    try {
+      switch (step) {
+        case StallWatchdog.TARGET_FLIP:
+          recoverTarget ^= 1;
+          applyTarget(recoverTarget);
+          break;
+        case StallWatchdog.INVENTORY_RESET:
+          if (tryCall(uhfFunc, "inventoryReset") == null)
+            restartRf();
+          break;
+        case StallWatchdog.RESTART:
+          restartRf();
+          break;
+        case StallWatchdog.SERIAL_REOPEN:
+          if (moduleAlive()) {
+            Log.w(TAG, "stall: module answers, field empty; skip reopen");
+            break;
+          }
+          pauseRf();
+          try {
+            if (serialDriver != null)
+              reopenSerialDriver(serialDriver);
+            else {
+              tryCall(gClient, "close");
+              opened = false;
+              openSerialIfAny();
+              tryRegisterCallbacks();
+            }
+          } finally {
+            resumeRf();
+          }
+          break;
+        case StallWatchdog.POWER_CYCLE:
+          if (moduleAlive()) {
+            Log.w(TAG, "stall: module answers, field empty; skip power cycle");
+            break;
+          }
+          pauseRf();
+          try {
+            if (serialDriver == null)
+              tryCall(gClient, "close");
+            invokeAny(uhfMgr, "setPowerState_UHF", false);
+            powered = false;
+            opened = false;
+          } catch (Throwable t) {
+            resumeRf();
+            throw t;
+          }
+          // power on setelah jeda, tanpa menahan thread rpc
+          rpc.postDelayed(() -> finishPowerCycle(t0), POWER_OFF_MS);
+          return;
+        default:
+      }
+    } catch (Throwable t) {
+      Log.w(TAG, "stall recovery failed: " + t.getMessage());
+    }
+    watchdog.stepTook(step, SystemClock.uptimeMillis() - t0);
+  }
+
+  /** Paruh kedua power cycle (thread rpc): nyalakan, buka, terapkan ulang konfigurasi. */
+  private void finishPowerCycle(long t0) {
+    try {
+      SerialUhfDriver sd = serialDriver;
+      if (sd != null) {
+        invokeAny(uhfMgr, "setPowerState_UHF", true);
+        powered = true;
+        reopenSerialDriver(sd);
+      } else {
+        ensureReady();
+        tryRegisterCallbacks();
+      }
+      reapplyConfig();
+    } catch (Throwable t) {
+      Log.w(TAG, "power cycle failed: " + t.getMessage());
+    } finally {
+      resumeRf();
+    }
+    watchdog.stepTook(StallWatchdog.POWER_CYCLE, SystemClock.uptimeMillis() - t0);
+  }
+
+  /**
+   * Probe hidup sebelum langkah berat: modul yang masih menjawab query
+   * versi / power berarti field kosong, bukan modul macet.
+   */
+  private boolean moduleAlive() {
+    SerialUhfDriver sd = serialDriver;
+    if (sd != null)
+      return sd.version() != null;
+    for (String m : POWER_GETTERS) {
+      if (tryCall(uhfFunc, m) != null || tryCall(uhfMgr, m) != null)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Modul habis power cycle kembali ke default pabrik: terapkan ulang power
+   * (auto / manual), Q, region + hop table, gate RSSI, sesi dan target.
+   */
+  private void reapplyConfig() {
+    PowerTuner pt = powerTuner;
+    setPower(pt != null ? pt.power() : manualPower);
+    if (serialDriver != null)
+      return; // reopenSerialDriver sudah kirim sesi/target/Q
+    tryCall(uhfFunc, "setDynamicQ", true);
+    tryCall(uhfMgr, "setDynamicQ", true);
+    applyQ(uhfFunc, uhfMgr, currentQ);
+    setMinRssiBoth(currentGateDbm);
+    applyRegion();
+    restoreRegionAfterBootstrap();
+    applySession(primarySession);
+    applyTarget(appliedTarget);
+  }
+
+  /** Meter main thread hanya bila diminta (setMainThreadMeter), main thread. */
+  private void startMeter() {
+    if (meterEnabled)
+      main.post(meter::start);
+  }
+
+  /** Stop lalu start RF; resume setelah jeda lewat antrean rpc, bukan sleep. */
+  private void restartRf() {
+    pauseRf();
+    rpc.postDelayed(this::resumeRf, 100);
+  }
+
+  private void applySession(int s) {
+    SerialUhfDriver sd = serialDriver;
+    if (sd != null) {
+      sd.setQuery(s, serialTarget, currentQ);
+      return;
+    }
+    tryCall(uhfFunc, "setSession", s);
+    tryCall(uhfMgr, "setSession", s);
+    tryCall(uhfFunc, "sessionModeSet", s);
+  }
+
+  private void applyTarget(int t) {
+    appliedTarget = t;
+    SerialUhfDriver sd = serialDriver;
+    if (sd != null) {
+      serialTarget = t;
+      sd.setQuery(primarySession, t, currentQ);
+      return;
+    }
+    tryCall(uhfFunc, "setTarget", t);
+    tryCall(uhfMgr, "setTarget", t);
+    tryCall(uhfFunc, "setGen2Target", t);
+  }
+
+  /* ===================== PREWARM ===================== */
+
+  /**
+   * Siapkan reader di background sejak launch: manager + power, class SDK +
+   * index method, dan serial berjalan paralel di pool kecil. Koordinator
+   * jalan di uhf-rpc, jadi startInventory yang datang lebih awal otomatis
+   * menunggu di antrean dan tinggal start RF.
+   */
+  private void prewarm() {
+    final long t0 = SystemClock.uptimeMillis();
+    setReaderStatus("warming", t0, null, null);
+    rpc.post(() -> {
+      AtomicInteger n = new AtomicInteger();
+      ExecutorService pool = Executors.newFixedThreadPool(PREWARM_THREADS,
+          r -> new Thread(r, "uhf-warm-" + n.incrementAndGet()));
+      warmPool = pool;
+      final Map<String, Object> steps = new ConcurrentHashMap<>();
+      String error = null;
+      try {
+        final Future<?> module = pool.submit(() -> {
+          long s = SystemClock.uptimeMillis();
+          if (uhfMgr == null)
+            initManagerFunction();
+          steps.put("managerMs", SystemClock.uptimeMillis() - s);
+          s = SystemClock.uptimeMillis();
+          if (!powered)
+            powerOn();
+          steps.put("powerMs", SystemClock.uptimeMillis() - s);
+          return null;
+        });
+        Future<?> classes = pool.submit(() -> {
+          long s = SystemClock.uptimeMillis();
+          for (String name : SDK_CLASSES) {
+            try {
+              methodIndex.computeIfAbsent(Class.forName(name), UhfEngine::indexMethods);
+            } catch (Throwable ignore) {
+            }
+          }
+          steps.put("classesMs", SystemClock.uptimeMillis() - s);
+          return null;
+        });
+        Future<?> serial = pool.submit(() -> {
+          try {
+            module.get(); // UART dibuka setelah modul menyala (urutan lama)
+          } catch (ExecutionException ignore) {
+          }
+          long s = SystemClock.uptimeMillis();
+          if (!opened)
+            openSerialIfAny();
+          steps.put("serialMs", SystemClock.uptimeMillis() - s);
+          return null;
+        });
+        classes.get();
+        serial.get();
+        module.get();
+
+        // kelas runtime (subclass impl) + callback, supaya start pertama cukup start RF
+        for (Object h : new Object[] { uhfMgr, uhfFunc, gClient })
+          if (h != null)
+            methodIndex.computeIfAbsent(h.getClass(), UhfEngine::indexMethods);
+        long s = SystemClock.uptimeMillis();
+        tryRegisterCallbacks();
+        callbacksWarm = true;
+        steps.put("callbacksMs", SystemClock.uptimeMillis() - s);
+        if (probe != null)
+          probe.flush();
+      } catch (ExecutionException e) {
+        Throwable c = e.getCause() != null ? e.getCause() : e;
+        error = c.getClass().getSimpleName() + (c.getMessage() == null ? "" : ": " + c.getMessage());
+      } catch (InterruptedException e) {
+        error = "interrupted";
+      } finally {
+        pool.shutdown();
+        warmPool = null;
+      }
+      setReaderStatus(error == null ? "ready" : "failed", t0, steps, error);
+      Log.d(TAG, "prewarm " + (error == null ? "ready" : "failed: " + error) + " in "
+          + (SystemClock.uptimeMillis() - t0) + "ms " + steps);
+    });
+  }
+
+  private boolean isWarm() {
+    Map<String, Object> st = readerStatus;
+    return st != null && "ready".equals(st.get("state"));
+  }
+
+  private void setReaderStatus(String state, long t0, Map<String, Object> steps, String error) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("state", state);
+    m.put("elapsedMs", SystemClock.uptimeMillis() - t0);
+    if (steps != null)
+      m.put("steps", new HashMap<>(steps));
+    if (error != null)
+      m.put("error", error);
+    readerStatus = m;
+    if (statusPort != null)
+      statusPort.send(main, m);
+  }
+
+  /* ===================== FULL-SCAN SNAPSHOT ===================== */
+
+  private void beginFullScan(int windowMs) {
+    fullScanMode = true;
+    synchronized (primeSet) {
+      primeSet.clear();
+    }
+    fullScanEndsAt = SystemClock.uptimeMillis() + Math.max(180, windowMs);
+    main.postDelayed(this::finishFullScanIfDue, windowMs);
+  }
+
+  private void finishFullScanIfDue() {
+    if (!fullScanMode)
+      return;
+    long now = SystemClock.uptimeMillis();
+    if (now < fullScanEndsAt) {
+      main.postDelayed(this::finishFullScanIfDue, fullScanEndsAt - now);
+      return;
+    }
+    List<Map<String, Object>> batch = new ArrayList<>();
+    synchronized (primeSet) {
+      batch.addAll(primeSet.values());
+      primeSet.clear();
+    }
+    fullScanMode = false;
+    if (!batch.isEmpty() && ring == null && (sink != null || pullClient())) {
+      int id = ++snapshotSeq;
+      Runnable parked = parkedSnapshot;
+      if (parked != null)
+        parked.run(); // snapshot sebelumnya tersusul: sisanya ke antrean biasa
+      sendSnapshot(id, batch, 0, SystemClock.uptimeMillis());
+    } else if (!batch.isEmpty()) {
+      // ring / tanpa client: lewat antrean biasa
+      synchronized (tagCache) {
+        tagCache.addAll(batch);
+      }
+      schedulePush();
+    }
+    firstPushDone = true;
+  }
+
+  /** Isolate decoder Dart sedang long-poll awaitBatch (bukan EventChannel). */
+  private boolean pullClient() {
+    return batchWaiter != null
+        || (client != null && SystemClock.uptimeMillis() - lastAwaitAt < AWAIT_CLIENT_MS);
+  }
+
+  /**
+   * Snapshot dikirim per potongan SNAPSHOT_CHUNK tag: {snapshot, chunk,
+   * chunks, last, tags}, lewat EventChannel atau sebagai reply awaitBatch
+   * (isolate decoder). Potongan berikut di-post setelah yang ini terkirim,
+   * jadi frame/input main thread bisa menyela di antaranya; di mode pull
+   * potongan yang belum punya awaitBatch ditahan sampai poll berikutnya.
+   * Snapshot yang tersusul snapshot baru (burst) atau kehilangan client
+   * berhenti; sisanya lewat antrean biasa, jadi potongan dua snapshot tidak
+   * pernah berselang-seling.
+   */
+  private void sendSnapshot(int id, List<Map<String, Object>> all, int chunk, long t0) {
+    parkedSnapshot = null;
+    main.removeCallbacks(parkedSnapshotExpire);
+    EventChannel.EventSink s = sink;
+    boolean pull = s == null && pullClient();
+    if (id != snapshotSeq || (s == null && !pull)) {
+      synchronized (tagCache) {
+        tagCache.addAll(all.subList(chunk * SNAPSHOT_CHUNK, all.size()));
+      }
+      if (id != snapshotSeq)
+        snapshotsSuperseded++;
+      schedulePush();
+      return;
+    }
+    if (pull && batchWaiter == null) {
+      parkedSnapshot = () -> sendSnapshot(id, all, chunk, t0);
+      main.postDelayed(parkedSnapshotExpire, AWAIT_CLIENT_MS);
+      return;
+    }
+    int chunks = (all.size() + SNAPSHOT_CHUNK - 1) / SNAPSHOT_CHUNK;
+    int from = chunk * SNAPSHOT_CHUNK;
+    boolean last = chunk == chunks - 1;
+    Map<String, Object> m = new HashMap<>();
+    m.put("snapshot", id);
+    m.put("chunk", chunk);
+    m.put("chunks", chunks);
+    m.put("last", last);
+    m.put("tags", new ArrayList<>(all.subList(from, Math.min(all.size(), from + SNAPSHOT_CHUNK))));
+    long t = System.nanoTime();
+    if (pull) {
+      replyBatchWaiter(m);
+    } else {
+      try {
+        s.success(m);
+      } catch (Throwable ignore) {
+      }
+    }
+    snapshotMaxSendUs = Math.max(snapshotMaxSendUs, (System.nanoTime() - t) / 1000L);
+    snapshotChunks++;
+    if (last) {
+      snapshots++;
+      snapshotLastTags = all.size();
+      snapshotLastMs = SystemClock.uptimeMillis() - t0;
+      meter.onPush(all.size());
+      return;
+    }
+    main.post(() -> sendSnapshot(id, all, chunk + 1, t0));
+  }
+
+  /* ===================== PROXIMITY TOP-K ===================== */
+
+  private void startProximity(int k, double hz, float alpha) {
+    final ProximityRanker pr = new ProximityRanker(PROXIMITY_CAPACITY, k, alpha, PROXIMITY_STALE_MS);
+    final int period = (int) Math.round(1000.0 / hz);
+    final Handler h = push;
+    // jadwal diatur hanya di thread push, supaya tidak ada loop ganda
+    h.post(() -> {
+      h.removeCallbacks(proximityTask);
+      proximityPeriodMs = period;
+      proximity = pr;
+      h.postDelayed(proximityTask, period);
+    });
+  }
+
+  private void stopProximity() {
+    proximity = null;
+    final Handler h = push;
+    if (h != null)
+      h.post(() -> h.removeCallbacks(proximityTask));
+  }
+
+  /* ===================== PORTAL ===================== */
+
+  private void startPortal(int outsideReader, int insideReader, long exitGapMs, long stayMs) {
+    final PortalTracker pt = new PortalTracker(PORTAL_CAPACITY, outsideReader, insideReader, exitGapMs, stayMs);
+    final Handler h = push;
+    h.post(() -> {
+      h.removeCallbacks(portalTask);
+      portal = pt;
+      h.postDelayed(portalTask, PORTAL_SWEEP_MS);
+    });
+  }
+
+  private void stopPortal() {
+    final PortalTracker pt = portal;
+    portal = null;
+    final Handler h = push;
+    if (h != null)
+      h.post(() -> {
+        h.removeCallbacks(portalTask);
+        if (pt == null)
+          return;
+        // tag yang masih di lintasan diklasifikasi sekarang
+        List<Map<String, Object>> ev = pt.sweep(Long.MAX_VALUE);
+        if (!ev.isEmpty())
+          portalPort.send(main, ev);
+      });
+  }
+
+  /* ===================== LOCATE (GEIGER) ===================== */
+
+  private void startLocate(String epc, double hz) {
+    final LocateTracker lt = new LocateTracker(epc);
+    final int period = (int) Math.round(1000.0 / hz);
+    locate = lt;
+    final Handler h = push;
+    h.post(() -> {
+      h.removeCallbacks(locateTask);
+      locatePeriodMs = period;
+      h.postDelayed(locateTask, period);
+    });
+    rpc.post(() -> {
+      try {
+        ensureReady();
+        applyLocateSelect(epc);
+        if (!running) {
+          locateOwnsInventory = true;
+          startInventoryCore();
+        }
+        setMinRssiBoth(RSSI_FAST_DBM);
+      } catch (Throwable t) {
+        Log.e(TAG, "locate error", t);
+      }
+    });
+  }
+
+  private void stopLocate() {
+    if (locate == null)
+      return;
+    locate = null;
+    final Handler h = push;
+    if (h != null)
+      h.post(() -> h.removeCallbacks(locateTask));
+    if (rpc != null)
+      rpc.post(() -> {
+        clearLocateSelect();
+        if (locateOwnsInventory) {
+          locateOwnsInventory = false;
+          stopInventoryCore();
+        }
+      });
+  }
+
+  /** Select mask EPC (bank 1, mulai bit 32 setelah CRC+PC) + session S0, bila SDK mendukung. */
+  private void applyLocateSelect(String epc) {
+    int bits = epc.length() * 4;
+    boolean masked = Boolean.TRUE.equals(tryCall(uhfFunc, "filterSet", 1, 32, bits, epc, 1))
+        || Boolean.TRUE.equals(tryCall(uhfMgr, "filterSet", 1, 32, bits, epc, 1));
+    tryCall(uhfFunc, "sessionModeSet", 0);
+    tryCall(uhfMgr, "sessionModeSet", 0);
+    tryCall(uhfFunc, "setSession", 0);
+    tryCall(uhfMgr, "setSession", 0);
+    Log.d(TAG, "locate select " + (masked ? "on" : "not supported, filter di bridge"));
+  }
+
+  private void clearLocateSelect() {
+    tryCall(uhfFunc, "filterSet", 1, 32, 0, "", 0);
+    tryCall(uhfMgr, "filterSet", 1, 32, 0, "", 0);
+  }
+
+  /* ===================== TAG MEMORY ===================== */
+
+  private static int parseBank(Object v) {
+    if (v instanceof Number)
+      return Math.max(0, Math.min(3, ((Number) v).intValue()));
+    String s = v == null ? "tid" : String.valueOf(v).toLowerCase();
+    switch (s) {
+      case "reserved":
+        return 0;
+      case "epc":
+        return 1;
+      case "user":
+      case "usr":
+        return 3;
+      default:
+        return 2;
+    }
+  }
+
+  private List<String> sessionEpcSnapshot() {
+    return tagTable.epcs();
+  }
+
+  // filter select: EPC = bank 1 mulai bit 32 (setelah CRC+PC), TID = bank 2 mulai bit 0
+  private static final int FILTER_EPC = 1, FILTER_TID = 2;
+
+  private static int filterPtrBit(int filterBank) {
+    return filterBank == FILTER_EPC ? 32 : 0;
+  }
+
+  private String readTagMemory(String epc, int bank, int wordPtr, int words) throws Exception {
+    return readTagMemory(FILTER_EPC, epc, bank, wordPtr, words);
+  }
+
+  /** readTag(pwd, filterBank, filterPtrBit, filterLenBit, filterData, bank, wordPtr, words). */
+  private String readTagMemory(int filterBank, String filter, int bank, int wordPtr, int words) throws Exception {
+    for (Object host : new Object[] { uhfFunc, uhfMgr }) {
+      Method m = findMethod(host, "readTag", 8);
+      if (m == null)
+        continue;
+      Object v = m.invoke(host, "00000000", filterBank, filterPtrBit(filterBank), filter.length() * 4, filter, bank,
+          wordPtr, words);
+      if (v instanceof String && !((String) v).isEmpty())
+        return ((String) v).toUpperCase();
+      throw new IllegalStateException("no response");
+    }
+    throw new UnsupportedOperationException("readTag not found");
+  }
+
+  /* ===================== COMMISSIONING ===================== */
+
+  /** Air lewat SDK vendor (AAR); RF dijeda di antara ronde singulasi. Tag di-select lewat TID. */
+  private final TagCommissioner.Air rfAir = new TagCommissioner.Air() {
+    @Override
+    public List<String> singulate(int max) throws Exception {
+      if (serialDriver != null)
+        throw new UnsupportedOperationException("commissioning needs the aar backend");
+      Set<String> got = ConcurrentHashMap.newKeySet();
+      singulated = got;
+      releaseCommissionRf();
+      try {
+        Thread.sleep(COMMISSION_SINGULATE_MS);
+      } finally {
+        pauseRf();
+        commissionHeld = true;
+        singulated = null;
+      }
+      List<String> out = new ArrayList<>(got);
+      return out.size() > max ? out.subList(0, max) : out;
+    }
+
+    @Override
+    public String readTid(String epc) throws Exception {
+      return readTagMemory(FILTER_EPC, epc, 2, 0, COMMISSION_TID_WORDS);
+    }
+
+    @Override
+    public void writeEpc(String tid, String next, String accessPwd) throws Exception {
+      // PC + EPC mulai word 1 supaya panjang EPC di PC ikut benar
+      writeTagMemory(accessPwd, FILTER_TID, tid, 1, 1, TagCommissioner.pcEpc(next));
+    }
+
+    @Override
+    public String readPcEpc(String tid, int words) throws Exception {
+      return readTagMemory(FILTER_TID, tid, 1, 1, words);
+    }
+
+    @Override
+    public void lock(String tid, String accessPwd) throws Exception {
+      writeTagMemory(TagCommissioner.DEFAULT_PWD, FILTER_TID, tid, 0, 2, accessPwd); // access password (reserved word 2-3)
+      lockTagMemory(accessPwd, FILTER_TID, tid, LOCK_EPC_AND_ACCESS_PWD_WRITE);
+    }
+  };
+
+  /** Lepas jeda RF yang dipegang commissioning sejak singulasi terakhir. */
+  private void releaseCommissionRf() {
+    if (commissionHeld) {
+      commissionHeld = false;
+      resumeRf();
+    }
+  }
+
+  // payload lock Gen2 (mask 10 bit | action 10 bit): EPC + access pwd = pwd-write
+  private static final int LOCK_EPC_AND_ACCESS_PWD_WRITE = (0b1111 << 14) | (0b1010 << 4);
+
+  /** writeTag(pwd, filterBank, filterPtrBit, filterLenBit, filterData, bank, wordPtr, words, data). */
+  private void writeTagMemory(String pwd, int filterBank, String filter, int bank, int wordPtr, String data)
+      throws Exception {
+    for (Object host : new Object[] { uhfFunc, uhfMgr }) {
+      Method m = findMethod(host, "writeTag", 9);
+      if (m == null)
+        continue;
+      Object v = m.invoke(host, pwd, filterBank, filterPtrBit(filterBank), filter.length() * 4, filter, bank, wordPtr,
+          data.length() / 4, data);
+      if (Boolean.TRUE.equals(v) || Integer.valueOf(0).equals(v))
+        return;
+      throw new IllegalStateException("write failed: " + v);
+    }
+    throw new UnsupportedOperationException("writeTag not found");
+  }
+
+  /** lockTag(pwd, filterBank, filterPtrBit, filterLenBit, filterData, payload). */
+  private void lockTagMemory(String pwd, int filterBank, String filter, int payload) throws Exception {
+    for (Object host : new Object[] { uhfFunc, uhfMgr }) {
+      Method m = findMethod(host, "lockTag", 6);
+      if (m == null)
+        continue;
+      Object v = m.invoke(host, pwd, filterBank, filterPtrBit(filterBank), filter.length() * 4, filter, payload);
+      if (Boolean.TRUE.equals(v) || Integer.valueOf(0).equals(v))
+        return;
+      throw new IllegalStateException("lock failed: " + v);
+    }
+    throw new UnsupportedOperationException("lockTag not found");
+  }
+
+  /**
+   * Jeda RF berhitung: baca memori, commissioning dan watchdog bisa menjeda
+   * bersamaan; RF baru jalan lagi setelah semua pemegang melepas.
+   */
+  private void pauseRf() {
+    synchronized (rfPauseLock) {
+      if (rfPauseCount++ > 0)
+        return;
+      rfPaused = true;
+      if (!running)
+        return;
+      SerialUhfDriver sd = serialDriver;
+      if (sd != null) {
+        sd.stopInventory();
+        return;
+      }
+      try {
+        if (!invokeAny(uhfFunc, "stopInventory"))
+          invokeAny(uhfMgr, "stopInventory");
+        invokeAny(uhfFunc, "inventoryStop");
+      } catch (Throwable ignore) {
+      }
+    }
+  }
+
+  private void resumeRf() {
+    synchronized (rfPauseLock) {
+      if (rfPauseCount == 0 || --rfPauseCount > 0)
+        return;
+      SerialUhfDriver sd = serialDriver;
+      if (sd != null) {
+        if (running)
+          sd.startInventory();
+        rfPaused = false;
+        return;
+      }
+      try {
+        if (running && !invokeAny(uhfFunc, "startInventoryTag")
+            && !invokeAny(uhfMgr, "startInventoryTag"))
+          invokeAny(uhfFunc, "inventoryStart");
+      } catch (Throwable ignore) {
+      }
+      rfPaused = false;
+    }
+  }
+
+  private Map<String, Object> collectStats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("running", running);
+    m.put("q", currentQ);
+    m.put("gateDbm", currentGateDbm);
+    m.put("sessionTags", tagTable.size());
+    synchronized (tagCache) {
+      m.put("backlog", tagCache.size());
+    }
+    m.put("mem", memReader.stats());
+    m.put("commission", commissioner.stats());
+    Map<String, Object> snap = new HashMap<>();
+    snap.put("snapshots", snapshots);
+    snap.put("chunks", snapshotChunks);
+    snap.put("superseded", snapshotsSuperseded);
+    snap.put("chunkTags", SNAPSHOT_CHUNK);
+    snap.put("maxSendUs", snapshotMaxSendUs);
+    snap.put("lastTags", snapshotLastTags);
+    snap.put("lastDeliveryMs", snapshotLastMs);
+    m.put("snapshot", snap);
+    m.put("ttftMs", (startRequestedAt > 0 && firstSeenAt >= startRequestedAt) ? firstSeenAt - startRequestedAt : -1);
+    m.put("ttftColdMs", ttftColdMs);
+    m.put("ttftWarmMs", ttftWarmMs);
+    m.put("startedWarm", startedWarm);
+    m.put("status", readerStatus);
+    m.put("main", meter.snapshot());
+    m.put("strategy", strategy.describe());
+    m.put("dwell", dwell.stats());
+    m.put("watchdog", watchdog.stats(SystemClock.uptimeMillis()));
+    if (!rawParsers.isEmpty()) {
+      Map<String, Object> rp = new HashMap<>();
+      for (Map.Entry<String, TagFrameParser> e : rawParsers.entrySet())
+        synchronized (e.getValue()) {
+          rp.put(e.getKey(), e.getValue().stats());
+        }
+      m.put("rawParsers", rp);
+    }
+    SeenIndex sidx = seen;
+    if (sidx != null)
+      m.put("seen", sidx.stats());
+    PortalTracker ptr = portal;
+    if (ptr != null)
+      m.put("portal", ptr.stats());
+    UploadQueue uq = upload;
+    if (uq != null)
+      m.put("upload", uq.stats());
+    SessionFile.Writer cw = capture;
+    if (cw != null)
+      m.put("sessionCapture", cw.stats());
+    PowerTuner pt = powerTuner;
+    if (pt != null)
+      m.put("autoPower", pt.describe());
+    TagRing tr = ring;
+    if (tr != null) {
+      Map<String, Object> rs = new HashMap<>();
+      rs.put("capacity", tr.capacity);
+      rs.put("written", tr.writeIndex());
+      rs.put("fullStalls", tr.fullStalls());
+      m.put("ring", rs);
+    }
+    m.put("drainStrategy", drainHint);
+    SerialUhfDriver sdrv = serialDriver;
+    m.put("backend", sdrv == null ? "aar" : "serial");
+    if (sdrv != null)
+      m.put("serial", sdrv.stats());
+    List<Map<String, Object>> readers = new ArrayList<>();
+    Map<String, Object> r0 = new HashMap<>();
+    r0.put("id", 0);
+    r0.put("reads", readerReads.get(0));
+    r0.put("q", currentQ);
+    r0.put("session", primarySession);
+    readers.add(r0);
+    for (ExtraReader r : extraReaders)
+      readers.add(r.describe());
+    m.put("readers", readers);
+    return m;
+  }
+
+  /* ===================== small utils ===================== */
+
+  private void safeBeep() {
+    if (!isBeepEnabled)
+      return;
+    long now = SystemClock.uptimeMillis();
+    if (now - lastBeepAt < BEEP_GAP_MS)
+      return;
+    lastBeepAt = now;
+    try {
+      if (toneGen == null)
+        toneGen = new ToneGenerator(AudioManager.STREAM_MUSIC, 70);
+      toneGen.startTone(ToneGenerator.TONE_PROP_BEEP, 60);
+    } catch (Throwable ignore) {
+    }
+  }
+
+  private void safeVibrate(long ms) {
+    if (!isVibrateEnabled)
+      return;
+    long now = SystemClock.uptimeMillis();
+    if (now - lastVibrateAt < VIB_GAP_MS)
+      return;
+    lastVibrateAt = now;
+    try {
+      Vibrator vib = (Vibrator) ctx.getSystemService(Context.VIBRATOR_SERVICE);
+      if (vib == null)
+        return;
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+        vib.vibrate(VibrationEffect.createOneShot(ms, VibrationEffect.DEFAULT_AMPLITUDE));
+      else
+        vib.vibrate(ms);
+    } catch (Throwable ignore) {
+    }
+  }
+
+  private void kickWarmBurst() {
+    rpc.post(() -> {
+      try {
+        tryCall(uhfFunc, "setInventoryContinue", 1);
+        tryCall(uhfMgr, "setInventoryContinue", 1);
+        for (int i = 0; i < 3; i++) {
+          tryCall(uhfFunc, "setTarget", (i & 1));
+          tryCall(uhfMgr, "setTarget", (i & 1));
+          if (i == 1 && tryCall(uhfFunc, "inventoryReset") == null) {
+            invokeAny(uhfFunc, "inventoryStop");
+            Thread.sleep(50);
+            invokeAny(uhfFunc, "inventoryStart");
+          }
+          Thread.sleep(60);
+        }
+      } catch (Throwable ignore) {
+      }
+    });
+  }
+
+  private void startRescueDeadline(long ms) {
+    new Thread(() -> {
+      long end = SystemClock.uptimeMillis() + ms;
+      while (running && SystemClock.uptimeMillis() < end && !seenAny) {
+        try {
+          Thread.sleep(40);
+        } catch (Throwable ignore) {
+        }
+      }
+      if (!running || seenAny)
+        return;
+      try {
+        setMinRssiBoth(-78);
+        configureRegionForBootstrap();
+        if (tryCall(uhfFunc, "inventoryReset") == null) {
+          invokeAny(uhfFunc, "inventoryStop");
+          Thread.sleep(100);
+          invokeAny(uhfFunc, "inventoryStart");
+        }
+        startTargetNudge(SystemClock.uptimeMillis() + 1200);
+      } catch (Throwable ignore) {
+      }
+    }, "uhf-deadline").start();
+  }
+
+  private void setMinRssiBoth(int dbm) {
+    if (locate != null)
+      dbm = Math.min(dbm, RSSI_FAST_DBM); // locate butuh read lemah juga
+    tryCall(uhfFunc, "setRssiFilter", dbm);
+    tryCall(uhfMgr, "setRssiFilter", dbm);
+    tryCall(uhfFunc, "setMinRssi", dbm);
+    tryCall(uhfMgr, "setMinRssi", dbm);
+    currentGateDbm = dbm;
+  }
+
+  private static int normalizeToDbm(int v) {
+    if (v > 0 && v <= 300)
+      return -90 + (v * 60) / 300;
+    return v;
+  }
+
+  /* ===================== START/STOP CORE ===================== */
+
+  /**
+   * Satu jalur start untuk AAR dan driver serial: state sesi, TTFT, reader
+   * tambahan, meter, strategi, auto power dan watchdog sama; yang beda hanya
+   * cara menyalakan RF (reader loop AAR vs multi-poll driver).
+   */
+  private void startInventoryCore() throws Exception {
+    final SerialUhfDriver sd = serialDriver;
+    if (sd == null) {
+      ensureReady();
+      boolean started = invokeAny(uhfFunc, "startInventoryTag") ||
+          invokeAny(uhfFunc, "inventoryStart") ||
+          invokeAny(uhfFunc, "startRead") ||
+          invokeAny(uhfMgr, "startInventoryTag") ||
+          invokeAny(uhfMgr, "inventoryStart") ||
+          invokeAny(uhfMgr, "startRead");
+    }
+
+    running = true;
+    notifyState();
+    fastStart = sd == null; // fast start = polling buffer AAR lebih rapat
+    long now = SystemClock.uptimeMillis();
+    fastStartEndsAt = now + FASTSTART_MS;
+    lastQAdjustAt = now + 400; // adjust lebih cepat
+    seenAny = false;
+    firstSeenAt = 0L;
+    firstPushDone = false;
+
+    if (sd == null)
+      startReaderLoop(); // serial: frame datang dari thread driver
+    for (ExtraReader r : extraReaders)
+      r.start();
+    startMeter();
+    final InventoryStrategy strat = strategy;
+    strat.start(now);
+    if (sd == null && !strat.preset.dualTarget)
+      kickWarmBurst(); // toggle target hanya bila strategi tidak memegang target
+    PowerTuner pt = powerTuner;
+    if (pt != null) {
+      final int p0 = pt.start(now);
+      rpc.post(() -> setPower(p0));
+    }
+    watchdog.start(now);
+    push.removeCallbacks(strategyTask);
+    push.postDelayed(strategyTask, STRATEGY_TICK_MS);
+
+    if (sd != null) {
+      currentQ = strat.preset.startQ;
+      serialTarget = InventoryStrategy.TARGET_A;
+      appliedTarget = serialTarget;
+      sd.setQuery(primarySession, serialTarget, currentQ); // sebelum multi-poll, tanpa stop/re-arm
+      sd.startInventory();
+      return;
+    }
+    startRescueDeadline(FIRST_HIT_DEADLINE_MS);
+
+    setMinRssiBoth(RSSI_FAST_DBM);
+    tryCall(uhfFunc, "setContinuousMode", true);
+    tryCall(uhfMgr, "setContinuousMode", true);
+    tryCall(uhfFunc, "setInventoryContinue", 1);
+    tryCall(uhfMgr, "setInventoryContinue", 1);
+
+    // session dari strategi (default S0) / configureReader
+    applySession(primarySession);
+    if (strat.preset.dualTarget)
+      applyTarget(InventoryStrategy.TARGET_A);
+
+    rpc.post(() -> {
+      try {
+        if (callbacksWarm)
+          callbacksWarm = false; // sudah dipasang prewarm; start berikutnya pasang ulang seperti biasa
+        else
+          tryRegisterCallbacks();
+
+        // phase 1: DynamicQ off, Q awal dari strategi (fast-small: 0, agresif)
+        tryCall(uhfFunc, "setDynamicQ", false);
+        tryCall(uhfMgr, "setDynamicQ", false);
+        currentQ = strat.preset.startQ;
+        tryCall(uhfFunc, "setQ", currentQ);
+        tryCall(uhfMgr, "setQ", currentQ);
+        tryCall(uhfFunc, "SetQValue", currentQ);
+        tryCall(uhfMgr, "SetQValue", currentQ);
+
+        configureRegionForBootstrap(); // single channel sebentar
+
+        Thread.sleep(900);
+
+        // phase 2: dynamic on + RSSI gate normal
+        tryCall(uhfFunc, "setDynamicQ", true);
+        tryCall(uhfMgr, "setDynamicQ", true);
+        setMinRssiBoth(RSSI_STEADY_DBM);
+        restoreRegionAfterBootstrap();
+        lastQAdjustAt = 0;
+      } catch (Throwable ignore) {
+      }
+    });
+  }
+
+  private void stopInventoryCore() {
+    running = false;
+    notifyState();
+    fastStart = false;
+    stopTargetNudge();
+    if (push != null)
+      push.removeCallbacks(strategyTask);
+    main.removeCallbacks(burstTask);
+    if (readerThread != null) {
+      readerThread.interrupt();
+      readerThread = null;
+    }
+    for (ExtraReader r : extraReaders)
+      r.stop();
+    if (meter != null)
+      main.post(meter::stop);
+    channels.stop(SystemClock.uptimeMillis());
+    watchdog.stop(SystemClock.uptimeMillis());
+    SerialUhfDriver sd = serialDriver;
+    if (sd != null)
+      sd.stopInventory();
+    for (TagFrameParser p : rawParsers.values())
+      synchronized (p) {
+        p.reset(); // frame terpotong dari sesi lama tidak disambung
+      }
+    final SeenIndex si = seen;
+    if (si != null && rpc != null)
+      rpc.post(si::flush);
+    UploadQueue uq = upload;
+    if (uq != null)
+      uq.flush();
+    if (probe != null) {
+      probe.flush();
+      probe.saveChannels(channels.encode());
+    }
+    try {
+      invokeAny(uhfFunc, "stopInventory");
+      invokeAny(uhfFunc, "inventoryStop");
+      invokeAny(uhfFunc, "stopRead");
+      invokeAny(uhfMgr, "stopInventory");
+      invokeAny(uhfMgr, "inventoryStop");
+      invokeAny(uhfMgr, "stopRead");
+    } catch (Throwable ignore) {
+    }
+  }
+
+  private void configureRegionForBootstrap() {
+    tryCall(uhfFunc, "setHopping", false);
+    tryCall(uhfMgr, "setHopping", false);
+
+    applyRegion();
+
+    // kanal dengan yield historis terbaik (default ch6 / 922.625 MHz)
+    int ch = channels.bootstrapChannel();
+    int khz = ChannelStats.freqKHz(ch);
+    channels.pin(ch, SystemClock.uptimeMillis());
+    tryCall(uhfFunc, "setChannel", ch);
+    tryCall(uhfMgr, "setChannel", ch);
+    tryCall(uhfFunc, "setFrequency", khz);
+    tryCall(uhfMgr, "setFrequency", khz);
+    tryCall(uhfFunc, "setUserDefineFrequency", khz / 1000 * 1000, khz / 1000 * 1000 + 1000, 250);
+    tryCall(uhfMgr, "setFrequencyRegion", 920000, 925000, 500);
+
+    tryCall(uhfFunc, "setProfile", 3);
+    tryCall(uhfMgr, "setProfile", 3);
+  }
+
+  private void applyRegion() {
+    tryCall(uhfFunc, "setRegion", 1);
+    tryCall(uhfMgr, "setRegion", 1);
+    tryCall(uhfFunc, "setFreRegion", 1);
+    tryCall(uhfMgr, "setFreRegion", 1);
+  }
+
+  private void restoreRegionAfterBootstrap() {
+    channels.startHopping(SystemClock.uptimeMillis());
+    int[] table = channels.hopTable();
+    if (table != null) {
+      // hop table tanpa kanal yang konsisten buruk
+      tryCall(uhfFunc, "setHopTable", (Object) table);
+      tryCall(uhfMgr, "setHopTable", (Object) table);
+      tryCall(uhfFunc, "setFrequencyHopTable", (Object) table);
+      tryCall(uhfMgr, "setFrequencyHopTable", (Object) table);
+    }
+    tryCall(uhfFunc, "setHopping", true);
+    tryCall(uhfMgr, "setHopping", true);
+  }
+
+  /* ===================== READER LOOP ===================== */
+
+  private void startReaderLoop() {
+    if (readerThread != null)
+      return;
+    readerThread = new Thread(() -> {
+      android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_DISPLAY);
+      int idleStreak = 0;
+      while (running) {
+        try {
+          if (rfPaused) {
+            Thread.sleep(5); // SDK sedang dipakai baca memori
+            continue;
+          }
+          int c = drainAllTagsOnce();
+          if (c == 0)
+            c = expensiveSweep(); // fallback mahal tapi dipersempit intervalnya
+          if (c == 0) {
+            idleStreak = Math.min(idleStreak + 1, 200);
+            int extra = (idleStreak < 4) ? 0 : (idleStreak < 24) ? 1 : (idleStreak < 60) ? 2 : 3;
+            int sleep = READER_IDLE_MS + extra;
+            if (sleep > 0)
+              Thread.sleep(sleep);
+          } else {
+            idleStreak = 0;
+          }
+          maybeAdjustQ();
+        } catch (InterruptedException e) {
+          break;
+        } catch (Throwable t) {
+          try {
+            Thread.sleep(6);
+          } catch (InterruptedException ie) {
+            break;
+          }
+        }
+      }
+    }, "uhf-reader");
+    readerThread.start();
+  }
+
+  private void startTargetNudge(long untilMs) {
+    if (targetThread != null || strategy.preset.dualTarget)
+      return; // target A/B dipegang strategi
+    targetLoop = true;
+    targetThread = new Thread(() -> {
+      int t = 0;
+      while (running && targetLoop && SystemClock.uptimeMillis() < untilMs) {
+        try {
+          int tgt = (t++ & 1);
+          tryCall(uhfFunc, "setTarget", tgt);
+          tryCall(uhfMgr, "setTarget", tgt);
+          Thread.sleep(40);
+        } catch (Throwable ignore) {
+        }
+      }
+    }, "uhf-target-nudge");
+    targetThread.start();
+  }
+
+  private void stopTargetNudge() {
+    targetLoop = false;
+    targetThread = null;
+  }
+
+  /* ===================== Hardware init ===================== */
+
+  private void setPower(int dbm) {
+    SerialUhfDriver sd = serialDriver;
+    if (sd != null) {
+      if (!sd.setPower(dbm))
+        Log.w(TAG, "serial power not acknowledged");
+      return;
+    }
+    try {
+      if (!invokeAny(uhfFunc, "setReadWritePower", dbm, dbm)
+          && !invokeAny(uhfFunc, "powerSet", dbm)
+          && !invokeAny(uhfMgr, "setReadWritePower", dbm, dbm)
+          && !invokeAny(uhfMgr, "powerSet", dbm)) {
+        Log.w(TAG, "power setter not found");
+      }
+    } catch (Throwable ignore) {
+    }
+  }
+
+  private void ensureReady() throws Exception {
+    if (uhfMgr == null)
+      initManagerFunction();
+    if (!powered)
+      powerOn();
+    if (!opened)
+      openSerialIfAny();
+    if (probe != null)
+      probe.flush();
+  }
+
+  private void initManagerFunction() throws Exception {
+    Class<?> mgrClz = Class.forName("com.uhf.base.UHFManager");
+    Method getter = null;
+    for (Method m : mgrClz.getDeclaredMethods())
+      if (m.getName().equals("getUHFImplSigleInstance")) {
+        getter = m;
+        break;
+      }
+    if (getter == null)
+      throw new IllegalStateException("UHFManager.getUHFImplSigleInstance not found");
+    getter.setAccessible(true);
+
+    Object arg = null;
+    if (getter.getParameterCount() == 1) {
+      Class<?> p0 = getter.getParameterTypes()[0];
+      if (android.content.Context.class.isAssignableFrom(p0))
+        arg = ctx;
+      else if (p0.isEnum()) {
+        Object[] c = p0.getEnumConstants();
+        arg = (c != null && c.length > 0) ? c[0] : null;
+      }
+    }
+    uhfMgr = (getter.getParameterCount() == 0) ? getter.invoke(null) : getter.invoke(null, arg);
+
+    uhfFunc = tryGetField(uhfMgr, "mUhfFunction");
+    if (uhfFunc == null)
+      uhfFunc = tryGetField(uhfMgr, "mFunction");
+    if (uhfFunc == null)
+      uhfFunc = tryCall(uhfMgr, "getFunction");
+    if (uhfFunc == null)
+      uhfFunc = tryCall(uhfMgr, "getUhfFunction");
+    Log.d(TAG, "init: mgr=" + (uhfMgr != null) + ", func=" + (uhfFunc != null));
+  }
+
+  private void powerOn() {
+    try {
+      invokeAny(uhfMgr, "setPowerState_UHF", true);
+      invokeAny(uhfMgr, "enableUartComm_UHF", true);
+      invokeAny(uhfMgr, "powerOn");
+      invokeAny(uhfFunc, "powerOn");
+      powered = true;
+      setPower(30);
+    } catch (Throwable ignore) {
+    }
+  }
+
+  private void openSerialIfAny() {
+    try {
+      Class<?> gClz = Class.forName(GCLIENT_CLASS);
+      try {
+        Method gi = gClz.getDeclaredMethod("getInstance");
+        gi.setAccessible(true);
+        gClient = gi.invoke(null);
+      } catch (NoSuchMethodException e) {
+        Constructor<?> c = gClz.getDeclaredConstructor();
+        c.setAccessible(true);
+        gClient = c.newInstance();
+      }
+      boolean ok = false;
+      String cachedNode = probe != null ? probe.serialNode() : null;
+      int cachedBaud = probe != null ? probe.serialBaud() : 0;
+      try {
+        Method open2 = gClz.getMethod("openAndroidSerial", String.class, int.class);
+        if (cachedNode != null && !cachedNode.isEmpty() && cachedBaud > 0) {
+          try {
+            open2.invoke(gClient, cachedNode, cachedBaud);
+            ok = true;
+          } catch (Throwable t) {
+            probe.clearSerial(); // konfigurasi lama tidak jalan lagi -> probing penuh
+          }
+        }
+        outer: for (int baud : SERIAL_BAUD)
+          for (String n : SERIAL_NODES) {
+            if (ok)
+              break outer;
+            try {
+              open2.invoke(gClient, n, baud);
+              ok = true;
+              if (probe != null)
+                probe.saveSerial(n, baud);
+              break outer;
+            } catch (Throwable ignore) {
+            }
+          }
+      } catch (NoSuchMethodException ignore) {
+        try {
+          Method open1 = gClz.getMethod("openAndroidSerial", int.class);
+          if (cachedBaud > 0) {
+            try {
+              open1.invoke(gClient, cachedBaud);
+              ok = true;
+            } catch (Throwable t) {
+              probe.clearSerial();
+            }
+          }
+          for (int baud : SERIAL_BAUD) {
+            if (ok)
+              break;
+            try {
+              open1.invoke(gClient, baud);
+              ok = true;
+              if (probe != null)
+                probe.saveSerial("", baud);
+              break;
+            } catch (Throwable ignored) {
+            }
+          }
+        } catch (Throwable ignore2) {
+        }
+      }
+      opened = ok || true;
+    } catch (Throwable t) {
+      Log.w(TAG, "GClient not available: " + t.getMessage());
+      opened = true;
+    }
+  }
+
+  private void tryRegisterCallbacks() {
+    tryRegisterCallbacks(0, gClient, uhfMgr, uhfFunc);
+  }
+
+  /* ===================== MULTI READER ===================== */
+
+  private synchronized int addReader(String node, int baud, Integer power, Integer q, Integer session) {
+    boolean[] used = new boolean[MAX_READERS];
+    used[0] = true;
+    for (ExtraReader r : extraReaders)
+      used[r.id] = true;
+    int id = -1;
+    for (int i = 1; i < MAX_READERS && id < 0; i++)
+      if (!used[i])
+        id = i;
+    if (id < 0)
+      return -1;
+    ExtraReader r = new ExtraReader(id, node, baud);
+    if (power != null)
+      r.power = Math.max(5, Math.min(30, power));
+    if (q != null)
+      r.q = Math.max(0, Math.min(15, q));
+    if (session != null)
+      r.session = Math.max(0, Math.min(3, session));
+    readerReads.set(id, 0);
+    extraReaders.add(r);
+    if (running)
+      r.start();
+    return id;
+  }
+
+  private synchronized void removeReader(int id) {
+    for (ExtraReader r : extraReaders)
+      if (r.id == id) {
+        extraReaders.remove(r);
+        r.dispose();
+      }
+  }
+
+  private void configureReader(int id, Integer power, Integer q, Integer session) {
+    if (id == 0) {
+      if (power != null) {
+        manualPower = Math.max(5, Math.min(30, power));
+        rpc.post(() -> setPower(manualPower));
+      }
+      if (q != null)
+        fixedQ = q < 0 ? -1 : Math.min(15, q);
+      if (session != null) {
+        // < 0 = lepas pin, kembali ke sesi preset strategi
+        userSession = session < 0 ? -1 : Math.min(3, session);
+        primarySession = userSession >= 0 ? userSession : strategy.preset.session;
+        rpc.post(() -> applySession(primarySession));
+      }
+      return;
+    }
+    for (ExtraReader r : extraReaders)
+      if (r.id == id) {
+        if (power != null)
+          r.power = Math.max(5, Math.min(30, power));
+        if (q != null)
+          r.q = Math.max(0, Math.min(15, q));
+        if (session != null)
+          r.session = Math.max(0, Math.min(3, session));
+        r.dirty = true; // diterapkan di thread reader
+      }
+  }
+
+  private Object newGClient() throws Exception {
+    Constructor<?> c = Class.forName(GCLIENT_CLASS).getDeclaredConstructor();
+    c.setAccessible(true);
+    return c.newInstance();
+  }
+
+  /** Reader tambahan (serial/USB kedua) dengan GClient, thread, dan konfigurasi sendiri. */
+  private final class ExtraReader {
+    final int id;
+    final String node;
+    final int baud;
+    volatile int power = 30, q = 4, session = 0;
+    volatile boolean dirty = true;
+    private Object client;
+    private int openedBaud = 0;
+    private Thread thread;
+    private volatile boolean loop = false;
+    private volatile boolean removed = false;
+    private long lastSweepAt = 0L;
+
+    ExtraReader(int id, String node, int baud) {
+      this.id = id;
+      this.node = node;
+      this.baud = baud;
+    }
+
+    synchronized void start() {
+      if (thread != null)
+        return;
+      loop = true;
+      thread = new Thread(this::run, "uhf-reader-" + id);
+      thread.start();
+    }
+
+    /** Hentikan thread dan tunggu; false bila thread masih tertahan di SDK. */
+    boolean stop() {
+      Thread t;
+      synchronized (this) {
+        loop = false;
+        t = thread;
+        thread = null;
+      }
+      if (t == null)
+        return true;
+      t.interrupt();
+      try {
+        t.join(READER_JOIN_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return !t.isAlive();
+    }
+
+    /** Lepas reader: client ditutup setelah thread selesai memakainya. */
+    void dispose() {
+      removed = true;
+      if (stop())
+        close();
+      // else: thread menutup client sendiri saat keluar dari run()
+    }
+
+    synchronized void close() {
+      tryCall(client, "close");
+      client = null;
+      openedBaud = 0;
+    }
+
+    Map<String, Object> describe() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("id", id);
+      m.put("node", node);
+      m.put("baud", openedBaud);
+      m.put("open", client != null && openedBaud > 0);
+      m.put("power", power);
+      m.put("q", q);
+      m.put("session", session);
+      m.put("reads", readerReads.get(id));
+      return m;
+    }
+
+    private boolean open() {
+      try {
+        client = newGClient();
+        Method open2 = client.getClass().getMethod("openAndroidSerial", String.class, int.class);
+        int[] bauds = baud > 0 ? new int[] { baud } : SERIAL_BAUD;
+        for (int b : bauds) {
+          try {
+            open2.invoke(client, node, b);
+            openedBaud = b;
+            return true;
+          } catch (Throwable ignore) {
+          }
+        }
+      } catch (Throwable t) {
+        Log.w(TAG, "reader #" + id + " open failed: " + t.getMessage());
+      }
+      return false;
+    }
+
+    private void applyConfig() {
+      dirty = false;
+      if (!invokeQuiet(client, "setReadWritePower", power, power))
+        tryCall(client, "powerSet", power);
+      applyQ(client, null, q);
+      tryCall(client, "setSession", session);
+      tryCall(client, "sessionModeSet", session);
+    }
+
+    private void run() {
+      try {
+        readLoop();
+      } finally {
+        synchronized (this) {
+          if (thread == Thread.currentThread())
+            thread = null; // start() berikutnya boleh membuka ulang
+        }
+        if (removed || openedBaud == 0)
+          close();
+      }
+    }
+
+    private void readLoop() {
+      android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_DISPLAY);
+      if (openedBaud == 0 && !open()) {
+        Log.w(TAG, "reader #" + id + " not available on " + node);
+        return;
+      }
+      applyConfig();
+      tryRegisterCallbacks(id, client);
+      if (!invokeQuiet(client, "startInventoryTag") && !invokeQuiet(client, "inventoryStart"))
+        invokeQuiet(client, "startRead");
+
+      int idleStreak = 0;
+      while (loop && running) {
+        try {
+          if (rfPaused) {
+            Thread.sleep(5);
+            continue;
+          }
+          if (dirty)
+            applyConfig();
+          int c = drainBySinglePop(client, id) + drainByList(client, id);
+          long now = SystemClock.uptimeMillis();
+          if (c == 0 && now - lastSweepAt >= 60) {
+            lastSweepAt = now;
+            c = sweepText(client, id) + sweepRaw(client, id) + sweepBrute(client, id);
+          }
+          if (c == 0) {
+            idleStreak = Math.min(idleStreak + 1, 200);
+            int sleep = READER_IDLE_MS + ((idleStreak < 4) ? 0 : (idleStreak < 24) ? 1 : (idleStreak < 60) ? 2 : 3);
+            if (sleep > 0)
+              Thread.sleep(sleep);
+          } else {
+            idleStreak = 0;
+          }
+        } catch (InterruptedException e) {
+          break;
+        } catch (Throwable t) {
+          try {
+            Thread.sleep(6);
+          } catch (InterruptedException ie) {
+            break;
+          }
+        }
+      }
+      if (!invokeQuiet(client, "stopInventory") && !invokeQuiet(client, "inventoryStop"))
+        invokeQuiet(client, "stopRead");
+    }
+  }
+
+  private void tryRegisterCallbacks(final int reader, Object... hosts) {
+    try {
+      final Class<?> logIface = (Class<?>) Class.forName("com.idata.gg.reader.api.dal.HandlerTagEpcLog");
+      Object logProxy = Proxy.newProxyInstance(
+          logIface.getClassLoader(), new Class[] { logIface },
+          (proxy, method, args) -> {
+            if ("log".equals(method.getName()) && args != null && args.length >= 1) {
+              if (reader == 0 && drainHint == null)
+                noteDrainWinner("callback");
+              publishTagFromInfo(args[args.length - 1], reader);
+            }
+            return null;
+          });
+
+      final Class<?> overIface = (Class<?>) Class.forName("com.idata.gg.reader.api.dal.HandlerTagEpcOver");
+      Object overProxy = Proxy.newProxyInstance(
+          overIface.getClassLoader(), new Class[] { overIface },
+          (proxy, method, args) -> null);
+
+      boolean ok = false;
+      for (Object h : hosts)
+        ok = ok || registerListenerOnHost(h, "onTagEpcLog", logIface, logProxy);
+      ok = ok || registerListenerOnHost(hosts[0], "setOnTagEpcLog", logIface, logProxy)
+          || registerListenerOnHost(hosts[0], "addTagEpcLogListener", logIface, logProxy);
+
+      for (Object h : hosts)
+        registerListenerOnHost(h, "onTagEpcOver", overIface, overProxy);
+
+      Log.d(TAG, "callback EPC #" + reader + " " + (ok ? "registered" : "not found"));
+    } catch (Throwable t) {
+      Log.w(TAG, "callback register skipped: " + t.getMessage());
+    }
+  }
+
+  private boolean registerListenerOnHost(Object host, String name, Class iface, Object proxy) {
+    if (host == null || iface == null)
+      return false;
+    try {
+      for (Method m : host.getClass().getMethods()) {
+        if (m.getName().equals(name)
+            && m.getParameterTypes().length == 1
+            && m.getParameterTypes()[0].isAssignableFrom(iface)) {
+          m.setAccessible(true);
+          m.invoke(host, proxy);
+          return true;
+        }
+      }
+    } catch (Throwable ignore) {
+    }
+    return false;
+  }
+
+  private void maybeAdjustQ() {
+    long now = SystemClock.uptimeMillis();
+    if (now - lastQAdjustAt < 200)
+      return; // lebih responsif
+    lastQAdjustAt = now;
+    if (fixedQ >= 0) {
+      hitsSinceLastAdjust = 0;
+      if (currentQ != fixedQ)
+        applyQ(uhfFunc, uhfMgr, currentQ = fixedQ);
+      return;
+    }
+
+    int rate = hitsSinceLastAdjust;
+    hitsSinceLastAdjust = 0;
+    int backlog;
+    synchronized (tagCache) {
+      backlog = tagCache.size();
+    }
+
+    int newQ = currentQ;
+    if (rate > 600)
+      newQ = 6;
+    else if (rate > 240)
+      newQ = Math.max(newQ, 5);
+    else if (rate > 100)
+      newQ = Math.max(newQ, 4);
+    else if (rate < 35 && backlog < 80)
+      newQ = 3;
+
+    if (backlog > 1500)
+      newQ = 6;
+    else if (backlog > 700)
+      newQ = Math.max(newQ, 5);
+    else if (backlog > 260)
+      newQ = Math.max(newQ, 4);
+
+    if (newQ != currentQ) {
+      applyQ(uhfFunc, uhfMgr, newQ);
+      currentQ = newQ;
+      Log.d(TAG, "Adaptive Q -> " + newQ);
+    }
+  }
+
+  private void applyQ(Object a, Object b, int q) {
+    tryCall(a, "setQ", q);
+    tryCall(b, "setQ", q);
+    tryCall(a, "SetQValue", q);
+    tryCall(b, "SetQValue", q);
+  }
+
+  private void schedulePush() {
+    if (pushPosted || fullScanMode)
+      return;
+    TagRing r = ring;
+    if (r != null ? !ringPort.hasListener() : (sink == null && batchWaiter == null))
+      return;
+    pushPosted = true;
+    if (r != null) {
+      // ring: tulis record di uhf-push, sinyal ke Dart tetap per frame
+      long delay = Math.max(0, PUSH_GAP_MS - (SystemClock.uptimeMillis() - lastPushAt));
+      push.postDelayed(() -> {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        synchronized (tagCache) {
+          int n = Math.min(PUSH_CHUNK, tagCache.size());
+          if (n > 0) {
+            batch.addAll(tagCache.subList(0, n));
+            tagCache.subList(0, n).clear();
+          }
+        }
+        pushPosted = false;
+        TagRing cur = ring;
+        if (cur != null) {
+          pushToRing(cur, batch);
+        } else if (!batch.isEmpty()) {
+          synchronized (tagCache) {
+            tagCache.addAll(0, batch); // ring dimatikan di tengah jalan
+          }
+          schedulePush();
+        }
+      }, delay);
+      return;
+    }
+    // channel: gabung semua yang terkumpul, kirim sekali di frame berikutnya
+    choreographer.postFrameCallback(pushFrame);
+  }
+
+  private final Choreographer.FrameCallback pushFrame = frameTimeNanos -> flushFrame();
+
+  private final Choreographer.FrameCallback ringFrame = frameTimeNanos -> {
+    ringSignalPosted = false;
+    TagRing r = ring;
+    if (r != null) {
+      ringPort.sendNow(r.writeIndex());
+      meter.onPush(0);
+    }
+  };
+
+  /** Main thread, sekali per frame: satu sink.success untuk semua tag yang terkumpul. */
+  private void flushFrame() {
+    pushPosted = false;
+    boolean pull = batchWaiter != null;
+    if (!pull && sink == null)
+      return;
+    List<Map<String, Object>> batch = takeFrameBatch();
+    int backlogAfter;
+    synchronized (tagCache) {
+      backlogAfter = tagCache.size();
+    }
+    if (batch.isEmpty()) {
+      if (backlogAfter > 0)
+        schedulePush();
+      return;
+    }
+    long now1 = SystemClock.uptimeMillis();
+    lastPushAt = now1;
+    try {
+      if (pull)
+        replyBatchWaiter(batch); // isolate decoder menunggu
+      else
+        sink.success(batch);
+      hitsSinceLastAdjust += batch.size();
+      meter.onPush(batch.size());
+    } catch (Throwable t) {
+      Log.w(TAG, "push error", t);
+    }
+    feedback();
+
+    if (batch.size() < 8 && backlogAfter > 500 && now1 - lastNudgeAt > 380) {
+      lastNudgeAt = now1;
+      rpc.post(() -> {
+        try {
+          if (tryCall(uhfFunc, "inventoryReset") == null) {
+            invokeAny(uhfFunc, "inventoryStop");
+            invokeAny(uhfFunc, "inventoryStart");
+          }
+        } catch (Throwable ignore) {
+        }
+      });
+    }
+    if (backlogAfter > 0)
+      schedulePush();
+  }
+
+  private List<Map<String, Object>> takeFrameBatch() {
+    List<Map<String, Object>> batch = new ArrayList<>();
+    synchronized (tagCache) {
+      int n = Math.min(FRAME_PUSH_MAX, tagCache.size());
+      if (n > 0) {
+        batch.addAll(tagCache.subList(0, n));
+        tagCache.subList(0, n).clear();
+      }
+    }
+    return batch;
+  }
+
+  /** Reply awaitBatch: list tag, atau satu potongan snapshot (map). */
+  private void replyBatchWaiter(Object batch) {
+    MethodChannel.Result w = batchWaiter;
+    if (w == null)
+      return;
+    batchWaiter = null;
+    main.removeCallbacks(batchWaiterTimeout);
+    try {
+      w.success(batch);
+    } catch (Throwable t) {
+      Log.w(TAG, "awaitBatch reply error", t);
+    }
+  }
+
+  /** Beep/vibrate di uhf-feedback, maksimal satu antrean; throttle di safeBeep/safeVibrate. */
+  private void feedback() {
+    if ((!isBeepEnabled && !isVibrateEnabled) || feedbackPosted || feedback == null)
+      return;
+    feedbackPosted = true;
+    feedback.post(() -> {
+      feedbackPosted = false;
+      safeVibrate(14);
+      safeBeep();
+    });
+  }
+
+  /**
+   * Mode ring: record ditulis langsung ke memori bersama, channel hanya bawa
+   * write index sebagai sinyal. Ring penuh -> sisa batch kembali ke depan
+   * antrean dan dicoba lagi di push berikutnya.
+   */
+  private void pushToRing(TagRing r, List<Map<String, Object>> batch) {
+    long now = SystemClock.uptimeMillis();
+    lastPushAt = now;
+    List<Map<String, Object>> rejects = new ArrayList<>(0);
+    int n = batch.isEmpty() ? 0 : r.offer(batch, rejects, now);
+    if (n < batch.size()) {
+      synchronized (tagCache) {
+        tagCache.addAll(0, batch.subList(n, batch.size()));
+      }
+    }
+    final int written = n - rejects.size();
+    if (written > 0) {
+      hitsSinceLastAdjust += written;
+      if (!ringSignalPosted) {
+        ringSignalPosted = true;
+        choreographer.postFrameCallback(ringFrame);
+      }
+    }
+    if (!rejects.isEmpty()) {
+      // EPC non-hex / terlalu panjang tetap lewat jalur lama
+      main.post(() -> {
+        if (sink == null)
+          return;
+        try {
+          sink.success(rejects);
+        } catch (Throwable t) {
+          Log.w(TAG, "push error", t);
+        }
+      });
+    }
+    if (n > 0)
+      feedback();
+    synchronized (tagCache) {
+      if (!tagCache.isEmpty())
+        schedulePush();
+    }
+  }
+
+  /* ===================== drains ===================== */
+
+  private int drainAllTagsOnce() {
+    String hint = drainHint;
+    if (hint != null) {
+      int c = drainByHint(hint);
+      long now = SystemClock.uptimeMillis();
+      if (c > 0) {
+        drainHintMissSince = 0L;
+        return c;
+      }
+      if (drainHintMissSince == 0L)
+        drainHintMissSince = now;
+      if (now - drainHintMissSince < DRAIN_HINT_GRACE_MS)
+        return 0;
+      drainHintMissSince = now; // hint diam terlalu lama: probing penuh sekali
+    }
+    int c = 0;
+    c += drainBySinglePop(uhfFunc, 0);
+    c += drainBySinglePop(uhfMgr, 0);
+    c += drainByList(uhfFunc, 0);
+    c += drainByList(uhfMgr, 0);
+    return c;
+  }
+
+  /** Fast path: hanya strategi drain yang terakhir menghasilkan tag di device ini. */
+  private int drainByHint(String hint) {
+    int sep = hint.indexOf(':');
+    if (sep < 0)
+      return 0; // "callback": tag datang lewat listener
+    String kind = hint.substring(0, sep), name = hint.substring(sep + 1);
+    int c = 0;
+    for (Object host : new Object[] { uhfFunc, uhfMgr }) {
+      if (host == null)
+        continue;
+      if ("pop".equals(kind)) {
+        Object tag;
+        while ((tag = tryCall(host, name)) != null) {
+          publishTagFromInfo(tag, 0);
+          c++;
+        }
+      } else {
+        c += publishAll(tryCall(host, name), 0);
+      }
+    }
+    return c;
+  }
+
+  private int publishAll(Object list, int reader) {
+    int c = 0;
+    if (list instanceof List) {
+      for (Object t : (List<?>) list) {
+        publishTagFromInfo(t, reader);
+        c++;
+      }
+    } else if (list != null && list.getClass().isArray()) {
+      int len = java.lang.reflect.Array.getLength(list);
+      for (int i = 0; i < len; i++) {
+        publishTagFromInfo(java.lang.reflect.Array.get(list, i), reader);
+        c++;
+      }
+    }
+    return c;
+  }
+
+  private void noteDrainWinner(String strategy) {
+    if (strategy.equals(drainHint))
+      return;
+    drainHint = strategy;
+    drainHintMissSince = 0L;
+    if (probe != null)
+      probe.saveDrain(strategy);
+    Log.d(TAG, "drain strategy -> " + strategy);
+  }
+
+  private int drainBySinglePop(Object host, int reader) {
+    if (host == null)
+      return 0;
+    String[] names = new String[] {
+        "readTagFromBuffer", "getTagFromBuffer", "popTagFromBuffer", "inventoryReadTagFromBuffer",
+        "readBufferTag", "getOneTag", "readUhfBufferTag", "readTagFromBufferByOnce", "getEpcFromBuffer"
+    };
+    int c = 0;
+    for (String n : names) {
+      Object tag;
+      int before = c;
+      while ((tag = tryCall(host, n)) != null) {
+        publishTagFromInfo(tag, reader);
+        c++;
+      }
+      if (reader == 0 && c > before)
+        noteDrainWinner("pop:" + n);
+    }
+    return c;
+  }
+
+  private int drainByList(Object host, int reader) {
+    if (host == null)
+      return 0;
+    String[] names = new String[] { "getTagList", "getTags", "readBuffer", "getInventoryTagList", "getInventoryTag",
+        "inventoryBuffer" };
+    int c = 0;
+    for (String n : names) {
+      int got = publishAll(tryCall(host, n), reader);
+      if (reader == 0 && got > 0)
+        noteDrainWinner("list:" + n);
+      c += got;
+    }
+    return c;
+  }
+
+  private int expensiveSweep() {
+    long now = SystemClock.uptimeMillis();
+    if (now - lastExpensivePollAt < 60)
+      return 0; // lebih sering
+    lastExpensivePollAt = now;
+
+    int c = 0;
+    c += sweepText(uhfFunc, 0);
+    c += sweepText(uhfMgr, 0);
+    c += sweepText(gClient, 0);
+
+    c += sweepRaw(uhfFunc, 0);
+    c += sweepRaw(uhfMgr, 0);
+    c += sweepRaw(gClient, 0);
+
+    c += sweepBrute(uhfFunc, 0);
+    c += sweepBrute(uhfMgr, 0);
+    c += sweepBrute(gClient, 0);
+    return c;
+  }
+
+  private int sweepText(Object host, int reader) {
+    if (host == null)
+      return 0;
+    String[] names = new String[] { "readEpcLog", "readTagText", "readLog", "getTagEpcLog", "getEpcTxt", "getLogString",
+        "getLog" };
+    int c = 0;
+    for (String n : names) {
+      Object v = tryCall(host, n);
+      if (v instanceof String) {
+        Map<String, Object> m = mapFromRaw(v, reader);
+        if (m != null) {
+          publishTagFromMap(m, reader);
+          c++;
+        }
+      }
+    }
+    return c;
+  }
+
+  private int sweepRaw(Object host, int reader) {
+    if (host == null)
+      return 0;
+    String[] names = new String[] { "readBuffer", "getBuffer", "getReadBuf", "readTagBuffer", "getInventoryBuffer" };
+    int c = 0;
+    for (String n : names) {
+      Object v = tryCall(host, n);
+      if (v == null)
+        continue;
+      List<Map<String, Object>> got = new ArrayList<>();
+      parseRawBuffer(host, n, v, reader, got);
+      for (Map<String, Object> m : got)
+        publishTagFromMap(m, reader);
+      c += got.size();
+    }
+    return c;
+  }
+
+  private int sweepBrute(Object host, int reader) {
+    if (host == null)
+      return 0;
+    int c = 0;
+    for (Method m : bruteCandidates(host.getClass())) {
+      try {
+        Object v = m.invoke(host);
+        if (v == null)
+          continue;
+        if (v instanceof String) {
+          Map<String, Object> mm = mapFromRaw(v, reader);
+          if (mm != null) {
+            publishTagFromMap(mm, reader);
+            c++;
+          }
+          continue;
+        }
+        if (v instanceof List) {
+          for (Object item : (List<?>) v) {
+            Map<String, Object> mm = mapFromRaw(item, reader);
+            if (mm != null) {
+              publishTagFromMap(mm, reader);
+              c++;
+            }
+          }
+          continue;
+        }
+        if (v.getClass().isArray()) {
+          int len = java.lang.reflect.Array.getLength(v);
+          for (int i = 0; i < len; i++) {
+            Object item = java.lang.reflect.Array.get(v, i);
+            Map<String, Object> mm = mapFromRaw(item, reader);
+            if (mm != null) {
+              publishTagFromMap(mm, reader);
+              c++;
+            }
+          }
+          continue;
+        }
+        Map<String, Object> mm = mapFromRaw(v, reader);
+        if (mm != null) {
+          publishTagFromMap(mm, reader);
+          c++;
+        }
+      } catch (Throwable ignore) {
+      }
+    }
+    return c;
+  }
+
+  private List<Map<String, Object>> readBatchOnce() {
+    List<Map<String, Object>> out = new ArrayList<>();
+    drainToListBySinglePop(uhfFunc, out);
+    drainToListBySinglePop(uhfMgr, out);
+    if (!out.isEmpty())
+      return out;
+
+    drainToListByList(uhfFunc, out);
+    drainToListByList(uhfMgr, out);
+    if (!out.isEmpty())
+      return out;
+
+    long now = SystemClock.uptimeMillis();
+    if (now - lastExpensivePollAt < 80)
+      return out;
+    lastExpensivePollAt = now;
+
+    drainToListByTextLog(uhfFunc, out);
+    drainToListByTextLog(uhfMgr, out);
+    if (!out.isEmpty())
+      return out;
+    drainToListByTextLog(gClient, out);
+    if (!out.isEmpty())
+      return out;
+
+    drainToListByRawBuffer(uhfFunc, out);
+    drainToListByRawBuffer(uhfMgr, out);
+    if (!out.isEmpty())
+      return out;
+    drainToListByRawBuffer(gClient, out);
+    if (!out.isEmpty())
+      return out;
+
+    bruteForceDrain(uhfFunc, out);
+    bruteForceDrain(uhfMgr, out);
+    bruteForceDrain(gClient, out);
+    return out;
+  }
+
+  private void drainToListBySinglePop(Object host, List<Map<String, Object>> out) {
+    if (host == null)
+      return;
+    String[] names = new String[] {
+        "readTagFromBuffer", "getTagFromBuffer", "popTagFromBuffer", "inventoryReadTagFromBuffer",
+        "readBufferTag", "getOneTag", "readUhfBufferTag", "readTagFromBufferByOnce", "getEpcFromBuffer"
+    };
+    for (String n : names) {
+      Object tag;
+      while ((tag = tryCall(host, n)) != null) {
+        Map<String, Object> m = mapFromRaw(tag, 0);
+        if (m != null)
+          out.add(m);
+      }
+    }
+  }
+
+  private void drainToListByList(Object host, List<Map<String, Object>> out) {
+    if (host == null)
+      return;
+    String[] names = new String[] { "getTagList", "getTags", "readBuffer", "getInventoryTagList", "getInventoryTag",
+        "inventoryBuffer" };
+    for (String n : names) {
+      Object list = tryCall(host, n);
+      if (list == null)
+        continue;
+      if (list instanceof List) {
+        for (Object t : (List<?>) list) {
+          Map<String, Object> m = mapFromRaw(t, 0);
+          if (m != null)
+            out.add(m);
+        }
+      } else if (list.getClass().isArray()) {
+        int len = java.lang.reflect.Array.getLength(list);
+        for (int i = 0; i < len; i++) {
+          Map<String, Object> m = mapFromRaw(java.lang.reflect.Array.get(list, i), 0);
+          if (m != null)
+            out.add(m);
+        }
+      }
+    }
+  }
+
+  private void drainToListByTextLog(Object host, List<Map<String, Object>> out) {
+    if (host == null)
+      return;
+    String[] names = new String[] { "readEpcLog", "readTagText", "readLog", "getTagEpcLog", "getEpcTxt", "getLogString",
+        "getLog" };
+    for (String n : names) {
+      Object v = tryCall(host, n);
+      if (v instanceof String) {
+        Map<String, Object> m = mapFromRaw(v, 0);
+        if (m != null)
+          out.add(m);
+      }
+    }
+  }
+
+  private void drainToListByRawBuffer(Object host, List<Map<String, Object>> out) {
+    if (host == null)
+      return;
+    String[] names = new String[] { "readBuffer", "getBuffer", "getReadBuf", "readTagBuffer", "getInventoryBuffer" };
+    for (String n : names) {
+      Object v = tryCall(host, n);
+      if (v == null)
+        continue;
+      parseRawBuffer(host, n, v, 0, out);
+    }
+  }
+
+  /**
+   * Semua tag dalam satu buffer mentah (byte[] / List&lt;Number&gt;), lewat
+   * parser per sumber supaya frame terpotong tersambung di drain berikutnya.
+   */
+  private void parseRawBuffer(Object host, String method, Object v, int reader, List<Map<String, Object>> out) {
+    if (!(v instanceof byte[]) && !(v instanceof List))
+      return;
+    String key = reader + ":" + System.identityHashCode(host) + ":" + method;
+    TagFrameParser p = rawParsers.get(key);
+    if (p == null) {
+      p = new TagFrameParser();
+      rawParsers.put(key, p);
+    }
+    TraceRecorder tr = replaying ? null : recorder;
+    if (tr != null)
+      tr.raw(method, v instanceof byte[] ? (byte[]) v : toBytes((List<?>) v), reader); // byte apa adanya
+    TagFrameParser.Sink sink = (epc, rssiRaw, hasRssi) -> {
+      Map<String, Object> m = mapFromParsed(epc, hasRssi ? rssiRaw : null, null);
+      if (m != null)
+        out.add(m);
+    };
+    synchronized (p) {
+      if (v instanceof byte[])
+        p.feed((byte[]) v, sink);
+      else
+        p.feed((List<?>) v, sink);
+    }
+  }
+
+  private static byte[] toBytes(List<?> list) {
+    byte[] b = new byte[list.size()];
+    for (int i = 0; i < b.length; i++) {
+      Object o = list.get(i);
+      b[i] = o instanceof Number ? ((Number) o).byteValue() : 0;
+    }
+    return b;
+  }
+
+  private void bruteForceDrain(Object host, List<Map<String, Object>> out) {
+    if (host == null)
+      return;
+    for (Method m : bruteCandidates(host.getClass())) {
+      try {
+        Object v = m.invoke(host);
+        if (v == null)
+          continue;
+        if (v instanceof String) {
+          Map<String, Object> map = mapFromRaw(v, 0);
+          if (map != null)
+            out.add(map);
+          continue;
+        }
+        if (v instanceof List) {
+          for (Object item : (List<?>) v) {
+            Map<String, Object> map = mapFromRaw(item, 0);
+            if (map != null)
+              out.add(map);
+          }
+          continue;
+        }
+        if (v.getClass().isArray()) {
+          int len = java.lang.reflect.Array.getLength(v);
+          for (int i = 0; i < len; i++) {
+            Map<String, Object> map = mapFromRaw(java.lang.reflect.Array.get(v, i), 0);
+            if (map != null)
+              out.add(map);
+          }
+          continue;
+        }
+        Map<String, Object> map = mapFromRaw(v, 0);
+        if (map != null)
+          out.add(map);
+      } catch (Throwable ignore) {
+      }
+    }
+  }
+
+  private void publishTagFromInfo(Object info, int reader) {
+    Map<String, Object> map = mapFromRaw(info, reader);
+    if (map == null)
+      return;
+    publishTagFromMap(map, reader);
+  }
+
+  private void publishTagFromMap(Map<String, Object> map, int reader) {
+    map.put("reader", reader);
+    if (reader >= 0 && reader < MAX_READERS)
+      readerReads.incrementAndGet(reader);
+    if (!seenAny) {
+      seenAny = true;
+      firstSeenAt = SystemClock.uptimeMillis();
+      if (startRequestedAt > 0) {
+        long ttft = firstSeenAt - startRequestedAt;
+        if (startedWarm)
+          ttftWarmMs = ttft;
+        else
+          ttftColdMs = ttft;
+        Log.d(TAG, "time-to-first-tag " + ttft + "ms (" + (startedWarm ? "warm" : "cold") + ")");
+      }
+    }
+
+    String epc = (String) map.get("epc");
+    int rssiDbm = ((Number) map.get("rssiDbm")).intValue();
+    long now = SystemClock.uptimeMillis();
+    watchdog.onRead(now);
+
+    LocateTracker lt = locate;
+    if (lt != null) {
+      // locate: lewati tagCache & batching, hanya EPC target
+      if (lt.epc.equalsIgnoreCase(epc))
+        lt.update(rssiDbm, now);
+      return;
+    }
+
+    long wallMs = System.currentTimeMillis();
+    SeenIndex si = seen;
+    if (si != null) {
+      long prior = si.check(epc, epochDay(wallMs));
+      boolean counted = prior >= 0 && (int) prior != seenSession;
+      map.put("counted", counted);
+      if (counted)
+        map.put("firstDay", (int) (prior >>> 32));
+    }
+    boolean isNew = tagTable.hit(epc, rssiDbm, wallMs);
+    Set<String> sg = singulated;
+    if (sg != null)
+      sg.add(epc);
+    SessionFile.Writer cw = capture;
+    if (cw != null) {
+      cw.add(epc, rssiDbm);
+      IOException ce = cw.takeError(); // sekali per writer, bukan per read
+      if (ce != null)
+        Log.w(TAG, "session capture: " + ce.getMessage());
+    }
+    dwell.hit(epc, rssiDbm, wallMs);
+    PortalTracker portalNow = portal;
+    if (portalNow != null)
+      portalNow.hit(epc, rssiDbm, reader, wallMs);
+    if (isNew)
+      strategy.onNewEpc();
+    UploadQueue uq = upload;
+    if (uq != null)
+      uq.offer(epc, rssiDbm, reader, wallMs);
+    PowerTuner pt = powerTuner;
+    if (pt != null)
+      pt.onRead(epc);
+    Object ch = map.get("channel");
+    channels.onRead(ch instanceof Integer ? (Integer) ch : -1, rssiDbm, isNew);
+
+    ProximityRanker pr = proximity;
+    if (pr != null)
+      pr.update(epc, rssiDbm, now);
+
+    if (fullScanMode) {
+      synchronized (primeSet) {
+        primeSet.put(epc, map);
+      }
+      return; // ditahan dulu, kirim serentak saat window selesai
+    }
+
+    if (!firstPushDone) {
+      firstPushDone = true;
+      pushFirstNow(map);
+    }
+
+    if (!recentEpc.admit(epc, now, DUP_SUPPRESS_MS))
+      return;
+
+    synchronized (tagCache) {
+      tagCache.add(map);
+      if (tagCache.size() > CACHE_LIMIT)
+        tagCache.subList(0, CACHE_LIMIT / 2).clear();
+    }
+    schedulePush();
+  }
+
+  private void pushFirstNow(Map<String, Object> first) {
+    if (fullScanMode)
+      return;
+    if (sink == null || first == null)
+      return;
+    List<Map<String, Object>> one = new ArrayList<>(1);
+    one.add(first);
+    main.post(() -> {
+      try {
+        sink.success(one);
+      } catch (Throwable ignore) {
+      }
+    });
+    feedback();
+  }
+
+  private List<Map<String, Object>> drainTagCache() {
+    List<Map<String, Object>> snap = new ArrayList<>();
+    synchronized (tagCache) {
+      if (!tagCache.isEmpty()) {
+        snap.addAll(tagCache);
+        tagCache.clear();
+      }
+    }
+    return snap;
+  }
+
+  /* ===================== parsing ===================== */
+
+  private static String parseHexFromText(String s) {
+    if (s == null)
+      return null;
+    java.util.regex.Matcher m = java.util.regex.Pattern.compile("([A-Fa-f0-9]{20,})").matcher(s);
+    String best = null;
+    while (m.find()) {
+      String g = m.group(1);
+      if (best == null || g.length() > best.length())
+        best = g;
+    }
+    return best == null ? null : best.toUpperCase();
+  }
+
+  private static Integer parseRssiFromText(String s) {
+    if (s == null)
+      return null;
+    java.util.regex.Matcher m = java.util.regex.Pattern
+        .compile("(-?\\d{1,3})\\s*d?B?m?", java.util.regex.Pattern.CASE_INSENSITIVE).matcher(s);
+    return m.find() ? Integer.valueOf(m.group(1)) : null;
+  }
+
+  private Map<String, Object> mapFromInfo(Object info) {
+    return mapFromInfo(info, null, 0);
+  }
+
+  /** Getter reflektif dipanggil sekali; nilai yang sama direkam ke {@code tr} (bila ada). */
+  private Map<String, Object> mapFromInfo(Object info, TraceRecorder tr, int reader) {
+    if (info == null)
+      return null;
+
+    String epc = extractString(info, EPC_GETTERS);
+    if (epc == null) {
+      Object f = tryGetField(info, "epc");
+      if (f != null)
+        epc = String.valueOf(f);
+    }
+    Integer rssiRaw = extractInt(info, RSSI_GETTERS);
+    Integer chRaw = extractInt(info, CHANNEL_GETTERS);
+    String text = null;
+    if (tr != null) {
+      text = String.valueOf(info);
+      tr.object(epc, rssiRaw, chRaw, text, reader);
+    }
+    if (epc == null || epc.isEmpty())
+      epc = parseHexFromText(text != null ? text : (text = String.valueOf(info)));
+    if (epc == null || epc.isEmpty())
+      return null;
+
+    if (rssiRaw == null)
+      rssiRaw = parseRssiFromText(text != null ? text : String.valueOf(info));
+    return mapFromParsed(epc, rssiRaw, chRaw);
+  }
+
+  private Map<String, Object> mapFromParsed(String epc, Integer rssiRaw, Integer chRaw) {
+    boolean hasRssi = (rssiRaw != null);
+    if (rssiRaw == null)
+      rssiRaw = -70;
+    int rssiDbm = normalizeToDbm(rssiRaw);
+
+    int gate = currentGateDbm;
+    if (hasRssi && rssiDbm < gate && locate == null)
+      return null;
+
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", epc);
+    m.put("rssi", rssiRaw);
+    m.put("rssiDbm", rssiDbm);
+    if (chRaw != null) {
+      int ch = ChannelStats.channelOf(chRaw);
+      if (ch >= 0)
+        m.put("channel", ch);
+    }
+    return m;
+  }
+
+  private String extractString(Object obj, String[] getters) {
+    for (String g : getters) {
+      Object v = tryCall(obj, g);
+      if (v instanceof String)
+        return (String) v;
+    }
+    return null;
+  }
+
+  private Integer extractInt(Object obj, String[] getters) {
+    for (String g : getters) {
+      Object v = tryCall(obj, g);
+      if (v instanceof Integer)
+        return (Integer) v;
+      if (v instanceof Number)
+        return ((Number) v).intValue();
+    }
+    return null;
+  }
+
+  /* ===================== reflect helpers ===================== */
+
+  private Method findMethod(Object target, String name, int paramCount) {
+    if (target == null)
+      return null;
+    Class<?> c = target.getClass();
+    String key = name + "/" + paramCount;
+    boolean host = probe != null && (target == uhfMgr || target == uhfFunc || target == gClient);
+    Map<String, Method> idx = methodIndex.get(c);
+    if (idx == null) {
+      // kelas host yang sudah di-probe di device ini: method tidak ada -> tanpa scan
+      if (host && Boolean.FALSE.equals(probe.known(c.getName(), key)))
+        return null;
+      idx = indexMethods(c);
+      methodIndex.put(c, idx);
+    }
+    Method m = idx.get(key);
+    if (host) {
+      if (m == null && Boolean.TRUE.equals(probe.known(c.getName(), key)))
+        probe.forgetMethods(c.getName()); // SDK berubah, cache tidak valid
+      probe.note(c.getName(), key, m != null);
+    }
+    return m;
+  }
+
+  /** Semua method kelas, sekali scan; urutan sama seperti dulu (public dulu, lalu declared). */
+  private static Map<String, Method> indexMethods(Class<?> c) {
+    Map<String, Method> idx = new HashMap<>();
+    for (Method m : c.getMethods()) {
+      String k = m.getName() + "/" + m.getParameterTypes().length;
+      if (!idx.containsKey(k)) {
+        m.setAccessible(true);
+        idx.put(k, m);
+      }
+    }
+    for (Method m : c.getDeclaredMethods()) {
+      String k = m.getName() + "/" + m.getParameterTypes().length;
+      if (!idx.containsKey(k)) {
+        m.setAccessible(true);
+        idx.put(k, m);
+      }
+    }
+    return idx;
+  }
+
+  /** Getter tanpa argumen yang namanya mirip tag/epc/buf/log, di-cache per kelas. */
+  private Method[] bruteCandidates(Class<?> c) {
+    Method[] cached = bruteIndex.get(c);
+    if (cached != null)
+      return cached;
+    List<Method> out = new ArrayList<>();
+    for (Method m : c.getMethods()) {
+      if (m.getParameterTypes().length != 0)
+        continue;
+      String mn = m.getName().toLowerCase();
+      if (!(mn.contains("tag") || mn.contains("epc") || mn.contains("buf") || mn.contains("log")))
+        continue;
+      try {
+        m.setAccessible(true);
+        out.add(m);
+      } catch (Throwable ignore) {
+      }
+    }
+    cached = out.toArray(new Method[0]);
+    bruteIndex.put(c, cached);
+    return cached;
+  }
+
+  private boolean invokeAny(Object target, String method, Object... args) throws Exception {
+    Method m = findMethod(target, method, args == null ? 0 : args.length);
+    if (m == null)
+      return false;
+    m.invoke(target, args);
+    return true;
+  }
+
+  private boolean invokeQuiet(Object target, String method, Object... args) {
+    try {
+      return invokeAny(target, method, args);
+    } catch (Throwable ignore) {
+      return false;
+    }
+  }
+
+  private Object tryCall(Object target, String method, Object... args) {
+    try {
+      Method m = findMethod(target, method, args == null ? 0 : args.length);
+      if (m == null)
+        return null;
+      return m.invoke(target, args);
+    } catch (Throwable ignore) {
+      return null;
+    }
+  }
+
+  private Object tryGetField(Object target, String name) {
+    if (target == null)
+      return null;
+    try {
+      Field f = target.getClass().getDeclaredField(name);
+      f.setAccessible(true);
+      return f.get(target);
+    } catch (Throwable ignore) {
+      return null;
+    }
+  }
+
+  /** Matikan reader & semua thread; hanya saat service berhenti (bukan saat activity hilang). */
+  void shutdown() {
+    detach();
+    stateListener = null;
+    try {
+      stopInventoryCore();
+    } catch (Throwable ignore) {
+    }
+    replayCancel.set(true);
+    useAarBackend();
+    UploadQueue uq = upload;
+    upload = null;
+    if (uq != null)
+      uq.close();
+    SeenIndex si = seen;
+    seen = null;
+    if (si != null)
+      si.close();
+    TraceRecorder tr = recorder;
+    recorder = null;
+    if (tr != null)
+      try {
+        tr.close();
+      } catch (IOException ignore) {
+      }
+    ExecutorService wp = warmPool;
+    if (wp != null)
+      wp.shutdownNow();
+    SessionFile.Writer cw = capture;
+    capture = null;
+    if (cw != null)
+      cw.close();
+    sessionPool.shutdownNow();
+    stopProximity();
+    stopPortal();
+    stopLocate();
+    for (ExtraReader r : extraReaders)
+      r.dispose();
+    extraReaders.clear();
+    if (memReader != null)
+      memReader.shutdown();
+    if (commissioner != null)
+      commissioner.shutdown();
+    try {
+      invokeAny(uhfMgr, "setPowerState_UHF", false);
+    } catch (Throwable ignore) {
+    }
+    try {
+      if (pushThread != null) {
+        pushThread.quitSafely();
+        pushThread = null;
+        push = null;
+      }
+    } catch (Throwable ignore) {
+    }
+    try {
+      if (rpcThread != null) {
+        rpcThread.quitSafely();
+        rpcThread = null;
+        rpc = null;
+      }
+    } catch (Throwable ignore) {
+    }
+    try {
+      if (feedbackThread != null) {
+        feedbackThread.quitSafely();
+        feedbackThread = null;
+        feedback = null;
+      }
+    } catch (Throwable ignore) {
+    }
+    try {
+      if (toneGen != null) {
+        toneGen.release();
+        toneGen = null;
+      }
+    } catch (Throwable ignore) {
+    }
+  }
+}
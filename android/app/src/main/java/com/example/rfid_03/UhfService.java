@@ -0,0 +1,132 @@
+package com.example.rfid_03;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Foreground service pemilik {@link UhfEngine}: reader, thread dan cache hidup
+ * selama service, bukan selama activity.
+ * - activity start + bind service, lalu attach channel Flutter ke engine yang
+ *   sama (diambil sinkron, tanpa menunggu onServiceConnected)
+ * - activity dibuat ulang / ditutup: channel dilepas, inventory jalan terus
+ *   dengan rate penuh, read tertahan di engine sampai client berikutnya
+ * - tanpa client dan inventory berhenti: engine tetap warm IDLE_STOP_MS, lalu
+ *   service berhenti dan reader dimatikan
+ */
+public final class UhfService extends Service {
+
+  private static final String TAG = "UHF";
+  private static final String NOTIF_CHANNEL = "uhf_engine";
+  private static final int NOTIF_ID = 0x5548;
+  private static final long IDLE_STOP_MS = 5 * 60_000L;
+
+  // satu engine per proses; dibuat & dipakai di main thread saja
+  private static UhfEngine engine;
+
+  /** Engine proses ini; dibuat di pemanggil pertama (activity atau service). */
+  static UhfEngine engine(Context context) {
+    if (engine == null)
+      engine = new UhfEngine(context);
+    return engine;
+  }
+
+  private final Handler main = new Handler(Looper.getMainLooper());
+  private final IBinder binder = new Binder();
+  private final Runnable idleStop = this::stopSelf; // no-op selama masih ada client bound
+  private Boolean shownRunning;
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    engine(this).setStateListener(this::onEngineState);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+      if (nm != null)
+        nm.createNotificationChannel(new NotificationChannel(NOTIF_CHANNEL, "UHF reader",
+            NotificationManager.IMPORTANCE_LOW));
+    }
+  }
+
+  @Override
+  public int onStartCommand(Intent intent, int flags, int startId) {
+    shownRunning = null;
+    onEngineState();
+    return START_NOT_STICKY; // setelah proses dibunuh tidak ada sesi yang bisa dilanjutkan
+  }
+
+  @Override
+  public IBinder onBind(Intent intent) {
+    return binder;
+  }
+
+  @Override
+  public void onDestroy() {
+    main.removeCallbacks(idleStop);
+    UhfEngine e = engine;
+    engine = null;
+    if (e != null)
+      e.shutdown();
+    super.onDestroy();
+  }
+
+  /** Main thread: perbarui notifikasi, jadwalkan stop bila idle tanpa client. */
+  private void onEngineState() {
+    UhfEngine e = engine;
+    if (e == null)
+      return;
+    boolean running = e.isRunning();
+    main.removeCallbacks(idleStop);
+    if (!running && !e.isAttached())
+      main.postDelayed(idleStop, IDLE_STOP_MS);
+    if (shownRunning != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+        && getForegroundServiceType() == 0)
+      shownRunning = null; // keluar dari foreground sejak pemasangan terakhir: pasang ulang
+    if (shownRunning != null && shownRunning == running)
+      return;
+    shownRunning = running;
+    try {
+      Notification n = notification(running);
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+        startForeground(NOTIF_ID, n, ServiceInfo.FOREGROUND_SERVICE_TYPE_CONNECTED_DEVICE);
+      else
+        startForeground(NOTIF_ID, n);
+      // Q+: tipe 0 = sistem tidak menganggap service ini foreground
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && getForegroundServiceType() == 0)
+        throw new IllegalStateException("not in foreground after startForeground");
+      e.setForeground(true, null);
+    } catch (Throwable t) {
+      // terlihat di engineState; service dihentikan agar sistem tidak membunuh
+      // proses karena startForegroundService tanpa startForeground
+      Log.e(TAG, "startForeground failed", t);
+      e.setForeground(false, t.getClass().getSimpleName() + ": " + t.getMessage());
+      shownRunning = null;
+      stopSelf();
+    }
+  }
+
+  private Notification notification(boolean running) {
+    Notification.Builder b = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+        ? new Notification.Builder(this, NOTIF_CHANNEL)
+        : new Notification.Builder(this);
+    Intent open = new Intent(this, MainActivity.class).addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+    return b.setSmallIcon(R.mipmap.ic_launcher)
+        .setContentTitle("UHF reader")
+        .setContentText(running ? "Inventory berjalan" : "Reader siap")
+        .setContentIntent(PendingIntent.getActivity(this, 0, open, PendingIntent.FLAG_IMMUTABLE))
+        .setOngoing(true)
+        .setShowWhen(false)
+        .build();
+  }
+}
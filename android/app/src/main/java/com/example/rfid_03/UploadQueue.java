@@ -0,0 +1,512 @@
+package com.example.rfid_03;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Antrian upload hasil inventory ke backend:
+ * - offer() per read hanya agregasi per EPC di memori (tanpa I/O)
+ * - batch ditutup saat batchTags EPC atau berumur maxAgeMs; JSON + gzip +
+ *   tulis file di thread "uhf-upload-io" (tmp lalu rename)
+ * - file chunk tetap di disk sampai server menjawab 2xx; sisa dari launch
+ *   sebelumnya dikirim ulang saat antrian dibuat
+ * - worker "uhf-upload-N" (concurrency) mengirim lewat {@link Transport};
+ *   gagal jaringan / 408 / 429 / 5xx -> coba lagi dengan backoff eksponensial
+ *   + jitter, 4xx lain -> dipindah ke dead/
+ * - disk dibatasi maxQueueBytes: chunk tertua (yang tidak sedang dikirim)
+ *   dibuang
+ */
+final class UploadQueue {
+
+  /** Kirim satu chunk (body JSON ter-gzip); return kode HTTP. */
+  interface Transport {
+    int post(String chunkId, byte[] gzJson) throws IOException;
+  }
+
+  /** POST ke url, Content-Encoding gzip, id chunk di header X-Chunk-Id. */
+  static final class HttpTransport implements Transport {
+    final String url;
+    private final Map<String, String> headers;
+
+    HttpTransport(String url, Map<String, String> headers) {
+      this.url = url;
+      this.headers = headers == null ? new HashMap<>() : new HashMap<>(headers);
+    }
+
+    @Override
+    public int post(String chunkId, byte[] gzJson) throws IOException {
+      HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+      try {
+        c.setRequestMethod("POST");
+        c.setConnectTimeout(10_000);
+        c.setReadTimeout(20_000);
+        c.setDoOutput(true);
+        c.setFixedLengthStreamingMode(gzJson.length);
+        c.setRequestProperty("Content-Type", "application/json");
+        c.setRequestProperty("Content-Encoding", "gzip");
+        c.setRequestProperty("X-Chunk-Id", chunkId);
+        for (Map.Entry<String, String> h : headers.entrySet())
+          c.setRequestProperty(h.getKey(), h.getValue());
+        try (OutputStream os = c.getOutputStream()) {
+          os.write(gzJson);
+        }
+        int code = c.getResponseCode();
+        InputStream is = code >= 400 ? c.getErrorStream() : c.getInputStream();
+        if (is != null)
+          try (InputStream in = is) {
+            byte[] skip = new byte[1024];
+            while (in.read(skip) > 0) {
+              // habiskan body supaya koneksi bisa dipakai ulang
+            }
+          }
+        return code;
+      } finally {
+        c.disconnect();
+      }
+    }
+  }
+
+  static final String SUFFIX = ".json.gz";
+  static final long BASE_BACKOFF_MS = 1000L, MAX_BACKOFF_MS = 5 * 60_000L;
+
+  /** Hasil per EPC dalam satu batch. */
+  private static final class Agg {
+    int reads, peakRssi, lastRssi, reader;
+    long firstMs, lastMs;
+  }
+
+  private static final class Chunk implements Delayed {
+    final long seq;
+    final File file;
+    final int tags;
+    final long bytes;
+    int attempts = 0;
+    long dueNanos;
+    boolean inFlight = false;
+
+    Chunk(long seq, File file, int tags, long bytes) {
+      this.seq = seq;
+      this.file = file;
+      this.tags = tags;
+      this.bytes = bytes;
+    }
+
+    String id() {
+      String n = file.getName();
+      return n.substring(0, n.length() - SUFFIX.length());
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      Chunk c = (Chunk) o;
+      int d = Long.compare(dueNanos, c.dueNanos);
+      return d != 0 ? d : Long.compare(seq, c.seq);
+    }
+  }
+
+  final File dir;
+  final String deviceId;
+  final int batchTags, concurrency;
+  final long maxAgeMs, maxQueueBytes;
+
+  private final Transport transport;
+  private final File deadDir;
+  private final ScheduledExecutorService io;
+  private final DelayQueue<Chunk> ready = new DelayQueue<>();
+  private final Thread[] workers;
+
+  // batch berjalan (dijaga lock this)
+  private LinkedHashMap<String, Agg> batch = new LinkedHashMap<>();
+  private long batchStartedMs = 0L, batchReads = 0L;
+
+  // chunk di disk (dijaga lock queued)
+  private final TreeMap<Long, Chunk> queued = new TreeMap<>();
+  private long queuedBytes = 0L, queuedTags = 0L, nextSeq = 1L;
+
+  private long sentChunks = 0L, sentTags = 0L, sentBytes = 0L, rawJsonBytes = 0L, packedBytes = 0L;
+  private long failures = 0L, retries = 0L, dead = 0L, dropped = 0L;
+  private int lastStatus = 0;
+  private String lastError = null;
+  private volatile boolean closed = false;
+
+  UploadQueue(File dir, Transport transport, String deviceId, int batchTags, long maxAgeMs,
+      int concurrency, long maxQueueBytes) throws IOException {
+    this.dir = dir;
+    this.transport = transport;
+    this.deviceId = deviceId == null ? "" : deviceId;
+    this.batchTags = Math.max(1, batchTags);
+    this.maxAgeMs = Math.max(100L, maxAgeMs);
+    this.concurrency = Math.max(1, Math.min(8, concurrency));
+    this.maxQueueBytes = Math.max(64 * 1024L, maxQueueBytes);
+    this.deadDir = new File(dir, "dead");
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IOException("cannot create " + dir);
+    recover();
+
+    io = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "uhf-upload-io"));
+    long tick = Math.max(50L, this.maxAgeMs / 4);
+    io.scheduleWithFixedDelay(this::sealIfOld, tick, tick, TimeUnit.MILLISECONDS);
+
+    workers = new Thread[this.concurrency];
+    for (int i = 0; i < workers.length; i++) {
+      workers[i] = new Thread(this::workLoop, "uhf-upload-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  /** Chunk sisa launch sebelumnya: antrekan lagi, hapus tmp setengah jadi. */
+  private void recover() {
+    File[] files = dir.listFiles();
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    for (File f : files) {
+      String n = f.getName();
+      if (n.endsWith(".tmp")) {
+        f.delete();
+        continue;
+      }
+      if (!n.endsWith(SUFFIX))
+        continue;
+      long seq = parseSeq(n);
+      if (seq <= 0)
+        continue;
+      Chunk c = new Chunk(seq, f, -1, f.length());
+      synchronized (queued) {
+        queued.put(seq, c);
+        queuedBytes += c.bytes;
+        nextSeq = Math.max(nextSeq, seq + 1);
+      }
+      ready.add(c);
+    }
+  }
+
+  /** Nama file: c-&lt;seq 12 digit&gt;-&lt;wall ms&gt;.json.gz */
+  static long parseSeq(String name) {
+    if (!name.startsWith("c-") || name.length() < 14)
+      return -1L;
+    try {
+      return Long.parseLong(name.substring(2, 14));
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  /* ===================== producer (thread reader / push) ===================== */
+
+  synchronized void offer(String epc, int rssiDbm, int reader, long wallMs) {
+    if (closed || epc == null || epc.isEmpty())
+      return;
+    Agg a = batch.get(epc);
+    if (a == null) {
+      a = new Agg();
+      a.firstMs = wallMs;
+      a.peakRssi = rssiDbm;
+      batch.put(epc, a);
+      if (batch.size() == 1)
+        batchStartedMs = wallMs;
+    }
+    a.reads++;
+    a.lastMs = wallMs;
+    a.lastRssi = rssiDbm;
+    a.reader = reader;
+    if (rssiDbm > a.peakRssi)
+      a.peakRssi = rssiDbm;
+    batchReads++;
+    if (batch.size() >= batchTags)
+      seal();
+  }
+
+  /** Tutup batch berjalan sekarang (mis. saat inventory berhenti). */
+  synchronized void flush() {
+    if (!batch.isEmpty())
+      seal();
+  }
+
+  private synchronized void sealIfOld() {
+    if (!batch.isEmpty() && System.currentTimeMillis() - batchStartedMs >= maxAgeMs)
+      seal();
+  }
+
+  /** Lepas batch ke thread I/O; dipanggil dengan lock this. */
+  private void seal() {
+    final LinkedHashMap<String, Agg> b = batch;
+    final long reads = batchReads;
+    batch = new LinkedHashMap<>();
+    batchReads = 0L;
+    final long seq;
+    synchronized (queued) {
+      seq = nextSeq++;
+    }
+    if (closed)
+      return;
+    io.execute(() -> write(seq, b, reads));
+  }
+
+  private void write(long seq, Map<String, Agg> b, long reads) {
+    long now = System.currentTimeMillis();
+    String name = String.format(java.util.Locale.US, "c-%012d-%d", seq, now);
+    byte[] json = encode(name, now, b, reads);
+    File tmp = new File(dir, name + ".tmp");
+    File f = new File(dir, name + SUFFIX);
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream gz = new GZIPOutputStream(bos, 8192)) {
+        gz.write(json);
+      }
+      byte[] packed = bos.toByteArray();
+      try (FileOutputStream fos = new FileOutputStream(tmp)) {
+        fos.write(packed);
+        fos.getFD().sync();
+      }
+      if (!tmp.renameTo(f))
+        throw new IOException("rename failed " + tmp);
+      Chunk c = new Chunk(seq, f, b.size(), packed.length);
+      synchronized (queued) {
+        queued.put(seq, c);
+        queuedBytes += c.bytes;
+        queuedTags += c.tags;
+        rawJsonBytes += json.length;
+        packedBytes += packed.length;
+        trimLocked();
+      }
+      ready.add(c);
+    } catch (IOException e) {
+      tmp.delete();
+      synchronized (queued) {
+        failures++;
+        lastError = "write: " + e.getMessage();
+      }
+    }
+  }
+
+  /** Buang chunk tertua yang tidak sedang dikirim sampai di bawah batas disk. */
+  private void trimLocked() {
+    while (queuedBytes > maxQueueBytes && queued.size() > 1) {
+      Chunk victim = null;
+      for (Chunk c : queued.values())
+        if (!c.inFlight) {
+          victim = c;
+          break;
+        }
+      if (victim == null)
+        return;
+      ready.remove(victim);
+      forgetLocked(victim);
+      victim.file.delete();
+      dropped++;
+    }
+  }
+
+  private void forgetLocked(Chunk c) {
+    if (queued.remove(c.seq) == null)
+      return;
+    queuedBytes -= c.bytes;
+    if (c.tags > 0)
+      queuedTags -= c.tags;
+  }
+
+  /** JSON tulis tangan (tanpa dependensi); EPC hex jadi jarang perlu escape. */
+  byte[] encode(String chunkId, long sealedAt, Map<String, Agg> b, long reads) {
+    StringBuilder sb = new StringBuilder(64 + b.size() * 110);
+    sb.append("{\"device\":");
+    quote(sb, deviceId);
+    sb.append(",\"chunk\":");
+    quote(sb, chunkId);
+    sb.append(",\"sealedAt\":").append(sealedAt);
+    sb.append(",\"reads\":").append(reads);
+    sb.append(",\"tags\":[");
+    boolean first = true;
+    for (Map.Entry<String, Agg> e : b.entrySet()) {
+      Agg a = e.getValue();
+      if (!first)
+        sb.append(',');
+      first = false;
+      sb.append("{\"epc\":");
+      quote(sb, e.getKey());
+      sb.append(",\"reads\":").append(a.reads);
+      sb.append(",\"peakRssi\":").append(a.peakRssi);
+      sb.append(",\"lastRssi\":").append(a.lastRssi);
+      sb.append(",\"firstMs\":").append(a.firstMs);
+      sb.append(",\"lastMs\":").append(a.lastMs);
+      sb.append(",\"reader\":").append(a.reader);
+      sb.append('}');
+    }
+    sb.append("]}");
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void quote(StringBuilder sb, String s) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\')
+        sb.append('\\').append(c);
+      else if (c < 0x20)
+        sb.append(String.format(java.util.Locale.US, "\\u%04x", (int) c));
+      else
+        sb.append(c);
+    }
+    sb.append('"');
+  }
+
+  /* ===================== worker ===================== */
+
+  private void workLoop() {
+    while (!closed) {
+      Chunk c;
+      try {
+        c = ready.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      synchronized (queued) {
+        if (!queued.containsKey(c.seq))
+          continue; // sudah dibuang trim
+        c.inFlight = true;
+      }
+      send(c);
+    }
+  }
+
+  private void send(Chunk c) {
+    int code = -1;
+    String err = null;
+    try {
+      code = transport.post(deviceId.isEmpty() ? c.id() : deviceId + ":" + c.id(), readAll(c.file));
+    } catch (IOException e) {
+      err = e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+    synchronized (queued) {
+      c.inFlight = false;
+      lastStatus = code;
+      if (code >= 200 && code < 300) {
+        forgetLocked(c);
+        c.file.delete();
+        sentChunks++;
+        sentBytes += c.bytes;
+        if (c.tags > 0)
+          sentTags += c.tags;
+        return;
+      }
+      failures++;
+      lastError = err != null ? err : "HTTP " + code;
+      if (code >= 400 && code < 500 && code != 408 && code != 429) {
+        // ditolak permanen: simpan untuk diperiksa, jangan diulang
+        forgetLocked(c);
+        if (deadDir.exists() || deadDir.mkdirs())
+          c.file.renameTo(new File(deadDir, c.file.getName()));
+        dead++;
+        return;
+      }
+      retries++;
+      c.attempts++;
+    }
+    if (closed)
+      return;
+    long back = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(20, c.attempts - 1));
+    back = back / 2 + ThreadLocalRandom.current().nextLong(back / 2 + 1);
+    c.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(back);
+    ready.add(c);
+  }
+
+  private static byte[] readAll(File f) throws IOException {
+    try (RandomAccessFile r = new RandomAccessFile(f, "r")) {
+      byte[] b = new byte[(int) r.length()];
+      r.readFully(b);
+      return b;
+    }
+  }
+
+  /** Kirim ulang sekarang semua chunk yang sedang menunggu backoff. */
+  void retryNow() {
+    List<Chunk> waiting = new ArrayList<>();
+    ready.drainTo(waiting, Integer.MAX_VALUE);
+    // drainTo hanya mengambil yang sudah jatuh tempo; sisanya ambil manual
+    synchronized (queued) {
+      for (Chunk c : queued.values())
+        if (!c.inFlight && ready.remove(c))
+          waiting.add(c);
+    }
+    long now = System.nanoTime();
+    for (Chunk c : waiting) {
+      c.dueNanos = now;
+      ready.add(c);
+    }
+  }
+
+  /** Tutup batch terakhir ke disk lalu hentikan thread; chunk tetap di disk. */
+  void close() {
+    flush();
+    closed = true;
+    io.shutdown();
+    try {
+      io.awaitTermination(2, TimeUnit.SECONDS);
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    }
+    for (Thread t : workers)
+      t.interrupt();
+  }
+
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    synchronized (this) {
+      m.put("pendingTags", batch.size());
+      m.put("pendingReads", batchReads);
+    }
+    synchronized (queued) {
+      int inFlight = 0;
+      for (Chunk c : queued.values())
+        if (c.inFlight)
+          inFlight++;
+      m.put("queuedChunks", queued.size());
+      m.put("queuedBytes", queuedBytes);
+      m.put("queuedTags", queuedTags);
+      m.put("inFlight", inFlight);
+      m.put("sentChunks", sentChunks);
+      m.put("sentTags", sentTags);
+      m.put("sentBytes", sentBytes);
+      m.put("bytesPerTag", sentTags == 0 ? 0.0 : Math.round(sentBytes * 10.0 / sentTags) / 10.0);
+      m.put("compression", packedBytes == 0 ? 0.0 : Math.round(rawJsonBytes * 10.0 / packedBytes) / 10.0);
+      m.put("failures", failures);
+      m.put("retries", retries);
+      m.put("dead", dead);
+      m.put("dropped", dropped);
+      m.put("lastStatus", lastStatus);
+      m.put("lastError", lastError);
+    }
+    m.put("concurrency", concurrency);
+    m.put("batchTags", batchTags);
+    m.put("maxAgeMs", maxAgeMs);
+    return m;
+  }
+}
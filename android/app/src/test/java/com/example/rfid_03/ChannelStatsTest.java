@@ -0,0 +1,94 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ChannelStatsTest {
+
+  /** Satu bootstrap di kanal pilihan: reads read selama dwellMs. */
+  private static int session(ChannelStats s, long t, int[] readsPerChannel, long dwellMs) {
+    int ch = s.bootstrapChannel();
+    s.pin(ch, t);
+    for (int i = 0; i < readsPerChannel[ch]; i++)
+      s.onRead(-1, -60, i == 0);
+    s.stop(t + dwellMs);
+    return ch;
+  }
+
+  @Test
+  public void channelOfAcceptsIndexKhzMhzAndHz() {
+    assertEquals(6, ChannelStats.channelOf(6));
+    assertEquals(6, ChannelStats.channelOf(922625));
+    assertEquals(6, ChannelStats.channelOf(922_625_000L));
+    assertEquals(8, ChannelStats.channelOf(923130)); // kanal terdekat
+    assertEquals(-1, ChannelStats.channelOf(900)); // MHz, di bawah plan
+    assertEquals(-1, ChannelStats.channelOf(915250)); // di luar plan
+  }
+
+  @Test
+  public void defaultChannelWithoutHistory() {
+    assertEquals(ChannelStats.DEFAULT_CHANNEL, new ChannelStats().bootstrapChannel());
+  }
+
+  @Test
+  public void bootstrapSettlesOnBestChannelAfterExploring() {
+    int[] reads = new int[ChannelStats.CHANNELS];
+    for (int c = 0; c < reads.length; c++)
+      reads[c] = 20;
+    reads[11] = 90; // kanal bersih
+    reads[6] = 4; // kanal default berisik
+    ChannelStats s = new ChannelStats();
+    long t = 0;
+    for (int i = 0; i < ChannelStats.CHANNELS; i++, t += 10_000)
+      session(s, t, reads, 900);
+    int hits = 0;
+    for (int i = 0; i < 20; i++, t += 10_000)
+      if (session(s, t, reads, 900) == 11)
+        hits++;
+    assertTrue("kanal terbaik harus dominan, dapat " + hits, hits >= 15);
+  }
+
+  @Test
+  public void reportedChannelsDuringHoppingExcludePoorOnes() {
+    ChannelStats s = new ChannelStats();
+    s.startHopping(0);
+    for (int c = 0; c < ChannelStats.CHANNELS; c++) {
+      int n = (c == 2 || c == 9) ? 5 : 200;
+      for (int i = 0; i < n; i++)
+        s.onRead(c, -55, false);
+    }
+    s.stop(48_000); // 3 detik per kanal
+    int[] table = s.hopTable();
+    assertEquals(ChannelStats.CHANNELS - 2, table.length);
+    for (int khz : table) {
+      assertNotEquals(ChannelStats.freqKHz(2), khz);
+      assertNotEquals(ChannelStats.freqKHz(9), khz);
+    }
+  }
+
+  @Test
+  public void noExclusionWithoutEnoughData() {
+    ChannelStats s = new ChannelStats();
+    s.pin(4, 0);
+    s.onRead(-1, -70, true);
+    s.stop(900);
+    assertNull(s.hopTable());
+  }
+
+  @Test
+  public void encodeDecodeRoundTrip() {
+    ChannelStats s = new ChannelStats();
+    s.pin(7, 0);
+    for (int i = 0; i < 30; i++)
+      s.onRead(-1, -58, i < 10);
+    s.stop(1500);
+    ChannelStats r = new ChannelStats();
+    r.decode(s.encode());
+    assertEquals(s.encode(), r.encode());
+    assertEquals("7:30:10:-1740:1500", r.encode());
+  }
+}
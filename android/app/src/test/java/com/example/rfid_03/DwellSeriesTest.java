@@ -0,0 +1,80 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class DwellSeriesTest {
+
+  private static final long T0 = 1_700_000_000_000L;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void countsAndMeanRssiPerSecond() {
+    DwellSeries d = new DwellSeries(1 << 20, 10);
+    for (int i = 0; i < 5; i++)
+      d.hit("A", -50, T0 + i * 100);
+    d.hit("A", -60, T0 + 2000);
+    d.hit("A", -70, T0 + 2500);
+    Map<String, Object> q = d.query("A");
+    assertEquals(T0 / 1000, q.get("startSec"));
+    assertEquals(List.of(5, 0, 2), q.get("counts"));
+    List<Integer> mean = (List<Integer>) q.get("meanRssi");
+    assertEquals(Integer.valueOf(-50), mean.get(0));
+    assertNull(mean.get(1));
+    assertEquals(Integer.valueOf(-65), mean.get(2));
+    assertEquals(2500L, q.get("dwellMs"));
+    assertEquals(7L, q.get("totalReads"));
+    assertEquals(5, q.get("peakRate"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void ringKeepsOnlyLastSeconds() {
+    DwellSeries d = new DwellSeries(1 << 20, 10);
+    for (int s = 0; s < 25; s++)
+      d.hit("A", -55, T0 + s * 1000L);
+    Map<String, Object> q = d.query("A");
+    List<Integer> counts = (List<Integer>) q.get("counts");
+    assertEquals(10, counts.size());
+    assertEquals(T0 / 1000 + 15, q.get("startSec"));
+    for (int c : counts)
+      assertEquals(1, c);
+  }
+
+  @Test
+  public void newVisitAfterGap() {
+    DwellSeries d = new DwellSeries(1 << 20, 10);
+    d.hit("A", -55, T0);
+    d.hit("A", -55, T0 + 1000);
+    d.hit("A", -55, T0 + 9000); // > 3 dtk hilang: lewat lagi
+    d.hit("A", -55, T0 + 9400);
+    Map<String, Object> q = d.query("A");
+    assertEquals(2, q.get("visits"));
+    assertEquals(400L, q.get("dwellMs"));
+  }
+
+  @Test
+  public void evictsColdestTagAtMemoryCap() {
+    DwellSeries d = new DwellSeries(3 * (10 * 6 + 96), 10);
+    assertEquals(3, d.capacity);
+    d.hit("A", -50, T0);
+    d.hit("B", -50, T0 + 10);
+    d.hit("C", -50, T0 + 20);
+    d.hit("A", -50, T0 + 30); // A hangat lagi, B paling dingin
+    d.hit("D", -50, T0 + 40);
+    assertNull(d.query("B"));
+    assertNotNull(d.query("A"));
+    assertNotNull(d.query("D"));
+    assertEquals(1L, d.stats().get("evictions"));
+    Map<String, Object> q = d.query("D");
+    assertEquals(1L, q.get("totalReads")); // slot bekas B bersih
+    assertTrue(((List<?>) q.get("counts")).size() == 1);
+  }
+}
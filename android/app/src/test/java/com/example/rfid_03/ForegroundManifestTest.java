@@ -0,0 +1,73 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Android 14+ menolak startForeground bertipe connectedDevice tanpa izin
+ * prasyarat; UhfService lalu berhenti dan engine tidak pernah foreground.
+ */
+public class ForegroundManifestTest {
+
+  private static final String NS = "http://schemas.android.com/apk/res/android";
+
+  // prasyarat FOREGROUND_SERVICE_TYPE_CONNECTED_DEVICE yang berlaku saat install;
+  // BLUETOOTH_CONNECT/SCAN juga prasyarat tapi izin runtime yang tidak pernah diminta
+  private static final List<String> CONNECTED_DEVICE_PREREQS = Arrays.asList(
+      "android.permission.CHANGE_NETWORK_STATE",
+      "android.permission.CHANGE_WIFI_STATE",
+      "android.permission.CHANGE_WIFI_MULTICAST_STATE",
+      "android.permission.NFC",
+      "android.permission.TRANSMIT_IR");
+
+  private static Document manifest() throws Exception {
+    File f = new File("src/main/AndroidManifest.xml"); // working dir = modul app
+    assertTrue("manifest not found from " + new File("").getAbsolutePath(), f.isFile());
+    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+    dbf.setNamespaceAware(true);
+    return dbf.newDocumentBuilder().parse(f);
+  }
+
+  private static Set<String> permissions(Document doc) {
+    Set<String> out = new HashSet<>();
+    NodeList n = doc.getElementsByTagName("uses-permission");
+    for (int i = 0; i < n.getLength(); i++)
+      out.add(((Element) n.item(i)).getAttributeNS(NS, "name"));
+    return out;
+  }
+
+  @Test
+  public void connectedDeviceServiceHasPrerequisitePermission() throws Exception {
+    Document doc = manifest();
+    NodeList services = doc.getElementsByTagName("service");
+    Element uhf = null;
+    for (int i = 0; i < services.getLength(); i++) {
+      Element s = (Element) services.item(i);
+      if (".UhfService".equals(s.getAttributeNS(NS, "name")))
+        uhf = s;
+    }
+    assertTrue("UhfService not declared", uhf != null);
+    assertEquals("connectedDevice", uhf.getAttributeNS(NS, "foregroundServiceType"));
+
+    Set<String> perms = permissions(doc);
+    assertTrue(perms.contains("android.permission.FOREGROUND_SERVICE"));
+    assertTrue(perms.contains("android.permission.FOREGROUND_SERVICE_CONNECTED_DEVICE"));
+    boolean prereq = false;
+    for (String p : CONNECTED_DEVICE_PREREQS)
+      prereq |= perms.contains(p);
+    assertTrue("no connectedDevice prerequisite permission in " + perms, prereq);
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InventoryStrategyTest {
+
+  private static final long LIMIT_MS = 60_000;
+
+  private static long run(InventoryStrategy.Preset preset, int tags, double priorB) {
+    return new Gen2Simulator(tags, priorB, 42).timeToCoverage(new InventoryStrategy(preset), 0.95, LIMIT_MS);
+  }
+
+  @Test
+  public void denseStocktakeReaches95PercentFasterThanS0() {
+    long s0 = run(InventoryStrategy.fastSmall(), 3000, 0.0);
+    long dense = run(InventoryStrategy.denseStocktake(), 3000, 0.0);
+    assertTrue("dense-stocktake harus mencapai 95%", dense > 0);
+    assertTrue("dense-stocktake harus lebih cepat dari S0", s0 < 0 || dense < s0);
+    // simulator ber-seed: S2 ~3 dtk, S0 ~15 dtk (kelipatan, bukan selisih kecil)
+    assertTrue("dense-stocktake " + dense + " ms", dense <= 5_000);
+    assertTrue("S0 " + s0 + " vs dense " + dense, s0 < 0 || s0 >= 3 * dense);
+  }
+
+  @Test
+  public void flippingPicksUpTagsLeftInB() {
+    // 30% tag masih flag B dari stocktake sebelumnya: target A saja mentok di ~70%
+    InventoryStrategy.Preset aOnly = InventoryStrategy.denseStocktake();
+    aOnly.dualTarget = false;
+    long single = run(aOnly, 2000, 0.3);
+    long dual = run(InventoryStrategy.denseStocktake(), 2000, 0.3);
+    assertEquals(-1, single);
+    assertTrue("S2 A/B " + dual + " ms", dual > 0 && dual <= 5_000);
+  }
+
+  @Test
+  public void smallPopulationStillFastWithS0() {
+    long s0 = run(InventoryStrategy.fastSmall(), 20, 0.0);
+    assertTrue(s0 > 0 && s0 <= 500);
+  }
+
+  @Test
+  public void flipsOnlyAfterStallAndMinDwell() {
+    InventoryStrategy s = new InventoryStrategy(InventoryStrategy.denseStocktake());
+    s.start(0);
+    long t = 0;
+    // penemuan deras: tidak boleh balik target
+    for (int w = 0; w < 10; w++) {
+      for (int i = 0; i < 50; i++)
+        s.onNewEpc();
+      t += 200;
+      assertEquals(-1, s.tick(t));
+    }
+    // macet: balik setelah satu jendela kosong
+    t += 200;
+    assertEquals(InventoryStrategy.TARGET_B, s.tick(t));
+    // di B belum minDwell: tetap
+    t += 200;
+    assertEquals(-1, s.tick(t));
+  }
+
+  @Test
+  public void presetByNameFallsBackToFastSmall() {
+    assertEquals("dense-stocktake", InventoryStrategy.preset("dense").name);
+    assertEquals("portal", InventoryStrategy.preset("PORTAL").name);
+    assertEquals("fast-small", InventoryStrategy.preset("unknown").name);
+  }
+}
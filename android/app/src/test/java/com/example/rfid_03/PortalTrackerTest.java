@@ -0,0 +1,96 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PortalTrackerTest {
+
+  private static final int OUT = 0, IN = 1;
+  private final Random rnd = new Random(3);
+
+  /**
+   * Tag lewat pintu dalam durMs: posisi x dari -1 (luar) ke +1 (dalam) atau
+   * sebaliknya; RSSI tiap reader turun dengan jarak ke antenanya (x = -0.5 / +0.5).
+   */
+  private void pass(PortalTracker pt, String epc, boolean inward, long t0, long durMs) {
+    for (long t = 0; t <= durMs; t += 20) {
+      double x = -1 + 2.0 * t / durMs;
+      if (!inward)
+        x = -x;
+      for (int r = 0; r < 2; r++) {
+        double ant = r == OUT ? -0.5 : 0.5;
+        double d = Math.abs(x - ant);
+        if (d > 0.9 || rnd.nextDouble() < 0.3)
+          continue; // di luar jangkauan / read hilang
+        int rssi = (int) Math.round(-45 - 30 * d + rnd.nextGaussian() * 3);
+        pt.hit(epc, rssi, r, t0 + t);
+      }
+    }
+  }
+
+  private static List<Map<String, Object>> drain(PortalTracker pt, long now) {
+    return new ArrayList<>(pt.sweep(now));
+  }
+
+  @Test
+  public void classifiesDirectionFromPeakOrder() {
+    PortalTracker pt = new PortalTracker(256, OUT, IN, 1000, 8000);
+    int correct = 0;
+    for (int i = 0; i < 50; i++) {
+      boolean inward = i % 2 == 0;
+      long t0 = i * 10_000L;
+      pass(pt, "T" + i, inward, t0, 2000);
+      List<Map<String, Object>> ev = drain(pt, t0 + 5000);
+      assertEquals(1, ev.size());
+      if (ev.get(0).get("event").equals(inward ? "passed-in" : "passed-out"))
+        correct++;
+    }
+    assertTrue("arah benar " + correct + "/50", correct >= 47);
+  }
+
+  @Test
+  public void noEventUntilTagLeaves() {
+    PortalTracker pt = new PortalTracker(256, OUT, IN, 1000, 8000);
+    pass(pt, "A", true, 0, 2000);
+    assertTrue(drain(pt, 2500).isEmpty()); // baru 500 ms hilang
+    assertEquals(1, drain(pt, 3100).size());
+    assertTrue(drain(pt, 9000).isEmpty()); // sekali saja
+  }
+
+  @Test
+  public void stationaryTagReportsStayedOnce() {
+    PortalTracker pt = new PortalTracker(256, OUT, IN, 1000, 3000);
+    for (long t = 0; t < 6000; t += 50)
+      pt.hit("S", -60, OUT, t);
+    List<Map<String, Object>> ev = drain(pt, 6000);
+    assertEquals(1, ev.size());
+    assertEquals("stayed", ev.get(0).get("event"));
+    assertTrue(drain(pt, 20_000).isEmpty()); // hilang tanpa event kedua
+  }
+
+  @Test
+  public void singleReaderGivesUndirectedPass() {
+    PortalTracker pt = new PortalTracker(256, 0, 0, 1000, 8000);
+    pass(pt, "A", true, 0, 2000);
+    List<Map<String, Object>> ev = drain(pt, 5000);
+    assertEquals("passed", ev.get(0).get("event"));
+  }
+
+  @Test
+  public void evictionClassifiesImmediately() {
+    PortalTracker pt = new PortalTracker(2, OUT, IN, 1000, 8000);
+    for (int k = 0; k < 3; k++)
+      for (long t = 0; t < 300; t += 20)
+        pt.hit("E" + k, -55, OUT, k * 1000 + t);
+    List<Map<String, Object>> ev = drain(pt, 2280); // E0 tergusur oleh E2, E1/E2 masih aktif
+    assertEquals(1, ev.size());
+    assertEquals("E0", ev.get(0).get("epc"));
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PowerTunerTest {
+
+  private static final int WINDOW_MS = 500, TICK_MS = 50;
+
+  /** Tag i terbaca bila power >= threshold[i], peluang 90% per jendela. */
+  private static final class Field {
+    final int[] threshold;
+    final Random rnd = new Random(7);
+
+    Field(int tags, int minDbm, int maxDbm) {
+      threshold = new int[tags];
+      for (int i = 0; i < tags; i++)
+        threshold[i] = minDbm + rnd.nextInt(maxDbm - minDbm + 1);
+    }
+
+    int readable(int power) {
+      int n = 0;
+      for (int t : threshold)
+        if (t <= power)
+          n++;
+      return n;
+    }
+
+    /** Jalankan tuner selama ms; return power akhir. */
+    int run(PowerTuner pt, int power, long from, long ms) {
+      for (long t = from; t < from + ms; t += TICK_MS) {
+        if (t % WINDOW_MS == 0)
+          for (int i = 0; i < threshold.length; i++)
+            if (threshold[i] <= power && rnd.nextDouble() < 0.9)
+              pt.onRead("E" + i);
+        int p = pt.tick(t + TICK_MS);
+        if (p >= 0)
+          power = p;
+      }
+      return power;
+    }
+  }
+
+  @Test
+  public void locksNearLowestPowerMeetingRate() {
+    Field f = new Field(400, 5, 30);
+    // 100 EPC unik/detik = 50 per jendela 500 ms -> perlu ~56 tag terbaca
+    PowerTuner pt = new PowerTuner(PowerTuner.MODE_RATE, 100, WINDOW_MS, 2, null);
+    int p = f.run(pt, pt.start(0), 0, 30_000);
+    Map<String, Object> d = pt.describe();
+    assertTrue(pt.locked());
+    assertEquals(p, pt.power());
+    assertEquals(p, d.get("chosenPower"));
+    assertTrue("metric terpilih " + d, (Double) d.get("chosenMetric") >= 100);
+    assertTrue("terlalu banyak pindah power " + d, (Integer) d.get("changes") <= 8);
+    assertTrue("terlalu tinggi: " + p, p < 30);
+    assertTrue("tidak memenuhi target: " + p, f.readable(p) * 0.9 >= 45);
+    assertTrue("bukan yang terendah: " + p, f.readable(p - 2) * 0.9 < 55);
+  }
+
+  @Test
+  public void coverageTargetUsesManifest() {
+    Field f = new Field(100, 5, 25);
+    Set<String> manifest = new HashSet<>();
+    for (int i = 0; i < 100; i++)
+      manifest.add("E" + i);
+    PowerTuner pt = new PowerTuner(PowerTuner.MODE_COVERAGE, 0.8, WINDOW_MS, 2, manifest);
+    int p = f.run(pt, pt.start(0), 0, 30_000);
+    Map<String, Object> d = pt.describe();
+    assertTrue(pt.locked());
+    assertEquals(p, d.get("chosenPower"));
+    assertTrue("coverage terpilih " + d, (Double) d.get("chosenMetric") >= 0.8);
+    assertTrue("terlalu banyak pindah power " + d, (Integer) d.get("changes") <= 8);
+    assertTrue(f.readable(p) >= 80);
+    assertTrue(p <= 25);
+  }
+
+  @Test
+  public void staysAtMaxWhenTargetUnreachable() {
+    Field f = new Field(20, 5, 30);
+    PowerTuner pt = new PowerTuner(PowerTuner.MODE_RATE, 500, WINDOW_MS, 2, null);
+    int p = f.run(pt, pt.start(0), 0, 10_000);
+    assertEquals(PowerTuner.MAX_DBM, p);
+    assertFalse(pt.locked());
+    assertEquals("unreachable", pt.describe().get("state"));
+  }
+
+  @Test
+  public void climbsWhenLockedPowerStopsMeetingTarget() {
+    Field f = new Field(400, 5, 30);
+    PowerTuner pt = new PowerTuner(PowerTuner.MODE_RATE, 100, WINDOW_MS, 2, null);
+    int p = f.run(pt, pt.start(0), 0, 30_000);
+    assertTrue(pt.locked());
+    // separuh tag dipindah lebih jauh: power lama tidak cukup lagi
+    for (int i = 0; i < f.threshold.length; i += 2)
+      f.threshold[i] = Math.min(30, f.threshold[i] + 8);
+    int p2 = f.run(pt, p, 30_000, 30_000);
+    assertTrue("harus naik dari " + p + " ke " + p2, p2 > p);
+    assertTrue(f.readable(p2) * 0.9 >= 45);
+  }
+}
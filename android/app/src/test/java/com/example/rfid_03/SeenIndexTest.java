@@ -0,0 +1,132 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SeenIndexTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final int DAY = 20_000;
+
+  private File idx() {
+    return new File(tmp.getRoot(), "seen/seen-epc.idx");
+  }
+
+  @Test
+  public void packsHexWithoutLoss() {
+    EpcPacker.Key k = new EpcPacker.Key();
+    String epc = "E28011700000020F1A2B3C4D";
+    assertTrue(EpcPacker.pack(epc, k));
+    assertEquals(24, k.meta);
+    assertEquals(epc, EpcPacker.unpack(k.hi, k.lo, k.meta));
+
+    String full = "0123456789ABCDEF0123456789ABCDEF";
+    EpcPacker.pack(full, k);
+    assertEquals(full, EpcPacker.unpack(k.hi, k.lo, k.meta));
+
+    // panjang ikut kunci: "0A" != "000A"
+    EpcPacker.Key k2 = new EpcPacker.Key();
+    EpcPacker.pack("0A", k);
+    EpcPacker.pack("000A", k2);
+    assertNotEquals(k.meta, k2.meta);
+  }
+
+  @Test
+  public void hashesLongOrNonHexEpc() {
+    EpcPacker.Key a = new EpcPacker.Key(), b = new EpcPacker.Key();
+    assertTrue(EpcPacker.pack("3034257BF400B7800004CB2F3034257BF400B780", a));
+    assertTrue((a.meta & EpcPacker.FLAG_HASHED) != 0);
+    assertNull(EpcPacker.unpack(a.hi, a.lo, a.meta));
+    EpcPacker.pack("3034257bf400b7800004cb2f3034257bf400b780", b);
+    assertEquals(a.hi, b.hi);
+    assertEquals(a.lo, b.lo);
+    EpcPacker.pack("NOT-HEX", b);
+    assertTrue((b.meta & EpcPacker.FLAG_HASHED) != 0);
+    assertFalse(EpcPacker.pack("", b));
+  }
+
+  @Test
+  public void reportsFirstDayAndSession() throws IOException {
+    SeenIndex si = SeenIndex.open(idx(), 1024);
+    int s1 = si.beginSession();
+    assertEquals(-1L, si.check("E200001", DAY));
+    long p = si.check("E200001", DAY);
+    assertEquals(s1, (int) p); // sesi sama: belum "counted"
+    assertEquals(DAY, (int) (p >>> 32));
+
+    int s2 = si.beginSession();
+    p = si.check("E200001", DAY + 3);
+    assertNotEquals(s2, (int) p);
+    assertEquals(DAY, (int) (p >>> 32)); // hari pertama tidak berubah
+    assertEquals(-1L, si.check("E200002", DAY + 3));
+    si.close();
+  }
+
+  @Test
+  public void survivesReopen() throws IOException {
+    SeenIndex si = SeenIndex.open(idx(), 1024);
+    int s1 = si.beginSession();
+    for (int i = 0; i < 500; i++)
+      si.check(String.format("E2%022X", i), DAY);
+    si.close();
+
+    si = SeenIndex.open(idx(), 1024);
+    int s2 = si.beginSession();
+    assertEquals(s1 + 1, s2);
+    for (int i = 0; i < 500; i++) {
+      long p = si.check(String.format("E2%022X", i), DAY + 1);
+      assertEquals(s1, (int) p);
+      assertEquals(DAY, (int) (p >>> 32));
+    }
+    assertEquals(500, si.stats().get("count"));
+    si.close();
+  }
+
+  @Test
+  public void fillsInSessionAndGrowsOnNextOpen() throws IOException {
+    SeenIndex si = SeenIndex.open(idx(), 1024);
+    si.beginSession();
+    for (int i = 0; i < 1000; i++)
+      assertEquals(-1L, si.check(String.format("30%022X", i * 7919L), DAY));
+    // tidak ada rehash di jalur read: lewat load 0.7 insert ditolak
+    assertEquals(1024, si.stats().get("capacity"));
+    assertEquals(717, si.stats().get("count"));
+    assertEquals(true, si.stats().get("full"));
+    assertEquals(-1L, si.check(String.format("30%022X", 999 * 7919L), DAY));
+    si.close();
+
+    si = SeenIndex.open(idx(), 1024);
+    si.beginSession();
+    assertEquals(4096, si.stats().get("capacity")); // load <= 0.35 setelah open
+    assertEquals(false, si.stats().get("full"));
+    for (int i = 0; i < 717; i++)
+      assertTrue(si.check(String.format("30%022X", i * 7919L), DAY) >= 0);
+    assertEquals(-1L, si.check(String.format("30%022X", 999 * 7919L), DAY));
+    assertEquals(718, si.stats().get("count"));
+    assertFalse(new File(idx().getPath() + ".grow").exists());
+    si.close();
+  }
+
+  @Test
+  public void resetForgetsEverything() throws IOException {
+    SeenIndex si = SeenIndex.open(idx(), 1024);
+    si.beginSession();
+    si.check("ABCD", DAY);
+    si.reset();
+    assertEquals(0, si.stats().get("count"));
+    assertEquals(-1L, si.check("ABCD", DAY));
+    si.close();
+  }
+}
@@ -0,0 +1,240 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerialUhfDriverTest {
+
+  /**
+   * Pengganti pseudo-terminal: modul M100 tiruan di ujung lain sepasang pipe.
+   * Menjawab versi / power / query / stop, dan selama multi-poll mengirim
+   * notifikasi tag per putaran (atau error "no tag") dalam potongan acak.
+   * Seperti M100 asli, selama multi-poll hanya stop yang dilayani.
+   */
+  static final class ModuleEmulator implements Runnable {
+    final PipedInputStream fromHost = new PipedInputStream(1 << 16);
+    final PipedOutputStream toHost = new PipedOutputStream();
+    final Set<String> field = ConcurrentHashMap.newKeySet();
+    final List<Integer> commands = Collections.synchronizedList(new ArrayList<>());
+    volatile int power = 0, query = 0;
+    final AtomicInteger ignored = new AtomicInteger();
+    volatile int maxRounds = Integer.MAX_VALUE; // batasi putaran untuk tes re-arm
+    private volatile int roundsLeft = 0;
+    private volatile boolean alive = true;
+    private final Random rnd = new Random(7);
+    private final TagFrameParser cmdParser = new TagFrameParser();
+    private final Thread thread = new Thread(this, "module-emulator");
+
+    void start() {
+      thread.start();
+    }
+
+    void stop() {
+      alive = false;
+      thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+      cmdParser.setFrameSink((type, cmd, b, off, len) -> {
+        commands.add(cmd);
+        try {
+          onCommand(cmd, b, off, len);
+        } catch (IOException ignore) {
+        }
+      });
+      byte[] buf = new byte[256];
+      try {
+        while (alive) {
+          int n = fromHost.available();
+          if (n > 0)
+            cmdParser.feed(buf, 0, fromHost.read(buf, 0, Math.min(n, buf.length)), (e, r, h) -> {
+            });
+          if (roundsLeft > 0) {
+            roundsLeft--;
+            round();
+          }
+          Thread.sleep(2);
+        }
+      } catch (InterruptedException | IOException ignore) {
+      }
+    }
+
+    private void onCommand(int cmd, byte[] b, int off, int len) throws IOException {
+      if (roundsLeft > 0 && cmd != SerialUhfDriver.CMD_STOP_POLL) {
+        ignored.incrementAndGet();
+        return;
+      }
+      switch (cmd) {
+        case SerialUhfDriver.CMD_VERSION:
+          reply(cmd, ("\0M100 26dBm V1.0").getBytes(StandardCharsets.US_ASCII));
+          break;
+        case SerialUhfDriver.CMD_SET_POWER:
+          power = ((b[off] & 0xFF) << 8) | (b[off + 1] & 0xFF);
+          reply(cmd, new byte[] { 0 });
+          break;
+        case SerialUhfDriver.CMD_SET_QUERY:
+          query = ((b[off] & 0xFF) << 8) | (b[off + 1] & 0xFF);
+          reply(cmd, new byte[] { 0 });
+          break;
+        case SerialUhfDriver.CMD_MULTI_POLL:
+          roundsLeft = Math.min(maxRounds, ((b[off + 1] & 0xFF) << 8) | (b[off + 2] & 0xFF));
+          break;
+        case SerialUhfDriver.CMD_STOP_POLL:
+          roundsLeft = 0;
+          reply(cmd, new byte[] { 0 });
+          break;
+        default:
+      }
+    }
+
+    private void round() throws IOException {
+      java.io.ByteArrayOutputStream o = new java.io.ByteArrayOutputStream();
+      for (String epc : field)
+        if (rnd.nextInt(4) != 0) // tidak semua tag menjawab tiap putaran
+          o.writeBytes(TagFrameParserTest.tagFrame(unhex(epc), -45 - rnd.nextInt(30)));
+      if (o.size() == 0)
+        o.writeBytes(TagFrameParserTest.frame(SerialUhfDriver.TYPE_RESPONSE, SerialUhfDriver.CMD_ERROR,
+            new byte[] { SerialUhfDriver.ERR_NO_TAG }));
+      byte[] all = o.toByteArray();
+      // potongan acak seperti UART: frame sering terbelah
+      for (int at = 0; at < all.length;) {
+        int n = Math.min(all.length - at, 1 + rnd.nextInt(40));
+        toHost.write(all, at, n);
+        at += n;
+      }
+      toHost.flush();
+    }
+
+    private void reply(int cmd, byte[] payload) throws IOException {
+      toHost.write(TagFrameParserTest.frame(SerialUhfDriver.TYPE_RESPONSE, cmd, payload));
+      toHost.flush();
+    }
+  }
+
+  static byte[] unhex(String s) {
+    byte[] b = new byte[s.length() / 2];
+    for (int i = 0; i < b.length; i++)
+      b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+    return b;
+  }
+
+  private ModuleEmulator mod;
+  private SerialUhfDriver drv;
+  private final Set<String> seen = ConcurrentHashMap.newKeySet();
+  private final List<Integer> rssi = Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() throws IOException {
+    mod = new ModuleEmulator();
+    PipedInputStream hostIn = new PipedInputStream(1 << 16);
+    PipedOutputStream hostOut = new PipedOutputStream();
+    mod.toHost.connect(hostIn);
+    hostOut.connect(mod.fromHost);
+    mod.start();
+    drv = new SerialUhfDriver("emulator", hostIn, hostOut, (epc, r, has) -> {
+      seen.add(epc);
+      rssi.add(r);
+    });
+    drv.start();
+  }
+
+  @After
+  public void tearDown() {
+    drv.close();
+    mod.stop();
+  }
+
+  private static void waitUntil(BooleanSupplier c, long ms) throws InterruptedException {
+    long end = System.currentTimeMillis() + ms;
+    while (!c.getAsBoolean()) {
+      if (System.currentTimeMillis() > end)
+        throw new AssertionError("timeout");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void commandsAreAcknowledged() {
+    String v = drv.version();
+    assertNotNull(v);
+    assertTrue(v.contains("M100"));
+    assertTrue(drv.setPower(26));
+    assertEquals(2600, mod.power);
+    assertTrue(drv.setQuery(1, 1, 4));
+    assertEquals(0x1000 | 1 << 8 | 1 << 7 | 4 << 3, mod.query);
+  }
+
+  @Test
+  public void inventoryDeliversEveryTagInField() throws Exception {
+    for (int i = 0; i < 60; i++)
+      mod.field.add(String.format("E2801170%016X", i * 7919L));
+    drv.startInventory();
+    waitUntil(() -> seen.size() == 60, 3000);
+    assertTrue(seen.containsAll(mod.field));
+    for (int r : rssi)
+      assertTrue(r <= -45 && r > -76);
+
+    drv.stopInventory();
+    Thread.sleep(50);
+    int n = rssi.size();
+    Thread.sleep(100);
+    assertEquals(n, rssi.size()); // modul diam setelah stop
+    assertEquals(0L, drv.stats().get("badFrames"));
+  }
+
+  @Test
+  public void rearmsWhenPollRoundsRunOut() throws Exception {
+    mod.maxRounds = 20; // modul berhenti sendiri setelah 20 putaran
+    mod.field.add("E28011700000000000000001");
+    drv.startInventory();
+    waitUntil(() -> ((Long) drv.stats().get("rearms")) >= 2, 3000);
+    mod.field.add("E28011700000000000000002"); // tag baru datang setelah re-arm
+    waitUntil(() -> seen.size() == 2, 3000);
+    drv.stopInventory();
+  }
+
+  @Test
+  public void configStopsAndRearmsDuringInventory() throws Exception {
+    mod.field.add("E28011700000000000000001");
+    drv.startInventory();
+    waitUntil(() -> seen.size() == 1, 3000);
+    assertTrue(drv.setPower(20));
+    assertEquals(2000, mod.power);
+    assertTrue(drv.setQuery(2, 0, 5));
+    assertEquals(0x1000 | 2 << 8 | 5 << 3, mod.query);
+    assertNotNull(drv.version());
+    assertEquals(0, mod.ignored.get());
+    mod.field.add("E28011700000000000000002"); // multi-poll jalan lagi setelah perintah
+    waitUntil(() -> seen.size() == 2, 3000);
+    assertTrue(drv.inventorying());
+    drv.stopInventory();
+  }
+
+  @Test
+  public void emptyFieldCountsNoTagRounds() throws Exception {
+    drv.startInventory();
+    waitUntil(() -> ((Long) drv.stats().get("noTagRounds")) >= 10, 3000);
+    assertEquals(0L, drv.stats().get("errors"));
+    assertTrue(seen.isEmpty());
+    drv.stopInventory();
+  }
+}
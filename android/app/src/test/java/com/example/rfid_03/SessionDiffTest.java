@@ -0,0 +1,239 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionDiffTest {
+
+  private File dir, tmp;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("session").toFile();
+    tmp = new File(dir, "tmp");
+    tmp.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    delete(dir);
+  }
+
+  private static void delete(File f) {
+    File[] fs = f.listFiles();
+    if (fs != null)
+      for (File c : fs)
+        delete(c);
+    f.delete();
+  }
+
+  private static String epc(int i) {
+    return String.format("E2801170%016X", i * 2654435761L & 0xFFFFFFFFFFFFL);
+  }
+
+  /** Semua baris file lewat page(), urut file. */
+  private static List<Map<String, Object>> all(File f) throws IOException {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    long total = SessionFile.rows(f);
+    for (long off = 0; off < total; off += 333)
+      rows.addAll(SessionFile.page(f, off, 333));
+    return rows;
+  }
+
+  @Test
+  public void writerSortsAndAggregatesAcrossManyRuns() throws IOException {
+    // 256 EPC unik per run, 5000 EPC -> >32 run: merge dua tingkat
+    SessionFile.Writer w = new SessionFile.Writer(tmp, 256);
+    Map<String, int[]> want = new HashMap<>(); // count, rssi puncak
+    List<Integer> reads = new ArrayList<>();
+    Random r = new Random(1);
+    for (int i = 0; i < 5000; i++)
+      for (int k = 1 + r.nextInt(4); k > 0; k--)
+        reads.add(i);
+    Collections.shuffle(reads, r);
+    for (int i : reads) {
+      int rssi = -80 + r.nextInt(40);
+      w.add(epc(i), rssi);
+      int[] v = want.computeIfAbsent(epc(i), e -> new int[] { 0, -128 });
+      v[0]++;
+      v[1] = Math.max(v[1], rssi);
+    }
+    assertTrue(w.runs() > 32);
+
+    File out = new File(dir, "a.uhfs");
+    assertEquals(5000L, w.finish(out));
+    assertEquals(0, tmp.list().length); // run sementara dibersihkan
+
+    List<Map<String, Object>> rows = all(out);
+    assertEquals(5000, rows.size());
+    TreeMap<String, Integer> sorted = new TreeMap<>();
+    for (Map<String, Object> row : rows) {
+      String e = (String) row.get("epc");
+      int[] v = want.get(e);
+      assertEquals(e, v[0], row.get("count"));
+      assertEquals(e, v[1], row.get("rssi"));
+      sorted.put(e, 0);
+    }
+    // EPC sama panjang: urut kunci = urut hex
+    assertEquals(new ArrayList<>(sorted.keySet()),
+        rows.stream().map(m -> (String) m.get("epc")).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void diffFindsAddedRemovedAndChanged() throws IOException {
+    SessionFile.Writer wa = new SessionFile.Writer(tmp, 128);
+    SessionFile.Writer wb = new SessionFile.Writer(tmp, 128);
+    for (int i = 0; i < 1000; i++) {
+      if (i < 900) // 900..999 hanya di B
+        wa.add(epc(i), -60);
+      if (i >= 50) // 0..49 hanya di A
+        wb.add(epc(i), i % 100 == 7 ? -70 : -61); // 7, 107, .. turun 10 dB
+    }
+    wb.add(epc(500), -61);
+    wb.add(epc(500), -61); // count 3 vs 1
+    File a = new File(dir, "a.uhfs"), b = new File(dir, "b.uhfs"), out = new File(dir, "diff");
+    wa.finish(a);
+    wb.finish(b);
+
+    Map<String, Object> s = SessionDiff.run(a, b, out, 6, 2, null);
+    assertEquals(100L, s.get("added"));
+    assertEquals(50L, s.get("removed"));
+    // 107..807 (8 baris, 7 hanya di A) + EPC 500 (count)
+    assertEquals(9L, s.get("changed"));
+    assertEquals(850L - 9, s.get("same"));
+
+    Set<String> added = new HashSet<>();
+    for (Map<String, Object> row : all(SessionDiff.output(out, SessionDiff.ADDED)))
+      added.add((String) row.get("epc"));
+    for (int i = 900; i < 1000; i++)
+      assertTrue(added.contains(epc(i)));
+
+    Map<String, Map<String, Object>> changed = new HashMap<>();
+    for (Map<String, Object> row : all(SessionDiff.output(out, SessionDiff.CHANGED)))
+      changed.put((String) row.get("epc"), row);
+    assertEquals(-60, changed.get(epc(107)).get("rssiA"));
+    assertEquals(-70, changed.get(epc(107)).get("rssiB"));
+    assertEquals(1, changed.get(epc(500)).get("countA"));
+    assertEquals(3, changed.get(epc(500)).get("countB"));
+    assertTrue(SessionFile.page(SessionDiff.output(out, SessionDiff.REMOVED), 50, 10).isEmpty());
+  }
+
+  @Test
+  public void longEpcKeepsHashedKey() throws IOException {
+    SessionFile.Writer w = new SessionFile.Writer(tmp, 16);
+    String longEpc = "E2801170000000000000000000000000000000000001"; // > 128 bit
+    w.add(longEpc, -50);
+    w.add(longEpc, -40);
+    File f = new File(dir, "l.uhfs");
+    w.finish(f);
+    List<Map<String, Object>> rows = SessionFile.page(f, 0, 10);
+    assertEquals(1, rows.size());
+    assertTrue(((String) rows.get(0).get("epc")).startsWith("#"));
+    assertEquals(2, rows.get(0).get("count"));
+    assertEquals(-40, rows.get(0).get("rssi"));
+  }
+
+  /** Dua sesi 1 juta tag: 2% hilang, 2% baru, 1% RSSI berubah. */
+  @Test
+  public void spillsOnExecutorAndLatchesWriteError() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      SessionFile.Writer w = new SessionFile.Writer(tmp, 64, pool);
+      for (int round = 0; round < 3; round++)
+        for (int i = 0; i < 2000; i++)
+          w.add(epc(i), -60 - round);
+      File out = new File(dir, "async.uhfs");
+      assertEquals(2000L, w.finish(out));
+      List<Map<String, Object>> rows = all(out);
+      assertEquals(2000, rows.size());
+      for (Map<String, Object> row : rows) {
+        assertEquals(3, row.get("count"));
+        assertEquals(-60, row.get("rssi"));
+      }
+      assertEquals(0, tmp.list().length);
+
+      // direktori run hilang: error dilatch, dilaporkan sekali, finish gagal
+      File gone = new File(dir, "gone");
+      SessionFile.Writer bad = new SessionFile.Writer(gone, 64, pool);
+      for (int i = 0; i < 500; i++)
+        bad.add(epc(i), -60);
+      pool.submit(() -> {
+      }).get(); // tunggu spill di executor
+      assertNotNull(bad.takeError());
+      assertNull(bad.takeError());
+      assertNotNull(bad.stats().get("error"));
+      try {
+        bad.finish(new File(dir, "bad.uhfs"));
+        fail("finish must fail after a lost run");
+      } catch (IOException expected) {
+        assertTrue(expected.getMessage().startsWith("session capture incomplete"));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void millionTagDiffWithProgress() throws IOException {
+    int n = 1_000_000;
+    ExecutorService pool = Executors.newSingleThreadExecutor(); // seperti "uhf-session" di engine
+    SessionFile.Writer wa = new SessionFile.Writer(tmp, 1 << 16, pool);
+    SessionFile.Writer wb = new SessionFile.Writer(tmp, 1 << 16, pool);
+    EpcPacker.Key k = new EpcPacker.Key();
+    long t0 = System.nanoTime();
+    for (int i = 0; i < n + n / 50; i++) {
+      EpcPacker.pack(String.format("3000%020X", i * 0x9E3779B1L), k);
+      if (i < n)
+        wa.add(k.hi, k.lo, k.meta, -60, 1);
+      if (i >= n / 50)
+        wb.add(k.hi, k.lo, k.meta, i % 100 == 3 ? -50 : -60, 2);
+    }
+    File a = new File(dir, "a.uhfs"), b = new File(dir, "b.uhfs");
+    wa.finish(a);
+    wb.finish(b);
+    pool.shutdown();
+    long writeMs = (System.nanoTime() - t0) / 1_000_000;
+
+    List<long[]> progress = new ArrayList<>();
+    t0 = System.nanoTime();
+    Map<String, Object> s = SessionDiff.run(a, b, new File(dir, "diff"), 6, 0,
+        (done, total) -> progress.add(new long[] { done, total }));
+    long diffMs = (System.nanoTime() - t0) / 1_000_000;
+
+    assertEquals((long) n / 50, s.get("added"));
+    assertEquals((long) n / 50, s.get("removed"));
+    assertEquals(9_800L, s.get("changed")); // i % 100 == 3 di irisan 20000..999999
+    assertTrue(progress.size() > 10);
+    long[] last = progress.get(progress.size() - 1);
+    assertEquals(2L * n, last[0]);
+    assertEquals(last[1], last[0]);
+    for (int i = 1; i < progress.size(); i++)
+      assertTrue(progress.get(i)[0] >= progress.get(i - 1)[0]);
+    // batas longgar (lokal ~4.5 s tulis, ~0.6 s diff) supaya tidak goyah di CI
+    assertTrue("write " + writeMs + " ms", writeMs < 30_000);
+    assertTrue("diff " + diffMs + " ms", diffMs < 10_000);
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StallWatchdogTest {
+
+  private static final long TICK = 50;
+
+  /** Read tiap periodMs dari..sampai, tick tiap 50 ms; return langkah yang diminta. */
+  private static List<Integer> run(StallWatchdog w, long from, long to, long periodMs) {
+    List<Integer> steps = new ArrayList<>();
+    for (long t = from; t < to; t += TICK) {
+      if (periodMs > 0 && (t - from) % periodMs == 0)
+        w.onRead(t);
+      int s = w.tick(t);
+      if (s != StallWatchdog.NONE)
+        steps.add(s);
+    }
+    return steps;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static long fixed(StallWatchdog w, String step, long now) {
+    Map<String, Object> s = (Map<String, Object>) ((Map<String, Object>) w.stats(now).get("steps")).get(step);
+    return (Long) s.get("fixed");
+  }
+
+  @Test
+  public void steadyReadsNeverTrigger() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    assertTrue(run(w, 0, 60_000, 50).isEmpty());
+    assertTrue(run(w, 60_000, 120_000, 400).isEmpty()); // laju turun pelan-pelan, tetap ada read
+    assertEquals(0L, w.stats(120_000).get("stalls"));
+  }
+
+  @Test
+  public void escalatesUntilReadsResume() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    run(w, 0, 10_000, 50); // 20 read/s
+    List<Integer> steps = run(w, 10_000, 12_500, 0);
+    // stall terdeteksi ~1.5 dtk setelah read terakhir, lalu naik tiap STEP_MS
+    assertEquals(List.of(StallWatchdog.TARGET_FLIP, StallWatchdog.INVENTORY_RESET), steps);
+    w.onRead(12_500);
+    Map<String, Object> s = w.stats(12_500);
+    assertEquals(1L, s.get("stalls"));
+    assertEquals(1L, s.get("recovered"));
+    assertEquals(1L, fixed(w, "inventory-reset", 12_500));
+    long lost = (Long) s.get("lostMs");
+    assertTrue(lost >= 2450 && lost <= 2550);
+    // kembali normal, tidak ada stall lanjutan
+    assertTrue(run(w, 12_500, 30_000, 50).isEmpty());
+  }
+
+  @Test
+  public void emptyFieldFromStartIsNotAStall() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    assertTrue(run(w, 0, 30_000, 0).isEmpty());
+    assertEquals(false, w.stats(30_000).get("armed"));
+  }
+
+  @Test
+  public void exhaustedLadderGoesQuietUntilNextRead() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    run(w, 0, 5000, 50);
+    List<Integer> steps = run(w, 5000, 60_000, 0);
+    assertEquals(List.of(1, 2, 3, 4, 5), steps);
+    Map<String, Object> s = w.stats(60_000);
+    assertEquals(1L, s.get("unresolved"));
+    assertEquals(0L, s.get("recovered"));
+    // read baru -> watchdog hidup lagi
+    run(w, 60_000, 65_000, 50);
+    assertEquals(List.of(1), run(w, 65_000, 67_000, 0));
+  }
+
+  @Test
+  public void holdSuppressesStallWhileRfPaused() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    run(w, 0, 5000, 50);
+    for (long t = 5000; t < 9000; t += TICK)
+      w.hold(t); // akses memori tag: RF dijeda
+    assertTrue(run(w, 9000, 9000 + 1400, 0).isEmpty());
+    assertEquals(0L, w.stats(10_400).get("stalls"));
+  }
+
+  @Test
+  public void activeTimeAndLostRatio() {
+    StallWatchdog w = new StallWatchdog(2.0, 1500, 5000, 5);
+    w.start(0);
+    run(w, 0, 10_000, 50);
+    run(w, 10_000, 12_000, 0);
+    w.onRead(12_000);
+    run(w, 12_000, 20_000, 50);
+    w.stop(20_000);
+    Map<String, Object> s = w.stats(25_000); // berhenti: waktu aktif tidak bertambah
+    assertEquals(20_000L, s.get("activeMs"));
+    assertEquals(0.1, (Double) s.get("lostRatio"), 0.005);
+    w.resetStats(25_000);
+    assertEquals(0L, w.stats(25_000).get("activeMs"));
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TagCommissionerTest {
+
+  /** Kumpulkan hasil satu job; await() sampai onDone. */
+  private static final class Rec implements TagCommissioner.Listener {
+    final List<Map<String, Object>> results = Collections.synchronizedList(new ArrayList<>());
+    volatile Map<String, Object> summary;
+    final CountDownLatch done = new CountDownLatch(1);
+
+    @Override
+    public void onBatch(int jobId, List<Map<String, Object>> r) {
+      results.addAll(r);
+    }
+
+    @Override
+    public void onDone(int jobId, Map<String, Object> s) {
+      summary = s;
+      done.countDown();
+    }
+
+    Map<String, Object> await() throws InterruptedException {
+      assertTrue(done.await(20, TimeUnit.SECONDS));
+      return summary;
+    }
+  }
+
+  private static List<String> serials(int n) {
+    List<String> l = new ArrayList<>();
+    for (int i = 0; i < n; i++)
+      l.add(String.format("30340242201D8C%010X", 1000 + i));
+    return l;
+  }
+
+  private static Map<String, Object> run(SimulatedTagField sim, TagCommissioner.Job job, Rec rec)
+      throws InterruptedException {
+    job.air = sim;
+    job.clock = sim;
+    TagCommissioner c = new TagCommissioner(rec);
+    try {
+      c.submit(job);
+      return rec.await();
+    } finally {
+      c.shutdown();
+    }
+  }
+
+  private static TagCommissioner.Job job(List<String> epcs, int window) {
+    TagCommissioner.Job j = new TagCommissioner.Job();
+    j.epcs = epcs;
+    j.blankPrefix = SimulatedTagField.BLANK_PREFIX;
+    j.window = window;
+    return j;
+  }
+
+  @Test
+  public void commissionsWholeQueueOnceEach() throws Exception {
+    SimulatedTagField sim = new SimulatedTagField(false, 1);
+    List<String> epcs = serials(500);
+    TagCommissioner.Job j = job(epcs, 6);
+    j.lock = true;
+    j.accessPwd = "1234ABCD";
+    Rec rec = new Rec();
+    Map<String, Object> s = run(sim, j, rec);
+
+    assertEquals("done", s.get("stop"));
+    assertEquals(0, s.get("remaining"));
+    @SuppressWarnings("unchecked")
+    List<String> unsure = (List<String>) s.get("indeterminate");
+    assertEquals(500, (Integer) s.get("ok") + unsure.size());
+    Set<String> written = new HashSet<>();
+    int failed = 0;
+    for (Map<String, Object> r : rec.results)
+      if (Boolean.TRUE.equals(r.get("ok")))
+        assertTrue("ditulis dua kali: " + r.get("epc"), written.add((String) r.get("epc")));
+      else
+        failed++;
+    for (String e : unsure)
+      assertTrue("seri tidak pasti dipakai lagi: " + e, written.add(e));
+    assertEquals(new HashSet<>(epcs), written);
+    assertTrue(failed > 0); // tag cacat / write gagal tetap terjadi, EPC-nya dipakai ulang
+    assertEquals((long) (Integer) s.get("ok"), sim.locked());
+  }
+
+  @Test
+  public void pipelinedWindowBeatsOneTagAtATime() throws Exception {
+    Map<String, Object> seq = run(new SimulatedTagField(false, 2), job(serials(300), 1), new Rec());
+    Map<String, Object> pipe = run(new SimulatedTagField(false, 2), job(serials(300), 6), new Rec());
+    double a = (Double) seq.get("tagsPerMin"), b = (Double) pipe.get("tagsPerMin");
+    assertEquals(300, pipe.get("ok"));
+    // jam virtual: angka deterministik (~1200 vs ~2800 tags/min)
+    assertTrue("window 1 " + a, a > 800 && a < 2000);
+    assertTrue("window 6 " + b, b > 2000);
+    assertTrue(b > a * 1.5);
+  }
+
+  @Test
+  public void retryLimitAndFailureCap() throws Exception {
+    SimulatedTagField sim = new SimulatedTagField(false, 3);
+    sim.defective = 1.0; // roll label rusak: semua write gagal
+    TagCommissioner.Job j = job(serials(100), 4);
+    j.retries = 3;
+    j.maxFailures = 20;
+    Rec rec = new Rec();
+    Map<String, Object> s = run(sim, j, rec);
+    assertEquals("too many failures", s.get("stop"));
+    assertEquals(0, s.get("ok"));
+    assertEquals(100, s.get("remaining")); // tidak ada EPC yang hilang
+    for (Map<String, Object> r : rec.results) {
+      assertEquals(TagCommissioner.STAGE_WRITE, r.get("stage"));
+      assertEquals(4, r.get("attempts"));
+    }
+  }
+
+  @Test
+  public void lostAckIsRetriedByTidWithoutDuplicates() throws Exception {
+    SimulatedTagField sim = new SimulatedTagField(false, 5);
+    sim.ackLoss = 1.0; // tiap write masuk tapi jawabannya hilang
+    sim.writeFail = 0;
+    sim.defective = 0;
+    Rec rec = new Rec();
+    Map<String, Object> s = run(sim, job(serials(50), 4), rec);
+    assertEquals(50, s.get("ok"));
+    Set<String> written = new HashSet<>();
+    for (Map<String, Object> r : rec.results)
+      assertTrue("ditulis dua kali: " + r.get("epc"), written.add((String) r.get("epc")));
+    assertEquals(50, written.size());
+  }
+
+  @Test
+  public void unknownTagStateRetiresSerial() throws Exception {
+    // satu tag: write tidak pernah di-ack dan isi tag tidak bisa dibaca
+    TagCommissioner.Air air = new TagCommissioner.Air() {
+      @Override
+      public List<String> singulate(int max) {
+        return Collections.singletonList("E2000000000000000000AAAA");
+      }
+
+      @Override
+      public String readTid(String epc) {
+        return "E2801130000000000000BEEF";
+      }
+
+      @Override
+      public void writeEpc(String tid, String next, String accessPwd) throws Exception {
+        throw new IllegalStateException("no ack");
+      }
+
+      @Override
+      public String readPcEpc(String tid, int words) throws Exception {
+        throw new IllegalStateException("no response");
+      }
+
+      @Override
+      public void lock(String tid, String accessPwd) {
+      }
+    };
+    TagCommissioner.Job j = job(serials(3), 4);
+    j.air = air;
+    j.maxEmptyRounds = 3;
+    Rec rec = new Rec();
+    TagCommissioner c = new TagCommissioner(rec);
+    try {
+      c.submit(j);
+      Map<String, Object> s = rec.await();
+      assertEquals("no blank tags", s.get("stop"));
+      assertEquals(Collections.singletonList(serials(1).get(0)), s.get("indeterminate"));
+      assertEquals(2, s.get("remaining")); // seri pertama tidak kembali ke antrian
+      assertEquals(1, rec.results.size());
+      Map<String, Object> r = rec.results.get(0);
+      assertEquals(TagCommissioner.STAGE_WRITE, r.get("stage"));
+      assertEquals(true, r.get("indeterminate"));
+      assertEquals("E2801130000000000000BEEF", r.get("tid"));
+    } finally {
+      c.shutdown();
+    }
+  }
+
+  @Test
+  public void pcWordLengthIsChecked() {
+    String epc = "30340242201D8C00000003E8";
+    assertEquals("3000" + epc, TagCommissioner.pcEpc(epc));
+    assertTrue(TagCommissioner.holds("3000" + epc, epc));
+    assertTrue(TagCommissioner.holds("3400" + epc, epc)); // bit UMI dari tag diabaikan
+    assertFalse(TagCommissioner.holds("2800" + epc, epc)); // panjang di PC salah
+    assertFalse(TagCommissioner.holds(epc, epc));
+  }
+
+  @Test
+  public void stopsWhenNoBlankTagsArrive() throws Exception {
+    SimulatedTagField sim = new SimulatedTagField(false, 4);
+    TagCommissioner.Job j = job(serials(10), 4);
+    j.blankPrefix = "FFFF"; // tidak ada tag dengan awalan ini
+    j.maxEmptyRounds = 5;
+    Map<String, Object> s = run(sim, j, new Rec());
+    assertEquals("no blank tags", s.get("stop"));
+    assertEquals(5, s.get("rounds"));
+    assertEquals(10, s.get("remaining"));
+  }
+}
@@ -0,0 +1,219 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TagFrameParserTest {
+
+  private static final class Rec implements TagFrameParser.Sink {
+    final List<String> epcs = new ArrayList<>();
+    final List<Integer> rssi = new ArrayList<>();
+
+    @Override
+    public void onTag(String epc, int rssiRaw, boolean hasRssi) {
+      epcs.add(epc);
+      rssi.add(hasRssi ? rssiRaw : null);
+    }
+  }
+
+  /** Frame M100: BB type cmd PL(2) payload CS 7E; CS = jumlah type..payload. */
+  static byte[] frame(int type, int cmd, byte[] payload) {
+    byte[] f = new byte[7 + payload.length];
+    f[0] = (byte) 0xBB;
+    f[1] = (byte) type;
+    f[2] = (byte) cmd;
+    f[3] = (byte) (payload.length >>> 8);
+    f[4] = (byte) payload.length;
+    System.arraycopy(payload, 0, f, 5, payload.length);
+    int sum = 0;
+    for (int i = 1; i < 5 + payload.length; i++)
+      sum += f[i] & 0xFF;
+    f[5 + payload.length] = (byte) sum;
+    f[6 + payload.length] = 0x7E;
+    return f;
+  }
+
+  /** Notifikasi inventory: RSSI, PC (panjang EPC dalam word), EPC, CRC. */
+  static byte[] tagFrame(byte[] epc, int rssiDbm) {
+    byte[] p = new byte[5 + epc.length];
+    p[0] = (byte) rssiDbm;
+    int pc = (epc.length / 2) << 11 | 0x0000;
+    p[1] = (byte) (pc >>> 8);
+    p[2] = (byte) pc;
+    System.arraycopy(epc, 0, p, 3, epc.length);
+    p[3 + epc.length] = 0x12; // CRC16 tidak diperiksa parser
+    p[4 + epc.length] = 0x34;
+    return frame(TagFrameParser.TYPE_NOTICE, TagFrameParser.CMD_INVENTORY, p);
+  }
+
+  private static byte[] epc(Random r, int len) {
+    byte[] e = new byte[len];
+    r.nextBytes(e);
+    e[0] = (byte) 0xE2;
+    return e;
+  }
+
+  private static String hex(byte[] b) {
+    StringBuilder sb = new StringBuilder();
+    for (byte x : b)
+      sb.append(String.format("%02X", x & 0xFF));
+    return sb.toString();
+  }
+
+  @Test
+  public void extractsEveryFrameInBuffer() {
+    Random r = new Random(1);
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    List<String> want = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      byte[] e = epc(r, i % 3 == 0 ? 16 : 12); // campur EPC 96 & 128 bit
+      want.add(hex(e));
+      buf.writeBytes(tagFrame(e, -40 - i));
+    }
+    Rec rec = new Rec();
+    TagFrameParser p = new TagFrameParser();
+    assertEquals(40, p.feed(buf.toByteArray(), rec));
+    assertEquals(want, rec.epcs);
+    assertEquals(Integer.valueOf(-40), rec.rssi.get(0));
+    assertEquals(Integer.valueOf(-79), rec.rssi.get(39));
+  }
+
+  @Test
+  public void carriesPartialFramesAcrossCalls() {
+    Random r = new Random(2);
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    List<String> want = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      byte[] e = epc(r, 12);
+      want.add(hex(e));
+      buf.writeBytes(tagFrame(e, -55));
+    }
+    byte[] all = buf.toByteArray();
+    for (int chunk : new int[] { 1, 7, 23, 64, 333 }) {
+      Rec rec = new Rec();
+      TagFrameParser p = new TagFrameParser();
+      for (int off = 0; off < all.length; off += chunk)
+        p.feed(all, off, Math.min(chunk, all.length - off), rec);
+      assertEquals("chunk " + chunk, want, rec.epcs);
+    }
+  }
+
+  @Test
+  public void resyncsAfterCorruptFrameAndSkipsResponses() {
+    Random r = new Random(3);
+    byte[] a = epc(r, 12), b = epc(r, 12), c = epc(r, 12);
+    byte[] bad = tagFrame(b, -50);
+    bad[10] ^= 0x55; // checksum tidak cocok lagi
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    buf.writeBytes(new byte[] { 0x00, 0x13, (byte) 0xBB }); // sampah + BB palsu
+    buf.writeBytes(tagFrame(a, -50));
+    buf.writeBytes(frame(0x01, 0xB7, new byte[] { 0x0A, 0x28 })); // jawaban perintah (power)
+    buf.writeBytes(bad);
+    buf.writeBytes(tagFrame(c, -61));
+    Rec rec = new Rec();
+    TagFrameParser p = new TagFrameParser();
+    p.feed(buf.toByteArray(), rec);
+    assertEquals(Arrays.asList(hex(a), hex(c)), rec.epcs);
+    assertEquals(1L, p.stats().get("otherFrames"));
+    assertTrue((Long) p.stats().get("badFrames") >= 1);
+  }
+
+  @Test
+  public void acceptsBoxedNumberList() {
+    Random r = new Random(4);
+    byte[] e1 = epc(r, 12), e2 = epc(r, 12);
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    buf.writeBytes(tagFrame(e1, -45));
+    buf.writeBytes(tagFrame(e2, -46));
+    List<Number> boxed = new ArrayList<>();
+    for (byte x : buf.toByteArray())
+      boxed.add((int) x);
+    Rec rec = new Rec();
+    assertEquals(2, new TagFrameParser().feed(boxed, rec));
+    assertEquals(Arrays.asList(hex(e1), hex(e2)), rec.epcs);
+  }
+
+  @Test
+  public void textLogYieldsEveryEpc() {
+    String log = "EPC:e2801170000002 0f1a2b3c4d ANT:1 RSSI:-55dBm\n"
+        + "EPC:E28011700000020F1A2B3C4E RSSI:-61\r\n"
+        + "E28011700000020F1A2B3C4F,  200\n"
+        + "EPC=3000E28011700000020F1A2B3C50";
+    Rec rec = new Rec();
+    TagFrameParser p = new TagFrameParser();
+    assertEquals(3, p.feed(log.getBytes(StandardCharsets.US_ASCII), rec));
+    assertEquals(Arrays.asList("E28011700000020F1A2B3C4E", "E28011700000020F1A2B3C4F",
+        "3000E28011700000020F1A2B3C50"), rec.epcs);
+    assertEquals(Arrays.asList(-61, 200, null), rec.rssi);
+  }
+
+  /* ===================== benchmark ===================== */
+
+  /** Cara lama: new String(buf) + run hex terpanjang (maksimal satu tag per buffer). */
+  private static int legacy(byte[] buf) {
+    Matcher m = Pattern.compile("([A-Fa-f0-9]{20,})").matcher(new String(buf, StandardCharsets.ISO_8859_1));
+    String best = null;
+    while (m.find())
+      if (best == null || m.group(1).length() > best.length())
+        best = m.group(1);
+    return best == null ? 0 : 1;
+  }
+
+  @Test
+  public void benchmarkAgainstCapturedStyleBuffers() {
+    // buffer tiruan seperti hasil readBuffer saat inventory padat: 1..40 frame,
+    // dipotong di batas acak (frame terakhir sering terbelah)
+    Random r = new Random(5);
+    List<byte[]> epcs = new ArrayList<>();
+    for (int i = 0; i < 500; i++)
+      epcs.add(epc(r, 12));
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    int frames = 50_000;
+    for (int i = 0; i < frames; i++)
+      stream.writeBytes(tagFrame(epcs.get(r.nextInt(epcs.size())), -40 - r.nextInt(40)));
+    byte[] all = stream.toByteArray();
+    List<byte[]> buffers = new ArrayList<>();
+    for (int off = 0; off < all.length;) {
+      int n = Math.min(all.length - off, 24 + r.nextInt(24 * 40));
+      buffers.add(Arrays.copyOfRange(all, off, off + n));
+      off += n;
+    }
+
+    int[] got = new int[1];
+    TagFrameParser.Sink count = (e, rssi, has) -> got[0]++;
+    for (int w = 0; w < 3; w++) { // pemanasan JIT
+      TagFrameParser p = new TagFrameParser();
+      for (byte[] b : buffers)
+        p.feed(b, count);
+    }
+    got[0] = 0;
+    TagFrameParser p = new TagFrameParser();
+    long t0 = System.nanoTime();
+    for (byte[] b : buffers)
+      p.feed(b, count);
+    long parserNs = System.nanoTime() - t0;
+    assertEquals(frames, got[0]);
+
+    int legacyTags = 0;
+    for (byte[] b : buffers)
+      legacyTags += legacy(b);
+
+    double mbPerSec = all.length / 1e6 / (parserNs / 1e9);
+    double nsPerTag = parserNs / (double) frames;
+    // batas longgar (lokal ~60 MB/s, ~400 ns/tag) supaya tidak goyah di CI
+    assertTrue("parser " + mbPerSec + " MB/s", mbPerSec > 5);
+    assertTrue("parser " + nsPerTag + " ns/tag", nsPerTag < 5_000);
+    assertTrue(legacyTags < frames / 5);
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TagMemoryReaderTest {
+
+  private static final TagMemoryReader.RfControl NO_RF = new TagMemoryReader.RfControl() {
+    @Override
+    public void pauseInventory() {
+    }
+
+    @Override
+    public void resumeInventory() {
+    }
+  };
+
+  /** Kumpulkan hasil satu job sampai onDone. */
+  private static final class Sink implements TagMemoryReader.Listener {
+    final List<Map<String, Object>> results = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile Map<String, Object> summary;
+
+    @Override
+    public synchronized void onBatch(int jobId, List<Map<String, Object>> r) {
+      results.addAll(r);
+    }
+
+    @Override
+    public void onDone(int jobId, Map<String, Object> s) {
+      summary = s;
+      done.countDown();
+    }
+  }
+
+  private static TagMemoryReader.Job job(int tags) {
+    TagMemoryReader.Job j = new TagMemoryReader.Job();
+    j.epcs = new ArrayList<>();
+    for (int i = 0; i < tags; i++)
+      j.epcs.add(String.format("E2000000%04X", i));
+    j.retries = 1;
+    j.timeoutMs = 50;
+    j.inventoryMs = 0;
+    return j;
+  }
+
+  @Test
+  public void hungReadDoesNotWedgeLaterReads() throws Exception {
+    CountDownLatch never = new CountDownLatch(1);
+    Sink sink = new Sink();
+    TagMemoryReader r = new TagMemoryReader((epc, bank, ptr, words) -> {
+      if (epc.endsWith("0000")) {
+        while (true) {
+          try {
+            never.await(); // SDK macet, tidak peduli interrupt
+          } catch (InterruptedException ignore) {
+          }
+        }
+      }
+      return "ABCD";
+    }, NO_RF, sink);
+    r.submit(job(5));
+    assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+    assertEquals(4, sink.summary.get("ok"));
+    assertEquals(1, sink.summary.get("failed"));
+    assertEquals(2L, r.stats().get("ioReplaced")); // tiap percobaan yang macet
+    r.shutdown();
+  }
+
+  @Test
+  public void unsupportedLatchesOncePerJob() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Sink sink = new Sink();
+    TagMemoryReader r = new TagMemoryReader((epc, bank, ptr, words) -> {
+      calls.incrementAndGet();
+      throw new UnsupportedOperationException("readTag not found");
+    }, NO_RF, sink);
+    r.submit(job(20));
+    assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+    assertEquals(20, sink.summary.get("failed"));
+    assertEquals("UnsupportedOperationException: readTag not found", sink.summary.get("error"));
+    assertEquals(20, sink.results.size());
+    r.shutdown();
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TraceReplayTest {
+
+  private static File record(int n, long gapMs) throws Exception {
+    File f = File.createTempFile("trace", ".uhfr");
+    f.deleteOnExit();
+    TraceRecorder tr = new TraceRecorder(f);
+    for (int i = 0; i < n; i++) {
+      if (i % 3 == 0)
+        tr.text("EPC:E2000017221101" + String.format("%06d", i) + " RSSI:-61dBm", 0);
+      else
+        tr.object("E28011700000020" + String.format("%09d", i), i % 5 == 0 ? null : -50 - i % 30,
+            i % 2 == 0 ? 6 : null, "Tag#" + i, i % 4 == 0 ? 1 : 0);
+      if (gapMs > 0)
+        Thread.sleep(gapMs);
+    }
+    assertEquals(n, tr.close());
+    return f;
+  }
+
+  @Test
+  public void roundTripKeepsEveryRecord() throws Exception {
+    File f = record(5000, 0);
+    List<Object> infos = new ArrayList<>();
+    List<Integer> readers = new ArrayList<>();
+    Map<String, Object> r = TraceReplayer.replay(f, 0, (info, reader) -> {
+      infos.add(info);
+      readers.add(reader);
+    }, new AtomicBoolean(false));
+    assertEquals(5000L, r.get("records"));
+    assertEquals("EPC:E2000017221101000000 RSSI:-61dBm", infos.get(0));
+    TraceReplayer.RecordedInfo one = (TraceReplayer.RecordedInfo) infos.get(1);
+    assertEquals("E28011700000020000000001", one.getEpc());
+    assertEquals(Integer.valueOf(-51), one.getRssi());
+    assertNull(one.getChannel());
+    assertEquals("Tag#1", one.toString());
+    TraceReplayer.RecordedInfo five = (TraceReplayer.RecordedInfo) infos.get(5);
+    assertNull(five.getRssi());
+    assertEquals(Integer.valueOf(1), readers.get(4));
+    assertTrue("gzip " + f.length() + " B", f.length() < 5000 * 16);
+    assertTrue("replay " + r.get("recordsPerSec") + "/s", (Long) r.get("recordsPerSec") >= 10_000);
+  }
+
+  @Test
+  public void rawBuffersReplayThroughFrameParser() throws Exception {
+    File f = File.createTempFile("trace", ".uhfr");
+    f.deleteOnExit();
+    byte[] a = TagFrameParserTest.tagFrame(new byte[] { (byte) 0xE2, 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77, 0x01, 0x02,
+        0x03, 0x04 }, -55);
+    byte[] b = TagFrameParserTest.tagFrame(new byte[] { (byte) 0xE2, 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77, 0x01, 0x02,
+        0x03, 0x05 }, -60);
+    byte[] frames = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, frames, a.length, b.length);
+    TraceRecorder tr = new TraceRecorder(f);
+    tr.raw("readBuffer", Arrays.copyOf(frames, 10), 0); // frame terpotong di antara drain
+    tr.raw("readBuffer", Arrays.copyOfRange(frames, 10, frames.length), 0);
+    assertEquals(2, tr.close());
+
+    TagFrameParser p = new TagFrameParser();
+    List<String> epcs = new ArrayList<>();
+    TraceReplayer.replay(f, 0, (info, reader) -> {
+      TraceReplayer.RawBuffer rb = (TraceReplayer.RawBuffer) info;
+      assertEquals("readBuffer", rb.source);
+      p.feed(rb.data, (epc, rssi, hasRssi) -> epcs.add(epc));
+    }, new AtomicBoolean(false));
+    assertEquals(List.of("E21122334455667701020304", "E21122334455667701020305"), epcs);
+  }
+
+  @Test
+  public void realTimeReplayKeepsTiming() throws Exception {
+    File f = record(20, 10); // ~200 ms
+    long t0 = System.nanoTime();
+    Map<String, Object> r = TraceReplayer.replay(f, 1, (info, reader) -> {
+    }, new AtomicBoolean(false));
+    long wallMs = (System.nanoTime() - t0) / 1_000_000L;
+    long traceMs = (Long) r.get("traceMs");
+    assertTrue("trace " + traceMs + "ms", traceMs >= 180);
+    assertTrue("replay 1x " + wallMs + "ms vs trace " + traceMs + "ms", wallMs >= traceMs - 5);
+
+    t0 = System.nanoTime();
+    TraceReplayer.replay(f, 4, (info, reader) -> {
+    }, new AtomicBoolean(false));
+    long fastMs = (System.nanoTime() - t0) / 1_000_000L;
+    assertTrue("replay 4x " + fastMs + "ms", fastMs < wallMs / 2);
+  }
+
+  @Test
+  public void cancelStopsReplay() throws Exception {
+    File f = record(100, 0);
+    AtomicBoolean cancel = new AtomicBoolean(false);
+    int[] seen = new int[1];
+    Map<String, Object> r = TraceReplayer.replay(f, 0, (info, reader) -> {
+      if (++seen[0] == 10)
+        cancel.set(true);
+    }, cancel);
+    assertEquals(10L, r.get("records"));
+    assertEquals(true, r.get("cancelled"));
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.rfid_03;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class UploadQueueTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private HttpServer server;
+  private final List<String> bodies = new CopyOnWriteArrayList<>();
+  private final Set<String> chunkIds = Collections.synchronizedSet(new HashSet<>());
+  private final AtomicInteger failFirst = new AtomicInteger(0);
+  private volatile int failCode = 503;
+
+  /** Backend tiruan lokal: 200 setelah failFirst permintaan gagal. */
+  private String startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/ingest", ex -> {
+      byte[] body;
+      try (InputStream in = ex.getRequestBody()) {
+        body = in.readAllBytes();
+      }
+      int code = 200;
+      if (failFirst.getAndDecrement() > 0)
+        code = failCode;
+      else {
+        assertEquals("gzip", ex.getRequestHeaders().getFirst("Content-Encoding"));
+        chunkIds.add(ex.getRequestHeaders().getFirst("X-Chunk-Id"));
+        bodies.add(gunzip(body));
+      }
+      ex.sendResponseHeaders(code, -1);
+      ex.close();
+    });
+    server.start();
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/ingest";
+  }
+
+  @After
+  public void stopServer() {
+    if (server != null)
+      server.stop(0);
+  }
+
+  private static String gunzip(byte[] b) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new java.io.ByteArrayInputStream(b))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      in.transferTo(out);
+      return out.toString(StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void waitUntil(BooleanSupplier cond, long timeoutMs) throws InterruptedException {
+    long end = System.currentTimeMillis() + timeoutMs;
+    while (!cond.getAsBoolean()) {
+      if (System.currentTimeMillis() > end)
+        throw new AssertionError("timeout");
+      Thread.sleep(10);
+    }
+  }
+
+  private static long stat(UploadQueue q, String k) {
+    return ((Number) q.stats().get(k)).longValue();
+  }
+
+  private static int chunkFiles(File dir) {
+    File[] f = dir.listFiles((d, n) -> n.endsWith(UploadQueue.SUFFIX));
+    return f == null ? 0 : f.length;
+  }
+
+  @Test
+  public void batchesPerEpcAndUploadsCompressed() throws Exception {
+    String url = startServer();
+    File dir = tmp.newFolder("upload");
+    UploadQueue q = new UploadQueue(dir, new UploadQueue.HttpTransport(url, null), "dev1", 100, 60_000, 2,
+        1 << 20);
+    long t = 1_700_000_000_000L;
+    for (int i = 0; i < 250; i++)
+      for (int r = 0; r < 4; r++)
+        q.offer(String.format("E280%020X", i), -50 - (i % 20) - r, 0, t + i * 10 + r);
+    // 250 EPC: dua batch penuh (100) + sisa 50 menunggu flush
+    q.flush();
+    waitUntil(() -> stat(q, "sentChunks") == 3, 5000);
+
+    Set<String> epcs = new HashSet<>();
+    Pattern p = Pattern.compile("\"epc\":\"([0-9A-F]+)\",\"reads\":(\\d+)");
+    long reads = 0;
+    for (String b : bodies) {
+      assertTrue(b.startsWith("{\"device\":\"dev1\""));
+      Matcher m = p.matcher(b);
+      while (m.find()) {
+        epcs.add(m.group(1));
+        reads += Long.parseLong(m.group(2));
+      }
+    }
+    assertEquals(3, chunkIds.size());
+    assertEquals(250, epcs.size());
+    assertEquals(1000L, reads); // read per EPC digabung per batch, tidak hilang
+    assertEquals(0, chunkFiles(dir)); // sudah di-ack, file dihapus
+    Map<String, Object> s = q.stats();
+    long tags = (Long) s.get("sentTags");
+    assertTrue("sentTags " + tags, tags >= 250 && tags <= 253); // EPC di batas batch bisa terkirim dua kali
+    double bpt = (Double) s.get("bytesPerTag");
+    assertEquals((Long) s.get("sentBytes") / (double) tags, bpt, 0.05);
+    assertTrue("bytesPerTag " + bpt, bpt > 0 && bpt < 20);
+    double ratio = (Double) s.get("compression");
+    assertTrue("compression " + ratio, ratio > 5);
+    q.close();
+  }
+
+  @Test
+  public void retriesWithBackoffOnServerError() throws Exception {
+    String url = startServer();
+    failFirst.set(2);
+    UploadQueue q = new UploadQueue(tmp.newFolder("upload"), new UploadQueue.HttpTransport(url, null), "d", 10,
+        60_000, 1, 1 << 20);
+    q.offer("AA01", -40, 0, 1L);
+    q.flush();
+    waitUntil(() -> stat(q, "sentChunks") == 1, 8000);
+    assertEquals(2L, stat(q, "retries"));
+    assertEquals(1, bodies.size());
+    q.close();
+  }
+
+  @Test
+  public void permanentRejectGoesToDeadLetter() throws Exception {
+    String url = startServer();
+    failFirst.set(1);
+    failCode = 400;
+    File dir = tmp.newFolder("upload");
+    UploadQueue q = new UploadQueue(dir, new UploadQueue.HttpTransport(url, null), "d", 10, 60_000, 1, 1 << 20);
+    q.offer("AA01", -40, 0, 1L);
+    q.flush();
+    waitUntil(() -> stat(q, "dead") == 1, 5000);
+    assertEquals(0L, stat(q, "retries"));
+    assertEquals(1, chunkFiles(new File(dir, "dead")));
+    q.close();
+  }
+
+  @Test
+  public void sealsOldBatchWithoutFlush() throws Exception {
+    String url = startServer();
+    UploadQueue q = new UploadQueue(tmp.newFolder("upload"), new UploadQueue.HttpTransport(url, null), "d", 1000,
+        200, 1, 1 << 20);
+    q.offer("AA01", -40, 0, System.currentTimeMillis());
+    waitUntil(() -> stat(q, "sentChunks") == 1, 3000);
+    q.close();
+  }
+
+  @Test
+  public void keepsChunksOnDiskAcrossRestart() throws Exception {
+    File dir = tmp.newFolder("upload");
+    UploadQueue offline = new UploadQueue(dir, (id, body) -> {
+      throw new IOException("no route to host");
+    }, "d", 5, 60_000, 1, 1 << 20);
+    for (int i = 0; i < 12; i++)
+      offline.offer("BB" + i, -45, 0, i);
+    offline.close(); // 5 + 5 + sisa 2 ditulis saat close
+    assertEquals(3, chunkFiles(dir));
+
+    List<String> got = new CopyOnWriteArrayList<>();
+    UploadQueue online = new UploadQueue(dir, (id, body) -> {
+      got.add(id);
+      return 204;
+    }, "d", 5, 60_000, 1, 1 << 20);
+    waitUntil(() -> got.size() == 3, 3000);
+    waitUntil(() -> chunkFiles(dir) == 0, 1000);
+    assertTrue(got.get(0).startsWith("d:c-000000000001-"));
+    online.offer("CC", -45, 0, 1L);
+    online.flush();
+    waitUntil(() -> got.size() == 4, 3000);
+    assertTrue(got.get(3).startsWith("d:c-000000000004-")); // urutan lanjut dari disk
+    online.close();
+  }
+
+  @Test
+  public void dropsOldestChunkAtDiskCap() throws Exception {
+    File dir = tmp.newFolder("upload");
+    UploadQueue q = new UploadQueue(dir, (id, body) -> 503, "d", 50, 60_000, 1, 64 * 1024);
+    java.util.Random rnd = new java.util.Random(1);
+    for (int c = 0; c < 80; c++) {
+      for (int i = 0; i < 50; i++)
+        q.offer(Long.toHexString(rnd.nextLong()) + Long.toHexString(rnd.nextLong()), -45, 0, i);
+    }
+    q.close();
+    assertTrue(stat(q, "dropped") > 0);
+    assertTrue(stat(q, "queuedBytes") <= 64 * 1024);
+  }
+}
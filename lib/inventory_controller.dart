@@ -2,60 +2,61 @@ import 'dart:async';
 import 'package:flutter/foundation.dart';
 import 'package:rfid_03/uhf/uhf_adapter.dart';
 
-class TagRow {
-  final String epc;
-  int count;
-  int lastRssi;
-  DateTime lastSeen;
-  TagRow({
-    required this.epc,
-    required this.count,
-    required this.lastRssi,
-    required this.lastSeen,
-  });
-}
-
-class _PendingAgg {
-  int cnt;
-  int rssi;
-  DateTime last;
-  _PendingAgg({required this.cnt, required this.rssi, required this.last});
-}
+export 'package:rfid_03/uhf/uhf_adapter.dart' show TagRow;
 
 class InventoryController extends ChangeNotifier {
   final UhfAdapter adapter;
   StreamSubscription? _sub;
 
   InventoryController(this.adapter) {
-    _sub = adapter.stream.listen(_onTagHit);
+    _sub = adapter.batches.listen(_onBatch);
   }
 
   bool _isRunning = false;
   bool get isRunning => _isRunning;
 
-  final Map<String, TagRow> _rows = {};
-  final Map<String, _PendingAgg> _pending = {};
-  List<TagRow> _sorted = [];
-  bool _dirty = true;
-
-  int _totalHits = 0;
+  // Tabel lengkap ada di native; di sini hanya halaman yang dirender EpcTable.
+  static const pageSize = 500;
+  TagPage _page = TagPage.empty;
+  String _sortKey = 'lastSeen';
+  String? _filter;
+  String _pageKey = '';
+  bool _querying = false;
+  bool _queryAgain = false;
 
   DateTime? _startAt;
   DateTime? _firstHitAt;
 
+  // auto power aktif: start() tidak memaksa 30 dBm
+  bool _autoPower = false;
+  bool get autoPower => _autoPower;
+
   Timer? _flushTimer;
 
-  List<TagRow> get rows {
-    if (_dirty) {
-      _sorted = _rows.values.toList()
-        ..sort((a, b) => b.lastSeen.compareTo(a.lastSeen));
-      _dirty = false;
-    }
-    return _sorted;
+  List<TagRow> get rows => _page.rows;
+
+  int get uniqueTagCount => _page.uniqueTags;
+  int get totalHitCount => _page.totalHits;
+
+  /// Jumlah baris yang cocok filter (bisa lebih dari [rows]).
+  int get matchedRowCount => _page.total;
+
+  String get sortKey => _sortKey;
+  String? get filter => _filter;
+
+  /// lastSeen | count | rssi | epc
+  void setSortKey(String key) {
+    if (key == _sortKey) return;
+    _sortKey = key;
+    _refresh();
   }
 
-  int get uniqueTagCount => _rows.length;
-  int get totalHitCount => _totalHits;
+  void setFilter(String? f) {
+    final v = (f == null || f.trim().isEmpty) ? null : f.trim();
+    if (v == _filter) return;
+    _filter = v;
+    _refresh();
+  }
 
   int get elapsedMilliseconds => _startAt == null
       ? 0
@@ -67,42 +68,47 @@ class InventoryController extends ChangeNotifier {
     return ms <= 0 ? 0 : (ms / 1000).ceil();
   }
 
-  void _onTagHit(TagHitNative hit) {
-    if (!_isRunning || hit.epc.isEmpty) return;
+  /// Waktu UI isolate per 1000 tag (mode event vs isolate decoder).
+  Map<String, num> get decodeStats => adapter.decodeStats();
+
+  void _onBatch(TagBatch batch) {
+    if (!_isRunning || batch.length == 0) return;
     final now = DateTime.now();
 
     _firstHitAt ??= now;
 
-    final agg = _pending.putIfAbsent(
-      hit.epc,
-      () => _PendingAgg(cnt: 0, rssi: hit.rssi, last: now),
-    );
-    agg.cnt++;
-    agg.rssi = hit.rssi;
-    agg.last = now;
-
-    _flushTimer ??= Timer(const Duration(milliseconds: 24), _applyPending);
+    // batch hanya penanda "ada perubahan"; agregasi & urutan dijaga native
+    _flushTimer ??= Timer(const Duration(milliseconds: 24), _refresh);
   }
 
-  void _applyPending() {
+  Future<void> _refresh() async {
     _flushTimer?.cancel();
     _flushTimer = null;
-    if (_pending.isEmpty) return;
-
-    _pending.forEach((epc, agg) {
-      final row = _rows.putIfAbsent(
-        epc,
-        () =>
-            TagRow(epc: epc, count: 0, lastRssi: agg.rssi, lastSeen: agg.last),
+    if (_querying) {
+      _queryAgain = true;
+      return;
+    }
+    _querying = true;
+    final key = '$_sortKey|${_filter ?? ''}';
+    try {
+      final page = await adapter.queryRows(
+        limit: pageSize,
+        sortKey: _sortKey,
+        filter: _filter,
       );
-      row.count += agg.cnt;
-      row.lastRssi = agg.rssi;
-      row.lastSeen = agg.last;
-      _totalHits += agg.cnt;
-    });
-    _pending.clear();
-    _dirty = true;
-    notifyListeners();
+      if (page.version != _page.version || key != _pageKey) {
+        _page = page;
+        _pageKey = key;
+        notifyListeners();
+      }
+    } catch (_) {
+    } finally {
+      _querying = false;
+    }
+    if (_queryAgain) {
+      _queryAgain = false;
+      unawaited(_refresh());
+    }
   }
 
   Future<void> start() async {
@@ -113,7 +119,7 @@ class InventoryController extends ChangeNotifier {
     notifyListeners();
 
     try {
-      await adapter.setPower(30);
+      if (!_autoPower) await adapter.setPower(30);
       // Snapshot 2 detik biar langsung “full list”
       await adapter.startInventory(fullScan: true, fullScanMs: 2000);
     } catch (_) {
@@ -129,20 +135,41 @@ class InventoryController extends ChangeNotifier {
     _flushTimer = null;
     await adapter.stopInventory();
     notifyListeners();
+    unawaited(_refresh()); // halaman akhir
+  }
+
+  /// Lihat [UhfAdapter.setAutoPower]; false = kembali ke 30 dBm tetap.
+  Future<void> setAutoPower(
+    bool enabled, {
+    String mode = 'rate',
+    double target = 20,
+    List<String>? manifest,
+  }) async {
+    _autoPower = enabled;
+    notifyListeners();
+    if (enabled) {
+      await adapter.setAutoPower(
+        true,
+        mode: mode,
+        target: target,
+        manifest: manifest,
+      );
+    } else {
+      await adapter.setAutoPower(false);
+      await adapter.setPower(30);
+    }
   }
 
   Future<void> setBeepEnabled(bool v) => adapter.setBeepEnabled(v);
   Future<void> setVibrateEnabled(bool v) => adapter.setVibrateEnabled(v);
 
-  void clear() {
-    _rows.clear();
-    _pending.clear();
-    _sorted.clear();
-    _totalHits = 0;
+  Future<void> clear() async {
+    _page = TagPage.empty;
     _startAt = null;
     _firstHitAt = null;
-    _dirty = true;
     notifyListeners();
+    await adapter.clearSession();
+    unawaited(_refresh());
   }
 
   @override
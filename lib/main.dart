@@ -37,7 +37,7 @@ class _InventoryPageState extends State<InventoryPage> {
   @override
   void initState() {
     super.initState();
-    ctrl = InventoryController(MethodChannelUhfAdapter(useEvents: true));
+    ctrl = InventoryController(MethodChannelUhfAdapter(decodeInIsolate: true));
     Future.microtask(() async {
       await ctrl.setBeepEnabled(beepEnabled);
       await ctrl.setVibrateEnabled(vibrateEnabled);
@@ -1,15 +1,37 @@
 import 'dart:async';
 import 'package:flutter/services.dart';
+import 'package:rfid_03/uhf/tag_decode_worker.dart';
+import 'package:rfid_03/uhf/tag_ring.dart';
 import 'package:rfid_03/uhf/uhf_adapter.dart';
 
 class MethodChannelUhfAdapter implements UhfAdapter {
   static const _method = MethodChannel('uhf');
   static const _event = EventChannel('uhf/tags');
+  static const _proximity = EventChannel('uhf/proximity');
+  static const _portal = EventChannel('uhf/portal');
+  static const _locate = EventChannel('uhf/locate');
+  static const _mem = EventChannel('uhf/mem');
+  static const _status = EventChannel('uhf/status');
+  static const _ringSignal = EventChannel('uhf/ring');
+  static const _diff = EventChannel('uhf/diff');
+  static const _commission = EventChannel('uhf/commission');
 
   final _ctrl = StreamController<TagHitNative>.broadcast();
+  final _batches = StreamController<TagBatch>.broadcast();
   final bool _useEvents;
   StreamSubscription? _eventSub;
 
+  // decode di isolate background (long-poll "awaitBatch")
+  TagDecodeWorker? _worker;
+  bool _disposed = false;
+
+  // waktu UI isolate untuk decode/filter (dibanding mode isolate)
+  int _uiTags = 0, _uiMicros = 0, _workerMicros = 0;
+
+  // mode ring (dart:ffi): channel hanya bawa sinyal write index
+  TagRingReader? _ring;
+  StreamSubscription? _ringSub;
+
   Timer? _pullTimer;
   int _startedAtMs = 0;
   bool _rpcBusy = false;
@@ -19,40 +41,175 @@ class MethodChannelUhfAdapter implements UhfAdapter {
 
   bool _lastStartWasFull = false;
 
-  MethodChannelUhfAdapter({bool useEvents = true}) : _useEvents = useEvents {
-    if (_useEvents) {
-      _eventSub = _event.receiveBroadcastStream().listen((e) {
-        final now = DateTime.now().millisecondsSinceEpoch;
-        if (e is List) {
-          for (final it in e) {
-            final hit = TagHitNative.fromAny(it);
-            if (hit.epc.isNotEmpty && _passRssi(hit.rssi)) _ctrl.add(hit);
+  // snapshot burst datang per potongan; dirakit bertahap, satu TagBatch di akhir
+  final _snapshot = SnapshotAssembler();
+
+  /// [decodeInIsolate]: batch diambil & di-decode di isolate background,
+  /// UI isolate hanya menerima [TagBatch] teragregasi (EventChannel tidak dipakai).
+  MethodChannelUhfAdapter({bool useEvents = true, bool decodeInIsolate = false})
+    : _useEvents = useEvents || decodeInIsolate {
+    // ring yang masih aktif di native milik isolate sebelumnya (hot restart /
+    // activity lama); lepas dulu, enableSharedRing memasang ulang dari awal
+    unawaited(_method.invokeMethod('disableRing').catchError((_) {}));
+    if (decodeInIsolate) {
+      TagDecodeWorker.spawn(_onWorkerBatch).then(
+        (w) {
+          if (_disposed) {
+            w.dispose();
+            return;
           }
-        } else {
-          final hit = TagHitNative.fromAny(e);
-          if (hit.epc.isNotEmpty && _passRssi(hit.rssi)) _ctrl.add(hit);
-        }
+          _worker = w;
+          // worker long-poll sendiri; timer pull tidak boleh ikut menguras native
+          _pullTimer?.cancel();
+          _pullTimer = null;
+          if (_startedAtMs > 0) w.markStart(_startedAtMs);
+        },
+        onError: (_) {
+          // isolate gagal dibuat: decode di UI isolate lewat EventChannel
+          if (!_disposed) _listenEvents();
+        },
+      );
+    } else if (_useEvents) {
+      _listenEvents();
+    }
+  }
+
+  void _listenEvents() {
+    _eventSub ??= _event.receiveBroadcastStream().listen((e) {
+      final sw = Stopwatch()..start();
+      final now = DateTime.now().millisecondsSinceEpoch;
+      if (SnapshotAssembler.isChunk(e)) {
+        _onSnapshotChunk(e as Map);
         _lastEventMs = now;
-      }, onError: (_) {});
+        _uiMicros += sw.elapsedMicroseconds;
+        return;
+      }
+      final b = TagBatchBuilder();
+      if (e is List) {
+        for (final it in e) {
+          _emit(b, TagHitNative.fromAny(it));
+        }
+      } else {
+        _emit(b, TagHitNative.fromAny(e));
+      }
+      if (!b.isEmpty && _batches.hasListener) _batches.add(b.build(0));
+      _lastEventMs = now;
+      _uiTags += e is List ? e.length : 1;
+      _uiMicros += sw.elapsedMicroseconds;
+    }, onError: (_) {});
+  }
+
+  /// Satu potongan snapshot: decode sekarang (kerja per pesan terbatas),
+  /// kirim ke [batches] sekali saat potongan terakhir tiba.
+  void _onSnapshotChunk(Map e) {
+    for (final b in _snapshot.add(e, _emit)) {
+      if (_batches.hasListener) _batches.add(b);
     }
+    _uiTags += (e['tags'] as List?)?.length ?? 0;
   }
 
-  @override
-  Stream<TagHitNative> get stream => _ctrl.stream;
+  void _emit(TagBatchBuilder b, TagHitNative hit) {
+    final pass = hit.epc.isNotEmpty && _passRssi(hit.rssi);
+    if (pass) _ctrl.add(hit);
+    b.add(hit, pass);
+  }
 
-  bool _passRssi(dynamic r) {
-    int val;
-    if (r is num) {
-      val = r.toInt();
-    } else {
-      final p = int.tryParse('$r') ?? -90;
-      val = (p > 0 && p <= 300) ? (-90 + (p * 60 ~/ 300)) : p;
+  void _onWorkerBatch(TagBatch b) {
+    final sw = Stopwatch()..start();
+    _lastEventMs = DateTime.now().millisecondsSinceEpoch;
+    _batches.add(b);
+    if (_ctrl.hasListener) {
+      // konsumen per-tag lama: satu hit per EPC teragregasi
+      for (var i = 0; i < b.length; i++) {
+        _ctrl.add(TagHitNative(b.epcs[i], b.rssi[i], b.readers[i]));
+      }
     }
-    final age = DateTime.now().millisecondsSinceEpoch - _startedAtMs;
-    final thr = age < 4000 ? -85 : -60; // longgar di awal
-    return val >= thr;
+    _uiTags += b.rawCount;
+    _workerMicros += b.decodeMicros;
+    _uiMicros += sw.elapsedMicroseconds;
   }
 
+  @override
+  Stream<TagHitNative> get stream => _ctrl.stream;
+
+  @override
+  Stream<TagBatch> get batches => _batches.stream;
+
+  @override
+  Map<String, num> decodeStats() => {
+    'isolate': _worker != null ? 1 : 0,
+    'tags': _uiTags,
+    'uiMicros': _uiMicros,
+    'uiMicrosPer1000Tags': _uiTags == 0 ? 0 : _uiMicros * 1000 / _uiTags,
+    'workerMicrosPer1000Tags': _uiTags == 0
+        ? 0
+        : _workerMicros * 1000 / _uiTags,
+  };
+
+  // stream event dibuat sekali: tiap receiveBroadcastStream() membuka
+  // langganan platform baru, jadi getter harus mengembalikan instance yang sama
+  @override
+  Stream<ReaderStatus> get status => _statusStream;
+  late final Stream<ReaderStatus> _statusStream = _status
+      .receiveBroadcastStream()
+      .where((e) => e is Map)
+      .map((e) => ReaderStatus.fromMap(e as Map));
+
+  @override
+  Stream<List<ProximityEntry>> get proximity => _proximityStream;
+  late final Stream<List<ProximityEntry>> _proximityStream = _proximity
+      .receiveBroadcastStream()
+      .where((e) => e is List)
+      .map(
+        (e) => [
+          for (final it in e as List)
+            if (it is Map) ProximityEntry.fromMap(it),
+        ],
+      );
+
+  @override
+  Stream<List<PortalEvent>> get portalEvents => _portalEventsStream;
+  late final Stream<List<PortalEvent>> _portalEventsStream = _portal
+      .receiveBroadcastStream()
+      .where((e) => e is List)
+      .map(
+        (e) => [
+          for (final it in e as List)
+            if (it is Map) PortalEvent.fromMap(it),
+        ],
+      );
+
+  @override
+  Stream<LocateSample> get locate => _locateStream;
+  late final Stream<LocateSample> _locateStream = _locate
+      .receiveBroadcastStream()
+      .where((e) => e is Map)
+      .map((e) => LocateSample.fromMap(e as Map));
+
+  @override
+  Stream<MemoryReadEvent> get memoryReads => _memoryReadsStream;
+  late final Stream<MemoryReadEvent> _memoryReadsStream = _mem
+      .receiveBroadcastStream()
+      .where((e) => e is Map)
+      .map((e) => MemoryReadEvent.fromMap(e as Map));
+
+  @override
+  Stream<SessionDiffEvent> get sessionDiffs => _sessionDiffsStream;
+  late final Stream<SessionDiffEvent> _sessionDiffsStream = _diff
+      .receiveBroadcastStream()
+      .where((e) => e is Map)
+      .map((e) => SessionDiffEvent.fromMap(e as Map));
+
+  @override
+  Stream<CommissionEvent> get commissionEvents => _commissionEventsStream;
+  late final Stream<CommissionEvent> _commissionEventsStream = _commission
+      .receiveBroadcastStream()
+      .where((e) => e is Map)
+      .map((e) => CommissionEvent.fromMap(e as Map));
+
+  bool _passRssi(int rssi) =>
+      rssi >= rssiGateDbm(DateTime.now().millisecondsSinceEpoch - _startedAtMs);
+
   Duration _wantedPeriod() {
     final age = DateTime.now().millisecondsSinceEpoch - _startedAtMs;
     if (age < 1000) return const Duration(milliseconds: 8);
@@ -77,6 +234,18 @@ class MethodChannelUhfAdapter implements UhfAdapter {
     _pullTimer?.cancel();
     _startedAtMs = DateTime.now().millisecondsSinceEpoch;
     _lastStartWasFull = fullScan;
+    _uiTags = _uiMicros = _workerMicros = 0;
+
+    final worker = _worker;
+    if (worker != null) {
+      // worker sudah menarik batch sendiri, tanpa timer pull
+      worker.markStart(_startedAtMs);
+      await _method.invokeMethod('startInventory', {
+        'fullScan': fullScan,
+        'windowMs': fullScanMs,
+      });
+      return;
+    }
 
     _reschedIfNeeded();
     // auto-reschedule di awal beberapa detik
@@ -101,6 +270,7 @@ class MethodChannelUhfAdapter implements UhfAdapter {
 
   Future<void> _pullOnce() async {
     if (_lastStartWasFull) return; // snapshot dikirim via event
+    if (_worker != null) return; // isolate decoder yang menarik batch
     if (_useEvents) {
       final now = DateTime.now().millisecondsSinceEpoch;
       if (now - _lastEventMs < 60) return;
@@ -109,15 +279,15 @@ class MethodChannelUhfAdapter implements UhfAdapter {
     _rpcBusy = true;
     try {
       final res = await _method.invokeMethod('pullBatch');
+      final b = TagBatchBuilder();
       if (res is List) {
         for (final it in res) {
-          final hit = TagHitNative.fromAny(it);
-          if (hit.epc.isNotEmpty && _passRssi(hit.rssi)) _ctrl.add(hit);
+          _emit(b, TagHitNative.fromAny(it));
         }
       } else if (res != null) {
-        final hit = TagHitNative.fromAny(res);
-        if (hit.epc.isNotEmpty && _passRssi(hit.rssi)) _ctrl.add(hit);
+        _emit(b, TagHitNative.fromAny(res));
       }
+      if (!b.isEmpty && _batches.hasListener) _batches.add(b.build(0));
     } finally {
       _rpcBusy = false;
     }
@@ -132,18 +302,420 @@ class MethodChannelUhfAdapter implements UhfAdapter {
 
   @override
   Future<void> dispose() async {
+    _disposed = true;
+    _worker?.dispose();
+    _worker = null;
     _pullTimer?.cancel();
+    await _ringSub?.cancel();
     await _eventSub?.cancel();
     await _ctrl.close();
+    await _batches.close();
   }
 
   @override
   Future<void> setPower(int dbm) =>
       _method.invokeMethod('setPower', {'power': dbm});
+
+  @override
+  Future<Map<String, dynamic>?> setAutoPower(
+    bool enabled, {
+    String mode = 'rate',
+    double target = 20,
+    int windowMs = 500,
+    int stableWindows = 3,
+    List<String>? manifest,
+  }) async {
+    final m = await _method.invokeMethod('setAutoPower', {
+      'enabled': enabled,
+      'mode': mode,
+      'target': target,
+      'windowMs': windowMs,
+      'stableWindows': stableWindows,
+      'manifest': manifest,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<Map<String, dynamic>?> autoPower() async {
+    final m = await _method.invokeMethod('getAutoPower');
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
   @override
   Future<void> setBeepEnabled(bool enabled) =>
       _method.invokeMethod('setBeep', {'enabled': enabled});
   @override
   Future<void> setVibrateEnabled(bool enabled) =>
       _method.invokeMethod('setVibrate', {'enabled': enabled});
+
+  @override
+  Future<void> startProximity({
+    int topK = 10,
+    double hz = 5,
+    double alpha = 0.3,
+  }) => _method.invokeMethod('startProximity', {
+    'topK': topK,
+    'hz': hz,
+    'alpha': alpha,
+  });
+  @override
+  Future<void> stopProximity() => _method.invokeMethod('stopProximity');
+
+  @override
+  Future<void> startPortal({
+    int outsideReader = 0,
+    int insideReader = 1,
+    int exitGapMs = 1500,
+    int stayMs = 8000,
+  }) => _method.invokeMethod('startPortal', {
+    'outsideReader': outsideReader,
+    'insideReader': insideReader,
+    'exitGapMs': exitGapMs,
+    'stayMs': stayMs,
+  });
+  @override
+  Future<void> stopPortal() => _method.invokeMethod('stopPortal');
+
+  @override
+  Future<void> locateTag(String epc, {double hz = 30}) =>
+      _method.invokeMethod('locateTag', {'epc': epc, 'hz': hz});
+  @override
+  Future<void> stopLocate() => _method.invokeMethod('stopLocate');
+
+  @override
+  Future<int> readMemory({
+    List<String>? epcs,
+    String bank = 'tid',
+    int wordPtr = 0,
+    int words = 6,
+    int retries = 2,
+    int timeoutMs = 300,
+  }) async {
+    final id = await _method.invokeMethod('readMemory', {
+      'epcs': epcs,
+      'bank': bank,
+      'wordPtr': wordPtr,
+      'words': words,
+      'retries': retries,
+      'timeoutMs': timeoutMs,
+    });
+    return (id as num?)?.toInt() ?? 0;
+  }
+
+  @override
+  Future<void> cancelMemoryRead(int job) =>
+      _method.invokeMethod('cancelMemoryRead', {'job': job});
+
+  @override
+  Future<int> commission(
+    List<String> epcs, {
+    String? blankPrefix,
+    bool lock = false,
+    String? accessPwd,
+    int retries = 2,
+    int window = 8,
+    bool simulate = false,
+  }) async {
+    final id = await _method.invokeMethod('commission', {
+      'epcs': epcs,
+      if (blankPrefix != null) 'blankPrefix': blankPrefix,
+      'lock': lock,
+      if (accessPwd != null) 'accessPwd': accessPwd,
+      'retries': retries,
+      'window': window,
+      'simulate': simulate,
+    });
+    return (id as num?)?.toInt() ?? 0;
+  }
+
+  @override
+  Future<void> cancelCommission(int job) =>
+      _method.invokeMethod('cancelCommission', {'job': job});
+  @override
+  Future<void> clearSession() => _method.invokeMethod('clearSession');
+  @override
+  Future<TagPage> queryRows({
+    int offset = 0,
+    int limit = 100,
+    String sortKey = 'lastSeen',
+    String? filter,
+  }) async {
+    final m = await _method.invokeMethod('queryRows', {
+      'offset': offset,
+      'limit': limit,
+      'sortKey': sortKey,
+      'filter': filter,
+    });
+    return m is Map ? TagPage.fromMap(m) : TagPage.empty;
+  }
+
+  @override
+  Future<Map<String, dynamic>> getStats() async {
+    final m = await _method.invokeMethod('getStats');
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<Map<String, dynamic>> setStrategy(
+    String preset, {
+    int? session,
+    bool? dualTarget,
+    int? stallWindowMs,
+    int? minDwellMs,
+    int? maxDwellMs,
+    double? stallRatio,
+  }) async {
+    final m = await _method.invokeMethod('setStrategy', {
+      'preset': preset,
+      if (session != null) 'session': session,
+      if (dualTarget != null) 'dualTarget': dualTarget,
+      if (stallWindowMs != null) 'stallWindowMs': stallWindowMs,
+      if (minDwellMs != null) 'minDwellMs': minDwellMs,
+      if (maxDwellMs != null) 'maxDwellMs': maxDwellMs,
+      if (stallRatio != null) 'stallRatio': stallRatio,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<Map<String, dynamic>> channelStats() async {
+    final m = await _method.invokeMethod('getChannelStats');
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<void> resetChannelStats() => _method.invokeMethod('resetChannelStats');
+
+  @override
+  Future<String> startRecording({String? path}) async {
+    final p = await _method.invokeMethod<String>('startRecording', {
+      'path': path,
+    });
+    return p ?? '';
+  }
+
+  @override
+  Future<Map<String, dynamic>?> stopRecording() async {
+    final m = await _method.invokeMethod('stopRecording');
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<Map<String, dynamic>> replayTrace(
+    String path, {
+    double speed = 1,
+  }) async {
+    final m = await _method.invokeMethod('replayTrace', {
+      'path': path,
+      'speed': speed,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<void> cancelReplay() => _method.invokeMethod('cancelReplay');
+
+  @override
+  Future<TagSeries?> tagSeries(String epc) async {
+    final m = await _method.invokeMethod('tagSeries', {'epc': epc});
+    return m is Map ? TagSeries.fromMap(m) : null;
+  }
+
+  @override
+  Future<Map<String, dynamic>?> seenIndexStats() async {
+    final m = await _method.invokeMethod('seenIndexStats');
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<void> resetSeenIndex() => _method.invokeMethod('resetSeenIndex');
+
+  @override
+  Future<Map<String, dynamic>?> configureUpload({
+    String? url,
+    int batchTags = 500,
+    int maxAgeMs = 5000,
+    int concurrency = 2,
+    int maxQueueMb = 64,
+    Map<String, String>? headers,
+  }) async {
+    final m = await _method.invokeMethod('configureUpload', {
+      'url': url,
+      'batchTags': batchTags,
+      'maxAgeMs': maxAgeMs,
+      'concurrency': concurrency,
+      'maxQueueMb': maxQueueMb,
+      if (headers != null) 'headers': headers,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<void> setMainThreadMeter(bool enabled) =>
+      _method.invokeMethod('setMainThreadMeter', {'enabled': enabled});
+
+  @override
+  Future<void> setWatchdog(bool enabled) =>
+      _method.invokeMethod('setWatchdog', {'enabled': enabled});
+
+  @override
+  Future<Map<String, dynamic>> watchdogStats({bool reset = false}) async {
+    final m = await _method.invokeMethod('watchdogStats', {'reset': reset});
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<Map<String, dynamic>> saveSession(String name) async {
+    final m = await _method.invokeMethod('saveSession', {'name': name});
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<List<Map<String, dynamic>>> listSessions() async {
+    final l = await _method.invokeMethod('listSessions');
+    return [
+      for (final it in (l is List ? l : const []))
+        if (it is Map) Map<String, dynamic>.from(it),
+    ];
+  }
+
+  @override
+  Future<bool> deleteSession(String name) async =>
+      await _method.invokeMethod('deleteSession', {'name': name}) == true;
+
+  @override
+  Future<int> diffSessions(String a, String b, {int rssiDelta = 6, int countDelta = 0}) async {
+    final j = await _method.invokeMethod('diffSessions', {
+      'a': a,
+      'b': b,
+      'rssiDelta': rssiDelta,
+      'countDelta': countDelta,
+    });
+    return (j as num?)?.toInt() ?? 0;
+  }
+
+  @override
+  Future<Map<String, dynamic>> diffPage(
+    String a,
+    String b,
+    String kind, {
+    int offset = 0,
+    int limit = 200,
+  }) async {
+    final m = await _method.invokeMethod('diffPage', {
+      'a': a,
+      'b': b,
+      'kind': kind,
+      'offset': offset,
+      'limit': limit,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<Map<String, dynamic>> setBackend(String backend, {String? node, int? baud}) async {
+    final m = await _method.invokeMethod('setBackend', {
+      'backend': backend,
+      if (node != null) 'node': node,
+      if (baud != null) 'baud': baud,
+    });
+    return m is Map ? Map<String, dynamic>.from(m) : <String, dynamic>{};
+  }
+
+  @override
+  Future<void> flushUpload() => _method.invokeMethod('flushUpload');
+
+  @override
+  Future<Map<String, dynamic>?> uploadStats() async {
+    final m = await _method.invokeMethod('uploadStats');
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<ReaderStatus?> readerStatus() async {
+    final m = await _method.invokeMethod('getReaderStatus');
+    return m is Map ? ReaderStatus.fromMap(m) : null;
+  }
+
+  @override
+  Future<Map<String, dynamic>?> engineState() async {
+    final m = await _method.invokeMethod('engineState');
+    return m is Map ? Map<String, dynamic>.from(m) : null;
+  }
+
+  @override
+  Future<bool> enableSharedRing({int capacity = 8192}) async {
+    if (_ring != null) return true;
+    final res = await _method.invokeMethod('enableRing', {
+      'capacity': capacity,
+    });
+    final ring = (res is Map && res['ok'] == true) ? TagRingReader.open() : null;
+    if (ring == null) {
+      await _method.invokeMethod('disableRing');
+      return false;
+    }
+    _ring = ring;
+    _ringSub = _ringSignal.receiveBroadcastStream().listen(
+      (_) => _drainRing(),
+      onError: (_) {},
+    );
+    _drainRing();
+    return true;
+  }
+
+  @override
+  Future<void> disableSharedRing() async {
+    if (_ring == null) return;
+    await _method.invokeMethod('disableRing');
+    await _ringSub?.cancel();
+    _ringSub = null;
+    _drainRing(); // sisa record terakhir
+    _ring = null;
+  }
+
+  void _drainRing() {
+    final ring = _ring;
+    if (ring == null) return;
+    final sw = Stopwatch()..start();
+    final b = TagBatchBuilder();
+    final n = ring.drain(
+      (epc, rssi, reader) => _emit(b, TagHitNative(epc, rssi, reader)),
+    );
+    if (n > 0) {
+      if (_batches.hasListener) _batches.add(b.build(0));
+      _lastEventMs = DateTime.now().millisecondsSinceEpoch;
+      _uiTags += n;
+      _uiMicros += sw.elapsedMicroseconds;
+    }
+  }
+
+  @override
+  Future<int> addReader(
+    String node, {
+    int baud = 0,
+    int? power,
+    int? q,
+    int? session,
+  }) async {
+    final id = await _method.invokeMethod('addReader', {
+      'node': node,
+      'baud': baud,
+      'power': power,
+      'q': q,
+      'session': session,
+    });
+    return (id as num?)?.toInt() ?? -1;
+  }
+
+  @override
+  Future<void> removeReader(int id) =>
+      _method.invokeMethod('removeReader', {'id': id});
+  @override
+  Future<void> configureReader(int id, {int? power, int? q, int? session}) =>
+      _method.invokeMethod('configureReader', {
+        'id': id,
+        'power': power,
+        'q': q,
+        'session': session,
+      });
 }
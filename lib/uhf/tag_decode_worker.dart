@@ -0,0 +1,104 @@
+import 'dart:async';
+import 'dart:isolate';
+
+import 'package:flutter/services.dart';
+import 'package:rfid_03/uhf/uhf_adapter.dart';
+
+/// Isolate decoder jangka panjang: tarik batch mentah dari native
+/// ("awaitBatch"), decode + gate RSSI + agregasi per EPC di luar UI isolate,
+/// lalu kirim satu [TagBatch] per batch (atau per snapshot burst) ke UI
+/// isolate.
+///
+/// Isolate background tidak bisa menerima EventChannel (platform -> isolate),
+/// jadi transport-nya long-poll MethodChannel lewat
+/// [BackgroundIsolateBinaryMessenger]; native menjawab saat ada tag.
+class TagDecodeWorker {
+  final Isolate _isolate;
+  final SendPort _control;
+  final ReceivePort _inbox;
+
+  TagDecodeWorker._(this._isolate, this._control, this._inbox);
+
+  /// [onBatch] dipanggil di UI isolate untuk tiap batch teragregasi.
+  static Future<TagDecodeWorker> spawn(void Function(TagBatch) onBatch) async {
+    final inbox = ReceivePort();
+    final isolate = await Isolate.spawn(_main, [
+      RootIsolateToken.instance!,
+      inbox.sendPort,
+    ], debugName: 'uhf-decode');
+    final ready = Completer<SendPort>();
+    inbox.listen((m) {
+      if (m is SendPort) {
+        ready.complete(m);
+      } else if (m is List) {
+        onBatch(TagBatch.fromMessage(m));
+      }
+    });
+    return TagDecodeWorker._(isolate, await ready.future, inbox);
+  }
+
+  /// Waktu start inventory (untuk gate RSSI longgar 4 detik pertama).
+  void markStart(int startedAtMs) => _control.send(['start', startedAtMs]);
+
+  void dispose() {
+    _control.send(['stop']);
+    _inbox.close();
+    _isolate.kill(priority: Isolate.beforeNextEvent);
+  }
+
+  static Future<void> _main(List<Object?> args) async {
+    BackgroundIsolateBinaryMessenger.ensureInitialized(
+      args[0] as RootIsolateToken,
+    );
+    final out = args[1] as SendPort;
+    final control = ReceivePort();
+    out.send(control.sendPort);
+
+    var startedAtMs = DateTime.now().millisecondsSinceEpoch;
+    var running = true;
+    control.listen((m) {
+      if (m is List && m.isNotEmpty) {
+        if (m[0] == 'start') startedAtMs = m[1] as int;
+        if (m[0] == 'stop') running = false;
+      }
+    });
+
+    const method = MethodChannel('uhf');
+    final decoder = BatchReplyDecoder();
+    while (running) {
+      Object? raw;
+      try {
+        raw = await method.invokeMethod('awaitBatch', {'timeoutMs': 250});
+      } catch (_) {
+        await Future<void>.delayed(const Duration(milliseconds: 100));
+        continue;
+      }
+      final now = DateTime.now().millisecondsSinceEpoch; // sekali per batch
+      for (final b in decoder.decode(raw, rssiGateDbm(now - startedAtMs))) {
+        out.send(b.toMessage());
+      }
+    }
+    control.close();
+  }
+}
+
+/// Decode satu reply "awaitBatch" di isolate decoder: list = batch biasa,
+/// map = potongan snapshot (dirakit, satu [TagBatch] di potongan terakhir).
+class BatchReplyDecoder {
+  final _snapshot = SnapshotAssembler();
+
+  /// [gateDbm]: RSSI minimum, lihat [rssiGateDbm].
+  List<TagBatch> decode(Object? raw, int gateDbm) {
+    void emit(TagBatchBuilder b, TagHitNative hit) =>
+        b.add(hit, hit.rssi >= gateDbm);
+    if (SnapshotAssembler.isChunk(raw)) return _snapshot.add(raw as Map, emit);
+    if (raw is! List || raw.isEmpty) return const [];
+
+    final sw = Stopwatch()..start();
+    final b = TagBatchBuilder();
+    for (final it in raw) {
+      emit(b, TagHitNative.fromAny(it));
+    }
+    return [b.build(sw.elapsedMicroseconds)];
+  }
+}
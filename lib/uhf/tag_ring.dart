@@ -0,0 +1,101 @@
+import 'dart:ffi';
+import 'dart:typed_data';
+
+/// Pembaca ring record tag yang ditulis native (TagRing.java / uhf_ring.c).
+/// Record dibaca langsung dari memori bersama; tidak ada codec channel.
+///
+/// Layout (little endian):
+/// header 192 byte: magic@0, version@4, capacity@8, recordSize@12,
+/// writeIdx@64, readIdx@128 (i64, diakses atomik lewat fungsi C).
+/// record 48 byte: epcBytes u8@0, reader u8@1, rssiDbm i16@2, seq u32@4,
+/// tMs i64@8, epc[32]@16.
+class TagRingReader {
+  static const _magic = 0x52464855; // "UHFR"
+  static const _header = 192;
+  static const _offRead = 128;
+
+  final int capacity;
+  final int _record;
+  final Uint8List _bytes;
+  final ByteData _data;
+  final int Function() _writeIdx;
+  final void Function(int) _commitRead;
+  final Uint8List _hex = Uint8List(64);
+  int _read;
+
+  TagRingReader._(
+    this.capacity,
+    this._record,
+    this._bytes,
+    this._writeIdx,
+    this._commitRead,
+  ) : _data = ByteData.sublistView(_bytes),
+      _read = ByteData.sublistView(_bytes).getInt64(_offRead, Endian.little);
+
+  /// null bila library/ring belum tersedia (panggil setelah native enableRing).
+  static TagRingReader? open() {
+    try {
+      final lib = DynamicLibrary.open('libuhfring.so');
+      final base = lib
+          .lookupFunction<Pointer<Uint8> Function(), Pointer<Uint8> Function()>(
+            'uhf_ring_base',
+            isLeaf: true,
+          )();
+      if (base == nullptr) return null;
+      final head = ByteData.sublistView(base.asTypedList(_header));
+      if (head.getInt32(0, Endian.little) != _magic) return null;
+      final cap = head.getInt32(8, Endian.little);
+      final rec = head.getInt32(12, Endian.little);
+      return TagRingReader._(
+        cap,
+        rec,
+        base.asTypedList(_header + cap * rec),
+        lib.lookupFunction<Int64 Function(), int Function()>(
+          'uhf_ring_write_idx',
+          isLeaf: true,
+        ),
+        lib.lookupFunction<Void Function(Int64), void Function(int)>(
+          'uhf_ring_commit_read',
+          isLeaf: true,
+        ),
+      );
+    } catch (_) {
+      return null;
+    }
+  }
+
+  /// Baca semua record baru, panggil [onTag] per record, lalu kembalikan
+  /// slot ke native. Return jumlah record.
+  int drain(void Function(String epc, int rssiDbm, int reader) onTag) {
+    final w = _writeIdx();
+    var r = _read;
+    if (w - r > capacity) r = w - capacity; // tidak terjadi (native menunggu), jaga-jaga
+    final start = r;
+    for (; r < w; r++) {
+      final off = _header + (r % capacity) * _record;
+      final n = _bytes[off];
+      onTag(
+        _epcHex(off + 16, n),
+        _data.getInt16(off + 2, Endian.little),
+        _bytes[off + 1],
+      );
+    }
+    _read = r;
+    _commitRead(r);
+    return r - start;
+  }
+
+  static const _digits = [
+    0x30, 0x31, 0x32, 0x33, 0x34, 0x35, 0x36, 0x37, //
+    0x38, 0x39, 0x41, 0x42, 0x43, 0x44, 0x45, 0x46,
+  ];
+
+  String _epcHex(int off, int n) {
+    for (var i = 0; i < n; i++) {
+      final b = _bytes[off + i];
+      _hex[2 * i] = _digits[b >> 4];
+      _hex[2 * i + 1] = _digits[b & 0x0F];
+    }
+    return String.fromCharCodes(_hex, 0, 2 * n);
+  }
+}
@@ -1,15 +1,29 @@
 import 'dart:async';
+import 'dart:typed_data';
 
 class TagHitNative {
   final String epc;
   final int rssi; // dBm
-  TagHitNative(this.epc, this.rssi);
+  final int reader; // 0 = reader bawaan
+  // sudah dihitung di hari/sesi sebelumnya (index EPC persisten native)
+  final bool counted;
+  final int? firstDay; // epoch day lokal saat pertama dihitung
+  TagHitNative(
+    this.epc,
+    this.rssi, [
+    this.reader = 0,
+    this.counted = false,
+    this.firstDay,
+  ]);
 
   factory TagHitNative.fromAny(dynamic e) {
     if (e == null) return TagHitNative('', -70);
 
     String? epc;
     int? raw;
+    int reader = 0;
+    bool counted = false;
+    int? firstDay;
 
     if (e is Map) {
       epc =
@@ -24,6 +38,9 @@ class TagHitNative {
           _asInt(e['RSSI']) ??
           _asInt(e['readRssi']) ??
           _parseRssiFromText(_asString(e['text']) ?? _asString(e['raw']));
+      reader = _asInt(e['reader']) ?? 0;
+      counted = e['counted'] == true;
+      firstDay = _asInt(e['firstDay']);
     } else if (e is String) {
       epc = _parseEpcFromText(e);
       raw = _parseRssiFromText(e);
@@ -34,7 +51,7 @@ class TagHitNative {
 
     raw ??= -70;
     final dbm = (raw > 0 && raw <= 300) ? (-90 + (raw * 60 ~/ 300)) : raw;
-    return TagHitNative(epc ?? '', dbm);
+    return TagHitNative(epc ?? '', dbm, reader, counted, firstDay);
   }
 
   static String? _asString(dynamic v) {
@@ -68,14 +85,725 @@ class TagHitNative {
   }
 }
 
+/// Batch tag hasil decode, sudah lewat gate RSSI dan diagregasi per EPC.
+class TagBatch {
+  final int rawCount; // read mentah sebelum gate/agregasi
+  final int decodeMicros;
+  final List<String> epcs;
+  final Int32List counts;
+  final Int32List rssi; // dBm, read terakhir
+  final Uint8List readers;
+  final Uint8List counted; // 1 = sudah dihitung di hari/sesi sebelumnya
+  TagBatch(
+    this.rawCount,
+    this.decodeMicros,
+    this.epcs,
+    this.counts,
+    this.rssi,
+    this.readers,
+    this.counted,
+  );
+
+  int get length => epcs.length;
+
+  List<Object> toMessage() => [
+    rawCount,
+    decodeMicros,
+    epcs,
+    counts,
+    rssi,
+    readers,
+    counted,
+  ];
+
+  factory TagBatch.fromMessage(List m) => TagBatch(
+    m[0] as int,
+    m[1] as int,
+    (m[2] as List).cast<String>(),
+    m[3] as Int32List,
+    m[4] as Int32List,
+    m[5] as Uint8List,
+    m[6] as Uint8List,
+  );
+}
+
+/// Agregasi hit per EPC untuk satu [TagBatch].
+/// Gate RSSI (dBm minimum) yang sama untuk UI isolate dan isolate decoder:
+/// longgar 4 detik pertama inventory, sesudahnya hanya tag dekat.
+int rssiGateDbm(int msSinceStart) => msSinceStart < 4000 ? -85 : -60;
+
+class TagBatchBuilder {
+  final _index = <String, int>{};
+  final _epcs = <String>[];
+  final _counts = <int>[];
+  final _rssi = <int>[];
+  final _readers = <int>[];
+  final _counted = <int>[];
+  int _raw = 0;
+
+  bool get isEmpty => _raw == 0;
+
+  /// Satu read mentah; [pass] = lolos gate RSSI.
+  void add(TagHitNative hit, bool pass) {
+    _raw++;
+    if (!pass || hit.epc.isEmpty) return;
+    final i = _index[hit.epc];
+    if (i == null) {
+      _index[hit.epc] = _epcs.length;
+      _epcs.add(hit.epc);
+      _counts.add(1);
+      _rssi.add(hit.rssi);
+      _readers.add(hit.reader);
+      _counted.add(hit.counted ? 1 : 0);
+    } else {
+      _counts[i]++;
+      _rssi[i] = hit.rssi;
+      _readers[i] = hit.reader;
+    }
+  }
+
+  TagBatch build(int decodeMicros) => TagBatch(
+    _raw,
+    decodeMicros,
+    List<String>.of(_epcs),
+    Int32List.fromList(_counts),
+    Int32List.fromList(_rssi),
+    Uint8List.fromList(_readers),
+    Uint8List.fromList(_counted),
+  );
+}
+
+/// Rakit snapshot burst native (`{snapshot, chunk, chunks, last, tags}`) jadi
+/// satu [TagBatch]; sama untuk EventChannel dan reply "awaitBatch" (isolate
+/// decoder). Builder hanya dibuka di potongan 0; potongan snapshot lama yang
+/// tersusul snapshot baru diabaikan (native mengirim sisanya lewat batch
+/// biasa).
+class SnapshotAssembler {
+  int _id = -1;
+  TagBatchBuilder? _builder;
+  int _micros = 0;
+
+  static bool isChunk(Object? e) => e is Map && e.containsKey('snapshot');
+
+  /// Tambah satu potongan; [emit] memasukkan hit ke builder (gate RSSI milik
+  /// pemanggil). Hasil: snapshot sebelumnya yang terpotong oleh potongan 0
+  /// baru, dan/atau snapshot ini bila [chunk] potongan terakhir.
+  List<TagBatch> add(
+    Map chunk,
+    void Function(TagBatchBuilder b, TagHitNative hit) emit,
+  ) {
+    final sw = Stopwatch()..start();
+    final done = <TagBatch>[];
+    final id = (chunk['snapshot'] as num?)?.toInt() ?? 0;
+    final index = (chunk['chunk'] as num?)?.toInt() ?? 0;
+    if (index == 0) {
+      final cut = flush();
+      if (cut != null) done.add(cut);
+      _id = id;
+      _builder = TagBatchBuilder();
+      _micros = 0;
+    } else if (id != _id || _builder == null) {
+      return done;
+    }
+    final b = _builder!;
+    for (final it in chunk['tags'] as List? ?? const []) {
+      emit(b, TagHitNative.fromAny(it));
+    }
+    _micros += sw.elapsedMicroseconds;
+    if (chunk['last'] == true) {
+      final whole = flush();
+      if (whole != null) done.add(whole);
+    }
+    return done;
+  }
+
+  /// Ambil snapshot yang sedang dirakit; null bila tidak ada atau kosong.
+  TagBatch? flush() {
+    final b = _builder;
+    _builder = null;
+    return b == null || b.isEmpty ? null : b.build(_micros);
+  }
+}
+
+/// Satu baris daftar "tag terdekat" (RSSI sudah dihaluskan di native).
+class ProximityEntry {
+  final String epc;
+  final double rssi; // dBm, EWMA
+  final int reads;
+  final int ageMs;
+  final int rank;
+  ProximityEntry(this.epc, this.rssi, this.reads, this.ageMs, this.rank);
+
+  factory ProximityEntry.fromMap(Map m) => ProximityEntry(
+    '${m['epc'] ?? ''}',
+    (m['rssi'] as num?)?.toDouble() ?? -90,
+    (m['reads'] as num?)?.toInt() ?? 0,
+    (m['ageMs'] as num?)?.toInt() ?? 0,
+    (m['rank'] as num?)?.toInt() ?? 0,
+  );
+}
+
+/// Event mode portal: satu per tag saat lintasannya selesai.
+class PortalEvent {
+  final String epc;
+  final String event; // passed-in | passed-out | passed | stayed
+  final int atMs; // epoch ms
+  final int spanMs;
+  final int reads;
+  final int outsideReads;
+  final int insideReads;
+  final double confidence; // 0..1, jarak waktu puncak luar vs dalam
+  PortalEvent(
+    this.epc,
+    this.event,
+    this.atMs,
+    this.spanMs,
+    this.reads,
+    this.outsideReads,
+    this.insideReads,
+    this.confidence,
+  );
+
+  factory PortalEvent.fromMap(Map m) => PortalEvent(
+    '${m['epc'] ?? ''}',
+    '${m['event'] ?? 'passed'}',
+    (m['atMs'] as num?)?.toInt() ?? 0,
+    (m['spanMs'] as num?)?.toInt() ?? 0,
+    (m['reads'] as num?)?.toInt() ?? 0,
+    (m['outsideReads'] as num?)?.toInt() ?? 0,
+    (m['insideReads'] as num?)?.toInt() ?? 0,
+    (m['confidence'] as num?)?.toDouble() ?? 0,
+  );
+}
+
+/// Sample mode locate (Geiger), dikirim native 20–50 Hz.
+class LocateSample {
+  final String epc;
+  final bool hit; // ada read sejak sample sebelumnya
+  final int reads;
+  final int rssi; // dBm, read terakhir
+  final double smooth; // dBm, Kalman
+  final int proximity; // 0..100
+  final int ageMs;
+  LocateSample(
+    this.epc,
+    this.hit,
+    this.reads,
+    this.rssi,
+    this.smooth,
+    this.proximity,
+    this.ageMs,
+  );
+
+  factory LocateSample.fromMap(Map m) => LocateSample(
+    '${m['epc'] ?? ''}',
+    m['hit'] == true,
+    (m['reads'] as num?)?.toInt() ?? 0,
+    (m['rssi'] as num?)?.toInt() ?? -90,
+    (m['smooth'] as num?)?.toDouble() ?? -90,
+    (m['proximity'] as num?)?.toInt() ?? 0,
+    (m['ageMs'] as num?)?.toInt() ?? -1,
+  );
+}
+
+/// Hasil baca memori satu tag.
+class MemoryReadResult {
+  final String epc;
+  final bool ok;
+  final String? data; // hex
+  final String? error;
+  final int attempts;
+  final int ms;
+  MemoryReadResult(
+    this.epc,
+    this.ok,
+    this.data,
+    this.error,
+    this.attempts,
+    this.ms,
+  );
+
+  factory MemoryReadResult.fromMap(Map m) => MemoryReadResult(
+    '${m['epc'] ?? ''}',
+    m['ok'] == true,
+    m['data'] as String?,
+    m['error'] as String?,
+    (m['attempts'] as num?)?.toInt() ?? 0,
+    (m['ms'] as num?)?.toInt() ?? 0,
+  );
+}
+
+/// Event job readMemory: batch hasil, atau ringkasan saat [done].
+class MemoryReadEvent {
+  final int job;
+  final List<MemoryReadResult> results;
+  final bool done;
+  final Map summary;
+  MemoryReadEvent(this.job, this.results, this.done, this.summary);
+
+  factory MemoryReadEvent.fromMap(Map m) => MemoryReadEvent(
+    (m['job'] as num?)?.toInt() ?? 0,
+    [
+      for (final it in (m['results'] as List? ?? const []))
+        if (it is Map) MemoryReadResult.fromMap(it),
+    ],
+    m['done'] == true,
+    m,
+  );
+}
+
+class TagRow {
+  final String epc;
+  int count;
+  int lastRssi;
+  DateTime lastSeen;
+  TagRow({
+    required this.epc,
+    required this.count,
+    required this.lastRssi,
+    required this.lastSeen,
+  });
+
+  factory TagRow.fromMap(Map m) => TagRow(
+    epc: '${m['epc'] ?? ''}',
+    count: (m['count'] as num?)?.toInt() ?? 0,
+    lastRssi: (m['rssi'] as num?)?.toInt() ?? -90,
+    lastSeen: DateTime.fromMillisecondsSinceEpoch(
+      (m['lastSeen'] as num?)?.toInt() ?? 0,
+    ),
+  );
+}
+
+/// Hasil satu tag job [UhfAdapter.commission].
+class CommissionResult {
+  final String epc; // EPC yang ditulis
+  final String from; // EPC kosong asal
+  final String? tid; // TID tag (select write/verify/lock)
+  final bool ok;
+  final String? stage; // write / verify / lock bila gagal
+  final String? error;
+  // gagal tapi write mungkin sudah masuk: EPC ini tidak dipakai lagi
+  final bool indeterminate;
+  final int attempts;
+  final int ms;
+  CommissionResult(
+    this.epc,
+    this.from,
+    this.tid,
+    this.ok,
+    this.stage,
+    this.error,
+    this.indeterminate,
+    this.attempts,
+    this.ms,
+  );
+
+  factory CommissionResult.fromMap(Map m) => CommissionResult(
+    '${m['epc'] ?? ''}',
+    '${m['from'] ?? ''}',
+    m['tid'] as String?,
+    m['ok'] == true,
+    m['stage'] as String?,
+    m['error'] as String?,
+    m['indeterminate'] == true,
+    (m['attempts'] as num?)?.toInt() ?? 0,
+    (m['ms'] as num?)?.toInt() ?? 0,
+  );
+}
+
+/// Event job commissioning: batch hasil, atau ringkasan saat [done]
+/// (`ok`, `failed`, `remaining`, `indeterminate` (EPC yang dipensiunkan),
+/// `noTid`, `stop`, `tagsPerMin`).
+class CommissionEvent {
+  final int job;
+  final List<CommissionResult> results;
+  final bool done;
+  final Map summary;
+  CommissionEvent(this.job, this.results, this.done, this.summary);
+
+  factory CommissionEvent.fromMap(Map m) => CommissionEvent(
+    (m['job'] as num?)?.toInt() ?? 0,
+    [
+      for (final it in (m['results'] as List? ?? const []))
+        if (it is Map) CommissionResult.fromMap(it),
+    ],
+    m['done'] == true,
+    m,
+  );
+}
+
+/// Progress / hasil job [UhfAdapter.diffSessions] (channel "uhf/diff").
+class SessionDiffEvent {
+  final int job;
+  final int processed; // record A + B yang sudah dibaca
+  final int total;
+  final bool done;
+  final String? error;
+  final Map summary; // added, removed, changed, same, dir, ms
+  SessionDiffEvent(
+    this.job,
+    this.processed,
+    this.total,
+    this.done,
+    this.error,
+    this.summary,
+  );
+
+  factory SessionDiffEvent.fromMap(Map m) => SessionDiffEvent(
+    (m['job'] as num?)?.toInt() ?? 0,
+    (m['processed'] as num?)?.toInt() ?? 0,
+    (m['total'] as num?)?.toInt() ?? 0,
+    m['done'] == true,
+    m['error'] as String?,
+    m,
+  );
+}
+
+/// Satu halaman tabel tag native ([UhfAdapter.queryRows]).
+class TagPage {
+  final int total; // baris yang cocok filter
+  final int offset;
+  final int version; // naik tiap read; sama = tidak ada perubahan
+  final int uniqueTags;
+  final int totalHits;
+  final List<TagRow> rows;
+  TagPage(
+    this.total,
+    this.offset,
+    this.version,
+    this.uniqueTags,
+    this.totalHits,
+    this.rows,
+  );
+
+  static final empty = TagPage(0, 0, 0, 0, 0, const []);
+
+  factory TagPage.fromMap(Map m) => TagPage(
+    (m['total'] as num?)?.toInt() ?? 0,
+    (m['offset'] as num?)?.toInt() ?? 0,
+    (m['version'] as num?)?.toInt() ?? 0,
+    (m['uniqueTags'] as num?)?.toInt() ?? 0,
+    (m['totalHits'] as num?)?.toInt() ?? 0,
+    [
+      for (final it in (m['rows'] as List? ?? const []))
+        if (it is Map) TagRow.fromMap(it),
+    ],
+  );
+}
+
+/// Deret read per detik satu EPC ([UhfAdapter.tagSeries]).
+class TagSeries {
+  final String epc;
+  final int firstSeen; // epoch ms
+  final int lastSeen;
+  final int visitStart; // awal kunjungan terakhir (hilang > 3 dtk = kunjungan baru)
+  final int visits;
+  final int totalReads;
+  final int startSec; // epoch detik untuk counts[0]
+  final List<int> counts;
+  final List<int?> meanRssi; // null = tidak ada read di detik itu
+  TagSeries(
+    this.epc,
+    this.firstSeen,
+    this.lastSeen,
+    this.visitStart,
+    this.visits,
+    this.totalReads,
+    this.startSec,
+    this.counts,
+    this.meanRssi,
+  );
+
+  /// Lama terlihat di kunjungan terakhir.
+  Duration get dwell => Duration(milliseconds: lastSeen - visitStart);
+
+  int get peakRate => counts.fold(0, (a, b) => b > a ? b : a);
+
+  factory TagSeries.fromMap(Map m) => TagSeries(
+    (m['epc'] ?? '').toString(),
+    (m['firstSeen'] as num?)?.toInt() ?? 0,
+    (m['lastSeen'] as num?)?.toInt() ?? 0,
+    (m['visitStart'] as num?)?.toInt() ?? 0,
+    (m['visits'] as num?)?.toInt() ?? 0,
+    (m['totalReads'] as num?)?.toInt() ?? 0,
+    (m['startSec'] as num?)?.toInt() ?? 0,
+    [for (final c in (m['counts'] as List? ?? const [])) (c as num).toInt()],
+    [for (final r in (m['meanRssi'] as List? ?? const [])) (r as num?)?.toInt()],
+  );
+}
+
+/// Status kesiapan reader (prewarm native saat launch).
+class ReaderStatus {
+  final String state; // warming | ready | failed
+  final int elapsedMs;
+  final Map steps; // durasi per langkah prewarm (ms)
+  final String? error;
+  ReaderStatus(this.state, this.elapsedMs, this.steps, this.error);
+
+  bool get ready => state == 'ready';
+
+  factory ReaderStatus.fromMap(Map m) => ReaderStatus(
+    '${m['state'] ?? 'warming'}',
+    (m['elapsedMs'] as num?)?.toInt() ?? 0,
+    m['steps'] as Map? ?? const {},
+    m['error'] as String?,
+  );
+}
+
 abstract class UhfAdapter {
   Stream<TagHitNative> get stream;
 
+  /// Batch teragregasi per EPC (satu event per batch native).
+  Stream<TagBatch> get batches;
+
+  /// Waktu UI isolate untuk decode/filter tag: tags, uiMicros,
+  /// uiMicrosPer1000Tags, workerMicrosPer1000Tags, isolate (0/1).
+  Map<String, num> decodeStats();
+
+  /// Perubahan status kesiapan reader.
+  Stream<ReaderStatus> get status;
+
+  /// Top-K terdekat, dikirim native dengan laju tetap selama proximity aktif.
+  Stream<List<ProximityEntry>> get proximity;
+
+  /// Event arah per tag selama mode portal aktif.
+  Stream<List<PortalEvent>> get portalEvents;
+
+  /// Sample RSSI EPC target selama [locateTag] aktif.
+  Stream<LocateSample> get locate;
+
+  /// Hasil job [readMemory], per batch.
+  Stream<MemoryReadEvent> get memoryReads;
+
+  /// Progress dan hasil akhir job [diffSessions].
+  Stream<SessionDiffEvent> get sessionDiffs;
+
+  /// Hasil job [commission], per batch.
+  Stream<CommissionEvent> get commissionEvents;
+
   /// fullScan=true -> native kumpulkan EPC selama [fullScanMs] lalu kirim 1 batch besar
   Future<void> startInventory({bool fullScan = false, int fullScanMs = 1800});
   Future<void> stopInventory();
   Future<void> dispose();
   Future<void> setPower(int dbm);
+
+  /// Auto power: cari power terendah (5..30 dBm) yang memenuhi [target] per
+  /// jendela [windowMs], stabil [stableWindows] jendela.
+  /// [mode] 'rate' = EPC unik/detik, 'coverage' = porsi [manifest] (0..1).
+  /// [setPower] manual mematikan auto power.
+  Future<Map<String, dynamic>?> setAutoPower(
+    bool enabled, {
+    String mode = 'rate',
+    double target = 20,
+    int windowMs = 500,
+    int stableWindows = 3,
+    List<String>? manifest,
+  });
+
+  /// power terpilih (`chosenPower`), rate-nya, dan state pencarian.
+  Future<Map<String, dynamic>?> autoPower();
   Future<void> setBeepEnabled(bool enabled);
   Future<void> setVibrateEnabled(bool enabled);
+
+  Future<void> startProximity({int topK = 10, double hz = 5, double alpha = 0.3});
+  Future<void> stopProximity();
+
+  /// Mode portal (dock door). Reader [outsideReader] = sisi luar,
+  /// [insideReader] = sisi dalam (id dari [addReader], 0 = bawaan); satu
+  /// reader saja -> event 'passed' tanpa arah. Lintasan selesai setelah tag
+  /// tidak terbaca [exitGapMs]; masih terbaca setelah [stayMs] = 'stayed'.
+  Future<void> startPortal({
+    int outsideReader = 0,
+    int insideReader = 1,
+    int exitGapMs = 1500,
+    int stayMs = 8000,
+  });
+  Future<void> stopPortal();
+
+  /// Cari satu EPC: native pasang Select mask/S0 dan stream RSSI [hz] kali/detik.
+  Future<void> locateTag(String epc, {double hz = 30});
+  Future<void> stopLocate();
+
+  /// Baca bank memori ([bank]: tid/user/epc/reserved) untuk [epcs], atau
+  /// semua EPC sesi ini bila null. Return id job.
+  Future<int> readMemory({
+    List<String>? epcs,
+    String bank = 'tid',
+    int wordPtr = 0,
+    int words = 6,
+    int retries = 2,
+    int timeoutMs = 300,
+  });
+  Future<void> cancelMemoryRead(int job);
+
+  /// Tulis [epcs] (urut antrian) ke tag kosong berawalan [blankPrefix]
+  /// (wajib, hex, kecuali simulasi): write, baca balik PC + EPC lewat TID,
+  /// lalu lock bila [lock] (wajib [accessPwd] selain "00000000"). [window] =
+  /// tag per ronde singulasi; EPC yang gagal kembali ke antrian hanya bila
+  /// tag terbukti masih kosong, selain itu ditandai `indeterminate`.
+  /// [simulate] = conveyor tiruan tanpa hardware. Inventory harus berjalan
+  /// (kecuali simulasi). Return id job; argumen salah -> `BAD_ARGS`.
+  Future<int> commission(
+    List<String> epcs, {
+    String? blankPrefix,
+    bool lock = false,
+    String? accessPwd,
+    int retries = 2,
+    int window = 8,
+    bool simulate = false,
+  });
+  Future<void> cancelCommission(int job);
+
+  /// Reset tabel tag sesi di native.
+  Future<void> clearSession();
+
+  /// Halaman tabel tag sesi, urut [sortKey] (lastSeen/count/rssi turun,
+  /// epc naik); [filter] = potongan EPC.
+  Future<TagPage> queryRows({
+    int offset = 0,
+    int limit = 100,
+    String sortKey = 'lastSeen',
+    String? filter,
+  });
+  Future<Map<String, dynamic>> getStats();
+
+  /// Strategi session/target: 'fast-small' (S0, target A), 'dense-stocktake'
+  /// (S2, balik A/B saat penemuan macet), 'portal' (S1, balik cepat).
+  /// Parameter opsional menimpa nilai preset. Sesi yang dipasang lewat
+  /// [configureReader] (reader 0) tetap menang atas sesi strategi; sesi yang
+  /// benar-benar dipakai ada di `appliedSession`. Return konfigurasi aktif.
+  Future<Map<String, dynamic>> setStrategy(
+    String preset, {
+    int? session,
+    bool? dualTarget,
+    int? stallWindowMs,
+    int? minDwellMs,
+    int? maxDwellMs,
+    double? stallRatio,
+  });
+
+  /// Yield per kanal frekuensi: `channels` (reads, newEpcs, avgRssi, dwellMs,
+  /// yieldPerSec, excluded per kanal), `bootstrapChannel`, `unattributed`.
+  Future<Map<String, dynamic>> channelStats();
+  Future<void> resetChannelStats();
+
+  /// Rekam objek mentah dari drain/callback ke file trace (gzip).
+  /// [path] null = `files/traces/trace-<ms>.uhfr`. Return path file.
+  Future<String> startRecording({String? path});
+
+  /// Tutup trace; return `path`, `records`, `rawBytes`, `fileBytes`
+  /// (null bila tidak sedang merekam).
+  Future<Map<String, dynamic>?> stopRecording();
+
+  /// Putar ulang trace lewat pipeline tag native. [speed] 1 = waktu asli,
+  /// N = N kali lebih cepat, 0 = secepatnya. Selesai setelah trace habis:
+  /// `records`, `traceMs`, `wallMs`, `recordsPerSec`, `maxLagMs`,
+  /// `sessionTags`, `ttftMs`.
+  Future<Map<String, dynamic>> replayTrace(String path, {double speed = 1});
+  Future<void> cancelReplay();
+
+  /// Deret read per detik satu EPC (60 detik terakhir ia terlihat), atau null
+  /// bila EPC tidak dilacak (belum terbaca / tergusur LRU).
+  Future<TagSeries?> tagSeries(String epc);
+
+  /// Index EPC persisten lintas hari/sesi: `count`, `capacity`, `fileBytes`,
+  /// `session`, `full`, `avgProbes` (null bila index gagal dibuka).
+  Future<Map<String, dynamic>?> seenIndexStats();
+
+  /// Lupakan semua EPC yang pernah dihitung (semua read jadi baru lagi).
+  Future<void> resetSeenIndex();
+
+  /// Upload hasil per EPC ke [url] (POST JSON gzip, header `X-Chunk-Id`).
+  /// Chunk disimpan di disk sampai dijawab 2xx dan dikirim ulang di launch
+  /// berikutnya; [url] null = matikan. Return [uploadStats].
+  Future<Map<String, dynamic>?> configureUpload({
+    String? url,
+    int batchTags = 500,
+    int maxAgeMs = 5000,
+    int concurrency = 2,
+    int maxQueueMb = 64,
+    Map<String, String>? headers,
+  });
+
+  /// Ukur beban main thread Android (frame, message looper, push) selama
+  /// inventory; hasil di `getStats()['main']`. Default mati (ada biaya per vsync).
+  Future<void> setMainThreadMeter(bool enabled);
+
+  /// Watchdog stall (default hidup): modul diam di tengah sesi -> flip
+  /// target, inventoryReset, stop/start, buka ulang serial, power cycle.
+  /// Buka ulang serial & power cycle hanya bila modul tidak menjawab query
+  /// (field kosong dengan modul hidup tidak memicu power cycle).
+  Future<void> setWatchdog(bool enabled);
+
+  /// `stalls`, `recovered`, `unresolved`, `lostMs`, `activeMs`, `lostRatio`,
+  /// `steps` (attempts/fixed/tookMs per langkah), `history`. [reset] = mulai
+  /// hitungan baru setelah dibaca (mis. pergantian shift).
+  Future<Map<String, dynamic>> watchdogStats({bool reset = false});
+
+  /// Simpan read sejak [clearSession] / save terakhir ke file sesi [name]
+  /// (urut EPC, di native). Read berikutnya masuk sesi baru.
+  /// Return `name`, `tags`, `reads`, `ms`.
+  Future<Map<String, dynamic>> saveSession(String name);
+
+  /// `name`, `tags`, `bytes`, `modified` per file sesi.
+  Future<List<Map<String, dynamic>>> listSessions();
+
+  Future<bool> deleteSession(String name);
+
+  /// Mulai diff sesi [a] (lama) vs [b] (baru) di background; return id job,
+  /// progress lewat [sessionDiffs]. Changed = selisih RSSI puncak >=
+  /// [rssiDelta] dB atau selisih count >= [countDelta] (0 = tidak dicek).
+  Future<int> diffSessions(String a, String b, {int rssiDelta = 6, int countDelta = 0});
+
+  /// Halaman hasil diff; [kind] = `added` | `removed` | `changed`.
+  /// Baris `epc`, `count`, `rssi` (changed: `countA/B`, `rssiA/B`).
+  Future<Map<String, dynamic>> diffPage(
+    String a,
+    String b,
+    String kind, {
+    int offset = 0,
+    int limit = 200,
+  });
+
+  /// Pilih backend reader: `aar` (SDK vendor, default) atau `serial`
+  /// (protokol modul langsung ke [node], mis. `/dev/ttyS4`; kosong = probe).
+  /// Hanya saat inventory berhenti. Return `backend`, `node`, `version`.
+  Future<Map<String, dynamic>> setBackend(String backend, {String? node, int? baud});
+
+  /// Tutup batch berjalan dan kirim ulang chunk yang sedang backoff.
+  Future<void> flushUpload();
+
+  /// `queuedChunks`, `queuedBytes`, `inFlight`, `sentChunks`, `sentTags`,
+  /// `bytesPerTag`, `retries`, `dead`, `dropped`, `lastStatus`, `lastError`.
+  Future<Map<String, dynamic>?> uploadStats();
+
+  /// Status terakhir (untuk listener yang datang setelah prewarm selesai).
+  Future<ReaderStatus?> readerStatus();
+
+  /// Engine native hidup di foreground service, lebih lama dari UI: setelah
+  /// activity dibuat ulang, cek apakah inventory masih jalan (tanpa start
+  /// ulang). `running`, `powered`, `warm`, `uptimeMs`, `attaches`,
+  /// `sessionTags`, `backlog`, `foreground` (false = service tidak foreground,
+  /// engine bisa dibunuh sistem) dan `foregroundError`.
+  Future<Map<String, dynamic>?> engineState();
+
+  /// Pindah transport tag ke ring memori bersama (dart:ffi); false bila
+  /// library native tidak ada, transport tetap EventChannel.
+  Future<bool> enableSharedRing({int capacity = 8192});
+  Future<void> disableSharedRing();
+
+  /// Tambah reader serial/USB kedua; [baud] 0 = coba semua. Return id reader.
+  Future<int> addReader(
+    String node, {
+    int baud = 0,
+    int? power,
+    int? q,
+    int? session,
+  });
+  Future<void> removeReader(int id);
+
+  /// Atur power/Q/session per reader (id 0 = reader bawaan, q < 0 = adaptive).
+  /// Session reader 0 dipertahankan walau strategi berganti; session < 0 =
+  /// kembali ke session preset [setStrategy].
+  Future<void> configureReader(int id, {int? power, int? q, int? session});
 }
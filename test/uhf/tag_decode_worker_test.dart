@@ -0,0 +1,65 @@
+import 'package:flutter_test/flutter_test.dart';
+
+import 'package:rfid_03/uhf/tag_decode_worker.dart';
+
+// reply "awaitBatch" seperti dikirim native (mode isolate decoder)
+Map<String, Object> tag(int i, [int rssi = -50]) => {
+  'epc': 'E2000000${i.toRadixString(16).padLeft(4, '0').toUpperCase()}',
+  'rssi': rssi,
+};
+
+Map<String, Object> chunk(int id, int index, int chunks, List<int> tags) => {
+  'snapshot': id,
+  'chunk': index,
+  'chunks': chunks,
+  'last': index == chunks - 1,
+  'tags': [for (final i in tags) tag(i)],
+};
+
+void main() {
+  const gate = -60;
+
+  test('plain reply is one batch, gated by RSSI', () {
+    final d = BatchReplyDecoder();
+    final out = d.decode([tag(1), tag(2), tag(2), tag(3, -80)], gate);
+    expect(out, hasLength(1));
+    expect(out.single.rawCount, 4);
+    expect(out.single.epcs, [tag(1)['epc'], tag(2)['epc']]);
+    expect(out.single.counts.toList(), [1, 2]);
+    expect(d.decode(<Object>[], gate), isEmpty);
+    expect(d.decode(null, gate), isEmpty);
+  });
+
+  test('snapshot chunks assemble into one batch at the last chunk', () {
+    final d = BatchReplyDecoder();
+    expect(d.decode(chunk(1, 0, 3, [0, 1, 2]), gate), isEmpty);
+    // batch biasa boleh menyela di antara potongan
+    final plain = d.decode([tag(100)], gate);
+    expect(plain.single.epcs, [tag(100)['epc']]);
+    expect(d.decode(chunk(1, 1, 3, [3, 4]), gate), isEmpty);
+    final done = d.decode(chunk(1, 2, 3, [5]), gate);
+    expect(done, hasLength(1));
+    expect(done.single.rawCount, 6);
+    expect(done.single.length, 6);
+  });
+
+  test('newer snapshot flushes the cut one and drops its stale chunks', () {
+    final d = BatchReplyDecoder();
+    expect(d.decode(chunk(1, 0, 3, [0, 1]), gate), isEmpty);
+    // burst berikut datang sebelum snapshot 1 selesai
+    final cut = d.decode(chunk(2, 0, 2, [10, 11, 12]), gate);
+    expect(cut.single.length, 2);
+    expect(d.decode(chunk(1, 1, 3, [2]), gate), isEmpty);
+    expect(d.decode(chunk(1, 2, 3, [3]), gate), isEmpty);
+    final done = d.decode(chunk(2, 1, 2, [13]), gate);
+    expect(done.single.epcs, [
+      for (final i in [10, 11, 12, 13]) tag(i)['epc'],
+    ]);
+  });
+
+  test('chunk without its first chunk is ignored', () {
+    final d = BatchReplyDecoder();
+    expect(d.decode(chunk(7, 1, 2, [0, 1]), gate), isEmpty);
+    expect(d.decode(chunk(8, 0, 1, [2]), gate).single.length, 1);
+  });
+}